@@ -111,6 +111,20 @@ public class GlideRequest<TranscodeType> extends RequestBuilder<TranscodeType> i
     return this;
   }
 
+  /**
+   * @see GlideOptions#useProgressivePreviews(boolean)
+   */
+  @NonNull
+  @CheckResult
+  public GlideRequest<TranscodeType> useProgressivePreviews(boolean flag) {
+    if (getMutableOptions() instanceof GlideOptions) {
+      this.requestOptions = ((GlideOptions) getMutableOptions()).useProgressivePreviews(flag);
+    } else {
+      this.requestOptions = new GlideOptions().apply(this.requestOptions).useProgressivePreviews(flag);
+    }
+    return this;
+  }
+
   /**
    * @see GlideOptions#onlyRetrieveFromCache(boolean)
    */
@@ -313,6 +313,13 @@ public final class GlideOptions extends RequestOptions implements Cloneable {
     return (GlideOptions) super.useAnimationPool(flag);
   }
 
+  @Override
+  @NonNull
+  @CheckResult
+  public final GlideOptions useProgressivePreviews(boolean flag) {
+    return (GlideOptions) super.useProgressivePreviews(flag);
+  }
+
   @Override
   @NonNull
   @CheckResult
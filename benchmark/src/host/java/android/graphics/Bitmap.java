@@ -0,0 +1,101 @@
+package android.graphics;
+
+import java.util.Arrays;
+
+/**
+ * A host implementation of the parts of {@code android.graphics.Bitmap} used by the pure Java
+ * decoders, backed by an {@code int[]} of ARGB pixels.
+ */
+public final class Bitmap {
+  private final int width;
+  private final int height;
+  private final Config config;
+  private final int[] pixels;
+  private boolean hasAlpha;
+  private boolean isRecycled;
+
+  private Bitmap(int width, int height, Config config) {
+    this.width = width;
+    this.height = height;
+    this.config = config;
+    pixels = new int[width * height];
+  }
+
+  public static Bitmap createBitmap(int width, int height, Config config) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("width and height must be > 0");
+    }
+    return new Bitmap(width, height, config);
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public Config getConfig() {
+    return config;
+  }
+
+  public boolean hasAlpha() {
+    return hasAlpha;
+  }
+
+  public void setHasAlpha(boolean hasAlpha) {
+    this.hasAlpha = hasAlpha;
+  }
+
+  public boolean isMutable() {
+    return true;
+  }
+
+  public boolean isRecycled() {
+    return isRecycled;
+  }
+
+  public void recycle() {
+    isRecycled = true;
+  }
+
+  public int getByteCount() {
+    return pixels.length * 4;
+  }
+
+  public int getAllocationByteCount() {
+    return getByteCount();
+  }
+
+  public void eraseColor(int color) {
+    Arrays.fill(pixels, color);
+  }
+
+  public int getPixel(int x, int y) {
+    return pixels[y * width + x];
+  }
+
+  public void getPixels(int[] dest, int offset, int stride, int x, int y, int width, int height) {
+    for (int row = 0; row < height; row++) {
+      System.arraycopy(
+          pixels, (y + row) * this.width + x, dest, offset + row * stride, width);
+    }
+  }
+
+  public void setPixels(int[] src, int offset, int stride, int x, int y, int width, int height) {
+    for (int row = 0; row < height; row++) {
+      System.arraycopy(
+          src, offset + row * stride, pixels, (y + row) * this.width + x, width);
+    }
+  }
+
+  public enum Config {
+    ALPHA_8,
+    RGB_565,
+    ARGB_4444,
+    ARGB_8888,
+    RGBA_F16,
+    HARDWARE,
+  }
+}
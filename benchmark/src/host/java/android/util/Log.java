@@ -0,0 +1,66 @@
+package android.util;
+
+/**
+ * A host implementation of {@code android.util.Log} that drops all messages so that logging
+ * guarded by {@link #isLoggable(String, int)} costs what it does on a device with logging disabled.
+ */
+public final class Log {
+  public static final int VERBOSE = 2;
+  public static final int DEBUG = 3;
+  public static final int INFO = 4;
+  public static final int WARN = 5;
+  public static final int ERROR = 6;
+  public static final int ASSERT = 7;
+
+  private Log() {
+    // Utility class.
+  }
+
+  public static boolean isLoggable(String tag, int level) {
+    return false;
+  }
+
+  public static int v(String tag, String msg) {
+    return 0;
+  }
+
+  public static int v(String tag, String msg, Throwable tr) {
+    return 0;
+  }
+
+  public static int d(String tag, String msg) {
+    return 0;
+  }
+
+  public static int d(String tag, String msg, Throwable tr) {
+    return 0;
+  }
+
+  public static int i(String tag, String msg) {
+    return 0;
+  }
+
+  public static int i(String tag, String msg, Throwable tr) {
+    return 0;
+  }
+
+  public static int w(String tag, String msg) {
+    return 0;
+  }
+
+  public static int w(String tag, String msg, Throwable tr) {
+    return 0;
+  }
+
+  public static int w(String tag, Throwable tr) {
+    return 0;
+  }
+
+  public static int e(String tag, String msg) {
+    return 0;
+  }
+
+  public static int e(String tag, String msg, Throwable tr) {
+    return 0;
+  }
+}
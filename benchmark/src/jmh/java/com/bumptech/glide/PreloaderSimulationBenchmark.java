@@ -0,0 +1,479 @@
+package com.bumptech.glide;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays {@link ScrollTrace}s through simulations of {@link ListPreloader} and
+ * {@link AdaptiveListPreloader} to compare how many items are loaded before they become visible
+ * and how many loads are wasted.
+ *
+ * <p>Neither preloader can run on the host, so the simulation mirrors how each one decides what to
+ * preload and clear, using {@link PreloadWindowEstimator} for the adaptive preloader. Each item
+ * takes a fixed, randomly drawn time to load. Loads run on {@link #LOAD_THREADS} threads in order
+ * of {@link Priority}, and finished loads are kept in a memory cache of {@link #CACHE_ITEMS}
+ * items.
+ * An item that becomes visible is requested with {@link Priority#IMMEDIATE}, or joins the load
+ * already in progress, the way {@link com.bumptech.glide.load.engine.Engine} joins jobs for the
+ * same key.
+ *
+ * <p>Throughput is reported as replays of the whole trace per second. The {@code hits} and
+ * {@code misses} secondary results count the items that were and weren't loaded when they became
+ * visible, the hit ratio is {@code hits / (hits + misses)}. {@code wastedLoads} counts loads that
+ * ran but whose item was cleared, evicted or never shown before the trace ended.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PreloaderSimulationBenchmark {
+  private static final int VISIBLE_COUNT = 6;
+  private static final int LOAD_THREADS = 4;
+  private static final int CACHE_ITEMS = 60;
+  private static final double MEDIAN_LOAD_TIME_MS = 80;
+  /** The standard deviation of the log of load times, so a few loads take several times longer. */
+  private static final double LOAD_TIME_SIGMA = 0.6;
+  /** How long after the last scroll event the list is considered idle. */
+  private static final long IDLE_DELAY_MS = 100;
+  private static final long SEED = 0x5eed;
+
+  @State(Scope.Benchmark)
+  public static class TraceState {
+    @Param({"slow", "fling", "reversals"})
+    public String trace;
+
+    @Param({"fixed", "adaptive"})
+    public String preloader;
+
+    @Param({"4"})
+    public int minPreload;
+
+    @Param({"30"})
+    public int maxPreload;
+
+    ScrollTrace scrollTrace;
+    long[] loadTimesMs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      scrollTrace = ScrollTrace.forName(trace);
+      // Long enough that the end of the list doesn't limit preloading.
+      int itemCount = scrollTrace.getMaxPosition() + VISIBLE_COUNT + maxPreload;
+      Random random = new Random(SEED);
+      loadTimesMs = new long[itemCount];
+      for (int i = 0; i < itemCount; i++) {
+        loadTimesMs[i] =
+            Math.round(MEDIAN_LOAD_TIME_MS * Math.exp(LOAD_TIME_SIGMA * random.nextGaussian()));
+      }
+    }
+
+    Policy newPolicy() {
+      if ("fixed".equals(preloader)) {
+        return new FixedPolicy(maxPreload);
+      } else if ("adaptive".equals(preloader)) {
+        return new AdaptivePolicy(minPreload, maxPreload);
+      }
+      throw new IllegalArgumentException("Unknown preloader: " + preloader);
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long hits;
+    public long misses;
+    public long wastedLoads;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      hits = 0;
+      misses = 0;
+      wastedLoads = 0;
+    }
+  }
+
+  @Benchmark
+  public int replay(TraceState state, Counters counters) {
+    Simulation simulation = new Simulation(state.loadTimesMs, state.newPolicy());
+    simulation.replay(state.scrollTrace);
+    counters.hits += simulation.hits;
+    counters.misses += simulation.misses;
+    counters.wastedLoads += simulation.wastedLoads;
+    return simulation.hits;
+  }
+
+  private interface Policy {
+    void onScroll(Simulation simulation, int firstVisible, int itemCount);
+
+    void onIdle();
+
+    void onPreloadFinished(long durationMs);
+  }
+
+  /** Mirrors {@link ListPreloader}. */
+  private static final class FixedPolicy implements Policy {
+    private final int maxPreload;
+    /** The positions loaded into each of the preloader's reused targets, or -1. */
+    private final int[] targetPositions;
+    private int nextTarget;
+    private int lastEnd;
+    private int lastStart;
+    private int lastFirstVisible = -1;
+    private int totalItemCount;
+    private boolean isIncreasing = true;
+
+    FixedPolicy(int maxPreload) {
+      this.maxPreload = maxPreload;
+      targetPositions = new int[maxPreload + 1];
+      for (int i = 0; i < targetPositions.length; i++) {
+        targetPositions[i] = -1;
+      }
+    }
+
+    @Override
+    public void onScroll(Simulation simulation, int firstVisible, int itemCount) {
+      totalItemCount = itemCount;
+      if (firstVisible > lastFirstVisible) {
+        preload(simulation, firstVisible + VISIBLE_COUNT, true);
+      } else if (firstVisible < lastFirstVisible) {
+        preload(simulation, firstVisible, false);
+      }
+      lastFirstVisible = firstVisible;
+    }
+
+    private void preload(Simulation simulation, int start, boolean increasing) {
+      if (isIncreasing != increasing) {
+        isIncreasing = increasing;
+        for (int i = 0; i < maxPreload; i++) {
+          clearNextTarget(simulation);
+        }
+      }
+      int from = start;
+      int to = start + (increasing ? maxPreload : -maxPreload);
+      int first;
+      int end;
+      if (from < to) {
+        first = Math.max(lastEnd, from);
+        end = to;
+      } else {
+        first = to;
+        end = Math.min(lastStart, from);
+      }
+      end = Math.min(totalItemCount, end);
+      first = Math.min(totalItemCount, Math.max(0, first));
+      if (from < to) {
+        for (int i = first; i < end; i++) {
+          preloadItem(simulation, i);
+        }
+      } else {
+        for (int i = end - 1; i >= first; i--) {
+          preloadItem(simulation, i);
+        }
+      }
+      lastStart = first;
+      lastEnd = end;
+    }
+
+    private void preloadItem(Simulation simulation, int position) {
+      int target = clearNextTarget(simulation);
+      targetPositions[target] = position;
+      simulation.preload(position, Priority.NORMAL);
+    }
+
+    private int clearNextTarget(Simulation simulation) {
+      int target = nextTarget;
+      nextTarget = (nextTarget + 1) % targetPositions.length;
+      if (targetPositions[target] != -1) {
+        simulation.clear(targetPositions[target]);
+        targetPositions[target] = -1;
+      }
+      return target;
+    }
+
+    @Override
+    public void onIdle() {
+      // Do nothing.
+    }
+
+    @Override
+    public void onPreloadFinished(long durationMs) {
+      // Do nothing.
+    }
+  }
+
+  /** Mirrors {@link AdaptiveListPreloader}. */
+  private static final class AdaptivePolicy implements Policy {
+    private final PreloadWindowEstimator estimator;
+    private final Set<Integer> preloadedPositions = new HashSet<>();
+    private int lastFirstVisible = -1;
+    private boolean isIncreasing = true;
+
+    AdaptivePolicy(int minPreload, int maxPreload) {
+      estimator = new PreloadWindowEstimator(minPreload, maxPreload);
+    }
+
+    @Override
+    public void onScroll(Simulation simulation, int firstVisible, int itemCount) {
+      estimator.onScroll(firstVisible, simulation.timeMs);
+      if (firstVisible > lastFirstVisible) {
+        isIncreasing = true;
+      } else if (firstVisible < lastFirstVisible) {
+        isIncreasing = false;
+      }
+      lastFirstVisible = firstVisible;
+
+      int windowSize = estimator.getWindowSize();
+      int start;
+      int end;
+      if (isIncreasing) {
+        start = firstVisible + VISIBLE_COUNT;
+        end = start + windowSize;
+        clearOutside(simulation, firstVisible, Integer.MAX_VALUE);
+      } else {
+        end = firstVisible;
+        start = end - windowSize;
+        clearOutside(simulation, Integer.MIN_VALUE, firstVisible + VISIBLE_COUNT);
+      }
+      start = Math.min(itemCount, Math.max(0, start));
+      end = Math.min(itemCount, Math.max(0, end));
+      if (isIncreasing) {
+        for (int i = start; i < end; i++) {
+          preload(simulation, i, PreloadWindowEstimator.getPriority(i - start, windowSize));
+        }
+      } else {
+        for (int i = end - 1; i >= start; i--) {
+          preload(simulation, i, PreloadWindowEstimator.getPriority(end - 1 - i, windowSize));
+        }
+      }
+    }
+
+    private void clearOutside(Simulation simulation, int start, int end) {
+      for (Iterator<Integer> iterator = preloadedPositions.iterator(); iterator.hasNext(); ) {
+        int position = iterator.next();
+        if (position < start || position >= end) {
+          simulation.clear(position);
+          iterator.remove();
+        }
+      }
+    }
+
+    private void preload(Simulation simulation, int position, Priority priority) {
+      if (preloadedPositions.add(position)) {
+        simulation.preload(position, priority);
+      }
+    }
+
+    @Override
+    public void onIdle() {
+      estimator.onScrollStopped();
+    }
+
+    @Override
+    public void onPreloadFinished(long durationMs) {
+      estimator.onLoadFinished(durationMs);
+    }
+  }
+
+  private static final class Load {
+    final int position;
+    final Priority priority;
+    final long order;
+    final long requestTimeMs;
+    long finishTimeMs;
+    boolean isRequestedByView;
+    int preloadCount;
+    boolean isCancelled;
+
+    Load(int position, Priority priority, long order, long requestTimeMs) {
+      this.position = position;
+      this.priority = priority;
+      this.order = order;
+      this.requestTimeMs = requestTimeMs;
+    }
+  }
+
+  private static final class Simulation {
+    private final long[] loadTimesMs;
+    private final Policy policy;
+    /** The load in progress for each position, if any. */
+    private final Load[] loads;
+    private final PriorityQueue<Load> queue = new PriorityQueue<>(64, new Comparator<Load>() {
+      @Override
+      public int compare(Load first, Load second) {
+        int result = first.priority.compareTo(second.priority);
+        return result != 0 ? result : Long.compare(first.order, second.order);
+      }
+    });
+    private final List<Load> running = new ArrayList<>(LOAD_THREADS);
+    /** Whether each loaded item has been shown, least recently used first. */
+    private final Map<Integer, Boolean> cache =
+        new LinkedHashMap<>(CACHE_ITEMS, 0.75f, /*accessOrder=*/ true);
+    private long nextOrder;
+    private int firstVisible = -1;
+    long timeMs;
+    int hits;
+    int misses;
+    int wastedLoads;
+
+    Simulation(long[] loadTimesMs, Policy policy) {
+      this.loadTimesMs = loadTimesMs;
+      this.policy = policy;
+      loads = new Load[loadTimesMs.length];
+    }
+
+    void replay(ScrollTrace trace) {
+      for (int i = 0; i < trace.length(); i++) {
+        long eventTimeMs = trace.timesMs[i];
+        if (i > 0 && eventTimeMs - timeMs > IDLE_DELAY_MS) {
+          advanceTo(timeMs + IDLE_DELAY_MS);
+          policy.onIdle();
+        }
+        advanceTo(eventTimeMs);
+        scrollTo(trace.positions[i]);
+        policy.onScroll(this, trace.positions[i], loads.length);
+        startLoads();
+      }
+      for (boolean isShown : cache.values()) {
+        if (!isShown) {
+          wastedLoads++;
+        }
+      }
+    }
+
+    void preload(int position, Priority priority) {
+      if (cache.containsKey(position)) {
+        // Memory cache hits finish synchronously.
+        policy.onPreloadFinished(0);
+        return;
+      }
+      Load load = loads[position];
+      if (load == null) {
+        load = enqueue(position, priority);
+      }
+      load.preloadCount++;
+    }
+
+    void clear(int position) {
+      Load load = loads[position];
+      if (load != null && load.preloadCount > 0) {
+        load.preloadCount--;
+        cancelIfUnused(load);
+      }
+    }
+
+    private void scrollTo(int newFirstVisible) {
+      for (int i = firstVisible; i >= 0 && i < firstVisible + VISIBLE_COUNT; i++) {
+        if (!isVisible(i, newFirstVisible) && loads[i] != null) {
+          loads[i].isRequestedByView = false;
+          cancelIfUnused(loads[i]);
+        }
+      }
+      for (int i = newFirstVisible; i < newFirstVisible + VISIBLE_COUNT; i++) {
+        if (firstVisible != -1 && isVisible(i, firstVisible)) {
+          continue;
+        }
+        if (cache.containsKey(i)) {
+          hits++;
+          cache.put(i, true);
+        } else {
+          misses++;
+          Load load = loads[i];
+          if (load == null) {
+            load = enqueue(i, Priority.IMMEDIATE);
+          }
+          load.isRequestedByView = true;
+        }
+      }
+      firstVisible = newFirstVisible;
+    }
+
+    private static boolean isVisible(int position, int firstVisible) {
+      return position >= firstVisible && position < firstVisible + VISIBLE_COUNT;
+    }
+
+    private Load enqueue(int position, Priority priority) {
+      Load load = new Load(position, priority, nextOrder++, timeMs);
+      loads[position] = load;
+      queue.offer(load);
+      return load;
+    }
+
+    private void cancelIfUnused(Load load) {
+      if (!load.isRequestedByView && load.preloadCount == 0) {
+        // Queued loads are skipped when they're polled, running loads are discarded when done.
+        load.isCancelled = true;
+        loads[load.position] = null;
+      }
+    }
+
+    private void advanceTo(long newTimeMs) {
+      while (true) {
+        Load next = null;
+        for (Load load : running) {
+          if (load.finishTimeMs <= newTimeMs
+              && (next == null || load.finishTimeMs < next.finishTimeMs)) {
+            next = load;
+          }
+        }
+        if (next == null) {
+          break;
+        }
+        timeMs = next.finishTimeMs;
+        finish(next);
+        startLoads();
+      }
+      timeMs = newTimeMs;
+    }
+
+    private void finish(Load load) {
+      running.remove(load);
+      if (load.isCancelled) {
+        wastedLoads++;
+        return;
+      }
+      loads[load.position] = null;
+      cache.put(load.position, isVisible(load.position, firstVisible));
+      if (cache.size() > CACHE_ITEMS) {
+        Iterator<Boolean> eldest = cache.values().iterator();
+        if (!eldest.next()) {
+          wastedLoads++;
+        }
+        eldest.remove();
+      }
+      if (load.preloadCount > 0) {
+        policy.onPreloadFinished(timeMs - load.requestTimeMs);
+      }
+    }
+
+    private void startLoads() {
+      while (running.size() < LOAD_THREADS) {
+        Load load = queue.poll();
+        if (load == null) {
+          break;
+        }
+        if (!load.isCancelled) {
+          load.finishTimeMs = timeMs + loadTimesMs[load.position];
+          running.add(load);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.bumptech.glide;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A sequence of scroll events in a list, each with a time and the position of the first visible
+ * item.
+ *
+ * <p>Traces are either generated from a fixed seed or read from a file. Files contain one event
+ * per line in the form {@code <time in ms> <first visible position>}, lines that are empty or
+ * start with {@code #} are ignored. Times must not decrease. A trace can be recorded in an app by
+ * logging {@link android.os.SystemClock#uptimeMillis()} and the {@code firstVisible} argument in
+ * {@link android.widget.AbsListView.OnScrollListener#onScroll}.
+ */
+final class ScrollTrace {
+  private static final String FILE_PREFIX = "file:";
+  private static final long SEED = 0x5eed;
+  /** Generated traces have one event per frame at 60 frames per second. */
+  private static final int FRAME_MS = 16;
+
+  final long[] timesMs;
+  final int[] positions;
+
+  private ScrollTrace(long[] timesMs, int[] positions) {
+    this.timesMs = timesMs;
+    this.positions = positions;
+  }
+
+  int length() {
+    return timesMs.length;
+  }
+
+  int getMaxPosition() {
+    int result = 0;
+    for (int position : positions) {
+      result = Math.max(result, position);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the trace with the given name.
+   *
+   * <ul>
+   *   <li>{@code slow}: Reading while dragging slowly and steadily through the list.
+   *   <li>{@code fling}: Repeated flings that start quickly and slow down, with pauses between.
+   *   <li>{@code reversals}: Browsing forward at a moderate speed and often scrolling back a
+   *   little.
+   *   <li>{@code file:<path>}: A trace recorded to a file.
+   * </ul>
+   */
+  static ScrollTrace forName(String name) throws IOException {
+    if (name.startsWith(FILE_PREFIX)) {
+      return fromFile(name.substring(FILE_PREFIX.length()));
+    } else if ("slow".equals(name)) {
+      return slow(/*durationMs=*/ 60_000);
+    } else if ("fling".equals(name)) {
+      return fling(/*flings=*/ 40);
+    } else if ("reversals".equals(name)) {
+      return reversals(/*reversals=*/ 40);
+    }
+    throw new IllegalArgumentException("Unknown trace: " + name);
+  }
+
+  private static ScrollTrace fromFile(String path) throws IOException {
+    Builder builder = new Builder();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new FileInputStream(path), Charset.forName("UTF-8")))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] parts = line.split("\\s+");
+        if (parts.length != 2) {
+          throw new IOException("Expected <time> <position>, but got: " + line);
+        }
+        builder.add(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+      }
+    }
+    return builder.build();
+  }
+
+  private static ScrollTrace slow(long durationMs) {
+    Random random = new Random(SEED);
+    Builder builder = new Builder();
+    double position = 0;
+    for (long timeMs = 0; timeMs < durationMs; timeMs += FRAME_MS) {
+      // Between one and three items per second.
+      position += (0.001 + random.nextDouble() * 0.002) * FRAME_MS;
+      builder.add(timeMs, (int) position);
+    }
+    return builder.build();
+  }
+
+  private static ScrollTrace fling(int flings) {
+    Random random = new Random(SEED);
+    Builder builder = new Builder();
+    double position = 0;
+    long timeMs = 0;
+    for (int i = 0; i < flings; i++) {
+      // Flings start at 40 to 150 items per second and slow down with a time constant of 400ms.
+      double velocity = 0.04 + random.nextDouble() * 0.11;
+      while (velocity > 0.001) {
+        position += velocity * FRAME_MS;
+        velocity *= Math.exp(-FRAME_MS / 400.0);
+        builder.add(timeMs, (int) position);
+        timeMs += FRAME_MS;
+      }
+      // Look at the items for a while before the next fling.
+      timeMs += 500 + random.nextInt(2000);
+    }
+    return builder.build();
+  }
+
+  private static ScrollTrace reversals(int reversals) {
+    Random random = new Random(SEED);
+    Builder builder = new Builder();
+    double position = 0;
+    long timeMs = 0;
+    for (int i = 0; i < reversals; i++) {
+      int forward = 30 + random.nextInt(30);
+      int back = 10 + random.nextInt(20);
+      // Between 10 and 30 items per second.
+      double velocity = 0.01 + random.nextDouble() * 0.02;
+      for (double target = position + forward; position < target; timeMs += FRAME_MS) {
+        position += velocity * FRAME_MS;
+        builder.add(timeMs, (int) position);
+      }
+      timeMs += 300 + random.nextInt(700);
+      for (double target = position - back; position > target; timeMs += FRAME_MS) {
+        position -= velocity * FRAME_MS;
+        builder.add(timeMs, (int) position);
+      }
+      timeMs += 300 + random.nextInt(700);
+    }
+    return builder.build();
+  }
+
+  private static final class Builder {
+    private final List<Long> timesMs = new ArrayList<>();
+    private final List<Integer> positions = new ArrayList<>();
+
+    void add(long timeMs, int position) {
+      timesMs.add(timeMs);
+      positions.add(Math.max(0, position));
+    }
+
+    ScrollTrace build() {
+      long[] timesMsArray = new long[timesMs.size()];
+      int[] positionsArray = new int[positions.size()];
+      for (int i = 0; i < timesMsArray.length; i++) {
+        timesMsArray[i] = timesMs.get(i);
+        positionsArray[i] = positions.get(i);
+      }
+      return new ScrollTrace(timesMsArray, positionsArray);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.bumptech.glide.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the sample images bundled with the benchmarks.
+ */
+public final class BenchmarkResources {
+  /** A JPEG with an EXIF segment that contains an orientation tag. */
+  public static final String EXIF_JPEG = "short_exif_sample.jpg";
+  /** A small animated GIF. */
+  public static final String ANIMATED_GIF = "test.gif";
+
+  private BenchmarkResources() {
+    // Utility class.
+  }
+
+  public static byte[] read(String name) throws IOException {
+    InputStream is = BenchmarkResources.class.getClassLoader().getResourceAsStream(name);
+    if (is == null) {
+      throw new IOException("Missing benchmark resource: " + name);
+    }
+    try {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8 * 1024];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        os.write(buffer, 0, read);
+      }
+      return os.toByteArray();
+    } finally {
+      is.close();
+    }
+  }
+}
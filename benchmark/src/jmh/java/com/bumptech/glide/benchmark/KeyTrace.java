@@ -0,0 +1,179 @@
+package com.bumptech.glide.benchmark;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A sequence of memory cache accesses, each with a key and the size in bytes of the resource for
+ * that key.
+ *
+ * <p>Traces are either generated from a fixed seed or read from a file. Files contain one access
+ * per line in the form {@code <key> <size in bytes>}, lines that are empty or start with
+ * {@code #} are ignored. Keys can be any string without whitespace, for example the hash code of
+ * the {@link com.bumptech.glide.load.engine.EngineKey} passed to
+ * {@link com.bumptech.glide.load.engine.cache.MemoryCache#remove(Key)} in an app.
+ */
+final class KeyTrace {
+  private static final String FILE_PREFIX = "file:";
+  private static final long SEED = 0x5eed;
+
+  final Key[] keys;
+  final int[] sizes;
+
+  private KeyTrace(Key[] keys, int[] sizes) {
+    this.keys = keys;
+    this.sizes = sizes;
+  }
+
+  int length() {
+    return keys.length;
+  }
+
+  /**
+   * Returns the trace with the given name.
+   *
+   * <ul>
+   *   <li>{@code zipf}: Accesses drawn from a skewed distribution over a fixed set of images.
+   *   <li>{@code grid}: A small set of frequently used avatars mixed with a long scroll through a
+   *   grid of thumbnails that are each seen once or twice.
+   *   <li>{@code file:<path>}: A trace recorded to a file.
+   * </ul>
+   */
+  static KeyTrace forName(String name) throws IOException {
+    if (name.startsWith(FILE_PREFIX)) {
+      return fromFile(name.substring(FILE_PREFIX.length()));
+    } else if ("zipf".equals(name)) {
+      return zipf(/*distinctKeys=*/ 10_000, /*accesses=*/ 200_000, /*exponent=*/ 0.9);
+    } else if ("grid".equals(name)) {
+      return grid(/*avatars=*/ 300, /*thumbnails=*/ 40_000);
+    }
+    throw new IllegalArgumentException("Unknown trace: " + name);
+  }
+
+  private static KeyTrace fromFile(String path) throws IOException {
+    List<Key> keys = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    Map<String, Key> uniqueKeys = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new FileInputStream(path), Charset.forName("UTF-8")))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] parts = line.split("\\s+");
+        if (parts.length != 2) {
+          throw new IOException("Expected <key> <size>, but got: " + line);
+        }
+        Key key = uniqueKeys.get(parts[0]);
+        if (key == null) {
+          key = new ObjectKey(parts[0]);
+          uniqueKeys.put(parts[0], key);
+        }
+        keys.add(key);
+        sizes.add(Integer.parseInt(parts[1]));
+      }
+    }
+    int[] sizesArray = new int[sizes.size()];
+    for (int i = 0; i < sizesArray.length; i++) {
+      sizesArray[i] = sizes.get(i);
+    }
+    return new KeyTrace(keys.toArray(new Key[keys.size()]), sizesArray);
+  }
+
+  private static KeyTrace zipf(int distinctKeys, int accesses, double exponent) {
+    Random random = new Random(SEED);
+    Key[] uniqueKeys = new Key[distinctKeys];
+    int[] uniqueSizes = new int[distinctKeys];
+    double[] cumulative = new double[distinctKeys];
+    double total = 0;
+    for (int i = 0; i < distinctKeys; i++) {
+      uniqueKeys[i] = new ObjectKey("zipf" + i);
+      uniqueSizes[i] = thumbnailSize(random);
+      total += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = total;
+    }
+
+    Key[] keys = new Key[accesses];
+    int[] sizes = new int[accesses];
+    for (int i = 0; i < accesses; i++) {
+      int index = indexOf(cumulative, random.nextDouble() * total);
+      keys[i] = uniqueKeys[index];
+      sizes[i] = uniqueSizes[index];
+    }
+    return new KeyTrace(keys, sizes);
+  }
+
+  private static KeyTrace grid(int avatars, int thumbnails) {
+    Random random = new Random(SEED);
+    Key[] avatarKeys = new Key[avatars];
+    int avatarSize = 96 * 96 * 4;
+    for (int i = 0; i < avatars; i++) {
+      avatarKeys[i] = new ObjectKey("avatar" + i);
+    }
+
+    List<Key> keys = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    Key[] thumbnailKeys = new Key[thumbnails];
+    int[] thumbnailSizes = new int[thumbnails];
+    for (int i = 0; i < thumbnails; i++) {
+      thumbnailKeys[i] = new ObjectKey("thumbnail" + i);
+      thumbnailSizes[i] = thumbnailSize(random);
+      keys.add(thumbnailKeys[i]);
+      sizes.add(thumbnailSizes[i]);
+
+      // Each row of the grid shows a couple of avatars, mostly from a small popular subset.
+      for (int j = 0; j < 2; j++) {
+        int avatar = random.nextInt(4) == 0
+            ? random.nextInt(avatars) : random.nextInt(Math.max(1, avatars / 10));
+        keys.add(avatarKeys[avatar]);
+        sizes.add(avatarSize);
+      }
+
+      // Occasionally the user scrolls back a little.
+      if (i > 50 && random.nextInt(20) == 0) {
+        int start = i - random.nextInt(50);
+        for (int j = start; j < i; j++) {
+          keys.add(thumbnailKeys[j]);
+          sizes.add(thumbnailSizes[j]);
+        }
+      }
+    }
+
+    int[] sizesArray = new int[sizes.size()];
+    for (int i = 0; i < sizesArray.length; i++) {
+      sizesArray[i] = sizes.get(i);
+    }
+    return new KeyTrace(keys.toArray(new Key[keys.size()]), sizesArray);
+  }
+
+  private static int thumbnailSize(Random random) {
+    int side = 128 + random.nextInt(192);
+    return side * side * 4;
+  }
+
+  private static int indexOf(double[] cumulative, double value) {
+    int low = 0;
+    int high = cumulative.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cumulative[mid] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
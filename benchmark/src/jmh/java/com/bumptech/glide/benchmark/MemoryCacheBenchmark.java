@@ -0,0 +1,128 @@
+package com.bumptech.glide.benchmark;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.load.engine.cache.TinyLfuResourceCache;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays {@link KeyTrace}s against {@link MemoryCache} implementations the way
+ * {@link com.bumptech.glide.load.engine.Engine} uses them: each access removes the key from the
+ * cache and, once the resource is no longer in use, puts it back.
+ *
+ * <p>Throughput is reported as accesses per second. The {@code hits} and {@code misses} secondary
+ * results count cache hits and misses over the same period, the hit ratio is
+ * {@code hits / (hits + misses)}. Run with {@code -t <threads>} to measure contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemoryCacheBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    @Param({"lru", "tinylfu"})
+    public String cache;
+
+    @Param({"grid", "zipf"})
+    public String trace;
+
+    @Param({"32"})
+    public int cacheSizeMb;
+
+    MemoryCache memoryCache;
+    KeyTrace keyTrace;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+      long size = cacheSizeMb * 1024L * 1024L;
+      if ("lru".equals(cache)) {
+        memoryCache = new LruResourceCache(size);
+      } else if ("tinylfu".equals(cache)) {
+        memoryCache = new TinyLfuResourceCache(size);
+      } else {
+        throw new IllegalArgumentException("Unknown cache: " + cache);
+      }
+      if (keyTrace == null) {
+        keyTrace = KeyTrace.forName(trace);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long hits;
+    public long misses;
+    int position;
+
+    @Setup(Level.Iteration)
+    public void setUp(CacheState state) {
+      hits = 0;
+      misses = 0;
+      // Start threads at different points in the trace so they don't move in lock step.
+      position = ThreadLocalRandom.current().nextInt(state.keyTrace.length());
+    }
+  }
+
+  @Benchmark
+  public Resource<?> access(CacheState state, Counters counters) {
+    KeyTrace trace = state.keyTrace;
+    int index = counters.position;
+    counters.position = index + 1 < trace.length() ? index + 1 : 0;
+    Key key = trace.keys[index];
+    Resource<?> resource = state.memoryCache.remove(key);
+    if (resource == null) {
+      counters.misses++;
+      resource = new FakeResource(trace.sizes[index]);
+    } else {
+      counters.hits++;
+    }
+    state.memoryCache.put(key, resource);
+    return resource;
+  }
+
+  private static final class FakeResource implements Resource<Object> {
+    private final int size;
+
+    FakeResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return this;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.bumptech.glide.gifdecoder;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.benchmark.BenchmarkResources;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link StandardGifDecoder#getNextFrame()} looping over the frames of an animated GIF
+ * with frames returned to a pool after they're drawn, as {@code GifFrameLoader} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StandardGifDecoderBenchmark {
+  private final PoolingBitmapProvider bitmapProvider = new PoolingBitmapProvider();
+  private StandardGifDecoder decoder;
+  private Bitmap previous;
+
+  @Setup
+  public void setUp() throws IOException {
+    byte[] data = BenchmarkResources.read(BenchmarkResources.ANIMATED_GIF);
+    GifHeader header = new GifHeaderParser().setData(data).parseHeader();
+    decoder = new StandardGifDecoder(bitmapProvider, header, ByteBuffer.wrap(data));
+  }
+
+  @Benchmark
+  public Bitmap getNextFrame() {
+    decoder.advance();
+    Bitmap frame = decoder.getNextFrame();
+    if (previous != null) {
+      bitmapProvider.release(previous);
+    }
+    previous = frame;
+    return frame;
+  }
+
+  private static final class PoolingBitmapProvider implements GifDecoder.BitmapProvider {
+    private final Queue<Bitmap> bitmaps = new ArrayDeque<>();
+
+    @NonNull
+    @Override
+    public Bitmap obtain(int width, int height, @NonNull Bitmap.Config config) {
+      Bitmap result = bitmaps.poll();
+      return result != null ? result : Bitmap.createBitmap(width, height, config);
+    }
+
+    @Override
+    public void release(@NonNull Bitmap bitmap) {
+      bitmaps.offer(bitmap);
+    }
+
+    @NonNull
+    @Override
+    public byte[] obtainByteArray(int size) {
+      return new byte[size];
+    }
+
+    @Override
+    public void release(@NonNull byte[] bytes) {
+      // Do nothing.
+    }
+
+    @NonNull
+    @Override
+    public int[] obtainIntArray(int size) {
+      return new int[size];
+    }
+
+    @Override
+    public void release(@NonNull int[] array) {
+      // Do nothing.
+    }
+  }
+}
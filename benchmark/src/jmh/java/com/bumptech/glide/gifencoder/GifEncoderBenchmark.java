@@ -0,0 +1,68 @@
+package com.bumptech.glide.gifencoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the two expensive steps {@link AnimatedGifEncoder} runs for every frame: building a
+ * palette with {@link NeuQuant} and compressing the indexed pixels with {@link LZWEncoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GifEncoderBenchmark {
+  private static final int WIDTH = 256;
+  private static final int HEIGHT = 256;
+  // The defaults used by AnimatedGifEncoder.
+  private static final int SAMPLE = 10;
+  private static final int COLOR_DEPTH = 8;
+
+  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+  private byte[] pixels;
+  private byte[] indexedPixels;
+
+  @Setup
+  public void setUp() {
+    // A smooth gradient with some noise, in the BGR order AnimatedGifEncoder passes to NeuQuant.
+    Random random = new Random(0);
+    pixels = new byte[WIDTH * HEIGHT * 3];
+    int i = 0;
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int noise = random.nextInt(16);
+        pixels[i++] = (byte) (x + noise);
+        pixels[i++] = (byte) (y + noise);
+        pixels[i++] = (byte) ((x + y) / 2 + noise);
+      }
+    }
+    indexedPixels = quantizeAndMap();
+  }
+
+  @Benchmark
+  public byte[] quantizeAndMap() {
+    NeuQuant neuQuant = new NeuQuant(pixels, pixels.length, SAMPLE);
+    neuQuant.process();
+    byte[] result = new byte[pixels.length / 3];
+    int k = 0;
+    for (int i = 0; i < result.length; i++) {
+      result[i] = (byte) neuQuant.map(pixels[k++] & 0xff, pixels[k++] & 0xff, pixels[k++] & 0xff);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int lzwEncode() throws IOException {
+    os.reset();
+    new LZWEncoder(WIDTH, HEIGHT, indexedPixels, COLOR_DEPTH).encode(os);
+    return os.size();
+  }
+}
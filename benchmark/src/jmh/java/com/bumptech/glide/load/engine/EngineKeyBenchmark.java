@@ -0,0 +1,79 @@
+package com.bumptech.glide.load.engine;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.resource.bitmap.CenterCrop;
+import com.bumptech.glide.signature.EmptySignature;
+import com.bumptech.glide.util.CachedHashCodeArrayMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures building, hashing and comparing {@link EngineKey}s the way
+ * {@link Engine#load} does for every request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EngineKeyBenchmark {
+  private static final int MODEL_COUNT = 1_000;
+  private static final int SIZE = 300;
+
+  private final EngineKeyFactory keyFactory = new EngineKeyFactory();
+  private final Key signature = EmptySignature.obtain();
+  private final Options options = new Options();
+  private final Map<Class<?>, Transformation<?>> transformations =
+      new CachedHashCodeArrayMap<>();
+  private final Map<EngineKey, Object> keys = new HashMap<>();
+  private String[] models;
+  private EngineKey first;
+  private EngineKey second;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    transformations.put(Bitmap.class, new CenterCrop());
+    models = new String[MODEL_COUNT];
+    for (int i = 0; i < models.length; i++) {
+      models[i] = "https://images.example.com/photos/" + i + "/large.jpg";
+      keys.put(buildKey(models[i]), models[i]);
+    }
+    first = buildKey(models[0]);
+    second = buildKey(new String(models[0]));
+  }
+
+  @Benchmark
+  public int buildAndHash() {
+    return buildKey(nextModel()).hashCode();
+  }
+
+  @Benchmark
+  public boolean equalsEqualKey() {
+    return first.equals(second);
+  }
+
+  @Benchmark
+  public Object buildAndLookUp() {
+    return keys.get(buildKey(nextModel()));
+  }
+
+  private String nextModel() {
+    index = index + 1 < models.length ? index + 1 : 0;
+    return models[index];
+  }
+
+  private EngineKey buildKey(String model) {
+    return keyFactory.buildKey(model, signature, SIZE, SIZE, transformations, Object.class,
+        Bitmap.class, options);
+  }
+}
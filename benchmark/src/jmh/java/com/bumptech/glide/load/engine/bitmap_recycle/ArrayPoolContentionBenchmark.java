@@ -0,0 +1,68 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compares {@link LruArrayPool} and {@link SizeClassArrayPool} when several decode threads share
+ * one pool, the way Glide's source and disk cache executors do.
+ *
+ * <p>Each thread gets and puts a standard buffer, which {@link SizeClassArrayPool} serves from
+ * the thread's magazine without taking a lock, and a mix of other sizes that go through the
+ * pool's shared state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class ArrayPoolContentionBenchmark {
+  private static final int[] SIZES = new int[] {
+      ArrayPool.STANDARD_BUFFER_SIZE_BYTES, 16 * 1024, 4 * 1024, 32 * 1024, 8 * 1024, 255,
+  };
+
+  @Param({"LRU", "SIZE_CLASS"})
+  public String pool;
+
+  private ArrayPool arrayPool;
+
+  @Setup
+  public void setUp() {
+    arrayPool = "LRU".equals(pool) ? new LruArrayPool() : new SizeClassArrayPool();
+  }
+
+  @Benchmark
+  public byte[] getAndPutStandardBuffer() {
+    byte[] bytes = arrayPool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    arrayPool.put(bytes);
+    return bytes;
+  }
+
+  @Benchmark
+  public Object getAndPutMixedSizes(ThreadIndex threadIndex) {
+    int size = SIZES[threadIndex.next(SIZES.length)];
+    byte[] bytes = arrayPool.get(size, byte[].class);
+    int[] ints = arrayPool.get(size, int[].class);
+    arrayPool.put(ints);
+    arrayPool.put(bytes);
+    return bytes;
+  }
+
+  /** The index of the next size requested by each thread. */
+  @State(Scope.Thread)
+  public static class ThreadIndex {
+    private int index;
+
+    int next(int count) {
+      index = index + 1 < count ? index + 1 : 0;
+      return index;
+    }
+  }
+}
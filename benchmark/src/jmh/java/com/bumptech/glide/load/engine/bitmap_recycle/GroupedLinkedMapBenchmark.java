@@ -0,0 +1,80 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link GroupedLinkedMap} operations used by the bitmap and array pools.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GroupedLinkedMapBenchmark {
+  private static final int GROUP_COUNT = 64;
+  private static final int VALUES_PER_GROUP = 4;
+
+  private GroupedLinkedMap<SizeKey, Object> map;
+  private SizeKey[] keys;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    map = new GroupedLinkedMap<>();
+    keys = new SizeKey[GROUP_COUNT];
+    for (int i = 0; i < GROUP_COUNT; i++) {
+      keys[i] = new SizeKey(i);
+      for (int j = 0; j < VALUES_PER_GROUP; j++) {
+        map.put(keys[i], new Object());
+      }
+    }
+  }
+
+  @Benchmark
+  public Object getAndPut() {
+    SizeKey key = nextKey();
+    Object value = map.get(key);
+    map.put(key, value);
+    return value;
+  }
+
+  @Benchmark
+  public Object removeLastAndPut() {
+    Object value = map.removeLast();
+    map.put(nextKey(), value);
+    return value;
+  }
+
+  private SizeKey nextKey() {
+    index = index + 1 < keys.length ? index + 1 : 0;
+    return keys[index];
+  }
+
+  private static final class SizeKey implements Poolable {
+    private final int size;
+
+    SizeKey(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public void offer() {
+      // Not pooled.
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof SizeKey && ((SizeKey) o).size == size;
+    }
+
+    @Override
+    public int hashCode() {
+      return size;
+    }
+  }
+}
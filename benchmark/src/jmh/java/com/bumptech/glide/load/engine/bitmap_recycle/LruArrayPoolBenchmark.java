@@ -0,0 +1,53 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link LruArrayPool#get(int, Class)} followed by {@link LruArrayPool#put(Object)} for
+ * the buffer sizes requested while decoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LruArrayPoolBenchmark {
+  private static final int[] SIZES = new int[] {
+      ArrayPool.STANDARD_BUFFER_SIZE_BYTES, 16 * 1024, 4 * 1024, 32 * 1024, 8 * 1024, 255,
+  };
+
+  private LruArrayPool arrayPool;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    arrayPool = new LruArrayPool();
+    for (int size : SIZES) {
+      arrayPool.put(new byte[size]);
+      arrayPool.put(new int[size]);
+    }
+  }
+
+  @Benchmark
+  public byte[] getAndPutSameSize() {
+    byte[] bytes = arrayPool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    arrayPool.put(bytes);
+    return bytes;
+  }
+
+  @Benchmark
+  public Object getAndPutMixedSizes() {
+    index = index + 1 < SIZES.length ? index + 1 : 0;
+    int size = SIZES[index];
+    byte[] bytes = arrayPool.get(size, byte[].class);
+    int[] ints = arrayPool.get(size, int[].class);
+    arrayPool.put(ints);
+    arrayPool.put(bytes);
+    return bytes;
+  }
+}
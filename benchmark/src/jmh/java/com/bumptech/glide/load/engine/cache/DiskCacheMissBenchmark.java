@@ -0,0 +1,101 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link DiskLruCacheWrapper#get(Key)} for workloads where most lookups miss, like
+ * {@code ResourceCacheGenerator} probing for transformed resources that were never written.
+ *
+ * <p>Lookups cycle through more keys than {@link SafeKeyGenerator} caches, so every lookup hashes
+ * its key. Compare {@code SHA_256} and {@code MURMUR3_128} to see the cost of hashing, and compare
+ * against a run on a revision without the disk cache's key filter to see the cost of asking
+ * {@code DiskLruCache} about keys it doesn't have.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiskCacheMissBenchmark {
+  private static final long MAX_SIZE = 16 * 1024 * 1024;
+  private static final int KEY_COUNT = 10_000;
+
+  @Param({"SHA_256", "MURMUR3_128"})
+  public String keyHashStrategy;
+
+  // The percentage of lookups for keys that are in the cache.
+  @Param({"0", "10"})
+  public int hitPercent;
+
+  private final byte[] data = new byte[1024];
+  private Key[] keys;
+  private File directory;
+  private DiskCache cache;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("glide_disk_cache_miss_benchmark").toFile();
+    KeyHashStrategy strategy = "MURMUR3_128".equals(keyHashStrategy)
+        ? KeyHashStrategy.MURMUR3_128 : KeyHashStrategy.SHA_256;
+    cache = DiskLruCacheWrapper.create(directory, MAX_SIZE, strategy);
+
+    keys = new Key[KEY_COUNT];
+    int hitInterval = hitPercent == 0 ? Integer.MAX_VALUE : 100 / hitPercent;
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new ObjectKey("https://images.example.com/photos/" + i + "/large.jpg");
+      if (i % hitInterval == 0) {
+        cache.put(keys[i], new DiskCache.Writer() {
+          @Override
+          public boolean write(File file) {
+            try {
+              OutputStream os = new FileOutputStream(file);
+              try {
+                os.write(data);
+              } finally {
+                os.close();
+              }
+              return true;
+            } catch (IOException e) {
+              return false;
+            }
+          }
+        });
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.clear();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        // Best effort, the benchmark's temp directory is left behind if this fails.
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Benchmark
+  public File get() {
+    index = index + 1 < KEY_COUNT ? index + 1 : 0;
+    return cache.get(keys[index]);
+  }
+}
@@ -0,0 +1,56 @@
+package com.bumptech.glide.load.engine.cache;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link SafeKeyGenerator#getSafeKey(Key)} both for keys that are in its LRU cache and for
+ * keys that have to be hashed with each {@link KeyHashStrategy}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SafeKeyGeneratorBenchmark {
+  // Fits comfortably within SafeKeyGenerator's cache of 1000 keys.
+  private static final int CACHED_KEY_COUNT = 100;
+  // Cycling through more keys than SafeKeyGenerator caches means every lookup misses.
+  private static final int UNCACHED_KEY_COUNT = 10_000;
+
+  @Param({"SHA_256", "MURMUR3_128"})
+  public String keyHashStrategy;
+
+  private SafeKeyGenerator safeKeyGenerator;
+  private Key[] keys;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    safeKeyGenerator = new SafeKeyGenerator("MURMUR3_128".equals(keyHashStrategy)
+        ? KeyHashStrategy.MURMUR3_128 : KeyHashStrategy.SHA_256);
+    keys = new Key[UNCACHED_KEY_COUNT];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new ObjectKey("https://images.example.com/photos/" + i + "/large.jpg");
+    }
+  }
+
+  @Benchmark
+  public String getSafeKeyCached() {
+    index = index + 1 < CACHED_KEY_COUNT ? index + 1 : 0;
+    return safeKeyGenerator.getSafeKey(keys[index]);
+  }
+
+  @Benchmark
+  public String getSafeKeyUncached() {
+    index = index + 1 < UNCACHED_KEY_COUNT ? index + 1 : 0;
+    return safeKeyGenerator.getSafeKey(keys[index]);
+  }
+}
@@ -0,0 +1,68 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import com.bumptech.glide.benchmark.BenchmarkResources;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link DefaultImageHeaderParser} reading the type and EXIF orientation of a JPEG and the
+ * type of a PNG from both streams and buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DefaultImageHeaderParserBenchmark {
+  // The PNG signature followed by an IHDR chunk for a 1x1 RGBA image.
+  private static final byte[] PNG_HEADER = new byte[] {
+      (byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A,
+      0x00, 0x00, 0x00, 0x0D, 0x49, 0x48, 0x44, 0x52,
+      0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x01,
+      0x08, 0x06, 0x00, 0x00, 0x00, 0x1F, 0x15, (byte) 0xC4, (byte) 0x89,
+  };
+
+  private final DefaultImageHeaderParser parser = new DefaultImageHeaderParser();
+  private final ArrayPool arrayPool = new LruArrayPool();
+  private byte[] jpeg;
+
+  @Setup
+  public void setUp() throws IOException {
+    jpeg = BenchmarkResources.read(BenchmarkResources.EXIF_JPEG);
+  }
+
+  @Benchmark
+  public ImageType getTypeJpegStream() throws IOException {
+    return parser.getType(new ByteArrayInputStream(jpeg));
+  }
+
+  @Benchmark
+  public ImageType getTypeJpegBuffer() throws IOException {
+    return parser.getType(ByteBuffer.wrap(jpeg));
+  }
+
+  @Benchmark
+  public ImageType getTypePngStream() throws IOException {
+    return parser.getType(new ByteArrayInputStream(PNG_HEADER));
+  }
+
+  @Benchmark
+  public int getOrientationJpegStream() throws IOException {
+    return parser.getOrientation(new ByteArrayInputStream(jpeg), arrayPool);
+  }
+
+  @Benchmark
+  public int getOrientationJpegBuffer() throws IOException {
+    return parser.getOrientation(ByteBuffer.wrap(jpeg), arrayPool);
+  }
+}
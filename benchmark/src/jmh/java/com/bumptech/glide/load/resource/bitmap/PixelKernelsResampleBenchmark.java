@@ -0,0 +1,111 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the throughput of {@link PixelKernels#resample} with nearest neighbor and bilinear
+ * sampling when scaling an image down by a factor of four.
+ *
+ * <p>Canvas can't run on the host, so the nearest neighbor and bilinear filters implemented here
+ * stand in for drawing with and without {@link android.graphics.Paint#FILTER_BITMAP_FLAG}, which
+ * is what {@link TransformationUtils} does with {@link BitmapTransformation.Backend#CANVAS}.
+ *
+ * <p>The source image is a zone plate, concentric rings whose frequency rises towards the edges,
+ * so filters that alias produce visible rings in the scaled image. The quality of each of
+ * {@link PixelKernels}' filters on the same zone plate is checked by {@code PixelKernelsTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PixelKernelsResampleBenchmark {
+  private static final int SRC_WIDTH = 1024;
+  private static final int SRC_HEIGHT = 768;
+  private static final int DST_WIDTH = SRC_WIDTH / 4;
+  private static final int DST_HEIGHT = SRC_HEIGHT / 4;
+
+  @Param({"NEAREST", "BILINEAR", "AREA_AVERAGING", "LANCZOS"})
+  public String filter;
+
+  private final int[] src = new int[SRC_WIDTH * SRC_HEIGHT];
+  private final int[] dst = new int[DST_WIDTH * DST_HEIGHT];
+
+  @Setup
+  public void setUp() {
+    for (int y = 0; y < SRC_HEIGHT; y++) {
+      for (int x = 0; x < SRC_WIDTH; x++) {
+        src[y * SRC_WIDTH + x] = gray(zonePlate(x + 0.5f, y + 0.5f));
+      }
+    }
+  }
+
+  @Benchmark
+  public int[] resample() {
+    switch (filter) {
+      case "NEAREST":
+        resampleNearest();
+        break;
+      case "BILINEAR":
+        resampleBilinear();
+        break;
+      default:
+        PixelKernels.resample(src, SRC_WIDTH, SRC_HEIGHT, 0, 0, SRC_WIDTH, SRC_HEIGHT, dst,
+            DST_WIDTH, DST_HEIGHT, PixelKernels.Filter.valueOf(filter));
+    }
+    return dst;
+  }
+
+  private void resampleNearest() {
+    for (int y = 0; y < DST_HEIGHT; y++) {
+      int srcY = (int) ((y + 0.5f) * SRC_HEIGHT / DST_HEIGHT);
+      for (int x = 0; x < DST_WIDTH; x++) {
+        int srcX = (int) ((x + 0.5f) * SRC_WIDTH / DST_WIDTH);
+        dst[y * DST_WIDTH + x] = src[srcY * SRC_WIDTH + srcX];
+      }
+    }
+  }
+
+  private void resampleBilinear() {
+    for (int y = 0; y < DST_HEIGHT; y++) {
+      float srcY = Math.max(0, (y + 0.5f) * SRC_HEIGHT / DST_HEIGHT - 0.5f);
+      int top = Math.min((int) srcY, SRC_HEIGHT - 2);
+      float fy = srcY - top;
+      for (int x = 0; x < DST_WIDTH; x++) {
+        float srcX = Math.max(0, (x + 0.5f) * SRC_WIDTH / DST_WIDTH - 0.5f);
+        int left = Math.min((int) srcX, SRC_WIDTH - 2);
+        float fx = srcX - left;
+        int index = top * SRC_WIDTH + left;
+        float upper = lerp(src[index] & 0xFF, src[index + 1] & 0xFF, fx);
+        float lower =
+            lerp(src[index + SRC_WIDTH] & 0xFF, src[index + SRC_WIDTH + 1] & 0xFF, fx);
+        dst[y * DST_WIDTH + x] = gray(lerp(upper, lower, fy) / 255f);
+      }
+    }
+  }
+
+  /**
+   * Returns the brightness, between 0 and 1, of a zone plate centered in the source image at the
+   * given point.
+   */
+  private static float zonePlate(float x, float y) {
+    float dx = x - SRC_WIDTH / 2f;
+    float dy = y - SRC_HEIGHT / 2f;
+    return 0.5f + 0.5f * (float) Math.cos(Math.PI * (dx * dx + dy * dy) / SRC_WIDTH);
+  }
+
+  private static float lerp(float start, float end, float fraction) {
+    return start + (end - start) * fraction;
+  }
+
+  private static int gray(float brightness) {
+    int value = Math.round(brightness * 255);
+    return 0xFF000000 | value << 16 | value << 8 | value;
+  }
+}
@@ -0,0 +1,66 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link PixelKernels} transformations other than resampling on a 1024x768 image,
+ * the size of a typical full screen photo after downsampling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PixelKernelsTransformBenchmark {
+  private static final int WIDTH = 1024;
+  private static final int HEIGHT = 768;
+
+  private final int[] src = new int[WIDTH * HEIGHT];
+  private final int[] dst = new int[WIDTH * HEIGHT];
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    for (int i = 0; i < src.length; i++) {
+      src[i] = 0xFF000000 | random.nextInt(0x1000000);
+    }
+  }
+
+  @Benchmark
+  public int[] crop() {
+    PixelKernels.crop(src, WIDTH, HEIGHT, (WIDTH - HEIGHT) / 2, 0, dst, HEIGHT, HEIGHT);
+    return dst;
+  }
+
+  @Benchmark
+  public int[] rotate90() {
+    PixelKernels.rotate(src, WIDTH, HEIGHT, 90, dst);
+    return dst;
+  }
+
+  @Benchmark
+  public int[] rotate180() {
+    PixelKernels.rotate(src, WIDTH, HEIGHT, 180, dst);
+    return dst;
+  }
+
+  @Benchmark
+  public int[] circleMask() {
+    System.arraycopy(src, 0, dst, 0, src.length);
+    PixelKernels.applyCircleMask(dst, WIDTH, HEIGHT);
+    return dst;
+  }
+
+  @Benchmark
+  public int[] roundedCornerMask() {
+    System.arraycopy(src, 0, dst, 0, src.length);
+    PixelKernels.applyRoundedCornerMask(dst, WIDTH, HEIGHT, /*radius=*/ 48);
+    return dst;
+  }
+}
@@ -0,0 +1,84 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures reads through {@link RecyclableBufferedInputStream} with a buffer obtained from an
+ * {@link ArrayPool}, including the mark, header read and reset that precede every decode in
+ * {@link Downsampler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecyclableBufferedInputStreamBenchmark {
+  private static final int DATA_SIZE = 256 * 1024;
+  private static final int HEADER_SIZE = 1024;
+  private static final int MARK_LIMIT = 5 * 1024 * 1024;
+
+  private final ArrayPool arrayPool = new LruArrayPool();
+  private final byte[] readBuffer = new byte[16 * 1024];
+  private byte[] data;
+
+  @Setup
+  public void setUp() {
+    data = new byte[DATA_SIZE];
+    new Random(0).nextBytes(data);
+  }
+
+  @Benchmark
+  public int readSingleBytes() throws IOException {
+    RecyclableBufferedInputStream is = newStream();
+    int sum = 0;
+    int read;
+    while ((read = is.read()) != -1) {
+      sum += read;
+    }
+    is.release();
+    return sum;
+  }
+
+  @Benchmark
+  public int readChunks() throws IOException {
+    RecyclableBufferedInputStream is = newStream();
+    int total = 0;
+    int read;
+    while ((read = is.read(readBuffer, 0, readBuffer.length)) != -1) {
+      total += read;
+    }
+    is.release();
+    return total;
+  }
+
+  @Benchmark
+  public int markReadHeaderResetAndReadChunks() throws IOException {
+    RecyclableBufferedInputStream is = newStream();
+    is.mark(MARK_LIMIT);
+    int sum = 0;
+    for (int i = 0; i < HEADER_SIZE; i++) {
+      sum += is.read();
+    }
+    is.reset();
+    int read;
+    while ((read = is.read(readBuffer, 0, readBuffer.length)) != -1) {
+      sum += read;
+    }
+    is.release();
+    return sum;
+  }
+
+  private RecyclableBufferedInputStream newStream() {
+    return new RecyclableBufferedInputStream(new ByteArrayInputStream(data), arrayPool);
+  }
+}
@@ -0,0 +1,130 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.util.ContentLengthInputStream;
+import com.bumptech.glide.util.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * A single OkHttp call shared by one or more {@link OkHttpCallCoalescer.Subscriber}s.
+ *
+ * <p>All fields other than those that are final are guarded by the {@link OkHttpCallCoalescer}
+ * that created the call.
+ */
+final class CoalescedCall implements okhttp3.Callback {
+  private static final String TAG = "OkHttpCoalescer";
+  private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+  enum State {
+    /** Waiting for a slot for its host to become available. */
+    PENDING,
+    /** Started, but not yet responded. */
+    RUNNING,
+    /** Responded successfully, the body is being read. */
+    RESPONDED,
+    /** Failed, cancelled, or the body has finished being read. */
+    DONE,
+  }
+
+  private final OkHttpCallCoalescer coalescer;
+  private final Call.Factory client;
+  private final Request request;
+  final String key;
+  final String host;
+  final long sequence;
+  final List<OkHttpCallCoalescer.Subscriber> subscribers = new ArrayList<>();
+  State state = State.PENDING;
+  int weight;
+  @Nullable Call okHttpCall;
+  @Nullable SharedResponseBody body;
+
+  CoalescedCall(OkHttpCallCoalescer coalescer, Call.Factory client, String key, Request request,
+      int weight, long sequence) {
+    this.coalescer = coalescer;
+    this.client = client;
+    this.key = key;
+    this.request = request;
+    this.host = request.url().host();
+    this.weight = weight;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Enqueues the underlying OkHttp call, must not be called while holding the coalescer's lock.
+   */
+  void start() {
+    Call call = client.newCall(request);
+    if (coalescer.onStarted(this, call)) {
+      call.enqueue(this);
+    }
+  }
+
+  @Override
+  public void onFailure(@NonNull Call call, @NonNull IOException e) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "OkHttp failed to obtain result", e);
+    }
+    coalescer.onFailure(this, e);
+  }
+
+  @Override
+  public void onResponse(@NonNull Call call, @NonNull Response response) {
+    ResponseBody responseBody = Preconditions.checkNotNull(response.body());
+    if (!response.isSuccessful()) {
+      responseBody.close();
+      coalescer.onFailure(this, new HttpException(response.message(), response.code()));
+      return;
+    }
+    InputStream stream =
+        ContentLengthInputStream.obtain(responseBody.byteStream(), responseBody.contentLength());
+    SharedResponseBody sharedBody =
+        new SharedResponseBody(stream, responseBody, this, coalescer.getMaxBufferedBodySize());
+    if (!coalescer.onResponse(this, sharedBody)) {
+      responseBody.close();
+    }
+  }
+
+  /**
+   * Synchronously makes a new call for the same request that isn't shared with any other reader
+   * and returns its body with the first {@code position} bytes skipped.
+   *
+   * <p>Used by readers that fell too far behind the other readers of a shared body.
+   */
+  @NonNull
+  InputStream executeUncoalesced(long position) throws IOException {
+    Response response = client.newCall(request).execute();
+    ResponseBody responseBody = Preconditions.checkNotNull(response.body());
+    if (!response.isSuccessful()) {
+      responseBody.close();
+      throw new HttpException(response.message(), response.code());
+    }
+    InputStream stream =
+        ContentLengthInputStream.obtain(responseBody.byteStream(), responseBody.contentLength());
+    // Bytes are read rather than skipped so that ContentLengthInputStream counts them.
+    byte[] discard = new byte[(int) Math.min(position, SKIP_BUFFER_SIZE)];
+    long remaining = position;
+    while (remaining > 0) {
+      int read = stream.read(discard, 0, (int) Math.min(remaining, discard.length));
+      if (read == -1) {
+        responseBody.close();
+        throw new IOException("Uncoalesced response body is shorter than the shared body");
+      }
+      remaining -= read;
+    }
+    return stream;
+  }
+
+  void onBodyFinished() {
+    coalescer.onBodyFinished(this);
+  }
+}
@@ -0,0 +1,97 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import java.io.IOException;
+import java.io.InputStream;
+import okhttp3.Call;
+
+/**
+ * Fetches an {@link InputStream} using the okhttp library, sharing calls with other fetchers for
+ * the same url via an {@link OkHttpCallCoalescer}.
+ */
+final class CoalescingOkHttpStreamFetcher
+    implements DataFetcher<InputStream>, OkHttpCallCoalescer.Subscriber {
+  private final Call.Factory client;
+  private final OkHttpCallCoalescer coalescer;
+  private final GlideUrl url;
+  private InputStream stream;
+  // The shared call may respond on another thread after this fetcher has been cancelled and
+  // cleaned up.
+  private volatile DataCallback<? super InputStream> callback;
+  // call may be accessed on the main thread while the object is in use on other threads. All other
+  // accesses to variables may occur on different threads, but only one at a time.
+  private volatile CoalescedCall call;
+
+  CoalescingOkHttpStreamFetcher(
+      Call.Factory client, OkHttpCallCoalescer coalescer, GlideUrl url) {
+    this.client = client;
+    this.coalescer = coalescer;
+    this.url = url;
+  }
+
+  @Override
+  public void loadData(@NonNull Priority priority,
+      @NonNull DataCallback<? super InputStream> callback) {
+    this.callback = callback;
+    call = coalescer.subscribe(client, url, priority, this);
+  }
+
+  @Override
+  public void onResponse(@NonNull InputStream stream) {
+    DataCallback<? super InputStream> local = callback;
+    if (local == null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // Ignored
+      }
+      return;
+    }
+    this.stream = stream;
+    local.onDataReady(stream);
+  }
+
+  @Override
+  public void onFailure(@NonNull Exception e) {
+    DataCallback<? super InputStream> local = callback;
+    if (local != null) {
+      local.onLoadFailed(e);
+    }
+  }
+
+  @Override
+  public void cleanup() {
+    try {
+      if (stream != null) {
+        stream.close();
+      }
+    } catch (IOException e) {
+      // Ignored
+    }
+    callback = null;
+  }
+
+  @Override
+  public void cancel() {
+    CoalescedCall local = call;
+    if (local != null) {
+      coalescer.unsubscribe(local, this);
+    }
+  }
+
+  @NonNull
+  @Override
+  public Class<InputStream> getDataClass() {
+    return InputStream.class;
+  }
+
+  @NonNull
+  @Override
+  public DataSource getDataSource() {
+    return DataSource.REMOTE;
+  }
+}
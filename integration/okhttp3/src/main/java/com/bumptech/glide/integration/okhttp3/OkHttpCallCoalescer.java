@@ -0,0 +1,389 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import okhttp3.Call;
+import okhttp3.Request;
+
+/**
+ * Shares a single OkHttp call between all of the {@link com.bumptech.glide.load.data.DataFetcher}s
+ * that request the same url at the same time and limits the number of calls made to each host.
+ *
+ * <p>Loads for the same url with different sizes or transformations each start their own
+ * {@link com.bumptech.glide.load.data.DataFetcher}. Without a coalescer each fetcher makes its own
+ * call, so the same image is downloaded once per fetcher. With a coalescer, fetchers for urls with
+ * the same {@link GlideUrl#getCacheKey()} that start while a call for that url is in flight join
+ * the existing call instead. The response body is read from the network once and each fetcher
+ * reads its own copy of the bytes from a shared buffer. Because the fetchers also share a disk
+ * cache key, the body is written to Glide's disk cache once, subsequent writes find the existing
+ * entry and are skipped. Bytes are dropped from the shared buffer once every fetcher has read
+ * them, see {@link Builder#setMaxBufferedBodySize(int)}, and fetchers that start after the start of
+ * the body has been dropped make a new call.
+ *
+ * <p>Urls are coalesced on their cache keys, so urls that differ only in their headers share a
+ * single call made with the headers of whichever url was requested first.
+ *
+ * <p>At most {@link Builder#setMaxRequestsPerHost(int)} calls are made to each host at a time.
+ * Additional calls wait in a queue ordered by the stream weight of the highest {@link Priority} of
+ * any fetcher waiting on each call, see {@link Builder#setStreamWeight(Priority, int)}. OkHttp
+ * doesn't allow weights to be set on HTTP/2 streams, so weights only control the order in which
+ * calls are started.
+ *
+ * <p>A single coalescer should be shared by all of the loaders that use the same
+ * {@link Call.Factory}, see {@link OkHttpUrlLoader.Factory#Factory(Call.Factory,
+ * OkHttpCallCoalescer)}.
+ */
+public final class OkHttpCallCoalescer {
+  /**
+   * Matches the default number of requests per host allowed by OkHttp's {@code Dispatcher}.
+   */
+  private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+  // Mirrors the HTTP/2 weights Chromium uses for its highest four request priorities.
+  private static final int DEFAULT_IMMEDIATE_WEIGHT = 256;
+  private static final int DEFAULT_HIGH_WEIGHT = 220;
+  private static final int DEFAULT_NORMAL_WEIGHT = 183;
+  private static final int DEFAULT_LOW_WEIGHT = 147;
+  private static final int MIN_WEIGHT = 1;
+  private static final int MAX_WEIGHT = 256;
+  private static final int DEFAULT_MAX_BUFFERED_BODY_SIZE = 1024 * 1024;
+
+  private final int maxRequestsPerHost;
+  private final int[] weights;
+  private final int maxBufferedBodySize;
+  private final Map<String, CoalescedCall> inFlightCalls = new HashMap<>();
+  private final Map<String, HostQueue> hostQueues = new HashMap<>();
+  private long nextSequence;
+
+  @Synthetic
+  OkHttpCallCoalescer(Builder builder) {
+    maxRequestsPerHost = builder.maxRequestsPerHost;
+    weights = builder.weights.clone();
+    maxBufferedBodySize = builder.maxBufferedBodySize;
+  }
+
+  /**
+   * Returns the HTTP/2 stream weight, between 1 and 256 inclusive, used for the given priority.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public int getStreamWeight(@NonNull Priority priority) {
+    return weights[priority.ordinal()];
+  }
+
+  /**
+   * Returns the maximum number of calls that will be made to a single host at a time.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  int getMaxBufferedBodySize() {
+    return maxBufferedBodySize;
+  }
+
+  /**
+   * Returns the number of distinct urls that are currently queued or being fetched.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public synchronized int getInFlightCallCount() {
+    return inFlightCalls.size();
+  }
+
+  /**
+   * Joins the in flight call for the given url, or starts a new one if there isn't one, and
+   * returns the call, which must be passed to {@link #unsubscribe(CoalescedCall, Subscriber)} if
+   * the subscriber is cancelled.
+   *
+   * <p>The subscriber may be notified before this method returns.
+   */
+  @NonNull
+  CoalescedCall subscribe(@NonNull Call.Factory client, @NonNull GlideUrl url,
+      @NonNull Priority priority, @NonNull Subscriber subscriber) {
+    String key = url.getCacheKey();
+    int weight = getStreamWeight(priority);
+    CoalescedCall toStart = null;
+    InputStream stream = null;
+    CoalescedCall result;
+    synchronized (this) {
+      CoalescedCall existing = inFlightCalls.get(key);
+      if (existing != null && existing.state == CoalescedCall.State.RESPONDED) {
+        stream = Preconditions.checkNotNull(existing.body).newReader();
+      }
+      if (existing != null && existing.state != CoalescedCall.State.RESPONDED) {
+        existing.subscribers.add(subscriber);
+        if (existing.state == CoalescedCall.State.PENDING && weight > existing.weight) {
+          HostQueue hostQueue = hostQueues.get(existing.host);
+          hostQueue.pending.remove(existing);
+          existing.weight = weight;
+          hostQueue.pending.add(existing);
+        }
+        result = existing;
+      } else if (stream != null) {
+        result = existing;
+      } else {
+        Request request = OkHttpStreamFetcher.buildRequest(url);
+        result = new CoalescedCall(this, client, key, request, weight, nextSequence++);
+        result.subscribers.add(subscriber);
+        inFlightCalls.put(key, result);
+        HostQueue hostQueue = hostQueues.get(result.host);
+        if (hostQueue == null) {
+          hostQueue = new HostQueue();
+          hostQueues.put(result.host, hostQueue);
+        }
+        if (hostQueue.running < maxRequestsPerHost) {
+          hostQueue.running++;
+          result.state = CoalescedCall.State.RUNNING;
+          toStart = result;
+        } else {
+          hostQueue.pending.add(result);
+        }
+      }
+    }
+    if (stream != null) {
+      subscriber.onResponse(stream);
+    }
+    if (toStart != null) {
+      toStart.start();
+    }
+    return result;
+  }
+
+  /**
+   * Removes the given subscriber from the given call and cancels the call if no subscribers
+   * remain.
+   *
+   * <p>Has no effect if the call has already responded, subscribers should close the stream they
+   * were given instead.
+   */
+  void unsubscribe(@NonNull CoalescedCall call, @NonNull Subscriber subscriber) {
+    Call toCancel = null;
+    CoalescedCall next = null;
+    synchronized (this) {
+      if (call.state == CoalescedCall.State.RESPONDED || call.state == CoalescedCall.State.DONE
+          || !call.subscribers.remove(subscriber) || !call.subscribers.isEmpty()) {
+        return;
+      }
+      if (call.state == CoalescedCall.State.PENDING) {
+        hostQueues.get(call.host).pending.remove(call);
+      } else {
+        toCancel = call.okHttpCall;
+        next = releaseHostLocked(call.host);
+      }
+      call.state = CoalescedCall.State.DONE;
+      removeLocked(call);
+    }
+    if (toCancel != null) {
+      toCancel.cancel();
+    }
+    if (next != null) {
+      next.start();
+    }
+  }
+
+  synchronized boolean onStarted(CoalescedCall call, Call okHttpCall) {
+    if (call.state != CoalescedCall.State.RUNNING) {
+      return false;
+    }
+    call.okHttpCall = okHttpCall;
+    return true;
+  }
+
+  /**
+   * Hands a reader for the given body to each subscriber, or returns {@code false} if every
+   * subscriber has been cancelled.
+   */
+  boolean onResponse(CoalescedCall call, SharedResponseBody body) {
+    List<Subscriber> toNotify;
+    List<InputStream> streams;
+    synchronized (this) {
+      if (call.state != CoalescedCall.State.RUNNING) {
+        return false;
+      }
+      call.state = CoalescedCall.State.RESPONDED;
+      call.body = body;
+      toNotify = new ArrayList<>(call.subscribers);
+      call.subscribers.clear();
+      streams = new ArrayList<>(toNotify.size());
+      for (int i = 0; i < toNotify.size(); i++) {
+        streams.add(body.newReader());
+      }
+    }
+    for (int i = 0; i < toNotify.size(); i++) {
+      toNotify.get(i).onResponse(streams.get(i));
+    }
+    return true;
+  }
+
+  void onFailure(CoalescedCall call, Exception e) {
+    List<Subscriber> toNotify;
+    CoalescedCall next;
+    synchronized (this) {
+      if (call.state != CoalescedCall.State.RUNNING) {
+        return;
+      }
+      call.state = CoalescedCall.State.DONE;
+      toNotify = new ArrayList<>(call.subscribers);
+      call.subscribers.clear();
+      removeLocked(call);
+      next = releaseHostLocked(call.host);
+    }
+    if (next != null) {
+      next.start();
+    }
+    for (Subscriber subscriber : toNotify) {
+      subscriber.onFailure(e);
+    }
+  }
+
+  /**
+   * Called once the body of a call has been read to the end, has failed, or is no longer being
+   * read by any subscriber.
+   */
+  void onBodyFinished(CoalescedCall call) {
+    CoalescedCall next;
+    synchronized (this) {
+      if (call.state != CoalescedCall.State.RESPONDED) {
+        return;
+      }
+      call.state = CoalescedCall.State.DONE;
+      removeLocked(call);
+      next = releaseHostLocked(call.host);
+    }
+    if (next != null) {
+      next.start();
+    }
+  }
+
+  private void removeLocked(CoalescedCall call) {
+    if (inFlightCalls.get(call.key) == call) {
+      inFlightCalls.remove(call.key);
+    }
+  }
+
+  @Nullable
+  private CoalescedCall releaseHostLocked(String host) {
+    HostQueue hostQueue = hostQueues.get(host);
+    CoalescedCall next = hostQueue.pending.poll();
+    if (next != null) {
+      next.state = CoalescedCall.State.RUNNING;
+    } else {
+      hostQueue.running--;
+      if (hostQueue.running == 0) {
+        hostQueues.remove(host);
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Notified when the shared call a fetcher has subscribed to completes.
+   */
+  interface Subscriber {
+
+    /**
+     * Called with a stream containing the response body that only this subscriber reads from and
+     * must close.
+     */
+    void onResponse(@NonNull InputStream stream);
+
+    void onFailure(@NonNull Exception e);
+  }
+
+  private static final class HostQueue {
+    @Synthetic final PriorityQueue<CoalescedCall> pending =
+        new PriorityQueue<>(/*initialCapacity=*/ 11, new Comparator<CoalescedCall>() {
+          @Override
+          public int compare(CoalescedCall first, CoalescedCall second) {
+            if (first.weight != second.weight) {
+              return first.weight > second.weight ? -1 : 1;
+            }
+            return first.sequence < second.sequence ? -1 : 1;
+          }
+        });
+    @Synthetic int running;
+
+    @Synthetic
+    HostQueue() { }
+  }
+
+  /**
+   * Builds {@link OkHttpCallCoalescer}s.
+   */
+  public static final class Builder {
+    @Synthetic int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+    @Synthetic final int[] weights = new int[Priority.values().length];
+    @Synthetic int maxBufferedBodySize = DEFAULT_MAX_BUFFERED_BODY_SIZE;
+
+    public Builder() {
+      weights[Priority.IMMEDIATE.ordinal()] = DEFAULT_IMMEDIATE_WEIGHT;
+      weights[Priority.HIGH.ordinal()] = DEFAULT_HIGH_WEIGHT;
+      weights[Priority.NORMAL.ordinal()] = DEFAULT_NORMAL_WEIGHT;
+      weights[Priority.LOW.ordinal()] = DEFAULT_LOW_WEIGHT;
+    }
+
+    /**
+     * Sets the maximum number of calls that will be made to a single host at a time, defaults to
+     * 5.
+     *
+     * <p>OkHttp's {@code Dispatcher} applies its own per host limit, which should be at least as
+     * large as this one for weights to take effect.
+     */
+    @NonNull
+    public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+      Preconditions.checkArgument(maxRequestsPerHost > 0,
+          "maxRequestsPerHost must be greater than zero");
+      this.maxRequestsPerHost = maxRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets the HTTP/2 stream weight, between 1 and 256 inclusive, used for the given priority.
+     *
+     * <p>Calls waiting for a host with higher weights are started first. Defaults to 256, 220, 183
+     * and 147 for {@link Priority#IMMEDIATE}, {@link Priority#HIGH}, {@link Priority#NORMAL} and
+     * {@link Priority#LOW} respectively.
+     */
+    @NonNull
+    public Builder setStreamWeight(@NonNull Priority priority, int weight) {
+      Preconditions.checkArgument(weight >= MIN_WEIGHT && weight <= MAX_WEIGHT,
+          "weight must be between " + MIN_WEIGHT + " and " + MAX_WEIGHT);
+      weights[priority.ordinal()] = weight;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of a shared response body that are buffered for readers
+     * that have fallen behind the fastest reader, defaults to 1MB.
+     *
+     * <p>Bytes are dropped as soon as every reader has read them, so the limit is only reached when
+     * readers progress at very different rates. Readers that fall further behind than this stop
+     * sharing the body and read the rest of it from a call of their own instead.
+     */
+    @NonNull
+    public Builder setMaxBufferedBodySize(int maxBufferedBodySize) {
+      Preconditions.checkArgument(maxBufferedBodySize > 0,
+          "maxBufferedBodySize must be greater than zero");
+      this.maxBufferedBodySize = maxBufferedBodySize;
+      return this;
+    }
+
+    @NonNull
+    public OkHttpCallCoalescer build() {
+      return new OkHttpCallCoalescer(this);
+    }
+  }
+}
@@ -1,11 +1,14 @@
 package com.bumptech.glide.integration.okhttp3;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.HttpException;
 import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.HttpRanges;
+import com.bumptech.glide.load.data.ResumableDataFetcher;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.util.ContentLengthInputStream;
 import com.bumptech.glide.util.Preconditions;
@@ -20,13 +23,18 @@ import okhttp3.ResponseBody;
 /**
  * Fetches an {@link InputStream} using the okhttp library.
  */
-public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Callback {
+public class OkHttpStreamFetcher
+    implements DataFetcher<InputStream>, ResumableDataFetcher, okhttp3.Callback {
   private static final String TAG = "OkHttpFetcher";
   private final Call.Factory client;
   private final GlideUrl url;
   private InputStream stream;
   private ResponseBody responseBody;
   private DataCallback<? super InputStream> callback;
+  private long resumeOffset;
+  @Nullable private String resumeValidator;
+  private long resumedOffset;
+  @Nullable private String validator;
   // call may be accessed on the main thread while the object is in use on other threads. All other
   // accesses to variables may occur on different threads, but only one at a time.
   private volatile Call call;
@@ -41,18 +49,28 @@ public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Ca
   @Override
   public void loadData(@NonNull Priority priority,
       @NonNull final DataCallback<? super InputStream> callback) {
-    Request.Builder requestBuilder = new Request.Builder().url(url.toStringUrl());
-    for (Map.Entry<String, String> headerEntry : url.getHeaders().entrySet()) {
-      String key = headerEntry.getKey();
-      requestBuilder.addHeader(key, headerEntry.getValue());
+    Request request = buildRequest(url);
+    if (resumeValidator != null) {
+      request = request.newBuilder()
+          .header(HttpRanges.RANGE_HEADER, HttpRanges.getRangeHeader(resumeOffset))
+          .header(HttpRanges.IF_RANGE_HEADER, resumeValidator)
+          .build();
     }
-    Request request = requestBuilder.build();
     this.callback = callback;
 
     call = client.newCall(request);
     call.enqueue(this);
   }
 
+  static Request buildRequest(GlideUrl url) {
+    Request.Builder requestBuilder = new Request.Builder().url(url.toStringUrl());
+    for (Map.Entry<String, String> headerEntry : url.getHeaders().entrySet()) {
+      String key = headerEntry.getKey();
+      requestBuilder.addHeader(key, headerEntry.getValue());
+    }
+    return requestBuilder.build();
+  }
+
   @Override
   public void onFailure(@NonNull Call call, @NonNull IOException e) {
     if (Log.isLoggable(TAG, Log.DEBUG)) {
@@ -65,8 +83,22 @@ public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Ca
   @Override
   public void onResponse(@NonNull Call call, @NonNull Response response) {
     responseBody = response.body();
+    if (response.code() == HttpRanges.HTTP_PARTIAL_CONTENT) {
+      String contentRange = response.header(HttpRanges.CONTENT_RANGE_HEADER);
+      if (resumeValidator == null || !HttpRanges.isContentRangeFrom(contentRange, resumeOffset)) {
+        callback.onLoadFailed(
+            new HttpException("Unexpected Content-Range: " + contentRange, response.code()));
+        return;
+      }
+      resumedOffset = resumeOffset;
+    }
     if (response.isSuccessful()) {
       long contentLength = Preconditions.checkNotNull(responseBody).contentLength();
+      validator = HttpRanges.getValidator(
+          response.header(HttpRanges.ETAG_HEADER),
+          response.header(HttpRanges.LAST_MODIFIED_HEADER),
+          response.header("Content-Encoding"),
+          contentLength);
       stream = ContentLengthInputStream.obtain(responseBody.byteStream(), contentLength);
       callback.onDataReady(stream);
     } else {
@@ -97,6 +129,23 @@ public class OkHttpStreamFetcher implements DataFetcher<InputStream>, okhttp3.Ca
     }
   }
 
+  @Override
+  public void setResumeFrom(long offset, @NonNull String validator) {
+    resumeOffset = offset;
+    resumeValidator = validator;
+  }
+
+  @Override
+  public long getResumedOffset() {
+    return resumedOffset;
+  }
+
+  @Nullable
+  @Override
+  public String getValidator() {
+    return validator;
+  }
+
   @NonNull
   @Override
   public Class<InputStream> getDataClass() {
@@ -1,7 +1,9 @@
 package com.bumptech.glide.integration.okhttp3;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoaderFactory;
@@ -16,11 +18,23 @@ import okhttp3.OkHttpClient;
 public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
 
   private final Call.Factory client;
+  @Nullable private final OkHttpCallCoalescer coalescer;
 
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public OkHttpUrlLoader(@NonNull Call.Factory client) {
+    this(client, /*coalescer=*/ null);
+  }
+
+  /**
+   * Constructor for a new loader that shares calls for the same url using the given coalescer, or
+   * makes a separate call for every load if the coalescer is {@code null}.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public OkHttpUrlLoader(@NonNull Call.Factory client, @Nullable OkHttpCallCoalescer coalescer) {
     this.client = client;
+    this.coalescer = coalescer;
   }
 
   @Override
@@ -31,7 +45,10 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   @Override
   public LoadData<InputStream> buildLoadData(@NonNull GlideUrl model, int width, int height,
       @NonNull Options options) {
-    return new LoadData<>(model, new OkHttpStreamFetcher(client, model));
+    DataFetcher<InputStream> fetcher = coalescer != null
+        ? new CoalescingOkHttpStreamFetcher(client, coalescer, model)
+        : new OkHttpStreamFetcher(client, model);
+    return new LoadData<>(model, fetcher);
   }
 
   /**
@@ -42,6 +59,7 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   public static class Factory implements ModelLoaderFactory<GlideUrl, InputStream> {
     private static volatile Call.Factory internalClient;
     private final Call.Factory client;
+    @Nullable private final OkHttpCallCoalescer coalescer;
 
     private static Call.Factory getInternalClient() {
       if (internalClient == null) {
@@ -67,13 +85,26 @@ public class OkHttpUrlLoader implements ModelLoader<GlideUrl, InputStream> {
      * @param client this is typically an instance of {@code OkHttpClient}.
      */
     public Factory(@NonNull Call.Factory client) {
+      this(client, /*coalescer=*/ null);
+    }
+
+    /**
+     * Constructor for a new Factory that runs requests using the given client and shares calls
+     * for the same url using the given coalescer.
+     *
+     * @param client this is typically an instance of {@code OkHttpClient}.
+     * @param coalescer shares calls between loads for the same url, or {@code null} to make a
+     *                  separate call for every load.
+     */
+    public Factory(@NonNull Call.Factory client, @Nullable OkHttpCallCoalescer coalescer) {
       this.client = client;
+      this.coalescer = coalescer;
     }
 
     @NonNull
     @Override
     public ModelLoader<GlideUrl, InputStream> build(MultiModelLoaderFactory multiFactory) {
-      return new OkHttpUrlLoader(client);
+      return new OkHttpUrlLoader(client, coalescer);
     }
 
     @Override
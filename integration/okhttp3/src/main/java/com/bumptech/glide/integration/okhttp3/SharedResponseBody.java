@@ -0,0 +1,292 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Synthetic;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a response body from the network once and lets any number of readers each read all of it.
+ *
+ * <p>Bytes are buffered in memory as they're read so that readers may progress at different
+ * rates. Whichever reader first needs bytes that haven't yet been buffered reads them from the
+ * network while any other readers that need them wait. The network stream is closed as soon as it
+ * has been read to the end, fails, or every reader has been closed.
+ *
+ * <p>Buffered bytes are dropped once every open reader has read past them, so a body with a single
+ * reader, or with readers that keep pace with each other, is streamed through a single segment
+ * rather than held in memory. Once the start of the body has been dropped no new readers can be
+ * added. If a reader falls so far behind that the buffer would grow past its maximum size, the
+ * reader is detached from the shared body and instead reads the rest of the body from a call of
+ * its own.
+ */
+final class SharedResponseBody {
+  private static final int SEGMENT_SIZE = 8 * 1024;
+  /** Returned by {@link #read(Reader, byte[], int, int)} to readers that have been detached. */
+  private static final int DETACHED = -2;
+
+  private final InputStream source;
+  private final Closeable responseBody;
+  private final CoalescedCall call;
+  private final long maxBufferedSize;
+  private final List<byte[]> segments = new ArrayList<>();
+  private final List<Reader> readers = new ArrayList<>();
+  // The position in the body of the first byte of the first segment.
+  private long bufferStart;
+  private long size;
+  private boolean isReadingSource;
+  private boolean isExhausted;
+  private boolean isReleased;
+  @Nullable private IOException failure;
+
+  SharedResponseBody(
+      InputStream source, Closeable responseBody, CoalescedCall call, long maxBufferedSize) {
+    this.source = source;
+    this.responseBody = responseBody;
+    this.call = call;
+    // At least one segment has to be buffered for the reader that's furthest ahead.
+    this.maxBufferedSize = Math.max(maxBufferedSize, SEGMENT_SIZE);
+  }
+
+  /**
+   * Returns a new stream that reads the body from the beginning, or {@code null} if the network
+   * stream has already been released or the start of the body is no longer buffered and the body
+   * can't be shared any more.
+   */
+  @Nullable
+  synchronized InputStream newReader() {
+    if (isReleased || bufferStart > 0) {
+      return null;
+    }
+    Reader reader = new Reader();
+    readers.add(reader);
+    return reader;
+  }
+
+  @VisibleForTesting
+  synchronized long getBufferedSize() {
+    return segments.size() * (long) SEGMENT_SIZE;
+  }
+
+  @Synthetic
+  int read(Reader reader, byte[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    while (true) {
+      byte[] segment;
+      int segmentOffset;
+      synchronized (this) {
+        while (reader.position >= size && isReadingSource && !reader.isDetached) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+          }
+        }
+        if (reader.isDetached) {
+          return DETACHED;
+        } else if (reader.position < size) {
+          int copied = copyLocked(reader.position, buffer, offset, length);
+          reader.position += copied;
+          trimLocked();
+          return copied;
+        } else if (isExhausted) {
+          return -1;
+        } else if (failure != null) {
+          throw new IOException("Failed to read shared response body", failure);
+        } else if (isReleased) {
+          throw new IOException("Shared response body was closed");
+        }
+        isReadingSource = true;
+        segmentOffset = (int) (size % SEGMENT_SIZE);
+        if (segmentOffset == 0) {
+          detachReadersOverLimitLocked();
+          segments.add(new byte[SEGMENT_SIZE]);
+        }
+        segment = segments.get(segments.size() - 1);
+      }
+
+      // Bytes past size are only written by the thread reading from source and aren't visible to
+      // other readers until size is updated, so the segment can be written to without the lock.
+      int read;
+      IOException readFailure = null;
+      try {
+        read = source.read(segment, segmentOffset, SEGMENT_SIZE - segmentOffset);
+      } catch (IOException e) {
+        read = 0;
+        readFailure = e;
+      }
+
+      boolean release;
+      synchronized (this) {
+        isReadingSource = false;
+        if (readFailure != null) {
+          failure = readFailure;
+        } else if (read == -1) {
+          isExhausted = true;
+        } else {
+          size += read;
+        }
+        release = (readFailure != null || read == -1) && !isReleased;
+        if (release) {
+          isReleased = true;
+        }
+        notifyAll();
+      }
+      if (release) {
+        release();
+      }
+    }
+  }
+
+  @Synthetic
+  synchronized int available(Reader reader) {
+    return reader.isDetached ? 0 : (int) Math.min(Integer.MAX_VALUE, size - reader.position);
+  }
+
+  @Synthetic
+  void onReaderClosed(Reader reader) {
+    boolean release;
+    synchronized (this) {
+      readers.remove(reader);
+      trimLocked();
+      release = readers.isEmpty() && !isReleased;
+      if (release) {
+        isReleased = true;
+      }
+    }
+    if (release) {
+      release();
+    }
+  }
+
+  // Detaches the readers furthest behind until there's room to buffer another segment. The reader
+  // that's about to read from source has read everything buffered so far, so it's never detached.
+  private void detachReadersOverLimitLocked() {
+    while (size - bufferStart + SEGMENT_SIZE > maxBufferedSize) {
+      Reader slowest = null;
+      for (int i = 0, count = readers.size(); i < count; i++) {
+        Reader current = readers.get(i);
+        if (slowest == null || current.position < slowest.position) {
+          slowest = current;
+        }
+      }
+      if (slowest == null || slowest.position >= size) {
+        return;
+      }
+      slowest.isDetached = true;
+      readers.remove(slowest);
+      trimLocked();
+    }
+    // Wakes detached readers waiting for this read so that they can make calls of their own.
+    notifyAll();
+  }
+
+  // Drops segments every open reader has read past. The segment being written, if any, extends
+  // past size and so past every reader's position, so it's never dropped.
+  private void trimLocked() {
+    long minPosition = size;
+    for (int i = 0, count = readers.size(); i < count; i++) {
+      minPosition = Math.min(minPosition, readers.get(i).position);
+    }
+    int toDrop = (int) Math.min(segments.size(), (minPosition - bufferStart) / SEGMENT_SIZE);
+    if (toDrop > 0) {
+      segments.subList(0, toDrop).clear();
+      bufferStart += toDrop * (long) SEGMENT_SIZE;
+    }
+  }
+
+  private int copyLocked(long position, byte[] buffer, int offset, int length) {
+    int toCopy = (int) Math.min(length, size - position);
+    int copied = 0;
+    while (copied < toCopy) {
+      long current = position + copied - bufferStart;
+      byte[] segment = segments.get((int) (current / SEGMENT_SIZE));
+      int segmentOffset = (int) (current % SEGMENT_SIZE);
+      int count = Math.min(toCopy - copied, SEGMENT_SIZE - segmentOffset);
+      System.arraycopy(segment, segmentOffset, buffer, offset + copied, count);
+      copied += count;
+    }
+    return copied;
+  }
+
+  private void release() {
+    try {
+      source.close();
+    } catch (IOException e) {
+      // Ignored.
+    }
+    try {
+      responseBody.close();
+    } catch (IOException e) {
+      // Ignored.
+    }
+    call.onBodyFinished();
+  }
+
+  private final class Reader extends InputStream {
+    private final byte[] singleByte = new byte[1];
+    // Guarded by the SharedResponseBody's lock until the reader is detached.
+    @Synthetic long position;
+    @Synthetic boolean isDetached;
+    @Nullable private InputStream uncoalesced;
+    private boolean isClosed;
+
+    @Synthetic
+    Reader() { }
+
+    @Override
+    public int read() throws IOException {
+      int read = read(singleByte, 0, 1);
+      return read == -1 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+      if (isClosed) {
+        throw new IOException("Stream closed");
+      }
+      if (uncoalesced == null) {
+        int read = SharedResponseBody.this.read(this, buffer, offset, length);
+        if (read != DETACHED) {
+          return read;
+        }
+        uncoalesced = call.executeUncoalesced(position);
+      }
+      int read = uncoalesced.read(buffer, offset, length);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+      if (isClosed) {
+        return 0;
+      }
+      return uncoalesced != null
+          ? uncoalesced.available() : SharedResponseBody.this.available(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!isClosed) {
+        isClosed = true;
+        if (uncoalesced != null) {
+          uncoalesced.close();
+        } else {
+          onReaderClosed(this);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,378 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import static com.bumptech.glide.testutil.TestUtil.isToString;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.BufferedSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Tests {@link OkHttpCallCoalescer} and {@link CoalescingOkHttpStreamFetcher} against server
+ * responses.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class OkHttpCallCoalescerTest {
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final String DEFAULT_PATH = "/fakepath";
+
+  private MockWebServer mockWebServer;
+  private BlockingDispatcher dispatcher;
+  private OkHttpClient client;
+
+  @Before
+  public void setUp() throws IOException {
+    dispatcher = new BlockingDispatcher();
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(dispatcher);
+    mockWebServer.start();
+    client = new OkHttpClient();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    dispatcher.release();
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void loadData_whileCallForUrlIsInFlight_joinsCall() throws Exception {
+    OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    RecordingCallback first = new RecordingCallback(/*readsData=*/ true);
+    RecordingCallback second = new RecordingCallback(/*readsData=*/ true);
+
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, first);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.HIGH, second);
+    assertThat(coalescer.getInFlightCallCount()).isEqualTo(1);
+    dispatcher.release();
+
+    assertThat(first.awaitData()).isEqualTo(DEFAULT_PATH);
+    assertThat(second.awaitData()).isEqualTo(DEFAULT_PATH);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void loadData_afterCallResponded_readsSharedBody() throws Exception {
+    OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    RecordingCallback first = new RecordingCallback(/*readsData=*/ false);
+    RecordingCallback second = new RecordingCallback(/*readsData=*/ false);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, first);
+    dispatcher.release();
+    InputStream firstStream = first.awaitStream();
+
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, second);
+
+    // The body is shared, so the late subscriber is given a reader before loadData returns.
+    assertThat(second.isNotified()).isTrue();
+    assertThat(isToString(firstStream)).isEqualTo(DEFAULT_PATH);
+    assertThat(isToString(second.awaitStream())).isEqualTo(DEFAULT_PATH);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void loadData_afterBodyReleasedButBeforeCallFinished_startsNewCall() throws Exception {
+    final OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    final RecordingCallback late = new RecordingCallback(/*readsData=*/ true);
+    final List<Integer> inFlightCallCounts = new ArrayList<>();
+    final AtomicBoolean isLateSubscriberStarted = new AtomicBoolean();
+    // The shared body closes the response body after it's released, but before the coalescer is
+    // told the call is finished, so the late subscriber finds a call that can't share its body.
+    client = client.newBuilder()
+        .addInterceptor(new OnCloseInterceptor(new Runnable() {
+          @Override
+          public void run() {
+            if (isLateSubscriberStarted.compareAndSet(false, true)) {
+              inFlightCallCounts.add(coalescer.getInFlightCallCount());
+              getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, late);
+            }
+          }
+        }))
+        .build();
+    RecordingCallback first = new RecordingCallback(/*readsData=*/ false);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, first);
+    dispatcher.release();
+
+    assertThat(isToString(first.awaitStream())).isEqualTo(DEFAULT_PATH);
+
+    assertThat(inFlightCallCounts).containsExactly(1);
+    assertThat(late.awaitData()).isEqualTo(DEFAULT_PATH);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void cancel_withLastSubscriber_cancelsCallAndStartsNextCallForHost() throws Exception {
+    OkHttpCallCoalescer coalescer =
+        new OkHttpCallCoalescer.Builder().setMaxRequestsPerHost(1).build();
+    RecordingCallback cancelled = new RecordingCallback(/*readsData=*/ true);
+    RecordingCallback next = new RecordingCallback(/*readsData=*/ true);
+    DataFetcher<InputStream> toCancel = getFetcher(coalescer, "/cancelled");
+    toCancel.loadData(Priority.NORMAL, cancelled);
+    getFetcher(coalescer, "/next").loadData(Priority.NORMAL, next);
+    assertThat(takeRequestPath()).isEqualTo("/cancelled");
+
+    toCancel.cancel();
+
+    assertThat(takeRequestPath()).isEqualTo("/next");
+    dispatcher.release();
+    assertThat(next.awaitData()).isEqualTo("/next");
+    assertThat(cancelled.isNotified()).isFalse();
+    assertThat(coalescer.getInFlightCallCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void cancel_withRemainingSubscribers_doesNotCancelCall() throws Exception {
+    OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    RecordingCallback cancelled = new RecordingCallback(/*readsData=*/ true);
+    RecordingCallback remaining = new RecordingCallback(/*readsData=*/ true);
+    DataFetcher<InputStream> toCancel = getFetcher(coalescer, DEFAULT_PATH);
+    toCancel.loadData(Priority.NORMAL, cancelled);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, remaining);
+
+    toCancel.cancel();
+    dispatcher.release();
+
+    assertThat(remaining.awaitData()).isEqualTo(DEFAULT_PATH);
+    assertThat(cancelled.isNotified()).isFalse();
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void loadData_withMaxRequestsPerHost_startsPendingCallsInOrderOfWeight()
+      throws Exception {
+    OkHttpCallCoalescer coalescer =
+        new OkHttpCallCoalescer.Builder().setMaxRequestsPerHost(1).build();
+    List<RecordingCallback> callbacks = new ArrayList<>();
+    loadData(coalescer, "/running", Priority.LOW, callbacks);
+    assertThat(takeRequestPath()).isEqualTo("/running");
+    loadData(coalescer, "/low", Priority.LOW, callbacks);
+    loadData(coalescer, "/normal", Priority.NORMAL, callbacks);
+    loadData(coalescer, "/high", Priority.HIGH, callbacks);
+    loadData(coalescer, "/equal", Priority.HIGH, callbacks);
+    // Joining a pending call with a higher priority moves the call ahead.
+    loadData(coalescer, "/low", Priority.IMMEDIATE, callbacks);
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    dispatcher.release();
+
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      paths.add(takeRequestPath());
+    }
+    assertThat(paths).containsExactly("/low", "/high", "/equal", "/normal").inOrder();
+    for (RecordingCallback callback : callbacks) {
+      callback.awaitData();
+    }
+  }
+
+  @Test
+  public void loadData_withFailedResponse_notifiesEverySubscriber() throws Exception {
+    OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    dispatcher.setResponse(DEFAULT_PATH, new MockResponse().setResponseCode(500));
+    RecordingCallback first = new RecordingCallback(/*readsData=*/ true);
+    RecordingCallback second = new RecordingCallback(/*readsData=*/ true);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, first);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, second);
+
+    dispatcher.release();
+
+    assertThat(first.awaitFailure()).isInstanceOf(HttpException.class);
+    assertThat(second.awaitFailure()).isInstanceOf(HttpException.class);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    assertThat(coalescer.getInFlightCallCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void loadData_afterFailedResponse_startsNewCall() throws Exception {
+    OkHttpCallCoalescer coalescer = new OkHttpCallCoalescer.Builder().build();
+    dispatcher.setResponse(DEFAULT_PATH, new MockResponse().setResponseCode(500));
+    RecordingCallback failed = new RecordingCallback(/*readsData=*/ true);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, failed);
+    dispatcher.release();
+    failed.awaitFailure();
+    dispatcher.setResponse(DEFAULT_PATH, new MockResponse().setBody("retried"));
+
+    RecordingCallback retried = new RecordingCallback(/*readsData=*/ true);
+    getFetcher(coalescer, DEFAULT_PATH).loadData(Priority.NORMAL, retried);
+
+    assertThat(retried.awaitData()).isEqualTo("retried");
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+  }
+
+  private void loadData(OkHttpCallCoalescer coalescer, String path, Priority priority,
+      List<RecordingCallback> callbacks) {
+    RecordingCallback callback = new RecordingCallback(/*readsData=*/ true);
+    callbacks.add(callback);
+    getFetcher(coalescer, path).loadData(priority, callback);
+  }
+
+  private String takeRequestPath() throws InterruptedException {
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    return request != null ? request.getPath() : null;
+  }
+
+  private DataFetcher<InputStream> getFetcher(OkHttpCallCoalescer coalescer, String path) {
+    GlideUrl url = new GlideUrl(mockWebServer.url(path).toString());
+    return new CoalescingOkHttpStreamFetcher(client, coalescer, url);
+  }
+
+  /**
+   * Holds every request until {@link #release()} is called, and then responds with the response
+   * set for its path, or with its path as the body.
+   */
+  private static final class BlockingDispatcher extends Dispatcher {
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final Map<String, MockResponse> responses = new ConcurrentHashMap<>();
+
+    void setResponse(String path, MockResponse response) {
+      responses.put(path, response);
+    }
+
+    void release() {
+      released.countDown();
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+      released.await();
+      MockResponse response = responses.get(request.getPath());
+      return response != null ? response : new MockResponse().setBody(request.getPath());
+    }
+  }
+
+  private static final class RecordingCallback implements DataFetcher.DataCallback<InputStream> {
+    private final CountDownLatch notified = new CountDownLatch(1);
+    private final boolean readsData;
+    private volatile InputStream stream;
+    private volatile String data;
+    private volatile Exception exception;
+
+    /**
+     * @param readsData {@code true} to read and close the stream as soon as it's received, which
+     *                  lets the call finish, or {@code false} to leave it to the test.
+     */
+    RecordingCallback(boolean readsData) {
+      this.readsData = readsData;
+    }
+
+    @Override
+    public void onDataReady(@Nullable InputStream data) {
+      if (readsData) {
+        try {
+          this.data = isToString(data);
+        } catch (IOException e) {
+          exception = e;
+        }
+      } else {
+        stream = data;
+      }
+      notified.countDown();
+    }
+
+    @Override
+    public void onLoadFailed(@NonNull Exception e) {
+      exception = e;
+      notified.countDown();
+    }
+
+    boolean isNotified() {
+      return notified.getCount() == 0;
+    }
+
+    String awaitData() throws Exception {
+      await();
+      if (exception != null) {
+        throw exception;
+      }
+      return data;
+    }
+
+    InputStream awaitStream() throws Exception {
+      await();
+      if (exception != null) {
+        throw exception;
+      }
+      return stream;
+    }
+
+    Exception awaitFailure() throws InterruptedException {
+      await();
+      assertThat(exception).isNotNull();
+      return exception;
+    }
+
+    private void await() throws InterruptedException {
+      assertThat(notified.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  private static final class OnCloseInterceptor implements Interceptor {
+    private final Runnable onClose;
+
+    OnCloseInterceptor(Runnable onClose) {
+      this.onClose = onClose;
+    }
+
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+      Response response = chain.proceed(chain.request());
+      final ResponseBody body = response.body();
+      if (body == null) {
+        return response;
+      }
+      return response.newBuilder()
+          .body(new ResponseBody() {
+            @Nullable
+            @Override
+            public MediaType contentType() {
+              return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+              return body.contentLength();
+            }
+
+            @Override
+            public BufferedSource source() {
+              return body.source();
+            }
+
+            @Override
+            public void close() {
+              body.close();
+              onClose.run();
+            }
+          })
+          .build();
+    }
+  }
+}
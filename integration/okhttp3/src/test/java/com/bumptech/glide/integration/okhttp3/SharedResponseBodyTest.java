@@ -0,0 +1,282 @@
+package com.bumptech.glide.integration.okhttp3;
+
+import static com.bumptech.glide.testutil.TestUtil.isToBytes;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.support.annotation.NonNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SharedResponseBodyTest {
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final int SEGMENT_SIZE = 8 * 1024;
+
+  private ChunkedInputStream source;
+  private Closeable responseBody;
+  private Call.Factory client;
+  private Request request;
+  private CoalescedCall call;
+  private SharedResponseBody body;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    source = new ChunkedInputStream();
+    responseBody = mock(Closeable.class);
+    client = mock(Call.Factory.class);
+    request = new Request.Builder().url("http://fakehost/fakepath").build();
+    call = new CoalescedCall(new OkHttpCallCoalescer.Builder().build(), client, "key", request,
+        /*weight=*/ 1, /*sequence=*/ 0);
+    body = new SharedResponseBody(source, responseBody, call, /*maxBufferedSize=*/ 1024 * 1024);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void newReader_withMultipleReaders_eachReadsWholeBody() throws IOException {
+    // Larger than a single buffered segment.
+    byte[] data = newData(20 * 1024);
+    source.add(Arrays.copyOfRange(data, 0, 5000));
+    source.add(Arrays.copyOfRange(data, 5000, data.length));
+    source.finish();
+    InputStream first = body.newReader();
+    InputStream second = body.newReader();
+
+    assertThat(isToBytes(first)).isEqualTo(data);
+    assertThat(isToBytes(second)).isEqualTo(data);
+    verify(responseBody).close();
+  }
+
+  @Test
+  public void close_whileOtherReaderIsBlockedInRead_otherReaderReadsWholeBody()
+      throws Exception {
+    byte[] data = newData(100);
+    final InputStream blocked = body.newReader();
+    InputStream closed = body.newReader();
+    Future<byte[]> result = executor.submit(new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        return isToBytes(blocked);
+      }
+    });
+    source.awaitRead();
+
+    closed.close();
+    verify(responseBody, never()).close();
+    source.add(data);
+    source.finish();
+
+    assertThat(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(data);
+    verify(responseBody, times(1)).close();
+  }
+
+  @Test
+  public void close_withLastReader_releasesBodyAndPreventsNewReaders() throws IOException {
+    InputStream first = body.newReader();
+    InputStream second = body.newReader();
+
+    first.close();
+    second.close();
+
+    verify(responseBody).close();
+    assertThat(source.isClosed).isTrue();
+    assertThat(body.newReader()).isNull();
+  }
+
+  @Test
+  public void read_afterSourceFails_throwsForEveryReader() throws IOException {
+    source.fail();
+    InputStream first = body.newReader();
+    InputStream second = body.newReader();
+
+    assertReadFails(first);
+    assertReadFails(second);
+    verify(responseBody).close();
+  }
+
+  @Test
+  public void read_afterSourceFails_returnsBytesReadBeforeFailure() throws IOException {
+    source.add(new byte[] { 1, 2, 3 });
+    InputStream reader = body.newReader();
+    byte[] buffer = new byte[3];
+    assertThat(reader.read(buffer)).isEqualTo(3);
+    source.fail();
+    InputStream late = body.newReader();
+
+    assertReadFails(reader);
+    assertThat(late.read(buffer)).isEqualTo(3);
+    assertThat(buffer).isEqualTo(new byte[] { 1, 2, 3 });
+    assertReadFails(late);
+  }
+
+  @Test
+  public void read_withSingleReader_buffersAtMostOneSegment() throws IOException {
+    byte[] data = newData(10 * SEGMENT_SIZE);
+    source.add(data);
+    source.finish();
+    InputStream reader = body.newReader();
+
+    byte[] buffer = new byte[1000];
+    while (reader.read(buffer) != -1) {
+      assertThat(body.getBufferedSize()).isAtMost((long) SEGMENT_SIZE);
+    }
+  }
+
+  @Test
+  public void newReader_afterEveryReaderHasPassedFirstSegment_returnsNull() throws IOException {
+    source.add(newData(2 * SEGMENT_SIZE));
+    InputStream first = body.newReader();
+    InputStream second = body.newReader();
+    byte[] buffer = new byte[SEGMENT_SIZE];
+
+    assertThat(first.read(buffer)).isEqualTo(SEGMENT_SIZE);
+    assertThat(second.read(buffer)).isEqualTo(SEGMENT_SIZE);
+
+    assertThat(body.newReader()).isNull();
+  }
+
+  @Test
+  public void read_withReaderBehindByMoreThanMaxBufferedSize_readsRestFromNewCall()
+      throws IOException {
+    byte[] data = newData(10 * SEGMENT_SIZE);
+    source.add(data);
+    source.finish();
+    Call uncoalesced = mock(Call.class);
+    when(client.newCall(any(Request.class))).thenReturn(uncoalesced);
+    when(uncoalesced.execute()).thenReturn(new Response.Builder()
+        .request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .body(ResponseBody.create(null, data))
+        .build());
+    body = new SharedResponseBody(source, responseBody, call, 2 * SEGMENT_SIZE);
+    InputStream fast = body.newReader();
+    InputStream slow = body.newReader();
+    byte[] start = new byte[100];
+    assertThat(slow.read(start)).isEqualTo(start.length);
+
+    assertThat(isToBytes(fast)).isEqualTo(data);
+    assertThat(body.getBufferedSize()).isAtMost(2L * SEGMENT_SIZE);
+    byte[] rest = isToBytes(slow);
+
+    assertThat(Arrays.copyOfRange(data, 0, start.length)).isEqualTo(start);
+    assertThat(rest).isEqualTo(Arrays.copyOfRange(data, start.length, data.length));
+    verify(client).newCall(request);
+  }
+
+  private static void assertReadFails(InputStream stream) {
+    try {
+      stream.read(new byte[10]);
+      fail("Expected read to fail");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  private static byte[] newData(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte) i;
+    }
+    return result;
+  }
+
+  /**
+   * Returns chunks of data added by the test, blocking until one is available.
+   */
+  private static final class ChunkedInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+    private static final byte[] FAILURE = new byte[0];
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private final CountDownLatch isReading = new CountDownLatch(1);
+    private byte[] current;
+    private int position;
+    volatile boolean isClosed;
+
+    void add(byte[] chunk) {
+      chunks.add(chunk);
+    }
+
+    void finish() {
+      chunks.add(END);
+    }
+
+    void fail() {
+      chunks.add(FAILURE);
+    }
+
+    void awaitRead() throws InterruptedException {
+      assertThat(isReading.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] buffer = new byte[1];
+      return read(buffer, 0, 1) == -1 ? -1 : buffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+      isReading.countDown();
+      if (current == null || position == current.length) {
+        try {
+          current = chunks.take();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        position = 0;
+      }
+      if (current == END) {
+        chunks.add(END);
+        return -1;
+      } else if (current == FAILURE) {
+        chunks.add(FAILURE);
+        throw new IOException("Fake failure");
+      }
+      int count = Math.min(length, current.length - position);
+      System.arraycopy(current, position, buffer, offset, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+      isClosed = true;
+    }
+  }
+}
@@ -5,6 +5,7 @@ import android.support.annotation.NonNull;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
 import android.support.v7.widget.RecyclerView;
+import com.bumptech.glide.AdaptiveListPreloader;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.ListPreloader;
 import com.bumptech.glide.ListPreloader.PreloadModelProvider;
@@ -25,6 +26,9 @@ import com.bumptech.glide.RequestManager;
  * <p> This class only works with {@link android.support.v7.widget.LinearLayoutManager} and
  * subclasses of {@link android.support.v7.widget.LinearLayoutManager}. </p>
  *
+ * <p> To preload more items the faster the {@link RecyclerView} scrolls, use
+ * {@link #RecyclerViewPreloader(AdaptiveListPreloader)}. </p>
+ *
  * @param <T> The type of the model being displayed in the {@link RecyclerView}.
  */
 @SuppressWarnings("unused")
@@ -91,6 +95,19 @@ public final class RecyclerViewPreloader<T> extends RecyclerView.OnScrollListene
     recyclerScrollListener = new RecyclerToListViewScrollListener(listPreloader);
   }
 
+  /**
+   * Constructor that accepts an {@link AdaptiveListPreloader}, which preloads more items the faster
+   * the {@link RecyclerView} scrolls and the longer loads take.
+   */
+  public RecyclerViewPreloader(@NonNull AdaptiveListPreloader<T> adaptiveListPreloader) {
+    recyclerScrollListener = new RecyclerToListViewScrollListener(adaptiveListPreloader);
+  }
+
+  @Override
+  public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+    recyclerScrollListener.onScrollStateChanged(recyclerView, newState);
+  }
+
   @Override
   public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
     recyclerScrollListener.onScrolled(recyclerView, dx, dy);
@@ -0,0 +1,238 @@
+package com.bumptech.glide;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.widget.AbsListView;
+import com.bumptech.glide.ListPreloader.PreloadModelProvider;
+import com.bumptech.glide.ListPreloader.PreloadSizeProvider;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.BaseTarget;
+import com.bumptech.glide.request.target.SizeReadyCallback;
+import com.bumptech.glide.request.transition.Transition;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Like {@link ListPreloader}, loads resources ahead in the direction of scrolling in any
+ * {@link AbsListView}, but preloads more items the faster the list scrolls and the longer loads
+ * take.
+ *
+ * <p>The number of items to preload is between {@code minPreload} and {@code maxPreload}, see
+ * {@link PreloadWindowEstimator}. Items closer to the visible items are loaded with a higher
+ * {@link Priority}, and loads that are already running are re-prioritized as the list scrolls
+ * towards them, see {@link RequestManager#setPriority}. Rather than clearing every load when the
+ * direction of scrolling changes, only the loads for items that have scrolled out of view or that
+ * are now behind the direction of scrolling are cleared, so loads that are still useful aren't
+ * restarted.
+ *
+ * <p>Must be put using
+ * {@link AbsListView#setOnScrollListener(android.widget.AbsListView.OnScrollListener)}, or have its
+ * corresponding methods called from another {@link android.widget.AbsListView.OnScrollListener} to
+ * function.
+ *
+ * @param <T> The type of the model being displayed in the list.
+ */
+// Public API.
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class AdaptiveListPreloader<T> implements AbsListView.OnScrollListener {
+  private final RequestManager requestManager;
+  private final PreloadModelProvider<T> preloadModelProvider;
+  private final PreloadSizeProvider<T> preloadDimensionProvider;
+  private final PreloadWindowEstimator estimator;
+  private final Clock clock;
+  private final Map<Integer, List<PreloadTarget>> targetsByPosition = new HashMap<>();
+  private final Queue<PreloadTarget> unusedTargets = new ArrayDeque<>();
+
+  private int lastFirstVisible = -1;
+  private boolean isIncreasing = true;
+
+  /**
+   * @param preloadModelProvider     Provides models to load and requests capable of loading them.
+   * @param preloadDimensionProvider Provides the dimensions of images to load.
+   * @param minPreload               Number of items to preload when the list is scrolling slowly.
+   * @param maxPreload               Maximum number of items to preload.
+   */
+  public AdaptiveListPreloader(@NonNull RequestManager requestManager,
+      @NonNull PreloadModelProvider<T> preloadModelProvider,
+      @NonNull PreloadSizeProvider<T> preloadDimensionProvider, int minPreload, int maxPreload) {
+    this(requestManager, preloadModelProvider, preloadDimensionProvider,
+        new PreloadWindowEstimator(minPreload, maxPreload), new Clock());
+  }
+
+  @VisibleForTesting
+  AdaptiveListPreloader(RequestManager requestManager,
+      PreloadModelProvider<T> preloadModelProvider,
+      PreloadSizeProvider<T> preloadDimensionProvider, PreloadWindowEstimator estimator,
+      Clock clock) {
+    this.requestManager = requestManager;
+    this.preloadModelProvider = preloadModelProvider;
+    this.preloadDimensionProvider = preloadDimensionProvider;
+    this.estimator = estimator;
+    this.clock = clock;
+  }
+
+  @Override
+  public void onScrollStateChanged(AbsListView absListView, int scrollState) {
+    if (scrollState == SCROLL_STATE_IDLE) {
+      estimator.onScrollStopped();
+    }
+  }
+
+  @Override
+  public void onScroll(AbsListView absListView, int firstVisible, int visibleCount,
+      int totalCount) {
+    estimator.onScroll(firstVisible, clock.now());
+    if (firstVisible > lastFirstVisible) {
+      isIncreasing = true;
+    } else if (firstVisible < lastFirstVisible) {
+      isIncreasing = false;
+    }
+    lastFirstVisible = firstVisible;
+
+    int windowSize = estimator.getWindowSize();
+    int start;
+    int end;
+    // Loads for visible items are kept so the views' own requests can pick them up, and loads
+    // ahead are kept when the window shrinks because they'll be needed soon.
+    if (isIncreasing) {
+      start = firstVisible + visibleCount;
+      end = start + windowSize;
+      clearOutside(firstVisible, Integer.MAX_VALUE);
+    } else {
+      end = firstVisible;
+      start = end - windowSize;
+      clearOutside(Integer.MIN_VALUE, firstVisible + visibleCount);
+    }
+    start = Math.min(totalCount, Math.max(0, start));
+    end = Math.min(totalCount, Math.max(0, end));
+
+    if (isIncreasing) {
+      for (int i = start; i < end; i++) {
+        preloadAdapterPosition(i, PreloadWindowEstimator.getPriority(i - start, windowSize));
+      }
+    } else {
+      for (int i = end - 1; i >= start; i--) {
+        preloadAdapterPosition(i, PreloadWindowEstimator.getPriority(end - 1 - i, windowSize));
+      }
+    }
+  }
+
+  private void clearOutside(int start, int end) {
+    for (Iterator<Map.Entry<Integer, List<PreloadTarget>>> iterator =
+        targetsByPosition.entrySet().iterator(); iterator.hasNext(); ) {
+      Map.Entry<Integer, List<PreloadTarget>> entry = iterator.next();
+      int position = entry.getKey();
+      if (position >= start && position < end) {
+        continue;
+      }
+      for (PreloadTarget target : entry.getValue()) {
+        requestManager.clear(target);
+        unusedTargets.offer(target);
+      }
+      iterator.remove();
+    }
+  }
+
+  private void preloadAdapterPosition(int position, Priority priority) {
+    List<PreloadTarget> existing = targetsByPosition.get(position);
+    if (existing != null) {
+      for (PreloadTarget target : existing) {
+        if (target.priority != priority) {
+          target.priority = priority;
+          requestManager.setPriority(target, priority);
+        }
+      }
+      return;
+    }
+    List<T> items = preloadModelProvider.getPreloadItems(position);
+    List<PreloadTarget> targets = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      PreloadTarget target = preloadItem(items.get(i), position, i, priority);
+      if (target != null) {
+        targets.add(target);
+      }
+    }
+    // Record positions without any loads too so that their items aren't requested again.
+    targetsByPosition.put(position, targets);
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private PreloadTarget preloadItem(
+      @Nullable T item, int position, int perItemPosition, Priority priority) {
+    if (item == null) {
+      return null;
+    }
+    int[] dimensions =
+        preloadDimensionProvider.getPreloadSize(item, position, perItemPosition);
+    if (dimensions == null) {
+      return null;
+    }
+    RequestBuilder<Object> preloadRequestBuilder =
+        (RequestBuilder<Object>) preloadModelProvider.getPreloadRequestBuilder(item);
+    if (preloadRequestBuilder == null) {
+      return null;
+    }
+
+    PreloadTarget target = unusedTargets.poll();
+    if (target == null) {
+      target = new PreloadTarget(estimator, clock);
+    }
+    target.photoWidth = dimensions[0];
+    target.photoHeight = dimensions[1];
+    target.priority = priority;
+    // Clone so that the priority doesn't leak into a builder the provider reuses.
+    preloadRequestBuilder.clone()
+        .apply(RequestOptions.priorityOf(priority))
+        .into(target);
+    return target;
+  }
+
+  @VisibleForTesting
+  static class Clock {
+    long now() {
+      return SystemClock.uptimeMillis();
+    }
+  }
+
+  private static final class PreloadTarget extends BaseTarget<Object> {
+    private final PreloadWindowEstimator estimator;
+    private final Clock clock;
+    @Synthetic int photoHeight;
+    @Synthetic int photoWidth;
+    @Synthetic Priority priority;
+    private long startTimeMs;
+
+    @Synthetic
+    PreloadTarget(PreloadWindowEstimator estimator, Clock clock) {
+      this.estimator = estimator;
+      this.clock = clock;
+    }
+
+    @Override
+    public void onResourceReady(@NonNull Object resource,
+        @Nullable Transition<? super Object> transition) {
+      estimator.onLoadFinished(clock.now() - startTimeMs);
+    }
+
+    @Override
+    public void getSize(@NonNull SizeReadyCallback cb) {
+      // Called once each time a load starts.
+      startTimeMs = clock.now();
+      cb.onSizeReady(photoWidth, photoHeight);
+    }
+
+    @Override
+    public void removeCallback(@NonNull SizeReadyCallback cb) {
+      // Do nothing because we don't retain references to SizeReadyCallbacks.
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package com.bumptech.glide;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} for a batch of loads started with {@link BatchRequestBuilder} that completes
+ * once every load in the batch has either succeeded or failed.
+ *
+ * <p>{@link #get()} returns one resource per model in the order the models were given, or
+ * {@code null} for models that failed to load. Failed loads don't fail the batch, use
+ * {@link #getExceptions()} or a {@link BatchListener} to find out why individual loads failed.
+ *
+ * <p>Resources are held until {@link #clear()} is called, which must be done once the resources
+ * are no longer needed so that they can be returned to Glide's caches and pools.
+ *
+ * @param <R> The type of resource being loaded.
+ */
+public final class BatchFuture<R> implements Future<List<R>>, Runnable {
+  private final Engine engine;
+  private final Handler mainHandler;
+  private final Class<R> transcodeClass;
+  @Nullable private final BatchListener<R> listener;
+  private final List<Entry> entries;
+  private final List<R> results;
+  private final List<GlideException> exceptions;
+  @Nullable private List<Engine.LoadStatus> loadStatuses;
+  private int remaining;
+  private boolean isCancelled;
+  private boolean isCleared;
+
+  BatchFuture(
+      Engine engine,
+      Handler mainHandler,
+      Class<R> transcodeClass,
+      int count,
+      @Nullable BatchListener<R> listener) {
+    this.engine = engine;
+    this.mainHandler = mainHandler;
+    this.transcodeClass = transcodeClass;
+    this.listener = listener;
+    entries = new ArrayList<>(count);
+    results = new ArrayList<>(count);
+    exceptions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      entries.add(new Entry(i));
+      results.add(null);
+      exceptions.add(null);
+    }
+    remaining = count;
+  }
+
+  void begin(
+      GlideContext glideContext, List<?> models, RequestOptions options, int width, int height) {
+    if (!engine.isConcurrent()) {
+      Util.assertMainThread();
+    }
+    synchronized (this) {
+      if (isCancelled || isCleared) {
+        return;
+      }
+    }
+    if (entries.isEmpty()) {
+      onComplete();
+      return;
+    }
+    List<Engine.LoadStatus> statuses = engine.loadAll(
+        glideContext,
+        models,
+        options.getSignature(),
+        width,
+        height,
+        options.getResourceClass(),
+        transcodeClass,
+        options.getPriority(),
+        options.getDiskCacheStrategy(),
+        options.getTransformations(),
+        options.isTransformationRequired(),
+        options.isScaleOnlyOrNoTransform(),
+        options.getOptions(),
+        options.isMemoryCacheable(),
+        options.getUseUnlimitedSourceGeneratorsPool(),
+        options.getUseAnimationPool(),
+        options.getOnlyRetrieveFromCache(),
+        entries);
+    synchronized (this) {
+      // With a concurrent engine the batch can be cleared on the main thread while it's still
+      // starting here, before there were any loads to cancel.
+      if (!isCleared) {
+        loadStatuses = statuses;
+        return;
+      }
+    }
+    cancelUnfinished(statuses);
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    synchronized (this) {
+      if (isDone()) {
+        return false;
+      }
+      isCancelled = true;
+      notifyAll();
+    }
+    clear();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    return isCancelled;
+  }
+
+  @Override
+  public synchronized boolean isDone() {
+    return isCancelled || remaining == 0;
+  }
+
+  @Override
+  public List<R> get() throws InterruptedException {
+    try {
+      return doGet(/*timeoutMillis=*/ null);
+    } catch (TimeoutException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override
+  public List<R> get(long timeout, @NonNull TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    return doGet(unit.toMillis(timeout));
+  }
+
+  /**
+   * Returns one exception per model in the order the models were given, or {@code null} for models
+   * that have loaded successfully or haven't finished loading yet.
+   */
+  @NonNull
+  public synchronized List<GlideException> getExceptions() {
+    return Collections.unmodifiableList(new ArrayList<>(exceptions));
+  }
+
+  /**
+   * Cancels any loads in the batch that haven't finished and releases any resources that have
+   * been loaded so that they can be reused.
+   *
+   * <p>Resources returned by {@link #get()} must not be used after this method is called.
+   */
+  public void clear() {
+    if (Util.isOnMainThread()) {
+      run();
+    } else {
+      mainHandler.post(this);
+    }
+  }
+
+  private synchronized List<R> doGet(@Nullable Long timeoutMillis)
+      throws InterruptedException, TimeoutException {
+    if (!isDone()) {
+      Util.assertBackgroundThread();
+    }
+
+    if (timeoutMillis == null) {
+      while (!isDone()) {
+        wait();
+      }
+    } else {
+      long now = System.currentTimeMillis();
+      long deadline = now + timeoutMillis;
+      while (!isDone() && now < deadline) {
+        wait(deadline - now);
+        now = System.currentTimeMillis();
+      }
+    }
+
+    if (isCancelled) {
+      throw new CancellationException();
+    } else if (remaining != 0) {
+      throw new TimeoutException();
+    }
+    return Collections.unmodifiableList(new ArrayList<>(results));
+  }
+
+  /**
+   * A callback that should never be invoked directly.
+   */
+  @Override
+  public void run() {
+    List<Engine.LoadStatus> toCancel;
+    List<Resource<?>> toRelease = new ArrayList<>();
+    synchronized (this) {
+      if (isCleared) {
+        return;
+      }
+      isCleared = true;
+      toCancel = loadStatuses;
+      loadStatuses = null;
+      for (Entry entry : entries) {
+        if (entry.resource != null) {
+          toRelease.add(entry.resource);
+          entry.resource = null;
+        }
+      }
+    }
+    if (toCancel != null) {
+      cancelUnfinished(toCancel);
+    }
+    for (Resource<?> resource : toRelease) {
+      engine.release(resource);
+    }
+  }
+
+  private void cancelUnfinished(List<Engine.LoadStatus> statuses) {
+    for (Entry entry : entries) {
+      boolean isDone;
+      synchronized (this) {
+        isDone = entry.isDone;
+      }
+      Engine.LoadStatus loadStatus = statuses.get(entry.index);
+      if (!isDone && loadStatus != null) {
+        loadStatus.cancel();
+      }
+    }
+  }
+
+  @Synthetic
+  void onEntryComplete(Entry entry, @Nullable R result, @Nullable GlideException exception) {
+    synchronized (this) {
+      entry.isDone = true;
+      results.set(entry.index, result);
+      exceptions.set(entry.index, exception);
+      remaining--;
+      if (remaining != 0) {
+        return;
+      }
+    }
+    onComplete();
+  }
+
+  private void onComplete() {
+    boolean notifyListener;
+    List<R> completeResults = null;
+    List<GlideException> completeExceptions = null;
+    synchronized (this) {
+      notifyAll();
+      notifyListener = listener != null && !isCancelled;
+      if (notifyListener) {
+        completeResults = Collections.unmodifiableList(new ArrayList<>(results));
+        completeExceptions = Collections.unmodifiableList(new ArrayList<>(exceptions));
+      }
+    }
+    if (notifyListener) {
+      listener.onBatchComplete(completeResults, completeExceptions);
+    }
+  }
+
+  private final class Entry implements ResourceCallback {
+    @Synthetic final int index;
+    // Guarded by the BatchFuture's lock.
+    @Synthetic boolean isDone;
+    @Synthetic @Nullable Resource<?> resource;
+
+    @Synthetic
+    Entry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void onResourceReady(Resource<?> resource, DataSource dataSource) {
+      Object received = resource != null ? resource.get() : null;
+      if (received == null || !transcodeClass.isAssignableFrom(received.getClass())) {
+        if (resource != null) {
+          engine.release(resource);
+        }
+        onEntryComplete(this, /*result=*/ null, new GlideException("Expected to receive an object"
+            + " of " + transcodeClass + " but instead got " + received));
+        return;
+      }
+      boolean wasCleared;
+      synchronized (BatchFuture.this) {
+        wasCleared = isCleared;
+        if (!wasCleared) {
+          this.resource = resource;
+        }
+      }
+      if (wasCleared) {
+        engine.release(resource);
+      }
+      onEntryComplete(this, transcodeClass.cast(received), /*exception=*/ null);
+    }
+
+    @Override
+    public void onLoadFailed(GlideException e) {
+      onEntryComplete(this, /*result=*/ null, e);
+    }
+  }
+}
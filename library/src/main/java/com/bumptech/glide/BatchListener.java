@@ -0,0 +1,25 @@
+package com.bumptech.glide;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.GlideException;
+import java.util.List;
+
+/**
+ * Notified once when every load in a batch started with {@link BatchRequestBuilder} has finished.
+ *
+ * @param <R> The type of resource being loaded.
+ */
+public interface BatchListener<R> {
+
+  /**
+   * Called on the main thread when every load in the batch has either succeeded or failed.
+   *
+   * <p>Not called if the batch is cancelled before it finishes.
+   *
+   * @param resources One entry per model in the order the models were given, {@code null} for
+   *                  models that failed to load.
+   * @param exceptions One entry per model in the order the models were given, {@code null} for
+   *                   models that loaded successfully.
+   */
+  void onBatchComplete(@NonNull List<R> resources, @NonNull List<GlideException> exceptions);
+}
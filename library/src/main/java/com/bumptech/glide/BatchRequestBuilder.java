@@ -0,0 +1,125 @@
+package com.bumptech.glide;
+
+import android.support.annotation.CheckResult;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts loads for many models that share a single set of options.
+ *
+ * <p>Loading each model with its own {@link RequestBuilder} creates a builder, a request and a
+ * target per model and checks the memory cache and starts a job for each model in turn. Batches
+ * instead check the memory cache for every model first, then start jobs for all of the misses
+ * together and report back through a single {@link BatchFuture} and {@link BatchListener}. That
+ * makes batches well suited to preloading or exporting large numbers of images.
+ *
+ * <p>Batches aren't tied to the lifecycle of the {@link RequestManager} they were started from, so
+ * they aren't paused or cleared with it. Use {@link BatchFuture#clear()} instead.
+ *
+ * @param <TranscodeType> The type of resource that will be loaded.
+ */
+public final class BatchRequestBuilder<TranscodeType> {
+  private final GlideContext glideContext;
+  private final Class<TranscodeType> transcodeClass;
+  private final List<?> models;
+  private RequestOptions requestOptions;
+  @Nullable private BatchListener<TranscodeType> listener;
+
+  BatchRequestBuilder(
+      GlideContext glideContext,
+      Class<TranscodeType> transcodeClass,
+      RequestOptions requestOptions,
+      List<?> models) {
+    this.glideContext = glideContext;
+    this.transcodeClass = transcodeClass;
+    this.requestOptions = requestOptions.clone();
+    this.models = new ArrayList<>(models);
+  }
+
+  /**
+   * Applies the given options to every load in the batch.
+   *
+   * @see RequestBuilder#apply(RequestOptions)
+   */
+  @NonNull
+  @CheckResult
+  public BatchRequestBuilder<TranscodeType> apply(@NonNull RequestOptions requestOptions) {
+    this.requestOptions = this.requestOptions.apply(requestOptions);
+    return this;
+  }
+
+  /**
+   * Sets a listener to notify once every load in the batch has finished, replacing any previously
+   * set listener.
+   */
+  @NonNull
+  @CheckResult
+  public BatchRequestBuilder<TranscodeType> listener(
+      @Nullable BatchListener<TranscodeType> listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Starts the batch at the size given by {@link RequestOptions#override(int, int)}, or at each
+   * resource's original size if no override is set.
+   *
+   * @see #submit(int, int)
+   */
+  @NonNull
+  public BatchFuture<TranscodeType> submit() {
+    return submit(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL);
+  }
+
+  /**
+   * Starts the batch and returns a future that completes once every load has finished.
+   *
+   * <p>May be called on any thread. Loads are started on the main thread, or on the calling thread
+   * if {@link GlideBuilder#setIsConcurrentEngineEnabled(boolean)} is enabled.
+   *
+   * @param width  The desired width in pixels, or {@link Target#SIZE_ORIGINAL}. This will be
+   *               overridden by {@link RequestOptions#override(int, int)} if previously called.
+   * @param height The desired height in pixels, or {@link Target#SIZE_ORIGINAL}. This will be
+   *               overridden by {@link RequestOptions#override(int, int)} if previously called.
+   */
+  @NonNull
+  public BatchFuture<TranscodeType> submit(int width, int height) {
+    final RequestOptions options = requestOptions.clone();
+    if (options.isValidOverride()) {
+      width = options.getOverrideWidth();
+      height = options.getOverrideHeight();
+    }
+    final int loadWidth = maybeApplySizeMultiplier(width, options.getSizeMultiplier());
+    final int loadHeight = maybeApplySizeMultiplier(height, options.getSizeMultiplier());
+
+    final BatchFuture<TranscodeType> future =
+        new BatchFuture<>(
+            glideContext.getEngine(),
+            glideContext.getMainHandler(),
+            transcodeClass,
+            models.size(),
+            listener);
+    // Concurrent engines accept loads from any thread, so there's no need to wait for the main
+    // thread to start the batch.
+    if (Util.isOnMainThread() || glideContext.getEngine().isConcurrent()) {
+      future.begin(glideContext, models, options, loadWidth, loadHeight);
+    } else {
+      glideContext.getMainHandler().post(new Runnable() {
+        @Override
+        public void run() {
+          future.begin(glideContext, models, options, loadWidth, loadHeight);
+        }
+      });
+    }
+    return future;
+  }
+
+  private static int maybeApplySizeMultiplier(int size, float sizeMultiplier) {
+    return size == Target.SIZE_ORIGINAL ? size : Math.round(sizeMultiplier * size);
+  }
+}
@@ -8,6 +8,7 @@ import android.content.res.AssetFileDescriptor;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
@@ -25,10 +26,16 @@ import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.ResourceDecoder;
 import com.bumptech.glide.load.data.InputStreamRewinder;
 import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.NegativeCacheStats;
+import com.bumptech.glide.load.engine.PipelineStats;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.load.engine.cache.SegmentDiskCache;
 import com.bumptech.glide.load.engine.prefill.BitmapPreFiller;
+import com.bumptech.glide.load.engine.prefill.LearnedBitmapPreFiller;
+import com.bumptech.glide.load.engine.prefill.PreFillProfile;
 import com.bumptech.glide.load.engine.prefill.PreFillType;
 import com.bumptech.glide.load.model.AssetUriLoader;
 import com.bumptech.glide.load.model.ByteArrayLoader;
@@ -39,6 +46,7 @@ import com.bumptech.glide.load.model.FileLoader;
 import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.load.model.MediaStoreFileLoader;
 import com.bumptech.glide.load.model.ResourceLoader;
+import com.bumptech.glide.load.model.SegmentEntryLoader;
 import com.bumptech.glide.load.model.StreamEncoder;
 import com.bumptech.glide.load.model.StringLoader;
 import com.bumptech.glide.load.model.UnitModelLoader;
@@ -69,6 +77,10 @@ import com.bumptech.glide.load.resource.gif.GifDrawable;
 import com.bumptech.glide.load.resource.gif.GifDrawableEncoder;
 import com.bumptech.glide.load.resource.gif.GifFrameResourceDecoder;
 import com.bumptech.glide.load.resource.gif.StreamGifDecoder;
+import com.bumptech.glide.load.resource.region.ByteBufferRegionDecoderDecoder;
+import com.bumptech.glide.load.resource.region.StreamRegionDecoderDecoder;
+import com.bumptech.glide.load.resource.region.Tile;
+import com.bumptech.glide.load.resource.region.TileDecoder;
 import com.bumptech.glide.load.resource.transcode.BitmapBytesTranscoder;
 import com.bumptech.glide.load.resource.transcode.BitmapDrawableTranscoder;
 import com.bumptech.glide.load.resource.transcode.DrawableBytesTranscoder;
@@ -113,6 +125,8 @@ public class Glide implements ComponentCallbacks2 {
   private final ArrayPool arrayPool;
   private final RequestManagerRetriever requestManagerRetriever;
   private final ConnectivityMonitorFactory connectivityMonitorFactory;
+  @Nullable private final MemoryBudgetController memoryBudgetController;
+  @Nullable private final LearnedBitmapPreFiller learnedPreFiller;
   private final List<RequestManager> managers = new ArrayList<>();
   private MemoryCategory memoryCategory = MemoryCategory.NORMAL;
 
@@ -213,6 +227,12 @@ public class Glide implements ComponentCallbacks2 {
           .getApplicationContext()
           .unregisterComponentCallbacks(glide);
       glide.engine.shutdown();
+      if (glide.memoryBudgetController != null) {
+        glide.memoryBudgetController.stop();
+      }
+      if (glide.learnedPreFiller != null) {
+        glide.learnedPreFiller.stop();
+      }
     }
     glide = null;
   }
@@ -319,7 +339,10 @@ public class Glide implements ComponentCallbacks2 {
       @NonNull ConnectivityMonitorFactory connectivityMonitorFactory,
       int logLevel,
       @NonNull RequestOptions defaultRequestOptions,
-      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions) {
+      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
+      @Nullable GlideMetricsListener metricsListener,
+      @Nullable MemoryBudgetController memoryBudgetController,
+      @Nullable LearnedBitmapPreFiller learnedPreFiller) {
     this.engine = engine;
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
@@ -343,7 +366,8 @@ public class Glide implements ComponentCallbacks2 {
     registry.register(new DefaultImageHeaderParser());
 
     Downsampler downsampler = new Downsampler(registry.getImageHeaderParsers(),
-        resources.getDisplayMetrics(), bitmapPool, arrayPool);
+        resources.getDisplayMetrics(), bitmapPool, arrayPool, engine.getImageHeaderCache(),
+        engine.getSharedDecodes());
     ByteBufferGifDecoder byteBufferGifDecoder =
         new ByteBufferGifDecoder(context, registry.getImageHeaderParsers(), bitmapPool, arrayPool);
     ResourceDecoder<ParcelFileDescriptor, Bitmap> parcelFileDescriptorVideoDecoder =
@@ -366,6 +390,8 @@ public class Glide implements ComponentCallbacks2 {
     GifDrawableBytesTranscoder gifDrawableBytesTranscoder = new GifDrawableBytesTranscoder();
 
     ContentResolver contentResolver = context.getContentResolver();
+    ByteBufferRegionDecoderDecoder byteBufferRegionDecoderDecoder =
+        new ByteBufferRegionDecoderDecoder(registry.getImageHeaderParsers());
 
     registry
         .append(ByteBuffer.class, new ByteBufferEncoder())
@@ -421,6 +447,15 @@ public class Glide implements ComponentCallbacks2 {
             GifDecoder.class,
             Bitmap.class,
             new GifFrameResourceDecoder(bitmapPool))
+        /* Regions */
+        .append(ByteBuffer.class, BitmapRegionDecoder.class, byteBufferRegionDecoderDecoder)
+        .append(
+            InputStream.class,
+            BitmapRegionDecoder.class,
+            new StreamRegionDecoderDecoder(
+                registry.getImageHeaderParsers(), byteBufferRegionDecoderDecoder, arrayPool))
+        .append(Tile.class, Tile.class, UnitModelLoader.Factory.<Tile>getInstance())
+        .append(Registry.BUCKET_BITMAP, Tile.class, Bitmap.class, new TileDecoder(bitmapPool))
         /* Drawables */
         .append(Uri.class, Drawable.class, resourceDrawableDecoder)
         .append(
@@ -433,6 +468,14 @@ public class Glide implements ComponentCallbacks2 {
         .append(File.class, ParcelFileDescriptor.class, new FileLoader.FileDescriptorFactory())
         // Compilation with Gradle requires the type to be specified for UnitModelLoader here.
         .append(File.class, File.class, UnitModelLoader.Factory.<File>getInstance())
+        /* Segment disk cache entries */
+        .append(SegmentDiskCache.Entry.class, ByteBuffer.class,
+            new SegmentEntryLoader.ByteBufferFactory())
+        .append(SegmentDiskCache.Entry.class, InputStream.class,
+            new SegmentEntryLoader.StreamFactory())
+        .append(SegmentDiskCache.Entry.class, File.class, new SegmentEntryLoader.FileFactory())
+        .append(SegmentDiskCache.Entry.class, ParcelFileDescriptor.class,
+            new SegmentEntryLoader.FileDescriptorFactory())
         /* Models */
         .register(new InputStreamRewinder.Factory(arrayPool))
         .append(int.class, InputStream.class, resourceLoaderStreamFactory)
@@ -513,7 +556,18 @@ public class Glide implements ComponentCallbacks2 {
             defaultRequestOptions,
             defaultTransitionOptions,
             engine,
-            logLevel);
+            logLevel,
+            metricsListener,
+            bitmapPool);
+
+    this.memoryBudgetController = memoryBudgetController;
+    if (memoryBudgetController != null) {
+      memoryBudgetController.start();
+    }
+    this.learnedPreFiller = learnedPreFiller;
+    if (learnedPreFiller != null) {
+      learnedPreFiller.start();
+    }
   }
 
   /**
@@ -545,6 +599,33 @@ public class Glide implements ComponentCallbacks2 {
     return arrayPool;
   }
 
+  /**
+   * Returns how long loads have spent fetching, decoding and encoding so far.
+   *
+   * <p>Fetches and decodes only run on separate executors if a decode executor is set, see
+   * {@link GlideBuilder#setDecodeExecutor(
+   * com.bumptech.glide.load.engine.executor.GlideExecutor)}.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public PipelineStats getPipelineStats() {
+    return engine.getPipelineStats();
+  }
+
+  /**
+   * Returns counters for loads that failed immediately because an identical load failed recently,
+   * or {@code null} if no {@link com.bumptech.glide.load.engine.NegativeCachePolicy} is set.
+   *
+   * @see GlideBuilder#setNegativeCachePolicy(com.bumptech.glide.load.engine.NegativeCachePolicy)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @Nullable
+  public NegativeCacheStats getNegativeCacheStats() {
+    return engine.getNegativeCacheStats();
+  }
+
   /**
    * @return The context associated with this instance.
    */
@@ -592,6 +673,19 @@ public class Glide implements ComponentCallbacks2 {
     bitmapPreFiller.preFill(bitmapAttributeBuilders);
   }
 
+  /**
+   * Returns the sizes of the {@link android.graphics.Bitmap}s requested from the
+   * {@link BitmapPool} that are used to pre-fill the pool when Glide is created, or {@code null}
+   * if learned pre-filling isn't enabled.
+   *
+   * @see GlideBuilder#setIsLearnedPreFillEnabled(boolean)
+   */
+  @SuppressWarnings("unused") // Public API
+  @Nullable
+  public PreFillProfile getLearnedPreFillProfile() {
+    return learnedPreFiller != null ? learnedPreFiller.getProfile() : null;
+  }
+
   /**
    * Clears as much memory as possible.
    *
@@ -605,6 +699,10 @@ public class Glide implements ComponentCallbacks2 {
     memoryCache.clearMemory();
     bitmapPool.clearMemory();
     arrayPool.clearMemory();
+    engine.clearNegativeCache();
+    if (memoryBudgetController != null) {
+      memoryBudgetController.clearMemory();
+    }
   }
 
   /**
@@ -619,6 +717,14 @@ public class Glide implements ComponentCallbacks2 {
     memoryCache.trimMemory(level);
     bitmapPool.trimMemory(level);
     arrayPool.trimMemory(level);
+    if (memoryBudgetController != null) {
+      memoryBudgetController.trimMemory(level);
+    }
+    if (learnedPreFiller != null
+        && level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      // The app is going into the background and may be killed without further warning.
+      learnedPreFiller.save();
+    }
   }
 
   /**
@@ -653,6 +759,9 @@ public class Glide implements ComponentCallbacks2 {
    * Use {@link GlideBuilder#setMemoryCache(MemoryCache)} to put a permanent memory size if you want
    * to change the default. </p>
    *
+   * <p>If {@link GlideBuilder#setIsAdaptiveMemoryBudgetEnabled(boolean)} is enabled, the
+   * {@link MemoryCategory} scales the budget shared by the memory cache and the pools instead.
+   *
    * @return the previous MemoryCategory used by Glide.
    */
   @SuppressWarnings("WeakerAccess") // Public API
@@ -661,8 +770,12 @@ public class Glide implements ComponentCallbacks2 {
     // Engine asserts this anyway when removing resources, fail faster and consistently
     Util.assertMainThread();
     // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
-    memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
-    bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    if (memoryBudgetController != null) {
+      memoryBudgetController.setSizeMultiplier(memoryCategory.getMultiplier());
+    } else {
+      memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
+      bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    }
     MemoryCategory oldCategory = this.memoryCategory;
     this.memoryCategory = memoryCategory;
     return oldCategory;
@@ -7,23 +7,34 @@ import android.support.annotation.Nullable;
 import android.support.v4.util.ArrayMap;
 import android.util.Log;
 import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.EngineOptions;
+import com.bumptech.glide.load.engine.NegativeCachePolicy;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.prefill.LearnedBitmapPreFiller;
+import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
 import com.bumptech.glide.manager.ConnectivityMonitorFactory;
 import com.bumptech.glide.manager.DefaultConnectivityMonitorFactory;
 import com.bumptech.glide.manager.RequestManagerRetriever;
 import com.bumptech.glide.manager.RequestManagerRetriever.RequestManagerFactory;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.pool.GlideTrace;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -45,7 +56,18 @@ public final class GlideBuilder {
   @Nullable
   private RequestManagerFactory requestManagerFactory;
   private GlideExecutor animationExecutor;
+  @Nullable
+  private GlideExecutor decodeExecutor;
   private boolean isActiveResourceRetentionAllowed;
+  private boolean isConcurrentEngineEnabled;
+  @Nullable
+  private GlideMetricsListener metricsListener;
+  private boolean isTracingEnabled;
+  @Nullable private NegativeCachePolicy negativeCachePolicy;
+  private boolean isMultiSizeDerivationEnabled;
+  @Nullable private BitmapTransformation.Backend transformationBackend;
+  private boolean isAdaptiveMemoryBudgetEnabled;
+  private boolean isLearnedPreFillEnabled;
 
   /**
    * Sets the {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool} implementation to use
@@ -77,6 +99,11 @@ public final class GlideBuilder {
    * Sets the {@link com.bumptech.glide.load.engine.cache.MemoryCache} implementation to store
    * {@link com.bumptech.glide.load.engine.Resource}s that are not currently in use.
    *
+   * <p>Defaults to {@link com.bumptech.glide.load.engine.cache.LruResourceCache}. Applications
+   * that mix a small set of frequently used images with large numbers of images that are shown
+   * only once may see better hit rates with
+   * {@link com.bumptech.glide.load.engine.cache.TinyLfuResourceCache}.
+   *
    * @param memoryCache The cache to use.
    * @return This builder.
    */
@@ -93,6 +120,10 @@ public final class GlideBuilder {
    * to construct the {@link com.bumptech.glide.load.engine.cache.DiskCache} to use to store {@link
    * com.bumptech.glide.load.engine.Resource} data on disk.
    *
+   * <p>Defaults to {@link InternalCacheDiskCacheFactory}. Applications with very large numbers of
+   * cached images may see faster startup and reads with
+   * {@link com.bumptech.glide.load.engine.cache.SegmentDiskCacheFactory}.
+   *
    * @param diskCacheFactory The disk cache factory to use.
    * @return This builder.
    */
@@ -192,6 +223,33 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets the {@link GlideExecutor} to use to decode data once it's retrieved from source.
+   *
+   * <p>Defaults to {@code null}, which decodes data on the source executor thread that retrieved
+   * it. A separate decode executor lets source executors with many threads, like
+   * {@link GlideExecutor#newVirtualThreadSourceExecutor()}, wait on the network for many loads at
+   * once while only a few decodes run at a time.
+   *
+   * <p>When a decode executor is set, loads from source run as a pipeline: data is fetched on the
+   * source executor, decoded on the decode executor, and the decoded resource is written to the
+   * disk cache on the disk cache executor. Source threads block before handing off more data if
+   * decodes fall behind. See {@link Glide#getPipelineStats()} for how long each stage takes.
+   *
+   * <p>Use the {@link GlideExecutor#newDecodeExecutor()} methods if you'd like to specify options
+   * for the decode executor.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to decode on source threads.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setDecodeExecutor(@Nullable GlideExecutor service) {
+    this.decodeExecutor = service;
+    return this;
+  }
+
   /**
    * Sets the default {@link RequestOptions} to use for all loads across the app.
    *
@@ -372,6 +430,188 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * If set to {@code true}, allows the {@link Engine} to start, join and release loads from any
+   * thread rather than only from the main thread.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>By default the {@link Engine} relies on main thread confinement to de-duplicate identical
+   * loads and to track active resources. That's ideal for UI driven loads, but it forces
+   * applications that start large numbers of loads from background threads to funnel every one of
+   * them through the main thread. In concurrent mode the {@link Engine} instead uses concurrent
+   * maps and a set of striped locks so that loads for unrelated keys proceed in parallel, while
+   * identical loads are still coalesced into a single job.
+   *
+   * <p>In concurrent mode {@link RequestBuilder#submit(int, int)} and
+   * {@link BatchRequestBuilder#submit(int, int)} start their loads on the calling thread instead of
+   * posting them to the main thread. Results of loads that have to run a job are still delivered
+   * on the main thread, but loads that complete from the memory cache complete immediately on the
+   * calling thread, so {@link com.bumptech.glide.request.RequestListener}s and
+   * {@link BatchListener}s for those loads may be called on it.
+   *
+   * <p>Concurrent mode adds a small amount of locking overhead to every load and request, so it's
+   * only worth enabling if you submit loads from background threads.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsConcurrentEngineEnabled(boolean isConcurrentEngineEnabled) {
+    this.isConcurrentEngineEnabled = isConcurrentEngineEnabled;
+    return this;
+  }
+
+  /**
+   * Sets a listener to report cache outcomes and timings for every load to.
+   *
+   * <p>Defaults to {@code null}, in which case no events are reported. Glide checks for a
+   * listener before timing each event, so leaving the listener unset adds no overhead to loads.
+   *
+   * @param listener The listener to report events to, or {@code null} to disable reporting.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setMetricsListener(@Nullable GlideMetricsListener listener) {
+    this.metricsListener = listener;
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, Glide adds systrace sections for jobs, decodes and encodes so that they
+   * show up in systrace and other profilers.
+   *
+   * <p>Defaults to {@code false}. Tracing has a small cost per load and formats strings for section
+   * names, so it should generally only be enabled while profiling.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsTracingEnabled(boolean isTracingEnabled) {
+    this.isTracingEnabled = isTracingEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the {@link NegativeCachePolicy} that decides which failed loads Glide remembers, and for
+   * how long.
+   *
+   * <p>Defaults to {@code null}, in which case failed loads are never remembered and every load
+   * that isn't in memory runs again, even if an identical load just failed.
+   *
+   * <p>While a failure is remembered, identical loads fail immediately with the original exception
+   * instead of checking the disk cache and fetching from source again. That's useful for views
+   * that repeatedly rebind to models that don't exist, like a list full of broken URLs. Remembered
+   * failures are forgotten when they expire or when {@link Glide#clearMemory()} is called. See
+   * {@link Glide#getNegativeCacheStats()} for how often loads are failed this way.
+   *
+   * @param policy The policy to use, or {@code null} to never remember failed loads.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setNegativeCachePolicy(@Nullable NegativeCachePolicy policy) {
+    this.negativeCachePolicy = policy;
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, loads of the same model at different sizes that run at the same time,
+   * like a thumbnail and a full size image, decode the data once at the largest size and scale the
+   * smaller {@link android.graphics.Bitmap}s from the result.
+   *
+   * <p>Defaults to {@code false}. Each load still applies its own transformations and writes its
+   * own resource to the disk cache. Loads that would decode a larger image, or use a different
+   * {@link android.graphics.Bitmap.Config}, than the shared one decode the data themselves, as do
+   * loads that use {@link android.graphics.Bitmap.Config#HARDWARE}.
+   *
+   * <p>Scaling a {@link android.graphics.Bitmap} down from a larger decode can produce slightly
+   * different pixels than decoding at the smaller size directly, and the shared
+   * {@link android.graphics.Bitmap} is held until every load that needs it has finished.
+   *
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsMultiSizeDerivationEnabled(boolean isMultiSizeDerivationEnabled) {
+    this.isMultiSizeDerivationEnabled = isMultiSizeDerivationEnabled;
+    return this;
+  }
+
+  /**
+   * Sets the {@link BitmapTransformation.Backend} Glide's built in {@link BitmapTransformation}s
+   * use to resize, crop, mask and rotate {@link android.graphics.Bitmap}s.
+   *
+   * <p>Defaults to {@link BitmapTransformation.Backend#CANVAS}. The pixel backends don't use
+   * {@link android.graphics.Canvas}, so they avoid the lock Glide holds while drawing on devices
+   * with buggy {@link android.graphics.Paint} implementations and give smoother results for large
+   * downscales, at the cost of copying each {@link android.graphics.Bitmap}'s pixels into memory.
+   *
+   * <p>The backend is set for {@link BitmapTransformation#BACKEND} in the default
+   * {@link RequestOptions} of the {@link Glide} instance this builder builds, replacing any value
+   * set in {@link #setDefaultRequestOptions(RequestOptions)}. Individual loads can use another
+   * backend by setting {@link BitmapTransformation#BACKEND} in their own {@link RequestOptions}.
+   *
+   * @return This builder.
+   * @see BitmapTransformation#BACKEND
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setTransformationBackend(@NonNull BitmapTransformation.Backend backend) {
+    this.transformationBackend = Preconditions.checkNotNull(backend);
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, Glide periodically moves memory between the memory cache, the
+   * {@link BitmapPool} and the {@link ArrayPool} based on how often each of them is missed while
+   * full, and shrinks all three when the heap is nearly full or the app is asked to trim memory.
+   *
+   * <p>Defaults to {@code false}, in which case each keeps the size it's given when Glide is
+   * created, other than when it's trimmed or {@link Glide#setMemoryCategory(MemoryCategory)} is
+   * called. The total never exceeds the sum of the initial sizes multiplied by the current
+   * {@link MemoryCategory}. Only caches and pools that implement {@link BudgetedMemory}, which
+   * includes Glide's default implementations, are resized.
+   *
+   * @return This builder.
+   * @see MemoryBudgetController
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsAdaptiveMemoryBudgetEnabled(boolean isAdaptiveMemoryBudgetEnabled) {
+    this.isAdaptiveMemoryBudgetEnabled = isAdaptiveMemoryBudgetEnabled;
+    return this;
+  }
+
+  /**
+   * If set to {@code true}, Glide records the width, height and config of every
+   * {@link android.graphics.Bitmap} requested from the {@link BitmapPool}, saves them when the app
+   * is asked to trim memory, and pre-fills the pool in the background with
+   * {@link android.graphics.Bitmap}s of those sizes the next time Glide is created.
+   *
+   * <p>Defaults to {@code false}. Use {@link Glide#getLearnedPreFillProfile()} to see the recorded
+   * sizes.
+   *
+   * @return This builder.
+   * @see LearnedBitmapPreFiller
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  public GlideBuilder setIsLearnedPreFillEnabled(boolean isLearnedPreFillEnabled) {
+    this.isLearnedPreFillEnabled = isLearnedPreFillEnabled;
+    return this;
+  }
+
   void setRequestManagerFactory(@Nullable RequestManagerFactory factory) {
     this.requestManagerFactory = factory;
   }
@@ -434,22 +674,61 @@ public final class GlideBuilder {
               sourceExecutor,
               GlideExecutor.newUnlimitedSourceExecutor(),
               GlideExecutor.newAnimationExecutor(),
-              isActiveResourceRetentionAllowed);
+              isActiveResourceRetentionAllowed,
+              new EngineOptions.Builder()
+                  .setDecodeExecutor(decodeExecutor)
+                  .setNegativeCachePolicy(negativeCachePolicy)
+                  .setIsConcurrent(isConcurrentEngineEnabled)
+                  .setIsMultiSizeDerivationEnabled(isMultiSizeDerivationEnabled)
+                  .build());
+    }
+
+    GlideTrace.setEnabled(isTracingEnabled);
+
+    MemoryBudgetController memoryBudgetController = null;
+    if (isAdaptiveMemoryBudgetEnabled) {
+      // Memory caches are resized before pools so that resources evicted from the memory cache
+      // are returned to pools that have already been resized.
+      List<BudgetedMemory> caches = new ArrayList<>(3);
+      for (Object cache : new Object[] { memoryCache, bitmapPool, arrayPool }) {
+        if (cache instanceof BudgetedMemory) {
+          caches.add((BudgetedMemory) cache);
+        }
+      }
+      memoryBudgetController = new MemoryBudgetController(caches);
+    }
+
+    BitmapPool glideBitmapPool = bitmapPool;
+    LearnedBitmapPreFiller learnedPreFiller = null;
+    if (isLearnedPreFillEnabled) {
+      learnedPreFiller = new LearnedBitmapPreFiller(bitmapPool,
+          new File(context.getCacheDir(), LearnedBitmapPreFiller.DEFAULT_PROFILE_FILE_NAME));
+      // Everything other than the pre-filler itself gets Bitmaps through the recording pool.
+      glideBitmapPool = learnedPreFiller.getBitmapPool();
     }
 
     RequestManagerRetriever requestManagerRetriever =
         new RequestManagerRetriever(requestManagerFactory);
 
+    RequestOptions requestOptions = defaultRequestOptions;
+    if (transformationBackend != null) {
+      requestOptions =
+          requestOptions.clone().set(BitmapTransformation.BACKEND, transformationBackend);
+    }
+
     return new Glide(
         context,
         engine,
         memoryCache,
-        bitmapPool,
+        glideBitmapPool,
         arrayPool,
         requestManagerRetriever,
         connectivityMonitorFactory,
         logLevel,
-        defaultRequestOptions.lock(),
-        defaultTransitionOptions);
+        requestOptions.lock(),
+        defaultTransitionOptions,
+        metricsListener,
+        memoryBudgetController,
+        learnedPreFiller);
   }
 }
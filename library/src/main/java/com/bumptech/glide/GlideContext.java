@@ -5,10 +5,13 @@ import android.content.ContextWrapper;
 import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.widget.ImageView;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.ImageViewTargetFactory;
 import com.bumptech.glide.request.target.ViewTarget;
@@ -31,6 +34,8 @@ public class GlideContext extends ContextWrapper {
   private final Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions;
   private final Engine engine;
   private final int logLevel;
+  @Nullable private final GlideMetricsListener metricsListener;
+  private final BitmapPool bitmapPool;
 
   public GlideContext(
       @NonNull Context context,
@@ -41,6 +46,30 @@ public class GlideContext extends ContextWrapper {
       @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
       @NonNull Engine engine,
       int logLevel) {
+    this(
+        context,
+        arrayPool,
+        registry,
+        imageViewTargetFactory,
+        defaultRequestOptions,
+        defaultTransitionOptions,
+        engine,
+        logLevel,
+        /*metricsListener=*/ null,
+        /*bitmapPool=*/ null);
+  }
+
+  GlideContext(
+      @NonNull Context context,
+      @NonNull ArrayPool arrayPool,
+      @NonNull Registry registry,
+      @NonNull ImageViewTargetFactory imageViewTargetFactory,
+      @NonNull RequestOptions defaultRequestOptions,
+      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
+      @NonNull Engine engine,
+      int logLevel,
+      @Nullable GlideMetricsListener metricsListener,
+      @Nullable BitmapPool bitmapPool) {
     super(context.getApplicationContext());
     this.arrayPool = arrayPool;
     this.registry = registry;
@@ -49,6 +78,8 @@ public class GlideContext extends ContextWrapper {
     this.defaultTransitionOptions = defaultTransitionOptions;
     this.engine = engine;
     this.logLevel = logLevel;
+    this.metricsListener = metricsListener;
+    this.bitmapPool = bitmapPool != null ? bitmapPool : new BitmapPoolAdapter();
 
     mainHandler = new Handler(Looper.getMainLooper());
   }
@@ -99,8 +130,26 @@ public class GlideContext extends ContextWrapper {
     return logLevel;
   }
 
+  /**
+   * Returns the listener to report load events to, or {@code null} if events shouldn't be
+   * reported.
+   */
+  @Nullable
+  public GlideMetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
   @NonNull
   public ArrayPool getArrayPool() {
     return arrayPool;
   }
+
+  /**
+   * Returns the pool that {@link android.graphics.Bitmap}s decoded outside of the
+   * {@link Registry}, like progressive previews, are obtained from and returned to.
+   */
+  @NonNull
+  public BitmapPool getBitmapPool() {
+    return bitmapPool;
+  }
 }
@@ -0,0 +1,128 @@
+package com.bumptech.glide;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+
+/**
+ * Receives timings and cache outcomes for loads as they happen so that they can be aggregated and
+ * reported.
+ *
+ * <p>Register a listener with {@link GlideBuilder#setMetricsListener(GlideMetricsListener)}. Each
+ * method has an empty default implementation, so subclasses only need to override the events they
+ * care about. Durations are in nanoseconds.
+ *
+ * <p>Events for a single load share the same {@link Key}, which can be used to correlate them.
+ * Cache events are called on the thread that started the load, typically the main thread. Queue,
+ * fetch, decode, transform and encode events are called on Glide's executor threads. Request
+ * events are called on the main thread. Implementations must therefore be thread safe and fast,
+ * and must not start or clear loads.
+ *
+ * <p>Glide doesn't allocate anything to report events, whether or not a listener is registered.
+ */
+public abstract class GlideMetricsListener {
+
+  /**
+   * Called when a load is satisfied by a resource that's currently in use by another request.
+   */
+  public void onActiveResourceHit(@NonNull Key key) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a load is satisfied by a resource in the memory cache.
+   */
+  public void onMemoryCacheHit(@NonNull Key key) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a memory cacheable load isn't in the memory cache or in use by another request.
+   */
+  public void onMemoryCacheMiss(@NonNull Key key) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a load joins an identical load that's already in progress rather than starting a
+   * new one.
+   */
+  public void onJobCoalesced(@NonNull Key key) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called each time a load starts running on an executor.
+   *
+   * <p>A single load may be queued more than once, first on the disk cache executor and then on
+   * the source executor for example.
+   *
+   * @param waitNanos The time the load spent queued before it started running.
+   */
+  public void onQueueWait(@NonNull Key key, long waitNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when data has been retrieved for a load.
+   *
+   * @param dataSource Where the data came from.
+   * @param durationNanos The time spent looking for and retrieving the data, including time spent
+   *                      writing data retrieved from source to the disk cache.
+   * @param byteCount The size of the retrieved data in bytes, or {@code -1} if the data is a
+   *                  stream or of some other type whose size isn't known up front.
+   */
+  public void onFetch(
+      @NonNull Key key, @NonNull DataSource dataSource, long durationNanos, long byteCount) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when retrieved data has been successfully decoded and transcoded.
+   *
+   * @param dataSource Where the decoded data came from.
+   * @param durationNanos The time spent decoding, not including the time reported to
+   *                      {@link #onTransform(Key, long)}.
+   */
+  public void onDecode(@NonNull Key key, @NonNull DataSource dataSource, long durationNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a {@link com.bumptech.glide.load.Transformation} has been applied to a decoded
+   * resource.
+   */
+  public void onTransform(@NonNull Key key, long durationNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a decoded and transformed resource has been written to the disk cache.
+   */
+  public void onDiskCacheEncode(@NonNull Key key, long durationNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a request has received its resource.
+   *
+   * @param model The model the request was started for.
+   * @param dataSource Where the resource was loaded from.
+   * @param durationNanos The time since the request was started.
+   */
+  public void onRequestComplete(
+      @NonNull Object model, @NonNull DataSource dataSource, long durationNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a request has failed.
+   *
+   * @param model The model the request was started for, or {@code null} if no model was given.
+   * @param durationNanos The time since the request was started.
+   */
+  public void onRequestFailed(@Nullable Object model, long durationNanos) {
+    // Do nothing by default.
+  }
+}
@@ -0,0 +1,128 @@
+package com.bumptech.glide;
+
+import android.support.annotation.VisibleForTesting;
+import java.util.Arrays;
+
+/**
+ * Estimates how many items ahead of the visible items {@link AdaptiveListPreloader} should
+ * preload, from how quickly the list is scrolling and how long recent loads took.
+ *
+ * <p>The window covers the items expected to scroll into view during three times the time a slow
+ * load, the 90th percentile of the most recent {@link #LOAD_TIME_SAMPLES} loads, takes. The margin
+ * is large because the velocity trails the start of a fling and the loads at the far end of the
+ * window wait for the nearer ones. Scroll velocity is smoothed over successive changes in
+ * position so that a single long frame doesn't shrink the window. Items are preloaded with a higher
+ * {@link Priority} the closer they are to the visible items, see {@link #getPriority(int, int)}.
+ *
+ * <p>Doesn't use the Android framework so that it can be run on the host. Not thread safe.
+ */
+final class PreloadWindowEstimator {
+  @VisibleForTesting
+  static final long DEFAULT_LOAD_TIME_MS = 100;
+  @VisibleForTesting
+  static final int LOAD_TIME_SAMPLES = 32;
+  private static final int LOAD_TIME_PERCENTILE = 90;
+  /** Scroll events closer together than about a frame are combined. */
+  @VisibleForTesting
+  static final long MIN_SAMPLE_INTERVAL_MS = 16;
+  private static final float VELOCITY_SMOOTHING = 0.5f;
+  private static final float SAFETY_FACTOR = 3;
+
+  private final int minPreload;
+  private final int maxPreload;
+  private final long[] loadTimes = new long[LOAD_TIME_SAMPLES];
+  private final long[] sortedLoadTimes = new long[LOAD_TIME_SAMPLES];
+  private int loadTimeCount;
+  private int nextLoadTime;
+  private long loadTimePercentile = DEFAULT_LOAD_TIME_MS;
+  private boolean isLoadTimePercentileStale;
+
+  private int lastPosition = -1;
+  private long lastTimeMs;
+  private float velocity;
+  private boolean hasVelocity;
+
+  PreloadWindowEstimator(int minPreload, int maxPreload) {
+    if (minPreload < 0 || maxPreload < minPreload) {
+      throw new IllegalArgumentException("Expected 0 <= minPreload <= maxPreload, but got: "
+          + minPreload + ", " + maxPreload);
+    }
+    this.minPreload = minPreload;
+    this.maxPreload = maxPreload;
+  }
+
+  /** Records that the first visible item was at the given position at the given time. */
+  void onScroll(int firstVisible, long timeMs) {
+    if (lastPosition == -1) {
+      lastPosition = firstVisible;
+      lastTimeMs = timeMs;
+      return;
+    }
+    long elapsedMs = timeMs - lastTimeMs;
+    // Slow scrolling moves the first visible item less than once per frame, so velocity is only
+    // measured between changes in position.
+    if (firstVisible == lastPosition || elapsedMs < MIN_SAMPLE_INTERVAL_MS) {
+      return;
+    }
+    float current = (firstVisible - lastPosition) / (float) elapsedMs;
+    if (hasVelocity) {
+      velocity += VELOCITY_SMOOTHING * (current - velocity);
+    } else {
+      // Flings start quickly, so the first measurement isn't averaged with the stopped list.
+      velocity = current;
+      hasVelocity = true;
+    }
+    lastPosition = firstVisible;
+    lastTimeMs = timeMs;
+  }
+
+  /** Forgets the scroll velocity, for example because the list stopped scrolling. */
+  void onScrollStopped() {
+    velocity = 0;
+    hasVelocity = false;
+    lastPosition = -1;
+  }
+
+  /** Records how long a load took to finish, from when it started. */
+  void onLoadFinished(long durationMs) {
+    loadTimes[nextLoadTime] = Math.max(0, durationMs);
+    nextLoadTime = (nextLoadTime + 1) % LOAD_TIME_SAMPLES;
+    loadTimeCount = Math.min(loadTimeCount + 1, LOAD_TIME_SAMPLES);
+    isLoadTimePercentileStale = true;
+  }
+
+  /** Returns the number of items to preload, between the minimum and maximum. */
+  int getWindowSize() {
+    double items = Math.abs(velocity) * getLoadTimePercentile() * SAFETY_FACTOR;
+    return (int) Math.max(minPreload, Math.min(maxPreload, Math.ceil(items)));
+  }
+
+  /**
+   * Returns the {@link Priority} to preload an item with, given how many items there are between
+   * it and the visible items and how many items are preloaded.
+   */
+  static Priority getPriority(int distance, int windowSize) {
+    if (distance * 3 < windowSize) {
+      return Priority.HIGH;
+    } else if (distance * 3 < windowSize * 2) {
+      return Priority.NORMAL;
+    }
+    return Priority.LOW;
+  }
+
+  /** Returns the smoothed scroll velocity in items per millisecond, positive when increasing. */
+  float getVelocity() {
+    return velocity;
+  }
+
+  long getLoadTimePercentile() {
+    if (isLoadTimePercentileStale) {
+      System.arraycopy(loadTimes, 0, sortedLoadTimes, 0, loadTimeCount);
+      Arrays.sort(sortedLoadTimes, 0, loadTimeCount);
+      int index = (loadTimeCount * LOAD_TIME_PERCENTILE + 99) / 100 - 1;
+      loadTimePercentile = sortedLoadTimes[index];
+      isLoadTimePercentileStale = false;
+    }
+    return loadTimePercentile;
+  }
+}
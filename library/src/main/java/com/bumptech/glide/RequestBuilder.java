@@ -566,6 +566,22 @@ public class RequestBuilder<TranscodeType> implements Cloneable,
     return result;
   }
 
+  /**
+   * Returns a builder that loads every one of the given models with the options set so far on this
+   * builder.
+   *
+   * <p>Models are loaded as if each had been passed to {@link #load(Object)}. Any model set on this
+   * builder and any listeners, thumbnails or error requests are ignored.
+   *
+   * @param models The models to load.
+   * @see BatchRequestBuilder
+   */
+  @NonNull
+  @CheckResult
+  public BatchRequestBuilder<TranscodeType> loadAll(@NonNull List<?> models) {
+    return new BatchRequestBuilder<>(glideContext, transcodeClass, requestOptions, models);
+  }
+
   /**
    * Returns a copy of this request builder with all of the options put so far on this builder.
    *
@@ -749,6 +765,9 @@ public class RequestBuilder<TranscodeType> implements Cloneable,
   /**
    * Returns a future that can be used to do a blocking get on a background thread.
    *
+   * <p>Loads submitted on a background thread are started on the main thread, or on the calling
+   * thread if {@link GlideBuilder#setIsConcurrentEngineEnabled(boolean)} is enabled.
+   *
    * @param width  The desired width in pixels, or {@link Target#SIZE_ORIGINAL}. This will be
    *               overridden by
    *               {@link com.bumptech.glide.request.RequestOptions#override(int, int)} if
@@ -763,7 +782,11 @@ public class RequestBuilder<TranscodeType> implements Cloneable,
     final RequestFutureTarget<TranscodeType> target =
         new RequestFutureTarget<>(glideContext.getMainHandler(), width, height);
 
-    if (Util.isOnBackgroundThread()) {
+    if (Util.isOnBackgroundThread() && glideContext.getEngine().isConcurrent()) {
+      // The target is new, so there's no previous request to compare against or clear and the
+      // load can start here rather than waiting for the main thread.
+      startOnCallingThread(target, getMutableOptions());
+    } else if (Util.isOnBackgroundThread()) {
       glideContext.getMainHandler().post(new Runnable() {
         @Override
         public void run() {
@@ -779,6 +802,27 @@ public class RequestBuilder<TranscodeType> implements Cloneable,
     return target;
   }
 
+  private void startOnCallingThread(
+      @NonNull RequestFutureTarget<TranscodeType> target, @NonNull RequestOptions options) {
+    if (!isModelSet) {
+      throw new IllegalArgumentException("You must call #load() before calling #submit()");
+    }
+    if (target.isCancelled()) {
+      return;
+    }
+
+    options = options.autoClone();
+    Request request = buildRequest(target, target, options);
+    target.setRequest(request);
+    requestManager.track(target, request);
+
+    // The future may have been cancelled before its request was set, in which case the clear it
+    // posted to the main thread had nothing to clear.
+    if (target.isCancelled()) {
+      requestManager.clear(target);
+    }
+  }
+
   /**
    * Preloads the resource into the cache using the given width and height.
    *
@@ -25,6 +25,7 @@ import com.bumptech.glide.manager.LifecycleListener;
 import com.bumptech.glide.manager.RequestManagerTreeNode;
 import com.bumptech.glide.manager.RequestTracker;
 import com.bumptech.glide.manager.TargetTracker;
+import com.bumptech.glide.request.PrioritizableRequest;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
@@ -34,6 +35,7 @@ import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import java.io.File;
 import java.net.URL;
+import java.util.List;
 
 /**
  * A class for managing and starting requests for Glide. Can use activity, fragment and connectivity
@@ -456,6 +458,21 @@ public class RequestManager implements LifecycleListener,
     return asDrawable().load(model);
   }
 
+  /**
+   * A helper method equivalent to calling {@link #asDrawable()} and then {@link
+   * RequestBuilder#loadAll(List)} with the given models.
+   *
+   * @return A new batch request builder for loading a {@link Drawable} for each of the given
+   * models.
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  @NonNull
+  @CheckResult
+  public BatchRequestBuilder<Drawable> loadAll(@NonNull List<?> models) {
+    return asDrawable().loadAll(models);
+  }
+
   /**
    * A helper method equivalent to calling {@link #asDrawable()} and then {@link
    * RequestBuilder#load(Object)} with the given model.
@@ -567,6 +584,25 @@ public class RequestManager implements LifecycleListener,
     }
   }
 
+  /**
+   * Changes the {@link Priority} of the in progress load for the target, for example because the
+   * target's view scrolled back into view. Loads for the target that haven't started yet are moved
+   * ahead of or behind other queued loads.
+   *
+   * <p>Does nothing if the target's load has finished or if its request can't be re-prioritized,
+   * see {@link PrioritizableRequest}.
+   *
+   * @param target The Target whose load should be re-prioritized.
+   * @param priority The new priority.
+   */
+  public void setPriority(@NonNull Target<?> target, @NonNull Priority priority) {
+    Util.assertMainThread();
+    Request request = target.getRequest();
+    if (request instanceof PrioritizableRequest && request.isRunning()) {
+      ((PrioritizableRequest) request).setPriority(priority);
+    }
+  }
+
   private void untrackOrDelegate(@NonNull Target<?> target) {
     boolean isOwnedByUs = untrack(target);
     // We'll end up here if the Target was cleared after the RequestManager that started the request
@@ -58,12 +58,17 @@ public final class ImageHeaderParserUtils {
       return ImageType.UNKNOWN;
     }
 
+    int position = buffer.position();
     //noinspection ForLoopReplaceableByForEach to improve perf
     for (int i = 0, size = parsers.size(); i < size; i++) {
       ImageHeaderParser parser = parsers.get(i);
-      ImageType type = parser.getType(buffer);
-      if (type != ImageType.UNKNOWN) {
-        return type;
+      try {
+        ImageType type = parser.getType(buffer);
+        if (type != ImageType.UNKNOWN) {
+          return type;
+        }
+      } finally {
+        buffer.position(position);
       }
     }
 
@@ -99,4 +104,30 @@ public final class ImageHeaderParserUtils {
 
     return ImageHeaderParser.UNKNOWN_ORIENTATION;
   }
+
+  /**
+   * Returns the orientation for the given ByteBuffer without copying it.
+   */
+  public static int getOrientation(@NonNull List<ImageHeaderParser> parsers,
+      @Nullable ByteBuffer buffer, @NonNull ArrayPool byteArrayPool) throws IOException {
+    if (buffer == null) {
+      return ImageHeaderParser.UNKNOWN_ORIENTATION;
+    }
+
+    int position = buffer.position();
+    //noinspection ForLoopReplaceableByForEach to improve perf
+    for (int i = 0, size = parsers.size(); i < size; i++) {
+      ImageHeaderParser parser = parsers.get(i);
+      try {
+        int orientation = parser.getOrientation(buffer, byteArrayPool);
+        if (orientation != ImageHeaderParser.UNKNOWN_ORIENTATION) {
+          return orientation;
+        }
+      } finally {
+        buffer.position(position);
+      }
+    }
+
+    return ImageHeaderParser.UNKNOWN_ORIENTATION;
+  }
 }
@@ -0,0 +1,61 @@
+package com.bumptech.glide.load.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+/**
+ * Helpers for {@link ResumableDataFetcher}s that make http {@code Range} requests.
+ */
+public final class HttpRanges {
+  public static final String RANGE_HEADER = "Range";
+  public static final String IF_RANGE_HEADER = "If-Range";
+  public static final String CONTENT_RANGE_HEADER = "Content-Range";
+  public static final String ETAG_HEADER = "ETag";
+  public static final String LAST_MODIFIED_HEADER = "Last-Modified";
+  public static final int HTTP_PARTIAL_CONTENT = 206;
+
+  private static final String BYTES_UNIT = "bytes";
+  private static final String WEAK_ETAG_PREFIX = "W/";
+
+  private HttpRanges() {
+    // Utility class.
+  }
+
+  /**
+   * Returns the value for a {@code Range} header requesting every byte from the given offset
+   * onwards.
+   */
+  @NonNull
+  public static String getRangeHeader(long offset) {
+    return BYTES_UNIT + "=" + offset + "-";
+  }
+
+  /**
+   * Returns a validator that can be sent in an {@code If-Range} header for a response with the
+   * given headers, or {@code null} if the response can't be resumed.
+   *
+   * <p>Responses are only resumable if they have a strong validator, a known length, and no
+   * content encoding, because ranges apply to the encoded bytes rather than those that are read.
+   */
+  @Nullable
+  public static String getValidator(@Nullable String eTag, @Nullable String lastModified,
+      @Nullable String contentEncoding, long contentLength) {
+    if (contentLength < 0 || !TextUtils.isEmpty(contentEncoding)) {
+      return null;
+    }
+    if (!TextUtils.isEmpty(eTag) && !eTag.startsWith(WEAK_ETAG_PREFIX)) {
+      return eTag;
+    }
+    return TextUtils.isEmpty(lastModified) ? null : lastModified;
+  }
+
+  /**
+   * Returns {@code true} if the given {@code Content-Range} header describes bytes starting at the
+   * given offset.
+   */
+  public static boolean isContentRangeFrom(@Nullable String contentRange, long offset) {
+    String expectedPrefix = BYTES_UNIT + " " + offset + "-";
+    return contentRange != null && contentRange.trim().startsWith(expectedPrefix);
+  }
+}
@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.data;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
 import android.util.Log;
@@ -21,7 +22,7 @@ import java.util.Map;
 /**
  * A DataFetcher that retrieves an {@link java.io.InputStream} for a Url.
  */
-public class HttpUrlFetcher implements DataFetcher<InputStream> {
+public class HttpUrlFetcher implements DataFetcher<InputStream>, ResumableDataFetcher {
   private static final String TAG = "HttpUrlFetcher";
   private static final int MAXIMUM_REDIRECTS = 5;
   @VisibleForTesting
@@ -39,6 +40,10 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
   private HttpURLConnection urlConnection;
   private InputStream stream;
   private volatile boolean isCancelled;
+  private long resumeOffset;
+  @Nullable private String resumeValidator;
+  private long resumedOffset;
+  @Nullable private String validator;
 
   public HttpUrlFetcher(GlideUrl glideUrl, int timeout) {
     this(glideUrl, timeout, DEFAULT_CONNECTION_FACTORY);
@@ -91,6 +96,11 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
     for (Map.Entry<String, String> headerEntry : headers.entrySet()) {
       urlConnection.addRequestProperty(headerEntry.getKey(), headerEntry.getValue());
     }
+    if (resumeValidator != null) {
+      urlConnection.addRequestProperty(
+          HttpRanges.RANGE_HEADER, HttpRanges.getRangeHeader(resumeOffset));
+      urlConnection.addRequestProperty(HttpRanges.IF_RANGE_HEADER, resumeValidator);
+    }
     urlConnection.setConnectTimeout(timeout);
     urlConnection.setReadTimeout(timeout);
     urlConnection.setUseCaches(false);
@@ -139,6 +149,19 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
 
   private InputStream getStreamForSuccessfulRequest(HttpURLConnection urlConnection)
       throws IOException {
+    int statusCode = urlConnection.getResponseCode();
+    if (statusCode == HttpRanges.HTTP_PARTIAL_CONTENT) {
+      String contentRange = urlConnection.getHeaderField(HttpRanges.CONTENT_RANGE_HEADER);
+      if (resumeValidator == null || !HttpRanges.isContentRangeFrom(contentRange, resumeOffset)) {
+        throw new HttpException("Unexpected Content-Range: " + contentRange, statusCode);
+      }
+      resumedOffset = resumeOffset;
+    }
+    validator = HttpRanges.getValidator(
+        urlConnection.getHeaderField(HttpRanges.ETAG_HEADER),
+        urlConnection.getHeaderField(HttpRanges.LAST_MODIFIED_HEADER),
+        urlConnection.getContentEncoding(),
+        urlConnection.getContentLength());
     if (TextUtils.isEmpty(urlConnection.getContentEncoding())) {
       int contentLength = urlConnection.getContentLength();
       stream = ContentLengthInputStream.obtain(urlConnection.getInputStream(), contentLength);
@@ -173,6 +196,23 @@ public class HttpUrlFetcher implements DataFetcher<InputStream> {
     isCancelled = true;
   }
 
+  @Override
+  public void setResumeFrom(long offset, @NonNull String validator) {
+    resumeOffset = offset;
+    resumeValidator = validator;
+  }
+
+  @Override
+  public long getResumedOffset() {
+    return resumedOffset;
+  }
+
+  @Nullable
+  @Override
+  public String getValidator() {
+    return validator;
+  }
+
   @NonNull
   @Override
   public Class<InputStream> getDataClass() {
@@ -0,0 +1,44 @@
+package com.bumptech.glide.load.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An optional interface for {@link DataFetcher}s that retrieve remote data over http and can
+ * resume a download that was previously interrupted using a {@code Range} request.
+ *
+ * <p>When data is written to Glide's disk cache and the download fails part way through, the bytes
+ * that were received are kept in the disk cache along with the validator returned by
+ * {@link #getValidator()}. The next time the same data is loaded,
+ * {@link #setResumeFrom(long, String)} is called before {@link DataFetcher#loadData} so that only
+ * the remaining bytes are requested. The received bytes are then written to the disk cache
+ * following the bytes that were kept.
+ */
+public interface ResumableDataFetcher {
+
+  /**
+   * Asks the fetcher to request data starting at the given offset if the remote data still
+   * matches the given validator, using {@code Range} and {@code If-Range} headers.
+   *
+   * <p>Called at most once and only before {@link DataFetcher#loadData}. Servers may ignore the
+   * range, in which case {@link #getResumedOffset()} must return {@code 0}.
+   *
+   * @param offset The number of bytes of data that have already been received.
+   * @param validator A validator previously returned by {@link #getValidator()}.
+   */
+  void setResumeFrom(long offset, @NonNull String validator);
+
+  /**
+   * Returns the offset from the beginning of the remote data of the first byte of the data given
+   * to {@link DataFetcher.DataCallback#onDataReady(Object)}, or {@code 0} if the data is complete.
+   */
+  long getResumedOffset();
+
+  /**
+   * Returns a strong validator, an {@code ETag} or {@code Last-Modified} date, that identifies the
+   * version of the data given to {@link DataFetcher.DataCallback#onDataReady(Object)}, or
+   * {@code null} if the data has no validator or can't be requested by byte range.
+   */
+  @Nullable
+  String getValidator();
+}
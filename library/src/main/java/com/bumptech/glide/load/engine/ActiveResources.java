@@ -17,12 +17,15 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 final class ActiveResources {
   private static final int MSG_CLEAN_REF = 1;
 
   private final boolean isActiveResourceRetentionAllowed;
+  private final boolean isConcurrent;
   private final Handler mainHandler = new Handler(Looper.getMainLooper(), new Callback() {
     @Override
     public boolean handleMessage(Message msg) {
@@ -34,7 +37,7 @@ final class ActiveResources {
     }
   });
   @VisibleForTesting
-  final Map<Key, ResourceWeakReference> activeEngineResources = new HashMap<>();
+  final Map<Key, ResourceWeakReference> activeEngineResources;
 
   private ResourceListener listener;
 
@@ -52,7 +55,21 @@ final class ActiveResources {
   private volatile DequeuedResourceCallback cb;
 
   ActiveResources(boolean isActiveResourceRetentionAllowed) {
+    this(isActiveResourceRetentionAllowed, /*isConcurrent=*/ false);
+  }
+
+  /**
+   * @param isConcurrent {@code true} if resources may be activated, deactivated and retrieved from
+   *                     any thread. Callers are still responsible for making compound operations
+   *                     on a single key atomic.
+   */
+  ActiveResources(boolean isActiveResourceRetentionAllowed, boolean isConcurrent) {
     this.isActiveResourceRetentionAllowed = isActiveResourceRetentionAllowed;
+    this.isConcurrent = isConcurrent;
+    activeEngineResources =
+        isConcurrent
+            ? new ConcurrentHashMap<Key, ResourceWeakReference>()
+            : new HashMap<Key, ResourceWeakReference>();
   }
 
   void setListener(ResourceListener listener) {
@@ -80,6 +97,17 @@ final class ActiveResources {
     }
   }
 
+  /**
+   * Deactivates the given key only if it is currently mapped to the given resource, which avoids
+   * dropping a newer resource activated for the same key by another thread.
+   */
+  void deactivate(Key key, EngineResource<?> expected) {
+    ResourceWeakReference current = activeEngineResources.get(key);
+    if (current != null && current.get() == expected && removeReference(current)) {
+      current.reset();
+    }
+  }
+
   @Nullable
   EngineResource<?> get(Key key) {
     ResourceWeakReference activeRef = activeEngineResources.get(key);
@@ -96,19 +124,37 @@ final class ActiveResources {
 
   @SuppressWarnings("WeakerAccess")
   @Synthetic void cleanupActiveReference(@NonNull ResourceWeakReference ref) {
-    Util.assertMainThread();
-    activeEngineResources.remove(ref.key);
+    if (isConcurrent) {
+      if (!removeReference(ref)) {
+        return;
+      }
+    } else {
+      Util.assertMainThread();
+      activeEngineResources.remove(ref.key);
+    }
 
     if (!ref.isCacheable || ref.resource == null) {
       return;
     }
     EngineResource<?> newResource =
-        new EngineResource<>(ref.resource, /*isCacheable=*/ true, /*isRecyclable=*/ false);
+        new EngineResource<>(
+            ref.resource,
+            /*isCacheable=*/ true,
+            /*isRecyclable=*/ false,
+            /*isMainThreadConfined=*/ !isConcurrent);
     newResource.setResourceListener(ref.key, listener);
     listener.onResourceReleased(ref.key, newResource);
   }
 
-  private ReferenceQueue<EngineResource<?>> getReferenceQueue() {
+  private boolean removeReference(ResourceWeakReference ref) {
+    if (isConcurrent) {
+      return ((ConcurrentMap<Key, ResourceWeakReference>) activeEngineResources)
+          .remove(ref.key, ref);
+    }
+    return activeEngineResources.remove(ref.key) != null;
+  }
+
+  private synchronized ReferenceQueue<EngineResource<?>> getReferenceQueue() {
     if (resourceReferenceQueue == null) {
       resourceReferenceQueue = new ReferenceQueue<>();
       cleanReferenceQueueThread = new Thread(new Runnable() {
@@ -129,7 +175,11 @@ final class ActiveResources {
     while (!isShutdown) {
       try {
         ResourceWeakReference ref = (ResourceWeakReference) resourceReferenceQueue.remove();
-        mainHandler.obtainMessage(MSG_CLEAN_REF, ref).sendToTarget();
+        if (isConcurrent) {
+          cleanupActiveReference(ref);
+        } else {
+          mainHandler.obtainMessage(MSG_CLEAN_REF, ref).sendToTarget();
+        }
 
         // This section for testing only.
         DequeuedResourceCallback current = cb;
@@ -1,26 +1,34 @@
 package com.bumptech.glide.load.engine;
 
+import android.support.annotation.Nullable;
 import com.bumptech.glide.GlideContext;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.ResourceEncoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DecodeJob.DiskCacheProvider;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.UnitTransformation;
-import java.io.File;
+import com.bumptech.glide.load.resource.bitmap.DefaultImageHeaderParser;
+import com.bumptech.glide.load.resource.bitmap.ImageHeaderCache;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 final class DecodeHelper<Transcode> {
+  private static final ImageHeaderParser IMAGE_TYPE_PARSER = new DefaultImageHeaderParser();
 
   private final List<LoadData<?>> loadData = new ArrayList<>();
   private final List<Key> cacheKeys = new ArrayList<>();
@@ -37,7 +45,7 @@ final class DecodeHelper<Transcode> {
   private boolean isLoadDataSet;
   private boolean isCacheKeysSet;
   private Key signature;
-  private Priority priority;
+  private volatile Priority priority;
   private DiskCacheStrategy diskCacheStrategy;
   private boolean isTransformationRequired;
   private boolean isScaleOnlyOrNoTransform;
@@ -96,6 +104,12 @@ final class DecodeHelper<Transcode> {
     return diskCacheProvider.getDiskCache();
   }
 
+  @Nullable
+  ImageHeaderCache getImageHeaderCache() {
+    Engine engine = glideContext.getEngine();
+    return engine != null ? engine.getImageHeaderCache() : null;
+  }
+
   DiskCacheStrategy getDiskCacheStrategy() {
     return diskCacheStrategy;
   }
@@ -104,6 +118,10 @@ final class DecodeHelper<Transcode> {
     return priority;
   }
 
+  void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
   Options getOptions() {
     return options;
   }
@@ -124,6 +142,10 @@ final class DecodeHelper<Transcode> {
     return glideContext.getArrayPool();
   }
 
+  BitmapPool getBitmapPool() {
+    return glideContext.getBitmapPool();
+  }
+
   Class<?> getTranscodeClass() {
     return transcodeClass;
   }
@@ -181,9 +203,48 @@ final class DecodeHelper<Transcode> {
     return glideContext.getRegistry().getResultEncoder(resource);
   }
 
-  List<ModelLoader<File, ?>> getModelLoaders(File file)
+  /**
+   * Returns the model to load the cached data for the given key from, or {@code null} if the key
+   * isn't in the disk cache.
+   *
+   * <p>Disk caches that implement {@link DiskCache.ByteBufferReader} return images in the formats
+   * Glide's {@link ByteBuffer} decoders recognize as memory mapped {@link ByteBuffer}s that are
+   * decoded without being copied. Other data, like video, is returned as a {@link java.io.File},
+   * or as an entry for disk caches that implement {@link DiskCache.EntryReader}, so that decoders
+   * that need a file descriptor can still open it.
+   */
+  @Nullable
+  Object getDiskCacheModel(Key key) {
+    DiskCache diskCache = getDiskCache();
+    Object value = diskCache instanceof DiskCache.EntryReader
+        ? ((DiskCache.EntryReader) diskCache).getEntry(key) : diskCache.get(key);
+    if (value != null
+        && diskCache instanceof DiskCache.ByteBufferReader
+        && hasLoadPath(ByteBuffer.class)) {
+      ByteBuffer byteBuffer = ((DiskCache.ByteBufferReader) diskCache).getByteBuffer(value);
+      if (byteBuffer != null && isImage(byteBuffer)) {
+        return new MappedDiskCacheEntry(byteBuffer);
+      }
+    }
+    return value;
+  }
+
+  // Only the magic number is read, rather than running every registered parser on every hit.
+  // Formats only custom parsers recognize are still decoded, just from the unmapped value.
+  private static boolean isImage(ByteBuffer byteBuffer) {
+    try {
+      return IMAGE_TYPE_PARSER.getType(byteBuffer) != ImageType.UNKNOWN;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  List<ModelLoader<Object, ?>> getModelLoaders(Object model)
       throws Registry.NoModelLoaderAvailableException {
-    return glideContext.getRegistry().getModelLoaders(file);
+    if (model instanceof MappedDiskCacheEntry) {
+      return MappedDiskCacheEntry.getModelLoaders();
+    }
+    return glideContext.getRegistry().getModelLoaders(model);
   }
 
   boolean isSourceKey(Key key) {
@@ -1,10 +1,14 @@
 package com.bumptech.glide.load.engine;
 
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import android.util.Log;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideMetricsListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.load.DataSource;
@@ -16,15 +20,26 @@ import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.data.DataRewinder;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.load.resource.bitmap.SharedDecodes;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.pool.FactoryPools.Poolable;
 import com.bumptech.glide.util.pool.GlideTrace;
 import com.bumptech.glide.util.pool.StateVerifier;
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A class responsible for decoding resources either from cached data or from the original source
@@ -38,6 +53,8 @@ import java.util.Map;
 class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     Runnable,
     Comparable<DecodeJob<?>>,
+    GlideExecutor.Prioritized,
+    GlideExecutor.HostAware,
     Poolable {
   private static final String TAG = "DecodeJob";
 
@@ -45,13 +62,18 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private final List<Throwable> throwables = new ArrayList<>();
   private final StateVerifier stateVerifier = StateVerifier.newInstance();
   private final DiskCacheProvider diskCacheProvider;
+  private final DecodePipeline pipeline;
   private final Pools.Pool<DecodeJob<?>> pool;
+  @Nullable private final SharedDecodes sharedDecodes;
   private final DeferredEncodeManager<?> deferredEncodeManager = new DeferredEncodeManager<>();
   private final ReleaseManager releaseManager = new ReleaseManager();
+  private final AtomicReference<Priority> pendingPriority = new AtomicReference<>();
 
   private GlideContext glideContext;
+  @Nullable private GlideMetricsListener metricsListener;
   private Key signature;
-  private Priority priority;
+  // Written on the main thread when a request is re-prioritized and read on executor threads.
+  private volatile Priority priority;
   private EngineKey loadKey;
   private int width;
   private int height;
@@ -62,6 +84,10 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private Stage stage;
   private RunReason runReason;
   private long startFetchTime;
+  private long startFetchNanos;
+  // Only set if there's a metrics listener to report to.
+  private long queuedNanos;
+  private long transformNanos;
   private boolean onlyRetrieveFromCache;
   private Object model;
 
@@ -71,14 +97,29 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private Object currentData;
   private DataSource currentDataSource;
   private DataFetcher<?> currentFetcher;
+  // The key this job's size is registered under with sharedDecodes, if any.
+  private volatile Key sharedDecodeKey;
+  // The thread decoding retrieved data, if any, which may be waiting on sharedDecodes.
+  private volatile Thread decodingThread;
+
+  // True once data retrieved from source has been handed off to the pipeline to be decoded.
+  private boolean isDecodingOnDecodeExecutor;
+  // Unlocked once a resource handed off to the pipeline's encode executor has been encoded.
+  private LockedResource<R> resourceToUnlock;
 
   private volatile DataFetcherGenerator currentGenerator;
   private volatile boolean isCallbackNotified;
   private volatile boolean isCancelled;
 
-  DecodeJob(DiskCacheProvider diskCacheProvider, Pools.Pool<DecodeJob<?>> pool) {
+  DecodeJob(
+      DiskCacheProvider diskCacheProvider,
+      DecodePipeline pipeline,
+      Pools.Pool<DecodeJob<?>> pool,
+      @Nullable SharedDecodes sharedDecodes) {
     this.diskCacheProvider = diskCacheProvider;
+    this.pipeline = pipeline;
     this.pool = pool;
+    this.sharedDecodes = sharedDecodes;
   }
 
   DecodeJob<R> init(
@@ -115,6 +156,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
         isScaleOnlyOrNoTransform,
         diskCacheProvider);
     this.glideContext = glideContext;
+    this.metricsListener = glideContext.getMetricsListener();
     this.signature = signature;
     this.priority = priority;
     this.loadKey = loadKey;
@@ -127,6 +169,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     this.order = order;
     this.runReason = RunReason.INITIALIZE;
     this.model = model;
+    // The job is started immediately after it's initialized.
+    markQueued();
     return this;
   }
 
@@ -171,14 +215,20 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   }
 
   private void releaseInternal() {
+    if (sharedDecodeKey != null) {
+      sharedDecodes.unregister(sharedDecodeKey, width, height);
+      sharedDecodeKey = null;
+    }
     releaseManager.reset();
     deferredEncodeManager.clear();
     decodeHelper.clear();
     isCallbackNotified = false;
     glideContext = null;
+    metricsListener = null;
     signature = null;
     options = null;
     priority = null;
+    pendingPriority.set(null);
     loadKey = null;
     callback = null;
     stage = null;
@@ -189,7 +239,12 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     currentDataSource = null;
     currentFetcher = null;
     startFetchTime = 0L;
+    startFetchNanos = 0L;
+    queuedNanos = 0L;
+    transformNanos = 0L;
     isCancelled = false;
+    isDecodingOnDecodeExecutor = false;
+    resourceToUnlock = null;
     model = null;
     throwables.clear();
     pool.release(this);
@@ -197,15 +252,71 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
 
   @Override
   public int compareTo(@NonNull DecodeJob<?> other) {
-    int result = getPriority() - other.getPriority();
+    int result = priority.ordinal() - other.priority.ordinal();
     if (result == 0) {
       result = order - other.order;
     }
     return result;
   }
 
-  private int getPriority() {
-    return priority.ordinal();
+  @Override
+  public Priority getPriority() {
+    return priority;
+  }
+
+  @Nullable
+  @Override
+  public String getHost() {
+    Object model = this.model;
+    try {
+      if (model instanceof GlideUrl) {
+        return ((GlideUrl) model).toURL().getHost();
+      } else if (model instanceof URL) {
+        return getHttpHost(((URL) model).toURI());
+      } else if (model instanceof Uri) {
+        return getHttpHost(new URI(model.toString()));
+      } else if (model instanceof String) {
+        return getHttpHost(new URI((String) model));
+      }
+    } catch (MalformedURLException | URISyntaxException e) {
+      // Fall through, the fetcher will fail and report a more useful error.
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String getHttpHost(URI uri) {
+    String scheme = uri.getScheme();
+    return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)
+        ? uri.getHost() : null;
+  }
+
+  /**
+   * Changes the priority of this job and of any data it fetches from now on.
+   *
+   * <p>Queued jobs are ordered by their priority, so this must only be called while the job isn't
+   * queued, see {@link GlideExecutor#remove(Runnable)}.
+   */
+  void setPriority(Priority priority) {
+    this.priority = priority;
+    decodeHelper.setPriority(priority);
+  }
+
+  /**
+   * Changes the priority of this job the next time it's queued or run, for when the job couldn't
+   * be removed from its queue because it's running or about to be queued by another thread.
+   *
+   * @param priority The new priority, or {@code null} to keep the current priority.
+   */
+  void setPendingPriority(@Nullable Priority priority) {
+    pendingPriority.set(priority);
+  }
+
+  private void applyPendingPriority() {
+    Priority pending = pendingPriority.getAndSet(null);
+    if (pending != null) {
+      setPriority(pending);
+    }
   }
 
   public void cancel() {
@@ -214,6 +325,11 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     if (local != null) {
       local.cancel();
     }
+    Key localSharedDecodeKey = sharedDecodeKey;
+    Thread localThread = decodingThread;
+    if (localSharedDecodeKey != null && localThread != null) {
+      sharedDecodes.cancelWait(localSharedDecodeKey, localThread);
+    }
   }
 
   @Override
@@ -226,7 +342,16 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     // ensure that the fetcher is cleaned up either way.
     DataFetcher<?> localFetcher = currentFetcher;
     try {
-      if (isCancelled) {
+      if (metricsListener != null) {
+        metricsListener.onQueueWait(loadKey, System.nanoTime() - queuedNanos);
+      }
+      applyPendingPriority();
+      // Encoding happens after we've notified our callback, so there's nothing left to cancel.
+      if (isCancelled && runReason != RunReason.ENCODE) {
+        if (isDecodingOnDecodeExecutor) {
+          isDecodingOnDecodeExecutor = false;
+          pipeline.onDecodeFinished();
+        }
         notifyFailed();
         return;
       }
@@ -274,6 +399,11 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       case DECODE_DATA:
         decodeFromRetrievedData();
         break;
+      case ENCODE:
+        LockedResource<R> toUnlock = resourceToUnlock;
+        resourceToUnlock = null;
+        encode(toUnlock);
+        break;
       default:
         throw new IllegalStateException("Unrecognized run reason: " + runReason);
     }
@@ -284,9 +414,11 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       case RESOURCE_CACHE:
         return new ResourceCacheGenerator(decodeHelper, this);
       case DATA_CACHE:
+        registerSharedDecode();
         return new DataCacheGenerator(decodeHelper, this);
       case SOURCE:
-        return new SourceGenerator(decodeHelper, this);
+        registerSharedDecode();
+        return new SourceGenerator(decodeHelper, this, callback);
       case FINISHED:
         return null;
       default:
@@ -294,9 +426,31 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     }
   }
 
+  /**
+   * Lets concurrent jobs for the same data at other sizes share our decode once we know we'll have
+   * to decode the data rather than a resource from the resource cache.
+   */
+  private void registerSharedDecode() {
+    if (sharedDecodes == null || sharedDecodeKey != null) {
+      return;
+    }
+    List<Key> cacheKeys = decodeHelper.getCacheKeys();
+    if (cacheKeys.isEmpty()) {
+      return;
+    }
+    // Matches the key Downsampler is given, as long as the first model loader provides the data.
+    sharedDecodeKey = new DataCacheKey(cacheKeys.get(0), signature);
+    sharedDecodes.register(sharedDecodeKey, width, height);
+  }
+
   private void runGenerators() {
     currentThread = Thread.currentThread();
     startFetchTime = LogTime.getLogTime();
+    // Data retrieved from source is written to the disk cache before it's decoded, so keep timing
+    // the fetch if we've been rescheduled to write it.
+    if (startFetchNanos == 0) {
+      startFetchNanos = System.nanoTime();
+    }
     boolean isStarted = false;
     while (!isCancelled && currentGenerator != null
         && !(isStarted = currentGenerator.startNext())) {
@@ -304,6 +458,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       currentGenerator = getNextGenerator();
 
       if (stage == Stage.SOURCE) {
+        // Start timing the fetch from source once it's running on the source executor.
+        startFetchNanos = 0;
         reschedule();
         return;
       }
@@ -359,6 +515,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   @Override
   public void reschedule() {
     runReason = RunReason.SWITCH_TO_SOURCE_SERVICE;
+    markQueued();
     callback.reschedule(this);
   }
 
@@ -370,8 +527,23 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     this.currentFetcher = fetcher;
     this.currentDataSource = dataSource;
     this.currentAttemptingKey = attemptedKey;
-    if (Thread.currentThread() != currentThread) {
+    if (stage == Stage.SOURCE) {
+      pipeline.record(PipelineStats.Stage.FETCH, startFetchNanos);
+    }
+    if (metricsListener != null) {
+      metricsListener.onFetch(
+          loadKey, dataSource, System.nanoTime() - startFetchNanos, getByteCount(data));
+    }
+    startFetchNanos = 0;
+    if (stage == Stage.SOURCE && callback.hasDecodeExecutor()) {
+      // Free up the source thread for the next fetch while this data is decoded.
+      runReason = RunReason.DECODE_DATA;
+      isDecodingOnDecodeExecutor = true;
+      markQueued();
+      callback.rescheduleDecode(this);
+    } else if (Thread.currentThread() != currentThread) {
       runReason = RunReason.DECODE_DATA;
+      markQueued();
       callback.reschedule(this);
     } else {
       GlideTrace.beginSection("DecodeJob.decodeFromRetrievedData");
@@ -392,12 +564,34 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     throwables.add(exception);
     if (Thread.currentThread() != currentThread) {
       runReason = RunReason.SWITCH_TO_SOURCE_SERVICE;
+      markQueued();
       callback.reschedule(this);
     } else {
       runGenerators();
     }
   }
 
+  private void markQueued() {
+    applyPendingPriority();
+    if (metricsListener != null) {
+      queuedNanos = System.nanoTime();
+    }
+  }
+
+  /**
+   * Returns the size in bytes of the given data if it's cheap to find out, or {@code -1}.
+   */
+  private static long getByteCount(Object data) {
+    if (data instanceof ByteBuffer) {
+      return ((ByteBuffer) data).remaining();
+    } else if (data instanceof byte[]) {
+      return ((byte[]) data).length;
+    } else if (data instanceof File) {
+      return ((File) data).length();
+    }
+    return -1;
+  }
+
   private void decodeFromRetrievedData() {
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
       logWithTimeAndKey("Retrieved data", startFetchTime,
@@ -406,14 +600,31 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
               + ", fetcher: " + currentFetcher);
     }
     Resource<R> resource = null;
+    long startTime = System.nanoTime();
+    transformNanos = 0;
+    decodingThread = Thread.currentThread();
     try {
       resource = decodeFromData(currentFetcher, currentData, currentDataSource);
     } catch (GlideException e) {
       e.setLoggingDetails(currentAttemptingKey, currentDataSource);
       throwables.add(e);
+    } finally {
+      decodingThread = null;
+      pipeline.record(PipelineStats.Stage.DECODE, startTime);
+      if (isDecodingOnDecodeExecutor) {
+        pipeline.onDecodeFinished();
+      }
     }
     if (resource != null) {
+      if (metricsListener != null) {
+        metricsListener.onDecode(
+            loadKey, currentDataSource, System.nanoTime() - startTime - transformNanos);
+      }
       notifyEncodeAndRelease(resource, currentDataSource);
+    } else if (isDecodingOnDecodeExecutor) {
+      // The remaining generators may need to fetch more data, which belongs on a source thread.
+      isDecodingOnDecodeExecutor = false;
+      reschedule();
     } else {
       runGenerators();
     }
@@ -434,9 +645,26 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     notifyComplete(result, dataSource);
 
     stage = Stage.ENCODE;
+    if (lockedResource != null && isDecodingOnDecodeExecutor) {
+      // Writing to the disk cache is I/O bound, so free up the decode thread for the next decode.
+      resourceToUnlock = lockedResource;
+      runReason = RunReason.ENCODE;
+      markQueued();
+      pipeline.encode(this);
+    } else {
+      encode(lockedResource);
+    }
+  }
+
+  private void encode(LockedResource<R> lockedResource) {
     try {
       if (deferredEncodeManager.hasResourceToEncode()) {
+        long startTime = System.nanoTime();
         deferredEncodeManager.encode(diskCacheProvider, options);
+        pipeline.record(PipelineStats.Stage.ENCODE, startTime);
+        if (metricsListener != null) {
+          metricsListener.onDiskCacheEncode(loadKey, System.nanoTime() - startTime);
+        }
       }
     } finally {
       if (lockedResource != null) {
@@ -498,9 +726,27 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     return options;
   }
 
+  @NonNull
+  private Options getOptionsWithSourceDataKey(Options options, DataSource dataSource) {
+    // Resources in the resource cache share the source key, but not the header of the source data.
+    if (dataSource == DataSource.RESOURCE_DISK_CACHE || currentSourceKey == null) {
+      return options;
+    }
+    Options result = new Options();
+    result.putAll(options);
+    result.set(Downsampler.SOURCE_DATA_KEY, new DataCacheKey(currentSourceKey, signature));
+    // Headers are evicted separately from the data they describe, so they're only used for data
+    // from the data cache and only cached for data that's in the data cache.
+    result.set(Downsampler.USE_CACHED_HEADER, dataSource == DataSource.DATA_DISK_CACHE);
+    result.set(Downsampler.CACHE_HEADER, dataSource == DataSource.DATA_DISK_CACHE
+        || diskCacheStrategy.isDataCacheable(dataSource));
+    return result;
+  }
+
   private <Data, ResourceType> Resource<R> runLoadPath(Data data, DataSource dataSource,
       LoadPath<Data, ResourceType, R> path) throws GlideException {
-    Options options = getOptionsWithHardwareConfig(dataSource);
+    Options options =
+        getOptionsWithSourceDataKey(getOptionsWithHardwareConfig(dataSource), dataSource);
     DataRewinder<Data> rewinder = glideContext.getRegistry().getRewinder(data);
     try {
       // ResourceType in DecodeCallback below is required for compilation to work with gradle.
@@ -537,7 +783,14 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     Resource<Z> transformed = decoded;
     if (dataSource != DataSource.RESOURCE_DISK_CACHE) {
       appliedTransformation = decodeHelper.getTransformation(resourceSubClass);
-      transformed = appliedTransformation.transform(glideContext, decoded, width, height);
+      long startTime = metricsListener != null ? System.nanoTime() : 0;
+      transformed = BitmapTransformation.applyTransformation(
+          appliedTransformation, glideContext, decoded, width, height, options);
+      if (metricsListener != null) {
+        long elapsedNanos = System.nanoTime() - startTime;
+        transformNanos += elapsedNanos;
+        metricsListener.onTransform(loadKey, elapsedNanos);
+      }
     }
     // TODO: Make this the responsibility of the Transformation.
     if (!decoded.equals(transformed)) {
@@ -691,6 +944,26 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     void onLoadFailed(GlideException e);
 
     void reschedule(DecodeJob<?> job);
+
+    /**
+     * Returns {@code true} if data retrieved from source should be decoded on a separate executor
+     * by {@link #rescheduleDecode(DecodeJob)}.
+     */
+    boolean hasDecodeExecutor();
+
+    void rescheduleDecode(DecodeJob<?> job);
+
+    /**
+     * Returns {@code true} if previews should be decoded while progressive images are retrieved
+     * from source.
+     */
+    boolean isIntermediateResourceRequested();
+
+    /**
+     * Called on the thread reading the source data with each lower quality preview of the image
+     * that is decoded before the complete image is available.
+     */
+    void onIntermediateResourceReady(Resource<Bitmap> preview);
   }
 
   interface DiskCacheProvider {
@@ -712,6 +985,11 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
      * process the data.
      */
     DECODE_DATA,
+    /**
+     * We decoded data on the decode executor and want to switch to the encode executor to write
+     * the result to the disk cache.
+     */
+    ENCODE,
   }
 
   /**
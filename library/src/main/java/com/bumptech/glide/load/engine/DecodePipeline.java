@@ -0,0 +1,142 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.util.Util;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Moves {@link DecodeJob}s between the stages of a load and records how long each stage takes.
+ *
+ * <p>When a decode executor is set, data retrieved from source is decoded there rather than on
+ * the thread that retrieved it, and decoded resources are written to the disk cache on the disk
+ * cache executor. Fetches are I/O bound and decodes are CPU bound, so splitting them lets slow
+ * network reads and expensive decodes each run on a pool sized for them.
+ *
+ * <p>Every decode handed to the decode executor holds on to retrieved data, an open stream or a
+ * file for example, until it finishes. To keep fetches from racing ahead of decodes, threads that
+ * hand off data block while {@code maxPendingDecodes} decodes are queued or running. The main
+ * thread never blocks, so it may briefly push the number of pending decodes over the limit.
+ */
+final class DecodePipeline {
+  private static final int STAGE_COUNT = PipelineStats.Stage.values().length;
+
+  @Nullable private final GlideExecutor decodeExecutor;
+  private final GlideExecutor encodeExecutor;
+  private final int maxPendingDecodes;
+  private final Object pendingDecodesLock = new Object();
+  private final AtomicLongArray counts = new AtomicLongArray(STAGE_COUNT);
+  private final AtomicLongArray totalNanos = new AtomicLongArray(STAGE_COUNT);
+  private final AtomicLongArray maxNanos = new AtomicLongArray(STAGE_COUNT);
+  private final AtomicLong blockedCount = new AtomicLong();
+  private final AtomicLong totalBlockedNanos = new AtomicLong();
+  private int pendingDecodes;
+
+  /**
+   * @param decodeExecutor The executor to decode data retrieved from source on, or {@code null}
+   *                       to decode it on the thread that retrieved it.
+   * @param encodeExecutor The executor to write decoded resources to the disk cache on if data is
+   *                       decoded on {@code decodeExecutor}.
+   * @param maxPendingDecodes The maximum number of decodes that may be queued or running on
+   *                          {@code decodeExecutor} before threads handing off data block.
+   */
+  DecodePipeline(
+      @Nullable GlideExecutor decodeExecutor,
+      GlideExecutor encodeExecutor,
+      int maxPendingDecodes) {
+    if (maxPendingDecodes <= 0) {
+      throw new IllegalArgumentException(
+          "Max pending decodes must be > 0, but was: " + maxPendingDecodes);
+    }
+    this.decodeExecutor = decodeExecutor;
+    this.encodeExecutor = encodeExecutor;
+    this.maxPendingDecodes = maxPendingDecodes;
+  }
+
+  @Nullable
+  GlideExecutor getDecodeExecutor() {
+    return decodeExecutor;
+  }
+
+  boolean hasDecodeExecutor() {
+    return decodeExecutor != null;
+  }
+
+  /**
+   * Queues the given job on the decode executor, blocking the calling thread first if the maximum
+   * number of decodes are already pending.
+   *
+   * <p>{@link #onDecodeFinished()} must be called exactly once for each call to this method.
+   */
+  void decode(DecodeJob<?> job) {
+    if (decodeExecutor == null) {
+      throw new IllegalStateException("No decode executor set");
+    }
+    synchronized (pendingDecodesLock) {
+      if (pendingDecodes >= maxPendingDecodes && !Util.isOnMainThread()) {
+        long startTime = System.nanoTime();
+        try {
+          while (pendingDecodes >= maxPendingDecodes) {
+            pendingDecodesLock.wait();
+          }
+        } catch (InterruptedException e) {
+          // Dropping the job would leave its load hanging, so hand it off anyway.
+          Thread.currentThread().interrupt();
+        }
+        blockedCount.incrementAndGet();
+        totalBlockedNanos.addAndGet(System.nanoTime() - startTime);
+      }
+      pendingDecodes++;
+    }
+    try {
+      decodeExecutor.execute(job);
+    } catch (RejectedExecutionException e) {
+      onDecodeFinished();
+      throw e;
+    }
+  }
+
+  /** Called when a job queued by {@link #decode(DecodeJob)} has finished decoding. */
+  void onDecodeFinished() {
+    synchronized (pendingDecodesLock) {
+      pendingDecodes--;
+      pendingDecodesLock.notify();
+    }
+  }
+
+  /** Queues the given job to write its decoded resource to the disk cache. */
+  void encode(DecodeJob<?> job) {
+    encodeExecutor.execute(job);
+  }
+
+  /** Records that a load spent the time since {@code startNanos} in the given stage. */
+  void record(PipelineStats.Stage stage, long startNanos) {
+    long elapsedNanos = System.nanoTime() - startNanos;
+    int index = stage.ordinal();
+    counts.incrementAndGet(index);
+    totalNanos.addAndGet(index, elapsedNanos);
+    long max;
+    do {
+      max = maxNanos.get(index);
+    } while (elapsedNanos > max && !maxNanos.compareAndSet(index, max, elapsedNanos));
+  }
+
+  PipelineStats getStats() {
+    long[] currentCounts = new long[STAGE_COUNT];
+    long[] currentTotals = new long[STAGE_COUNT];
+    long[] currentMaximums = new long[STAGE_COUNT];
+    for (int i = 0; i < STAGE_COUNT; i++) {
+      currentCounts[i] = counts.get(i);
+      currentTotals[i] = totalNanos.get(i);
+      currentMaximums[i] = maxNanos.get(i);
+    }
+    return new PipelineStats(
+        currentCounts,
+        currentTotals,
+        currentMaximums,
+        blockedCount.get(),
+        totalBlockedNanos.get());
+  }
+}
@@ -6,6 +6,7 @@ import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
 import android.util.Log;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideMetricsListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
@@ -15,15 +16,20 @@ import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCacheAdapter;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.resource.bitmap.ImageHeaderCache;
+import com.bumptech.glide.load.resource.bitmap.SharedDecodes;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Responsible for starting loads and managing active and cached resources.
@@ -33,6 +39,7 @@ public class Engine implements EngineJobListener,
     EngineResource.ResourceListener {
   private static final String TAG = "Engine";
   private static final int JOB_POOL_SIZE = 150;
+  private static final int CONCURRENT_LOCK_STRIPES = 64;
   private static final boolean VERBOSE_IS_LOGGABLE = Log.isLoggable(TAG, Log.VERBOSE);
   private final Jobs jobs;
   private final EngineKeyFactory keyFactory;
@@ -40,8 +47,14 @@ public class Engine implements EngineJobListener,
   private final EngineJobFactory engineJobFactory;
   private final ResourceRecycler resourceRecycler;
   private final LazyDiskCacheProvider diskCacheProvider;
+  private final ImageHeaderCache imageHeaderCache;
+  @Nullable private final SharedDecodes sharedDecodes;
   private final DecodeJobFactory decodeJobFactory;
   private final ActiveResources activeResources;
+  private final StripedKeyLocks keyLocks;
+  private final DecodePipeline pipeline;
+  @Nullable private final NegativeCache negativeCache;
+  private final boolean isConcurrent;
 
   public Engine(
       MemoryCache memoryCache,
@@ -58,13 +71,35 @@ public class Engine implements EngineJobListener,
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        isActiveResourceRetentionAllowed,
+        new EngineOptions.Builder().build());
+  }
+
+  public Engine(
+      MemoryCache memoryCache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      boolean isActiveResourceRetentionAllowed,
+      @NonNull EngineOptions options) {
+    this(
+        memoryCache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        /*negativeCache=*/ null,
         /*jobs=*/ null,
         /*keyFactory=*/ null,
         /*activeResources=*/ null,
         /*engineJobFactory=*/ null,
         /*decodeJobFactory=*/ null,
         /*resourceRecycler=*/ null,
-        isActiveResourceRetentionAllowed);
+        isActiveResourceRetentionAllowed,
+        options);
   }
 
   @VisibleForTesting
@@ -74,18 +109,33 @@ public class Engine implements EngineJobListener,
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable NegativeCache negativeCache,
       Jobs jobs,
       EngineKeyFactory keyFactory,
       ActiveResources activeResources,
       EngineJobFactory engineJobFactory,
       DecodeJobFactory decodeJobFactory,
       ResourceRecycler resourceRecycler,
-      boolean isActiveResourceRetentionAllowed) {
+      boolean isActiveResourceRetentionAllowed,
+      EngineOptions options) {
+    boolean isConcurrent = options.isConcurrent();
+    if (negativeCache == null && options.getNegativeCachePolicy() != null) {
+      negativeCache = new NegativeCache(options.getNegativeCachePolicy());
+    }
     this.cache = cache;
+    this.isConcurrent = isConcurrent;
+    this.negativeCache = negativeCache;
+    // Allow a decode to be queued behind each running decode so that decode threads don't wait for
+    // the next fetch.
+    this.pipeline = new DecodePipeline(options.getDecodeExecutor(), diskCacheExecutor,
+        2 * GlideExecutor.calculateBestThreadCount());
+    this.keyLocks = new StripedKeyLocks(isConcurrent ? CONCURRENT_LOCK_STRIPES : 1);
     this.diskCacheProvider = new LazyDiskCacheProvider(diskCacheFactory);
+    this.imageHeaderCache = new ImageHeaderCache(diskCacheProvider);
+    this.sharedDecodes = options.isMultiSizeDerivationEnabled() ? new SharedDecodes() : null;
 
     if (activeResources == null) {
-      activeResources = new ActiveResources(isActiveResourceRetentionAllowed);
+      activeResources = new ActiveResources(isActiveResourceRetentionAllowed, isConcurrent);
     }
     this.activeResources = activeResources;
     activeResources.setListener(this);
@@ -96,19 +146,26 @@ public class Engine implements EngineJobListener,
     this.keyFactory = keyFactory;
 
     if (jobs == null) {
-      jobs = new Jobs();
+      jobs = new Jobs(isConcurrent);
     }
     this.jobs = jobs;
 
     if (engineJobFactory == null) {
       engineJobFactory =
           new EngineJobFactory(
-              diskCacheExecutor, sourceExecutor, sourceUnlimitedExecutor, animationExecutor, this);
+              diskCacheExecutor,
+              sourceExecutor,
+              sourceUnlimitedExecutor,
+              animationExecutor,
+              pipeline,
+              this,
+              isConcurrent);
     }
     this.engineJobFactory = engineJobFactory;
 
     if (decodeJobFactory == null) {
-      decodeJobFactory = new DecodeJobFactory(diskCacheProvider);
+      decodeJobFactory =
+          new DecodeJobFactory(diskCacheProvider, pipeline, isConcurrent, sharedDecodes);
     }
     this.decodeJobFactory = decodeJobFactory;
 
@@ -123,7 +180,8 @@ public class Engine implements EngineJobListener,
   /**
    * Starts a load for the given arguments.
    *
-   * <p>Must be called on the main thread.
+   * <p>Must be called on the main thread unless this {@link Engine} was created in concurrent
+   * mode.
    *
    * <p>The flow for any request is as follows:
    * <ul>
@@ -165,37 +223,253 @@ public class Engine implements EngineJobListener,
       boolean useAnimationPool,
       boolean onlyRetrieveFromCache,
       ResourceCallback cb) {
-    Util.assertMainThread();
+    assertMainThreadIfNotConcurrent();
     long startTime = VERBOSE_IS_LOGGABLE ? LogTime.getLogTime() : 0;
 
     EngineKey key = keyFactory.buildKey(model, signature, width, height, transformations,
         resourceClass, transcodeClass, options);
+    GlideMetricsListener metricsListener = glideContext.getMetricsListener();
+
+    EngineResource<?> memoryResource;
+    GlideException previousFailure = null;
+    LoadStatus status = null;
+    // Memory cache hits and previous failures are delivered outside of the lock so that callbacks
+    // can't re-enter the Engine while we hold a stripe.
+    synchronized (keyLocks.get(key)) {
+      memoryResource = loadFromMemory(key, isMemoryCacheable, metricsListener);
+      if (memoryResource == null) {
+        previousFailure = getRecentFailure(key, onlyRetrieveFromCache);
+      }
+      if (memoryResource == null && previousFailure == null) {
+        status = joinOrStartJob(
+            glideContext,
+            model,
+            key,
+            signature,
+            width,
+            height,
+            resourceClass,
+            transcodeClass,
+            priority,
+            diskCacheStrategy,
+            transformations,
+            isTransformationRequired,
+            isScaleOnlyOrNoTransform,
+            options,
+            isMemoryCacheable,
+            useUnlimitedSourceExecutorPool,
+            useAnimationPool,
+            onlyRetrieveFromCache,
+            cb,
+            metricsListener,
+            /*deferredStart=*/ null);
+      }
+    }
 
-    EngineResource<?> active = loadFromActiveResources(key, isMemoryCacheable);
-    if (active != null) {
-      cb.onResourceReady(active, DataSource.MEMORY_CACHE);
+    if (status != null) {
       if (VERBOSE_IS_LOGGABLE) {
-        logWithTimeAndKey("Loaded resource from active resources", startTime, key);
+        logWithTimeAndKey("Started or joined load", startTime, key);
       }
-      return null;
+      return status;
     }
 
-    EngineResource<?> cached = loadFromCache(key, isMemoryCacheable);
-    if (cached != null) {
-      cb.onResourceReady(cached, DataSource.MEMORY_CACHE);
+    if (previousFailure != null) {
+      cb.onLoadFailed(previousFailure);
       if (VERBOSE_IS_LOGGABLE) {
-        logWithTimeAndKey("Loaded resource from cache", startTime, key);
+        logWithTimeAndKey("Failed load from negative cache", startTime, key);
       }
       return null;
     }
 
+    cb.onResourceReady(memoryResource, DataSource.MEMORY_CACHE);
+    if (VERBOSE_IS_LOGGABLE) {
+      logWithTimeAndKey("Loaded resource from memory", startTime, key);
+    }
+    return null;
+  }
+
+  /**
+   * Starts loads for each of the given models that share all other arguments.
+   *
+   * <p>Behaves like calling {@link #load} once for each model, but checks the memory cache for
+   * every model before starting any new jobs, then starts all of the new jobs back to back and
+   * only then delivers memory cache hits and recent failures. Doing so avoids interleaving cache
+   * probes with executor submissions and lets the executors see the misses as a single block.
+   *
+   * @param models The models to load, identical models share a single job.
+   * @param callbacks One callback per model, in the same order as {@code models}.
+   * @return One {@link LoadStatus} per model in the same order as {@code models}, or {@code null}
+   * for models that were loaded from memory or that failed recently.
+   */
+  @NonNull
+  public <R> List<LoadStatus> loadAll(
+      GlideContext glideContext,
+      List<?> models,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      List<? extends ResourceCallback> callbacks) {
+    assertMainThreadIfNotConcurrent();
+    if (models.size() != callbacks.size()) {
+      throw new IllegalArgumentException("Expected one callback per model, but got "
+          + callbacks.size() + " callbacks for " + models.size() + " models");
+    }
+    long startTime = VERBOSE_IS_LOGGABLE ? LogTime.getLogTime() : 0;
+    GlideMetricsListener metricsListener = glideContext.getMetricsListener();
+
+    int count = models.size();
+    List<LoadStatus> statuses = new ArrayList<>(count);
+    List<KeyLookup<R>> lookups = new ArrayList<>(count);
+    List<KeyLookup<R>> newJobs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Object model = models.get(i);
+      EngineKey key = keyFactory.buildKey(model, signature, width, height, transformations,
+          resourceClass, transcodeClass, options);
+
+      KeyLookup<R> lookup = new KeyLookup<>();
+      // New jobs aren't started until every model has been looked up, later models with the same
+      // key join them before they're started.
+      synchronized (keyLocks.get(key)) {
+        lookup.memoryResource = loadFromMemory(key, isMemoryCacheable, metricsListener);
+        if (lookup.memoryResource == null) {
+          lookup.previousFailure = getRecentFailure(key, onlyRetrieveFromCache);
+        }
+        if (lookup.memoryResource == null && lookup.previousFailure == null) {
+          lookup.status = joinOrStartJob(
+              glideContext,
+              model,
+              key,
+              signature,
+              width,
+              height,
+              resourceClass,
+              transcodeClass,
+              priority,
+              diskCacheStrategy,
+              transformations,
+              isTransformationRequired,
+              isScaleOnlyOrNoTransform,
+              options,
+              isMemoryCacheable,
+              useUnlimitedSourceExecutorPool,
+              useAnimationPool,
+              onlyRetrieveFromCache,
+              callbacks.get(i),
+              metricsListener,
+              lookup);
+        }
+      }
+      lookups.add(lookup);
+      statuses.add(lookup.status);
+      if (lookup.newEngineJob != null) {
+        newJobs.add(lookup);
+      }
+    }
+
+    for (int i = 0; i < newJobs.size(); i++) {
+      KeyLookup<R> lookup = newJobs.get(i);
+      lookup.newEngineJob.start(lookup.newDecodeJob);
+    }
+
+    for (int i = 0; i < count; i++) {
+      KeyLookup<R> lookup = lookups.get(i);
+      ResourceCallback cb = callbacks.get(i);
+      if (lookup.memoryResource != null) {
+        cb.onResourceReady(lookup.memoryResource, DataSource.MEMORY_CACHE);
+      } else if (lookup.previousFailure != null) {
+        cb.onLoadFailed(lookup.previousFailure);
+      }
+    }
+
+    if (VERBOSE_IS_LOGGABLE) {
+      Log.v(TAG, "Started " + newJobs.size() + " new loads for " + count + " models in "
+          + LogTime.getElapsedMillis(startTime) + "ms");
+    }
+    return statuses;
+  }
+
+  /**
+   * Returns the active or cached resource for the given key, acquired for the caller, or
+   * {@code null} if there isn't one.
+   *
+   * <p>Must be called while holding the lock for the given key.
+   */
+  @Nullable
+  private EngineResource<?> loadFromMemory(
+      EngineKey key, boolean isMemoryCacheable, @Nullable GlideMetricsListener metricsListener) {
+    EngineResource<?> active = loadFromActiveResources(key, isMemoryCacheable);
+    EngineResource<?> cached = active == null ? loadFromCache(key, isMemoryCacheable) : null;
+    if (metricsListener != null && isMemoryCacheable) {
+      reportMemoryLookup(metricsListener, key, active, cached);
+    }
+    return active != null ? active : cached;
+  }
+
+  /**
+   * Returns the failure of a recent load for the given key if no job for the key is in progress,
+   * or {@code null} if there isn't one.
+   *
+   * <p>Must be called while holding the lock for the given key.
+   */
+  @Nullable
+  private GlideException getRecentFailure(EngineKey key, boolean onlyRetrieveFromCache) {
+    // Loads join jobs that are already in progress even if the key failed recently.
+    if (negativeCache == null || jobs.get(key, onlyRetrieveFromCache) != null) {
+      return null;
+    }
+    return negativeCache.get(key);
+  }
+
+  /**
+   * Adds the given callback to the in progress job for the given key, or to a new job, and returns
+   * the status for the callback.
+   *
+   * <p>New jobs are started immediately unless {@code deferredStart} is given, in which case the
+   * new job is set on it for the caller to start. Must be called while holding the lock for the
+   * given key.
+   */
+  @NonNull
+  private <R> LoadStatus joinOrStartJob(
+      GlideContext glideContext,
+      Object model,
+      EngineKey key,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      ResourceCallback cb,
+      @Nullable GlideMetricsListener metricsListener,
+      @Nullable KeyLookup<R> deferredStart) {
     EngineJob<?> current = jobs.get(key, onlyRetrieveFromCache);
     if (current != null) {
       current.addCallback(cb);
-      if (VERBOSE_IS_LOGGABLE) {
-        logWithTimeAndKey("Added to existing load", startTime, key);
+      if (metricsListener != null) {
+        metricsListener.onJobCoalesced(key);
       }
-      return new LoadStatus(cb, current);
+      return new LoadStatus(cb, current, keyLocks.get(key));
     }
 
     EngineJob<R> engineJob =
@@ -226,14 +500,28 @@ public class Engine implements EngineJobListener,
             engineJob);
 
     jobs.put(key, engineJob);
-
     engineJob.addCallback(cb);
-    engineJob.start(decodeJob);
+    if (deferredStart != null) {
+      deferredStart.newEngineJob = engineJob;
+      deferredStart.newDecodeJob = decodeJob;
+    } else {
+      engineJob.start(decodeJob);
+    }
+    return new LoadStatus(cb, engineJob, keyLocks.get(key));
+  }
 
-    if (VERBOSE_IS_LOGGABLE) {
-      logWithTimeAndKey("Started new load", startTime, key);
+  private static void reportMemoryLookup(
+      GlideMetricsListener metricsListener,
+      Key key,
+      @Nullable EngineResource<?> active,
+      @Nullable EngineResource<?> cached) {
+    if (active != null) {
+      metricsListener.onActiveResourceHit(key);
+    } else if (cached != null) {
+      metricsListener.onMemoryCacheHit(key);
+    } else {
+      metricsListener.onMemoryCacheMiss(key);
     }
-    return new LoadStatus(cb, engineJob);
   }
 
   private static void logWithTimeAndKey(String log, long startTime, Key key) {
@@ -276,13 +564,18 @@ public class Engine implements EngineJobListener,
       // Save an object allocation if we've cached an EngineResource (the typical case).
       result = (EngineResource<?>) cached;
     } else {
-      result = new EngineResource<>(cached, true /*isMemoryCacheable*/, true /*isRecyclable*/);
+      result =
+          new EngineResource<>(
+              cached,
+              true /*isMemoryCacheable*/,
+              true /*isRecyclable*/,
+              !isConcurrent /*isMainThreadConfined*/);
     }
     return result;
   }
 
   public void release(Resource<?> resource) {
-    Util.assertMainThread();
+    assertMainThreadIfNotConcurrent();
     if (resource instanceof EngineResource) {
       ((EngineResource<?>) resource).release();
     } else {
@@ -294,44 +587,131 @@ public class Engine implements EngineJobListener,
   @Override
   public void onEngineJobComplete(EngineJob<?> engineJob, Key key, EngineResource<?> resource) {
     Util.assertMainThread();
-    // A null resource indicates that the load failed, usually due to an exception.
-    if (resource != null) {
-      resource.setResourceListener(key, this);
+    synchronized (keyLocks.get(key)) {
+      // A null resource indicates that the load failed, usually due to an exception.
+      if (resource != null) {
+        resource.setResourceListener(key, this);
 
-      if (resource.isCacheable()) {
-        activeResources.activate(key, resource);
+        if (resource.isCacheable()) {
+          activeResources.activate(key, resource);
+        }
+      } else if (negativeCache != null && !engineJob.onlyRetrieveFromCache()) {
+        // Loads that are only allowed to use the disk cache fail whenever the disk cache misses,
+        // which says nothing about whether a load from source would succeed.
+        GlideException exception = engineJob.getException();
+        if (exception != null) {
+          negativeCache.put(key, exception);
+        }
       }
-    }
 
-    jobs.removeIfCurrent(key, engineJob);
+      jobs.removeIfCurrent(key, engineJob);
+    }
   }
 
   @Override
   public void onEngineJobCancelled(EngineJob<?> engineJob, Key key) {
-    Util.assertMainThread();
+    assertMainThreadIfNotConcurrent();
 
-    jobs.removeIfCurrent(key, engineJob);
+    synchronized (keyLocks.get(key)) {
+      jobs.removeIfCurrent(key, engineJob);
+    }
   }
 
   @Override
   public void onResourceRemoved(@NonNull final Resource<?> resource) {
-    Util.assertMainThread();
-    resourceRecycler.recycle(resource);
+    assertMainThreadIfNotConcurrent();
+    recycle(resource);
   }
 
   @Override
   public void onResourceReleased(Key cacheKey, EngineResource<?> resource) {
-    Util.assertMainThread();
-    activeResources.deactivate(cacheKey);
-    if (resource.isCacheable()) {
-      cache.put(cacheKey, resource);
+    assertMainThreadIfNotConcurrent();
+    synchronized (keyLocks.get(cacheKey)) {
+      if (isConcurrent) {
+        // Another thread may have picked the resource up from active resources after the last
+        // consumer released it but before we obtained the lock.
+        if (resource.isAcquired()) {
+          return;
+        }
+        activeResources.deactivate(cacheKey, resource);
+      } else {
+        activeResources.deactivate(cacheKey);
+      }
+      if (resource.isCacheable()) {
+        cache.put(cacheKey, resource);
+        return;
+      }
+    }
+    recycle(resource);
+  }
+
+  private void recycle(Resource<?> resource) {
+    if (isConcurrent) {
+      resourceRecycler.recycle(resource, /*forceNextFrame=*/ !Util.isOnMainThread());
     } else {
       resourceRecycler.recycle(resource);
     }
   }
 
+  private void assertMainThreadIfNotConcurrent() {
+    if (!isConcurrent) {
+      Util.assertMainThread();
+    }
+  }
+
   public void clearDiskCache() {
     diskCacheProvider.getDiskCache().clear();
+    imageHeaderCache.clearMemory();
+  }
+
+  /**
+   * Returns {@code true} if {@link #load} and {@link #release(Resource)} may be called from any
+   * thread, see {@link EngineOptions.Builder#setIsConcurrent(boolean)}.
+   */
+  public boolean isConcurrent() {
+    return isConcurrent;
+  }
+
+  /**
+   * Returns the cache of source image headers that's persisted to this engine's disk cache.
+   */
+  @NonNull
+  public ImageHeaderCache getImageHeaderCache() {
+    return imageHeaderCache;
+  }
+
+  /**
+   * Returns the decodes shared between loads of the same data at different sizes, or {@code null}
+   * if this engine was created without multi-size derivation enabled.
+   */
+  @Nullable
+  public SharedDecodes getSharedDecodes() {
+    return sharedDecodes;
+  }
+
+  /**
+   * Forgets every failed load remembered by the {@link NegativeCachePolicy} this engine was
+   * created with, if any.
+   */
+  public void clearNegativeCache() {
+    if (negativeCache != null) {
+      negativeCache.clear();
+    }
+  }
+
+  /**
+   * Returns counters for the failed loads remembered by this engine, or {@code null} if this engine
+   * wasn't created with a {@link NegativeCachePolicy}.
+   */
+  @Nullable
+  public NegativeCacheStats getNegativeCacheStats() {
+    return negativeCache != null ? negativeCache.getStats() : null;
+  }
+
+  /** Returns how long loads started by this engine have spent in each stage so far. */
+  @NonNull
+  public PipelineStats getPipelineStats() {
+    return pipeline.getStats();
   }
 
   @VisibleForTesting
@@ -341,24 +721,64 @@ public class Engine implements EngineJobListener,
     activeResources.shutdown();
   }
 
+  /**
+   * The outcome of looking up a single model's key in {@link #loadAll}, at most one of the
+   * resource, failure and status is set.
+   */
+  private static final class KeyLookup<R> {
+    @Nullable @Synthetic EngineResource<?> memoryResource;
+    @Nullable @Synthetic GlideException previousFailure;
+    @Nullable @Synthetic LoadStatus status;
+    @Nullable @Synthetic EngineJob<R> newEngineJob;
+    @Nullable @Synthetic DecodeJob<R> newDecodeJob;
+
+    @Synthetic
+    KeyLookup() { }
+  }
+
   /**
    * Allows a request to indicate it no longer is interested in a given load.
    */
   public static class LoadStatus {
     private final EngineJob<?> engineJob;
     private final ResourceCallback cb;
+    private final Object lock;
 
-    LoadStatus(ResourceCallback cb, EngineJob<?> engineJob) {
+    LoadStatus(ResourceCallback cb, EngineJob<?> engineJob, Object lock) {
       this.cb = cb;
       this.engineJob = engineJob;
+      this.lock = lock;
     }
 
     public void cancel() {
-      engineJob.removeCallback(cb);
+      // Hold the key's lock so that a concurrent load can't join the job while it's cancelled.
+      synchronized (lock) {
+        engineJob.removeCallback(cb);
+      }
+    }
+
+    /**
+     * Changes the priority of the load, moving it ahead of or behind other queued loads if it
+     * hasn't started yet.
+     */
+    public void setPriority(@NonNull Priority priority) {
+      synchronized (lock) {
+        engineJob.setPriority(priority);
+      }
     }
   }
 
-  private static class LazyDiskCacheProvider implements DecodeJob.DiskCacheProvider {
+  // Jobs are released on the main thread, but in concurrent mode they're acquired on any thread.
+  @Synthetic
+  static <T extends FactoryPools.Poolable> Pools.Pool<T> newJobPool(
+      boolean isConcurrent, FactoryPools.Factory<T> factory) {
+    return isConcurrent
+        ? FactoryPools.threadSafe(JOB_POOL_SIZE, factory)
+        : FactoryPools.simple(JOB_POOL_SIZE, factory);
+  }
+
+  private static class LazyDiskCacheProvider
+      implements DecodeJob.DiskCacheProvider, ImageHeaderCache.DiskCacheProvider {
 
     private final DiskCache.Factory factory;
     private volatile DiskCache diskCache;
@@ -375,6 +795,7 @@ public class Engine implements EngineJobListener,
       diskCache.clear();
     }
 
+    @NonNull
     @Override
     public DiskCache getDiskCache() {
       if (diskCache == null) {
@@ -394,18 +815,43 @@ public class Engine implements EngineJobListener,
   @VisibleForTesting
   static class DecodeJobFactory {
     @Synthetic final DecodeJob.DiskCacheProvider diskCacheProvider;
-    @Synthetic final Pools.Pool<DecodeJob<?>> pool =
-        FactoryPools.simple(JOB_POOL_SIZE,
-            new FactoryPools.Factory<DecodeJob<?>>() {
-          @Override
-          public DecodeJob<?> create() {
-            return new DecodeJob<>(diskCacheProvider, pool);
-          }
-        });
-    private int creationOrder;
+    @Synthetic final DecodePipeline pipeline;
+    @Synthetic final Pools.Pool<DecodeJob<?>> pool;
+    @Nullable @Synthetic final SharedDecodes sharedDecodes;
+    private final AtomicInteger creationOrder = new AtomicInteger();
 
-    DecodeJobFactory(DecodeJob.DiskCacheProvider diskCacheProvider) {
+    DecodeJobFactory(DecodeJob.DiskCacheProvider diskCacheProvider, DecodePipeline pipeline) {
+      this(diskCacheProvider, pipeline, /*isConcurrent=*/ false);
+    }
+
+    DecodeJobFactory(
+        DecodeJob.DiskCacheProvider diskCacheProvider,
+        DecodePipeline pipeline,
+        boolean isConcurrent) {
+      this(diskCacheProvider, pipeline, isConcurrent, /*sharedDecodes=*/ null);
+    }
+
+    DecodeJobFactory(
+        DecodeJob.DiskCacheProvider diskCacheProvider,
+        DecodePipeline pipeline,
+        boolean isConcurrent,
+        @Nullable SharedDecodes sharedDecodes) {
       this.diskCacheProvider = diskCacheProvider;
+      this.pipeline = pipeline;
+      this.sharedDecodes = sharedDecodes;
+      pool =
+          newJobPool(
+              isConcurrent,
+              new FactoryPools.Factory<DecodeJob<?>>() {
+                @Override
+                public DecodeJob<?> create() {
+                  return new DecodeJob<>(
+                      DecodeJobFactory.this.diskCacheProvider,
+                      DecodeJobFactory.this.pipeline,
+                      DecodeJobFactory.this.pool,
+                      DecodeJobFactory.this.sharedDecodes);
+                }
+              });
     }
 
     @SuppressWarnings("unchecked")
@@ -443,7 +889,7 @@ public class Engine implements EngineJobListener,
           onlyRetrieveFromCache,
           options,
           callback,
-          creationOrder++);
+          creationOrder.getAndIncrement());
     }
   }
 
@@ -453,22 +899,10 @@ public class Engine implements EngineJobListener,
     @Synthetic final GlideExecutor sourceExecutor;
     @Synthetic final GlideExecutor sourceUnlimitedExecutor;
     @Synthetic final GlideExecutor animationExecutor;
+    @Synthetic final DecodePipeline pipeline;
     @Synthetic final EngineJobListener listener;
-    @Synthetic final Pools.Pool<EngineJob<?>> pool =
-        FactoryPools.simple(
-            JOB_POOL_SIZE,
-            new FactoryPools.Factory<EngineJob<?>>() {
-              @Override
-              public EngineJob<?> create() {
-                return new EngineJob<>(
-                    diskCacheExecutor,
-                    sourceExecutor,
-                    sourceUnlimitedExecutor,
-                    animationExecutor,
-                    listener,
-                    pool);
-              }
-            });
+    @Synthetic final boolean isConcurrent;
+    @Synthetic final Pools.Pool<EngineJob<?>> pool;
 
     EngineJobFactory(
         GlideExecutor diskCacheExecutor,
@@ -476,11 +910,49 @@ public class Engine implements EngineJobListener,
         GlideExecutor sourceUnlimitedExecutor,
         GlideExecutor animationExecutor,
         EngineJobListener listener) {
+      this(
+          diskCacheExecutor,
+          sourceExecutor,
+          sourceUnlimitedExecutor,
+          animationExecutor,
+          new DecodePipeline(
+              /*decodeExecutor=*/ null, diskCacheExecutor, /*maxPendingDecodes=*/ 1),
+          listener,
+          /*isConcurrent=*/ false);
+    }
+
+    EngineJobFactory(
+        GlideExecutor diskCacheExecutor,
+        GlideExecutor sourceExecutor,
+        GlideExecutor sourceUnlimitedExecutor,
+        GlideExecutor animationExecutor,
+        DecodePipeline pipeline,
+        EngineJobListener listener,
+        boolean isConcurrent) {
       this.diskCacheExecutor = diskCacheExecutor;
       this.sourceExecutor = sourceExecutor;
       this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
       this.animationExecutor = animationExecutor;
+      this.pipeline = pipeline;
       this.listener = listener;
+      this.isConcurrent = isConcurrent;
+      pool =
+          newJobPool(
+              isConcurrent,
+              new FactoryPools.Factory<EngineJob<?>>() {
+                @Override
+                public EngineJob<?> create() {
+                  return new EngineJob<>(
+                      EngineJobFactory.this.diskCacheExecutor,
+                      EngineJobFactory.this.sourceExecutor,
+                      EngineJobFactory.this.sourceUnlimitedExecutor,
+                      EngineJobFactory.this.animationExecutor,
+                      EngineJobFactory.this.pipeline,
+                      EngineJobFactory.this.listener,
+                      EngineJobFactory.this.pool,
+                      EngineJobFactory.this.isConcurrent);
+                }
+              });
     }
 
     @VisibleForTesting
@@ -489,6 +961,10 @@ public class Engine implements EngineJobListener,
       shutdownAndAwaitTermination(sourceExecutor);
       shutdownAndAwaitTermination(sourceUnlimitedExecutor);
       shutdownAndAwaitTermination(animationExecutor);
+      GlideExecutor decodeExecutor = pipeline.getDecodeExecutor();
+      if (decodeExecutor != null) {
+        shutdownAndAwaitTermination(decodeExecutor);
+      }
     }
 
     @SuppressWarnings("unchecked")
@@ -1,14 +1,18 @@
 package com.bumptech.glide.load.engine;
 
+import android.graphics.Bitmap;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.request.IntermediateResourceCallback;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
@@ -24,6 +28,8 @@ import java.util.List;
 class EngineJob<R> implements DecodeJob.Callback<R>,
     Poolable {
   private static final EngineResourceFactory DEFAULT_FACTORY = new EngineResourceFactory();
+  private static final EngineResourceFactory CONCURRENT_FACTORY =
+      new EngineResourceFactory(/*isMainThreadConfined=*/ false);
   private static final Handler MAIN_THREAD_HANDLER =
       new Handler(Looper.getMainLooper(), new MainThreadCallback());
 
@@ -32,6 +38,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   // Used when we realize we're cancelled on a background thread in reschedule and can recycle
   // immediately rather than waiting for a result or an error.
   private static final int MSG_CANCELLED = 3;
+  private static final int MSG_INTERMEDIATE = 4;
 
   private final List<ResourceCallback> cbs = new ArrayList<>(2);
   private final StateVerifier stateVerifier = StateVerifier.newInstance();
@@ -42,6 +49,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private final GlideExecutor sourceExecutor;
   private final GlideExecutor sourceUnlimitedExecutor;
   private final GlideExecutor animationExecutor;
+  private final DecodePipeline pipeline;
+  private final boolean isConcurrent;
 
   private Key key;
   private boolean isCacheable;
@@ -58,9 +67,13 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private List<ResourceCallback> ignoredCallbacks;
   private EngineResource<?> engineResource;
   private DecodeJob<R> decodeJob;
+  // The preview most recently delivered to callbacks, recycled when it's replaced by another.
+  private Resource<Bitmap> intermediateResource;
 
   // Checked primarily on the main thread, but also on other threads in reschedule.
   private volatile boolean isCancelled;
+  // Checked on the thread reading source data.
+  private volatile boolean isIntermediateResourceRequested;
 
   EngineJob(
       GlideExecutor diskCacheExecutor,
@@ -74,9 +87,12 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        new DecodePipeline(
+            /*decodeExecutor=*/ null, diskCacheExecutor, /*maxPendingDecodes=*/ 1),
         listener,
         pool,
-        DEFAULT_FACTORY);
+        DEFAULT_FACTORY,
+        /*isConcurrent=*/ false);
   }
 
   @VisibleForTesting
@@ -88,13 +104,64 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       EngineJobListener listener,
       Pools.Pool<EngineJob<?>> pool,
       EngineResourceFactory engineResourceFactory) {
+    this(
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        new DecodePipeline(
+            /*decodeExecutor=*/ null, diskCacheExecutor, /*maxPendingDecodes=*/ 1),
+        listener,
+        pool,
+        engineResourceFactory,
+        /*isConcurrent=*/ false);
+  }
+
+  /**
+   * @param pipeline Decodes data retrieved from source on a separate executor if it has one.
+   * @param isConcurrent {@code true} if callbacks may be added and removed from any thread. Results
+   *                     are still delivered on the main thread.
+   */
+  EngineJob(
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      DecodePipeline pipeline,
+      EngineJobListener listener,
+      Pools.Pool<EngineJob<?>> pool,
+      boolean isConcurrent) {
+    this(
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        pipeline,
+        listener,
+        pool,
+        isConcurrent ? CONCURRENT_FACTORY : DEFAULT_FACTORY,
+        isConcurrent);
+  }
+
+  private EngineJob(
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      DecodePipeline pipeline,
+      EngineJobListener listener,
+      Pools.Pool<EngineJob<?>> pool,
+      EngineResourceFactory engineResourceFactory,
+      boolean isConcurrent) {
     this.diskCacheExecutor = diskCacheExecutor;
     this.sourceExecutor = sourceExecutor;
     this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
     this.animationExecutor = animationExecutor;
+    this.pipeline = pipeline;
     this.listener = listener;
     this.pool = pool;
     this.engineResourceFactory = engineResourceFactory;
+    this.isConcurrent = isConcurrent;
   }
 
   @VisibleForTesting
@@ -120,29 +187,83 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     executor.execute(decodeJob);
   }
 
+  /**
+   * Changes the priority of this job's {@link DecodeJob}, moving it to its new position if it's
+   * still queued. If several requests share this job, the most recent priority wins.
+   */
+  void setPriority(Priority priority) {
+    DecodeJob<R> job = decodeJob;
+    if (job == null) {
+      return;
+    }
+    if (job.getPriority() == priority) {
+      // Drop any other priority that's waiting to be applied.
+      job.setPendingPriority(null);
+      return;
+    }
+    GlideExecutor executor = null;
+    if (diskCacheExecutor.remove(job)) {
+      executor = diskCacheExecutor;
+    } else if (getActiveSourceExecutor().remove(job)) {
+      executor = getActiveSourceExecutor();
+    } else if (pipeline.hasDecodeExecutor() && pipeline.getDecodeExecutor().remove(job)) {
+      // Removing and re-queueing a job doesn't change the number of pending decodes.
+      executor = pipeline.getDecodeExecutor();
+    }
+    if (executor == null) {
+      // The job is running or moving between executors, so it may be added to a queue ordered by
+      // priority at any time. Let the job change its own priority when it's next queued or run.
+      job.setPendingPriority(priority);
+      return;
+    }
+    job.setPriority(priority);
+    executor.execute(job);
+  }
+
   void addCallback(ResourceCallback cb) {
-    Util.assertMainThread();
+    assertMainThreadIfConfined();
     stateVerifier.throwIfRecycled();
+    // In concurrent mode the Engine removes this job from Jobs before publishing a result, so
+    // callbacks added from other threads always land in cbs rather than being called here.
+    synchronized (this) {
+      if (!hasResource && !hasLoadFailed) {
+        cbs.add(cb);
+        if (cb instanceof IntermediateResourceCallback
+            && ((IntermediateResourceCallback) cb).isIntermediateResourceRequested()) {
+          isIntermediateResourceRequested = true;
+        }
+        return;
+      }
+    }
     if (hasResource) {
       cb.onResourceReady(engineResource, dataSource);
-    } else if (hasLoadFailed) {
-      cb.onLoadFailed(exception);
     } else {
-      cbs.add(cb);
+      cb.onLoadFailed(exception);
     }
   }
 
   void removeCallback(ResourceCallback cb) {
-    Util.assertMainThread();
+    assertMainThreadIfConfined();
     stateVerifier.throwIfRecycled();
-    if (hasResource || hasLoadFailed) {
-      addIgnoredCallback(cb);
-    } else {
-      cbs.remove(cb);
-      if (cbs.isEmpty()) {
-        cancel();
+    boolean shouldCancel = false;
+    synchronized (this) {
+      if (hasResource || hasLoadFailed) {
+        addIgnoredCallback(cb);
+      } else {
+        cbs.remove(cb);
+        shouldCancel = cbs.isEmpty();
       }
     }
+    // Cancel outside of the lock because cancelling calls back in to the Engine.
+    if (shouldCancel) {
+      cancel();
+    }
+  }
+
+  private void assertMainThreadIfConfined() {
+    if (!isConcurrent) {
+      Util.assertMainThread();
+    }
   }
 
   boolean onlyRetrieveFromCache() {
@@ -168,7 +289,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     }
   }
 
-  private boolean isInIgnoredCallbacks(ResourceCallback cb) {
+  private synchronized boolean isInIgnoredCallbacks(ResourceCallback cb) {
     return ignoredCallbacks != null && ignoredCallbacks.contains(cb);
   }
 
@@ -203,16 +324,23 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       throw new IllegalStateException("Already have resource");
     }
     engineResource = engineResourceFactory.build(resource, isCacheable);
-    hasResource = true;
 
     // Hold on to resource for duration of request so we don't recycle it in the middle of
     // notifying if it synchronously released by one of the callbacks.
     engineResource.acquire();
+    // Notify the listener before publishing the result so that no new callbacks can be added to
+    // this job from other threads after we've taken our snapshot of callbacks below.
     listener.onEngineJobComplete(this, key, engineResource);
 
+    List<ResourceCallback> toNotify;
+    synchronized (this) {
+      hasResource = true;
+      toNotify = copyCallbacksIfConcurrent();
+    }
+
     //noinspection ForLoopReplaceableByForEach to improve perf
-    for (int i = 0, size = cbs.size(); i < size; i++) {
-      ResourceCallback cb = cbs.get(i);
+    for (int i = 0, size = toNotify.size(); i < size; i++) {
+      ResourceCallback cb = toNotify.get(i);
       if (!isInIgnoredCallbacks(cb)) {
         engineResource.acquire();
         cb.onResourceReady(engineResource, dataSource);
@@ -224,6 +352,36 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     release(false /*isRemovedFromQueue*/);
   }
 
+  @Synthetic
+  void handleIntermediateResultOnMainThread(Resource<Bitmap> preview) {
+    stateVerifier.throwIfRecycled();
+    if (isCancelled || hasResource || hasLoadFailed) {
+      preview.recycle();
+      return;
+    }
+
+    List<ResourceCallback> toNotify;
+    synchronized (this) {
+      toNotify = copyCallbacksIfConcurrent();
+    }
+    Bitmap bitmap = preview.get();
+    //noinspection ForLoopReplaceableByForEach to improve perf
+    for (int i = 0, size = toNotify.size(); i < size; i++) {
+      ResourceCallback cb = toNotify.get(i);
+      if (cb instanceof IntermediateResourceCallback && !isInIgnoredCallbacks(cb)) {
+        IntermediateResourceCallback intermediateCb = (IntermediateResourceCallback) cb;
+        if (intermediateCb.isIntermediateResourceRequested()) {
+          intermediateCb.onIntermediateResourceReady(bitmap);
+        }
+      }
+    }
+    // Callbacks have replaced the previous preview, so it can be reused.
+    if (intermediateResource != null) {
+      intermediateResource.recycle();
+    }
+    intermediateResource = preview;
+  }
+
   @Synthetic
   void handleCancelledOnMainThread() {
     stateVerifier.throwIfRecycled();
@@ -234,12 +392,16 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     release(false /*isRemovedFromQueue*/);
   }
 
-  private void release(boolean isRemovedFromQueue) {
+  private synchronized void release(boolean isRemovedFromQueue) {
     Util.assertMainThread();
     cbs.clear();
     key = null;
     engineResource = null;
     resource = null;
+    // The last preview may still be displayed until the final resource replaces it, or during a
+    // transition to the final resource, so it's left to be garbage collected rather than recycled.
+    intermediateResource = null;
+    isIntermediateResourceRequested = false;
     if (ignoredCallbacks != null) {
       ignoredCallbacks.clear();
     }
@@ -266,6 +428,17 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     MAIN_THREAD_HANDLER.obtainMessage(MSG_EXCEPTION, this).sendToTarget();
   }
 
+  @Override
+  public boolean isIntermediateResourceRequested() {
+    return isIntermediateResourceRequested && !isCancelled;
+  }
+
+  @Override
+  public void onIntermediateResourceReady(Resource<Bitmap> preview) {
+    MAIN_THREAD_HANDLER.obtainMessage(MSG_INTERMEDIATE, new IntermediateResult(this, preview))
+        .sendToTarget();
+  }
+
   @Override
   public void reschedule(DecodeJob<?> job) {
     // Even if the job is cancelled here, it still needs to be scheduled so that it can clean itself
@@ -273,6 +446,21 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     getActiveSourceExecutor().execute(job);
   }
 
+  @Override
+  public boolean hasDecodeExecutor() {
+    // Animation frames are loaded on their own small pool already.
+    return pipeline.hasDecodeExecutor() && !useAnimationPool;
+  }
+
+  @Override
+  public void rescheduleDecode(DecodeJob<?> job) {
+    if (hasDecodeExecutor()) {
+      pipeline.decode(job);
+    } else {
+      reschedule(job);
+    }
+  }
+
   @Synthetic
   void handleExceptionOnMainThread() {
     stateVerifier.throwIfRecycled();
@@ -284,11 +472,15 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     } else if (hasLoadFailed) {
       throw new IllegalStateException("Already failed once");
     }
-    hasLoadFailed = true;
-
     listener.onEngineJobComplete(this, key, null);
 
-    for (ResourceCallback cb : cbs) {
+    List<ResourceCallback> toNotify;
+    synchronized (this) {
+      hasLoadFailed = true;
+      toNotify = copyCallbacksIfConcurrent();
+    }
+
+    for (ResourceCallback cb : toNotify) {
       if (!isInIgnoredCallbacks(cb)) {
         cb.onLoadFailed(exception);
       }
@@ -297,6 +489,16 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     release(false /*isRemovedFromQueue*/);
   }
 
+  private List<ResourceCallback> copyCallbacksIfConcurrent() {
+    return isConcurrent ? new ArrayList<>(cbs) : cbs;
+  }
+
+  /** Returns the exception this job failed with, or {@code null} if it hasn't failed. */
+  @Nullable
+  GlideException getException() {
+    return exception;
+  }
+
   @NonNull
   @Override
   public StateVerifier getVerifier() {
@@ -305,8 +507,29 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
 
   @VisibleForTesting
   static class EngineResourceFactory {
+    private final boolean isMainThreadConfined;
+
+    EngineResourceFactory() {
+      this(/*isMainThreadConfined=*/ true);
+    }
+
+    EngineResourceFactory(boolean isMainThreadConfined) {
+      this.isMainThreadConfined = isMainThreadConfined;
+    }
+
     public <R> EngineResource<R> build(Resource<R> resource, boolean isMemoryCacheable) {
-      return new EngineResource<>(resource, isMemoryCacheable, /*isRecyclable=*/ true);
+      return new EngineResource<>(
+          resource, isMemoryCacheable, /*isRecyclable=*/ true, isMainThreadConfined);
+    }
+  }
+
+  private static final class IntermediateResult {
+    @Synthetic final EngineJob<?> job;
+    @Synthetic final Resource<Bitmap> preview;
+
+    IntermediateResult(EngineJob<?> job, Resource<Bitmap> preview) {
+      this.job = job;
+      this.preview = preview;
     }
   }
 
@@ -318,6 +541,11 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
 
     @Override
     public boolean handleMessage(Message message) {
+      if (message.what == MSG_INTERMEDIATE) {
+        IntermediateResult result = (IntermediateResult) message.obj;
+        result.job.handleIntermediateResultOnMainThread(result.preview);
+        return true;
+      }
       EngineJob<?> job = (EngineJob<?>) message.obj;
       switch (message.what) {
         case MSG_COMPLETE:
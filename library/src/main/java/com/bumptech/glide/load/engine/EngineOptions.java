@@ -0,0 +1,110 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.util.Synthetic;
+
+/**
+ * Optional settings for an {@link Engine}, beyond the caches and executors every {@link Engine}
+ * requires.
+ *
+ * @see com.bumptech.glide.GlideBuilder
+ */
+public final class EngineOptions {
+  @Nullable private final GlideExecutor decodeExecutor;
+  @Nullable private final NegativeCachePolicy negativeCachePolicy;
+  private final boolean isConcurrent;
+  private final boolean isMultiSizeDerivationEnabled;
+
+  EngineOptions(Builder builder) {
+    decodeExecutor = builder.decodeExecutor;
+    negativeCachePolicy = builder.negativeCachePolicy;
+    isConcurrent = builder.isConcurrent;
+    isMultiSizeDerivationEnabled = builder.isMultiSizeDerivationEnabled;
+  }
+
+  @Nullable
+  GlideExecutor getDecodeExecutor() {
+    return decodeExecutor;
+  }
+
+  @Nullable
+  NegativeCachePolicy getNegativeCachePolicy() {
+    return negativeCachePolicy;
+  }
+
+  boolean isConcurrent() {
+    return isConcurrent;
+  }
+
+  boolean isMultiSizeDerivationEnabled() {
+    return isMultiSizeDerivationEnabled;
+  }
+
+  /**
+   * Builds {@link EngineOptions}.
+   */
+  public static final class Builder {
+    @Synthetic GlideExecutor decodeExecutor;
+    @Synthetic NegativeCachePolicy negativeCachePolicy;
+    @Synthetic boolean isConcurrent;
+    @Synthetic boolean isMultiSizeDerivationEnabled;
+
+    /**
+     * Sets the executor to decode data retrieved from source on.
+     *
+     * <p>Defaults to {@code null}, which decodes data on the source executor thread that retrieved
+     * it.
+     */
+    @NonNull
+    public Builder setDecodeExecutor(@Nullable GlideExecutor decodeExecutor) {
+      this.decodeExecutor = decodeExecutor;
+      return this;
+    }
+
+    /**
+     * Sets the policy that chooses which failed loads to remember so that identical loads fail
+     * immediately rather than running again.
+     *
+     * <p>Defaults to {@code null}, which never remembers failed loads.
+     */
+    @NonNull
+    public Builder setNegativeCachePolicy(@Nullable NegativeCachePolicy negativeCachePolicy) {
+      this.negativeCachePolicy = negativeCachePolicy;
+      return this;
+    }
+
+    /**
+     * If set to {@code true}, allows {@link Engine#load} and {@link Engine#release(Resource)} to
+     * be called from any thread. Loads for the same key are still coalesced into a single job, but
+     * loads for unrelated keys no longer contend with each other or need to hop to the main
+     * thread. Results are still delivered on the main thread.
+     *
+     * <p>Defaults to {@code false}.
+     */
+    @NonNull
+    public Builder setIsConcurrent(boolean isConcurrent) {
+      this.isConcurrent = isConcurrent;
+      return this;
+    }
+
+    /**
+     * If set to {@code true}, lets concurrent loads of the same data at different sizes share a
+     * single decode at the largest size, see
+     * {@link com.bumptech.glide.load.resource.bitmap.SharedDecodes}.
+     *
+     * <p>Defaults to {@code false}.
+     */
+    @NonNull
+    public Builder setIsMultiSizeDerivationEnabled(boolean isMultiSizeDerivationEnabled) {
+      this.isMultiSizeDerivationEnabled = isMultiSizeDerivationEnabled;
+      return this;
+    }
+
+    @NonNull
+    public EngineOptions build() {
+      return new EngineOptions(this);
+    }
+  }
+}
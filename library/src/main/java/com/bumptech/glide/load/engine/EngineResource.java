@@ -14,6 +14,7 @@ import com.bumptech.glide.util.Preconditions;
 class EngineResource<Z> implements Resource<Z> {
   private final boolean isCacheable;
   private final boolean isRecyclable;
+  private final boolean isMainThreadConfined;
   private ResourceListener listener;
   private Key key;
   private int acquired;
@@ -25,12 +26,26 @@ class EngineResource<Z> implements Resource<Z> {
   }
 
   EngineResource(Resource<Z> toWrap, boolean isCacheable, boolean isRecyclable) {
+    this(toWrap, isCacheable, isRecyclable, /*isMainThreadConfined=*/ true);
+  }
+
+  /**
+   * @param isMainThreadConfined {@code false} if {@link #acquire()} and {@link #release()} may be
+   *                             called from any thread, as they are when the {@link Engine} runs in
+   *                             concurrent mode.
+   */
+  EngineResource(
+      Resource<Z> toWrap,
+      boolean isCacheable,
+      boolean isRecyclable,
+      boolean isMainThreadConfined) {
     resource = Preconditions.checkNotNull(toWrap);
     this.isCacheable = isCacheable;
     this.isRecyclable = isRecyclable;
+    this.isMainThreadConfined = isMainThreadConfined;
   }
 
-  void setResourceListener(Key key, ResourceListener listener) {
+  synchronized void setResourceListener(Key key, ResourceListener listener) {
     this.key = key;
     this.listener = listener;
   }
@@ -60,8 +75,15 @@ class EngineResource<Z> implements Resource<Z> {
     return resource.getSize();
   }
 
+  /**
+   * Returns {@code true} if at least one consumer has acquired and not yet released this resource.
+   */
+  synchronized boolean isAcquired() {
+    return acquired > 0;
+  }
+
   @Override
-  public void recycle() {
+  public synchronized void recycle() {
     if (acquired > 0) {
       throw new IllegalStateException("Cannot recycle a resource while it is still acquired");
     }
@@ -76,18 +98,18 @@ class EngineResource<Z> implements Resource<Z> {
 
   /**
    * Increments the number of consumers using the wrapped resource. Must be called on the main
-   * thread.
+   * thread unless this resource was created by a concurrent {@link Engine}.
    *
    * <p> This must be called with a number corresponding to the number of new consumers each time
    * new consumers begin using the wrapped resource. It is always safer to call acquire more often
    * than necessary. Generally external users should never call this method, the framework will take
    * care of this for you. </p>
    */
-  void acquire() {
+  synchronized void acquire() {
     if (isRecycled) {
       throw new IllegalStateException("Cannot acquire a recycled resource");
     }
-    if (!Looper.getMainLooper().equals(Looper.myLooper())) {
+    if (isMainThreadConfined && !Looper.getMainLooper().equals(Looper.myLooper())) {
       throw new IllegalThreadStateException("Must call acquire on the main thread");
     }
     ++acquired;
@@ -95,20 +117,29 @@ class EngineResource<Z> implements Resource<Z> {
 
   /**
    * Decrements the number of consumers using the wrapped resource. Must be called on the main
-   * thread.
+   * thread unless this resource was created by a concurrent {@link Engine}.
    *
    * <p>This must only be called when a consumer that called the {@link #acquire()} method is now
    * done with the resource. Generally external users should never call this method, the framework
    * will take care of this for you.
    */
   void release() {
-    if (acquired <= 0) {
-      throw new IllegalStateException("Cannot release a recycled or not yet acquired resource");
-    }
-    if (!Looper.getMainLooper().equals(Looper.myLooper())) {
-      throw new IllegalThreadStateException("Must call release on the main thread");
+    ResourceListener listener = null;
+    Key key = null;
+    // The listener is notified outside of the lock so that it's free to take its own locks.
+    synchronized (this) {
+      if (acquired <= 0) {
+        throw new IllegalStateException("Cannot release a recycled or not yet acquired resource");
+      }
+      if (isMainThreadConfined && !Looper.getMainLooper().equals(Looper.myLooper())) {
+        throw new IllegalThreadStateException("Must call release on the main thread");
+      }
+      if (--acquired == 0) {
+        listener = this.listener;
+        key = this.key;
+      }
     }
-    if (--acquired == 0) {
+    if (listener != null) {
       listener.onResourceReleased(key, this);
     }
   }
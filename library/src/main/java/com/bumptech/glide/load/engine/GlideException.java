@@ -52,6 +52,15 @@ public final class GlideException extends Exception {
     this.dataClass = dataClass;
   }
 
+  /**
+   * Returns the source of the data that was being loaded when this exception occurred, or
+   * {@code null} if unknown.
+   */
+  @Nullable
+  DataSource getDataSource() {
+    return dataSource;
+  }
+
 
 
   // No need to synchronize when doing nothing whatsoever.
@@ -5,10 +5,32 @@ import com.bumptech.glide.load.Key;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 final class Jobs {
-  private final Map<Key, EngineJob<?>> jobs = new HashMap<>();
-  private final Map<Key, EngineJob<?>> onlyCacheJobs = new HashMap<>();
+  private final boolean isConcurrent;
+  private final Map<Key, EngineJob<?>> jobs;
+  private final Map<Key, EngineJob<?>> onlyCacheJobs;
+
+  Jobs() {
+    this(/*isConcurrent=*/ false);
+  }
+
+  /**
+   * @param isConcurrent {@code true} if jobs may be added and removed from any thread, in which
+   *                     case both job maps are backed by {@link ConcurrentHashMap}s.
+   */
+  Jobs(boolean isConcurrent) {
+    this.isConcurrent = isConcurrent;
+    if (isConcurrent) {
+      jobs = new ConcurrentHashMap<>();
+      onlyCacheJobs = new ConcurrentHashMap<>();
+    } else {
+      jobs = new HashMap<>();
+      onlyCacheJobs = new HashMap<>();
+    }
+  }
 
   @VisibleForTesting
   Map<Key, EngineJob<?>> getAll() {
@@ -25,7 +47,9 @@ final class Jobs {
 
   void removeIfCurrent(Key key, EngineJob<?> expected) {
     Map<Key, EngineJob<?>> jobMap = getJobMap(expected.onlyRetrieveFromCache());
-    if (expected.equals(jobMap.get(key))) {
+    if (isConcurrent) {
+      ((ConcurrentMap<Key, EngineJob<?>>) jobMap).remove(key, expected);
+    } else if (expected.equals(jobMap.get(key))) {
       jobMap.remove(key);
     }
   }
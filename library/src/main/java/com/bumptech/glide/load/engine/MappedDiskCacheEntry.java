@@ -0,0 +1,90 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.util.Synthetic;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A disk cache hit that's been memory mapped into a {@link ByteBuffer}.
+ *
+ * <p>Mapped hits are wrapped and loaded by {@link DecodeHelper} itself rather than registered with
+ * the {@link com.bumptech.glide.Registry} so that {@link ByteBuffer} doesn't become a model that
+ * can be passed to {@code load()}.
+ */
+final class MappedDiskCacheEntry {
+  private static final List<ModelLoader<Object, ?>> MODEL_LOADERS =
+      Collections.<ModelLoader<Object, ?>>singletonList(new MappedDiskCacheEntryLoader());
+
+  @Synthetic final ByteBuffer byteBuffer;
+
+  MappedDiskCacheEntry(ByteBuffer byteBuffer) {
+    this.byteBuffer = byteBuffer;
+  }
+
+  static List<ModelLoader<Object, ?>> getModelLoaders() {
+    return MODEL_LOADERS;
+  }
+
+  private static final class MappedDiskCacheEntryLoader implements ModelLoader<Object, ByteBuffer> {
+
+    @Synthetic
+    MappedDiskCacheEntryLoader() { }
+
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull Object model, int width, int height,
+        @NonNull Options options) {
+      return new LoadData<>(
+          new ObjectKey(model), new MappedFetcher(((MappedDiskCacheEntry) model).byteBuffer));
+    }
+
+    @Override
+    public boolean handles(@NonNull Object model) {
+      return model instanceof MappedDiskCacheEntry;
+    }
+  }
+
+  private static final class MappedFetcher implements DataFetcher<ByteBuffer> {
+    private final ByteBuffer byteBuffer;
+
+    @Synthetic
+    MappedFetcher(ByteBuffer byteBuffer) {
+      this.byteBuffer = byteBuffer;
+    }
+
+    @Override
+    public void loadData(@NonNull Priority priority,
+        @NonNull DataCallback<? super ByteBuffer> callback) {
+      callback.onDataReady(byteBuffer);
+    }
+
+    @Override
+    public void cleanup() {
+      // Do nothing.
+    }
+
+    @Override
+    public void cancel() {
+      // Do nothing.
+    }
+
+    @NonNull
+    @Override
+    public Class<ByteBuffer> getDataClass() {
+      return ByteBuffer.class;
+    }
+
+    @NonNull
+    @Override
+    public DataSource getDataSource() {
+      return DataSource.LOCAL;
+    }
+  }
+}
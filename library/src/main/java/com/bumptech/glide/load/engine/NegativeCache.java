@@ -0,0 +1,106 @@
+package com.bumptech.glide.load.engine;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Synthetic;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of recently failed loads that expire after a duration chosen by a
+ * {@link NegativeCachePolicy}.
+ *
+ * <p>Thread safe so that it can be used by {@link Engine}s in concurrent mode.
+ */
+final class NegativeCache {
+  private final NegativeCachePolicy policy;
+  // In insertion order, so the eldest entry is the one to evict when the cache is full.
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+  private long hitCount;
+  private long putCount;
+  private long expiredCount;
+  private long evictionCount;
+
+  NegativeCache(@NonNull NegativeCachePolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * Returns the exception a load for the given key recently failed with, or {@code null} if the
+   * load hasn't failed recently.
+   */
+  @Nullable
+  synchronized GlideException get(@NonNull Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAtMillis <= SystemClock.elapsedRealtime()) {
+      entries.remove(key);
+      expiredCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.exception;
+  }
+
+  /**
+   * Remembers the given failure if the policy allows it.
+   */
+  void put(@NonNull Key key, @NonNull GlideException exception) {
+    long ttlMillis = policy.getTtlMillis(exception);
+    if (ttlMillis <= 0) {
+      return;
+    }
+    long now = SystemClock.elapsedRealtime();
+    synchronized (this) {
+      // Re-insert so that the entry moves to the end of the eviction order.
+      entries.remove(key);
+      entries.put(key, new Entry(exception, now + ttlMillis));
+      putCount++;
+      if (entries.size() <= policy.getMaxSize()) {
+        return;
+      }
+      // Entries may have different durations, so expired entries aren't necessarily the eldest.
+      evictExpired(now);
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (entries.size() > policy.getMaxSize() && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+        evictionCount++;
+      }
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  @NonNull
+  synchronized NegativeCacheStats getStats() {
+    return new NegativeCacheStats(hitCount, putCount, expiredCount, evictionCount, entries.size());
+  }
+
+  private void evictExpired(long now) {
+    Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().getValue().expiresAtMillis <= now) {
+        iterator.remove();
+        expiredCount++;
+      }
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final GlideException exception;
+    @Synthetic final long expiresAtMillis;
+
+    Entry(GlideException exception, long expiresAtMillis) {
+      this.exception = exception;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
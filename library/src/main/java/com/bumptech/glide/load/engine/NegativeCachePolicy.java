@@ -0,0 +1,147 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which failed loads {@link Engine} remembers, and for how long, so that loads that are
+ * started again shortly after failing fail immediately rather than running again.
+ *
+ * <p>A failure is remembered only if every root cause of the failure matches a rule. Rules for
+ * HTTP status codes apply to {@link HttpException}s, and take precedence over rules for the
+ * {@link DataSource} the failed data was being retrieved from. If root causes match rules with
+ * different durations, the shortest duration is used. Failures without any root causes, or with a
+ * root cause that doesn't match any rule, like a timeout when no rule is set for
+ * {@link DataSource#REMOTE}, are never remembered.
+ *
+ * <pre>{@code
+ * new NegativeCachePolicy.Builder()
+ *     .setTtlForStatusCode(404, 5, TimeUnit.MINUTES)
+ *     .setTtlForStatusCode(410, 1, TimeUnit.HOURS)
+ *     .setTtlForDataSource(DataSource.LOCAL, 30, TimeUnit.SECONDS)
+ *     .build();
+ * }</pre>
+ *
+ * @see com.bumptech.glide.GlideBuilder#setNegativeCachePolicy(NegativeCachePolicy)
+ */
+public final class NegativeCachePolicy {
+  private final Map<Integer, Long> statusCodeTtlMillis;
+  private final Map<DataSource, Long> dataSourceTtlMillis;
+  private final int maxSize;
+
+  NegativeCachePolicy(Builder builder) {
+    statusCodeTtlMillis = Collections.unmodifiableMap(new HashMap<>(builder.statusCodeTtlMillis));
+    dataSourceTtlMillis =
+        Collections.unmodifiableMap(new EnumMap<>(builder.dataSourceTtlMillis));
+    maxSize = builder.maxSize;
+  }
+
+  /** Returns the maximum number of failed loads to remember at once. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns how long to remember the given failure for in milliseconds, or {@code 0} if the failure
+   * shouldn't be remembered.
+   */
+  long getTtlMillis(@NonNull GlideException exception) {
+    long result = getTtlMillis(exception, /*dataSource=*/ null, Long.MAX_VALUE);
+    return result == Long.MAX_VALUE ? 0 : result;
+  }
+
+  private long getTtlMillis(
+      Throwable throwable, @Nullable DataSource dataSource, long shortestTtlMillis) {
+    if (throwable instanceof GlideException) {
+      GlideException glideException = (GlideException) throwable;
+      if (glideException.getDataSource() != null) {
+        dataSource = glideException.getDataSource();
+      }
+      // A failure without causes doesn't say why it failed, so it may well succeed next time.
+      if (glideException.getCauses().isEmpty()) {
+        return 0;
+      }
+      for (Throwable cause : glideException.getCauses()) {
+        shortestTtlMillis = getTtlMillis(cause, dataSource, shortestTtlMillis);
+        if (shortestTtlMillis == 0) {
+          return 0;
+        }
+      }
+      return shortestTtlMillis;
+    }
+
+    Long ttlMillis = null;
+    if (throwable instanceof HttpException) {
+      ttlMillis = statusCodeTtlMillis.get(((HttpException) throwable).getStatusCode());
+    }
+    if (ttlMillis == null && dataSource != null) {
+      ttlMillis = dataSourceTtlMillis.get(dataSource);
+    }
+    return ttlMillis == null ? 0 : Math.min(shortestTtlMillis, ttlMillis);
+  }
+
+  /**
+   * Builds {@link NegativeCachePolicy}s.
+   */
+  public static final class Builder {
+    private static final int DEFAULT_MAX_SIZE = 500;
+
+    @Synthetic final Map<Integer, Long> statusCodeTtlMillis = new HashMap<>();
+    @Synthetic final Map<DataSource, Long> dataSourceTtlMillis = new EnumMap<>(DataSource.class);
+    @Synthetic int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Remembers loads that fail with the given HTTP status code for the given duration.
+     *
+     * @param statusCode An HTTP status code, like {@code 404}.
+     */
+    @NonNull
+    public Builder setTtlForStatusCode(int statusCode, long ttl, @NonNull TimeUnit unit) {
+      statusCodeTtlMillis.put(statusCode, toMillis(ttl, unit));
+      return this;
+    }
+
+    /**
+     * Remembers loads that fail while retrieving data from the given {@link DataSource} for the
+     * given duration, unless a rule for an HTTP status code applies.
+     */
+    @NonNull
+    public Builder setTtlForDataSource(
+        @NonNull DataSource dataSource, long ttl, @NonNull TimeUnit unit) {
+      dataSourceTtlMillis.put(Preconditions.checkNotNull(dataSource), toMillis(ttl, unit));
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of failed loads to remember at once, after which the failures that
+     * were remembered first are forgotten.
+     *
+     * <p>Defaults to 500.
+     */
+    @NonNull
+    public Builder setMaxSize(int maxSize) {
+      Preconditions.checkArgument(maxSize > 0, "Max size must be positive");
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    @NonNull
+    public NegativeCachePolicy build() {
+      return new NegativeCachePolicy(this);
+    }
+
+    private static long toMillis(long ttl, TimeUnit unit) {
+      Preconditions.checkArgument(ttl >= 0, "TTL must not be negative");
+      return unit.toMillis(ttl);
+    }
+  }
+}
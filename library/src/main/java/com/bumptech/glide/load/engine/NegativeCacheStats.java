@@ -0,0 +1,63 @@
+package com.bumptech.glide.load.engine;
+
+/**
+ * A snapshot of how often loads have been failed from {@link Engine}'s cache of recent failures.
+ *
+ * @see com.bumptech.glide.Glide#getNegativeCacheStats()
+ * @see NegativeCachePolicy
+ */
+public final class NegativeCacheStats {
+  private final long hitCount;
+  private final long putCount;
+  private final long expiredCount;
+  private final long evictionCount;
+  private final int size;
+
+  NegativeCacheStats(long hitCount, long putCount, long expiredCount, long evictionCount,
+      int size) {
+    this.hitCount = hitCount;
+    this.putCount = putCount;
+    this.expiredCount = expiredCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+  }
+
+  /** Returns the number of loads that failed immediately because the same load failed recently. */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of failures that have been remembered. */
+  public long getPutCount() {
+    return putCount;
+  }
+
+  /** Returns the number of remembered failures that were forgotten because they expired. */
+  public long getExpiredCount() {
+    return expiredCount;
+  }
+
+  /**
+   * Returns the number of remembered failures that were forgotten before they expired to make
+   * room for newer failures.
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Returns the number of failures that are currently remembered. */
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "NegativeCacheStats{"
+        + "hitCount=" + hitCount
+        + ", putCount=" + putCount
+        + ", expiredCount=" + expiredCount
+        + ", evictionCount=" + evictionCount
+        + ", size=" + size
+        + '}';
+  }
+}
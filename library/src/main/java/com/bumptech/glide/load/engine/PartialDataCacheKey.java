@@ -0,0 +1,52 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import java.security.MessageDigest;
+
+/**
+ * A cache key for the part of some original source data that was received before a resumable
+ * download failed.
+ */
+final class PartialDataCacheKey implements Key {
+  private static final byte[] PARTIAL_ID_BYTES = "PartialData".getBytes(CHARSET);
+
+  private final Key sourceKey;
+  private final Key signature;
+
+  PartialDataCacheKey(Key sourceKey, Key signature) {
+    this.sourceKey = sourceKey;
+    this.signature = signature;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof PartialDataCacheKey) {
+      PartialDataCacheKey other = (PartialDataCacheKey) o;
+      return sourceKey.equals(other.sourceKey) && signature.equals(other.signature);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = sourceKey.hashCode();
+    result = 31 * result + signature.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "PartialDataCacheKey{"
+        + "sourceKey=" + sourceKey
+        + ", signature=" + signature
+        + '}';
+  }
+
+  @Override
+  public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+    sourceKey.updateDiskCacheKey(messageDigest);
+    signature.updateDiskCacheKey(messageDigest);
+    messageDigest.update(PARTIAL_ID_BYTES);
+  }
+}
@@ -0,0 +1,191 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * The bytes of some source data that were received before a resumable download failed, along with
+ * the validator needed to request the rest of them.
+ *
+ * <p>Partial downloads are stored as the received bytes followed by a trailer containing the
+ * validator, the length of the validator and a marker so that the received bytes can be moved
+ * into place without being copied.
+ */
+final class PartialDownload {
+  private static final String TAG = "PartialDownload";
+  // "GPDL".
+  private static final int MAGIC = 0x4750444C;
+  // The validator length followed by the marker.
+  private static final int TRAILER_SIZE = 8;
+  private static final int MAX_VALIDATOR_LENGTH = 1024;
+
+  private final File file;
+  private final long length;
+  private final String validator;
+
+  private PartialDownload(File file, long length, String validator) {
+    this.file = file;
+    this.length = length;
+    this.validator = validator;
+  }
+
+  /**
+   * Returns the number of bytes of source data that were received.
+   */
+  long getLength() {
+    return length;
+  }
+
+  @NonNull
+  String getValidator() {
+    return validator;
+  }
+
+  /**
+   * Opens a stream containing only the received bytes of source data.
+   */
+  @NonNull
+  InputStream open() throws IOException {
+    return new LengthLimitedInputStream(new FileInputStream(file), length);
+  }
+
+  /**
+   * Reads a partial download from the given file, or returns {@code null} if the file is
+   * {@code null} or doesn't contain a partial download.
+   */
+  @Nullable
+  static PartialDownload read(@Nullable File file) {
+    if (file == null) {
+      return null;
+    }
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "r");
+      long fileLength = randomAccessFile.length();
+      if (fileLength <= TRAILER_SIZE) {
+        return null;
+      }
+      randomAccessFile.seek(fileLength - TRAILER_SIZE);
+      int validatorLength = randomAccessFile.readInt();
+      if (randomAccessFile.readInt() != MAGIC
+          || validatorLength <= 0
+          || validatorLength > MAX_VALIDATOR_LENGTH
+          || validatorLength >= fileLength - TRAILER_SIZE) {
+        return null;
+      }
+      long length = fileLength - TRAILER_SIZE - validatorLength;
+      byte[] validatorBytes = new byte[validatorLength];
+      randomAccessFile.seek(length);
+      randomAccessFile.readFully(validatorBytes);
+      return new PartialDownload(file, length, new String(validatorBytes, Key.CHARSET));
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to read partial download", e);
+      }
+      return null;
+    } finally {
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves the received bytes in the given file to the given destination and appends the given
+   * validator, returning {@code true} if the partial download was written successfully.
+   */
+  static boolean write(@NonNull File received, @NonNull String validator,
+      @NonNull File destination) {
+    byte[] validatorBytes = validator.getBytes(Key.CHARSET);
+    if (validatorBytes.length == 0 || validatorBytes.length > MAX_VALIDATOR_LENGTH
+        || !received.renameTo(destination)) {
+      return false;
+    }
+    DataOutputStream os = null;
+    try {
+      os = new DataOutputStream(new FileOutputStream(destination, /*append=*/ true));
+      os.write(validatorBytes);
+      os.writeInt(validatorBytes.length);
+      os.writeInt(MAGIC);
+      os.close();
+      return true;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to write partial download", e);
+      }
+      return false;
+    } finally {
+      if (os != null) {
+        try {
+          os.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  private static final class LengthLimitedInputStream extends FilterInputStream {
+    private long remaining;
+
+    LengthLimitedInputStream(InputStream in, long length) {
+      super(in);
+      remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int result = super.read();
+      if (result != -1) {
+        remaining--;
+      }
+      return result;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int count) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int read = super.read(buffer, offset, (int) Math.min(count, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long byteCount) throws IOException {
+      long skipped = super.skip(Math.min(byteCount, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A snapshot of how long loads have spent in each {@link Stage} of Glide's load pipeline.
+ *
+ * @see com.bumptech.glide.Glide#getPipelineStats()
+ */
+public final class PipelineStats {
+  private final long[] counts;
+  private final long[] totalNanos;
+  private final long[] maxNanos;
+  private final long blockedCount;
+  private final long totalBlockedNanos;
+
+  PipelineStats(
+      long[] counts,
+      long[] totalNanos,
+      long[] maxNanos,
+      long blockedCount,
+      long totalBlockedNanos) {
+    this.counts = counts;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.blockedCount = blockedCount;
+    this.totalBlockedNanos = totalBlockedNanos;
+  }
+
+  /** Returns the number of times the given stage has completed. */
+  public long getCount(@NonNull Stage stage) {
+    return counts[stage.ordinal()];
+  }
+
+  /** Returns the total time spent in the given stage in nanoseconds. */
+  public long getTotalNanos(@NonNull Stage stage) {
+    return totalNanos[stage.ordinal()];
+  }
+
+  /** Returns the longest time spent in the given stage by a single load in nanoseconds. */
+  public long getMaxNanos(@NonNull Stage stage) {
+    return maxNanos[stage.ordinal()];
+  }
+
+  /**
+   * Returns the average time spent in the given stage in nanoseconds, or {@code 0} if the stage
+   * has never completed.
+   */
+  public long getAverageNanos(@NonNull Stage stage) {
+    long count = getCount(stage);
+    return count == 0 ? 0 : getTotalNanos(stage) / count;
+  }
+
+  /**
+   * Returns the number of times a thread that fetched data had to wait for a decode to finish
+   * before it could hand its data off to the decode executor.
+   */
+  public long getBlockedCount() {
+    return blockedCount;
+  }
+
+  /**
+   * Returns the total time threads that fetched data have waited to hand their data off to the
+   * decode executor in nanoseconds.
+   */
+  public long getTotalBlockedNanos() {
+    return totalBlockedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("PipelineStats{");
+    for (Stage stage : Stage.values()) {
+      result.append(stage)
+          .append("=[count: ").append(getCount(stage))
+          .append(", avg: ").append(getAverageNanos(stage))
+          .append("ns, max: ").append(getMaxNanos(stage))
+          .append("ns], ");
+    }
+    return result.append("blocked=[count: ").append(blockedCount)
+        .append(", total: ").append(totalBlockedNanos)
+        .append("ns]}")
+        .toString();
+  }
+
+  /** The stages of a load. */
+  public enum Stage {
+    /** Retrieving data from source, including writing it to the disk cache. */
+    FETCH,
+    /** Decoding, transforming and transcoding retrieved or cached data. */
+    DECODE,
+    /** Writing decoded and transformed resources to the disk cache. */
+    ENCODE,
+  }
+}
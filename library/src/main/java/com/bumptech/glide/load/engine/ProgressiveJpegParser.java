@@ -0,0 +1,196 @@
+package com.bumptech.glide.load.engine;
+
+/**
+ * Incrementally parses the marker structure of a JPEG one byte at a time to find where each scan
+ * of a progressive JPEG ends.
+ *
+ * <p>Parsing stops as soon as the data is found not to be a progressive JPEG, or at the end of the
+ * image.
+ */
+final class ProgressiveJpegParser {
+  /** More data is needed. */
+  static final int RESULT_CONTINUE = 0;
+  /**
+   * The byte completed a scan, which ended at {@link #getScanEndOffset()}.
+   */
+  static final int RESULT_SCAN_END = 1;
+  /**
+   * The end of the image was reached or the data isn't a progressive JPEG, no further bytes need
+   * to be parsed.
+   */
+  static final int RESULT_DONE = 2;
+
+  private static final int MARKER_PREFIX = 0xFF;
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int TEM = 0x01;
+  private static final int RST_FIRST = 0xD0;
+  private static final int RST_LAST = 0xD7;
+  private static final int SOF_FIRST = 0xC0;
+  private static final int SOF_LAST = 0xCF;
+  private static final int DHT = 0xC4;
+  private static final int JPG = 0xC8;
+  private static final int DAC = 0xCC;
+  // Bit set in the progressive SOF markers, C2, C6, CA and CE.
+  private static final int PROGRESSIVE_SOF_MASK = 0x02;
+  private static final int STUFFED_BYTE = 0x00;
+
+  private static final int STATE_SOI_PREFIX = 0;
+  private static final int STATE_SOI = 1;
+  private static final int STATE_MARKER_PREFIX = 2;
+  private static final int STATE_MARKER = 3;
+  private static final int STATE_LENGTH_HIGH = 4;
+  private static final int STATE_LENGTH_LOW = 5;
+  private static final int STATE_SEGMENT = 6;
+  private static final int STATE_ENTROPY = 7;
+  private static final int STATE_ENTROPY_MARKER = 8;
+  private static final int STATE_DONE = 9;
+
+  private int state = STATE_SOI_PREFIX;
+  private int position;
+  private int marker;
+  private int remaining;
+  private int segmentOffset;
+  private boolean isProgressive;
+  private int width;
+  private int height;
+  private int scanEndOffset;
+  private int scanCount;
+
+  /**
+   * Parses the next byte of the image.
+   *
+   * @param b The next byte, as an unsigned value between 0 and 255.
+   * @return One of {@link #RESULT_CONTINUE}, {@link #RESULT_SCAN_END} or {@link #RESULT_DONE}.
+   */
+  int consume(int b) {
+    int offset = position++;
+    switch (state) {
+      case STATE_SOI_PREFIX:
+        return setState(b == MARKER_PREFIX ? STATE_SOI : STATE_DONE);
+      case STATE_SOI:
+        return setState(b == SOI ? STATE_MARKER_PREFIX : STATE_DONE);
+      case STATE_MARKER_PREFIX:
+        return setState(b == MARKER_PREFIX ? STATE_MARKER : STATE_DONE);
+      case STATE_MARKER:
+        return b == MARKER_PREFIX ? RESULT_CONTINUE : startSegment(b);
+      case STATE_LENGTH_HIGH:
+        remaining = b << 8;
+        return setState(STATE_LENGTH_LOW);
+      case STATE_LENGTH_LOW:
+        // The length includes the two bytes of the length itself.
+        remaining = (remaining | b) - 2;
+        segmentOffset = 0;
+        if (remaining < 0) {
+          return setState(STATE_DONE);
+        }
+        return remaining == 0 ? endSegment() : setState(STATE_SEGMENT);
+      case STATE_SEGMENT:
+        if (isStartOfFrame(marker)) {
+          parseFrameHeader(b);
+        }
+        segmentOffset++;
+        remaining--;
+        return remaining == 0 ? endSegment() : RESULT_CONTINUE;
+      case STATE_ENTROPY:
+        if (b == MARKER_PREFIX) {
+          scanEndOffset = offset;
+          state = STATE_ENTROPY_MARKER;
+        }
+        return RESULT_CONTINUE;
+      case STATE_ENTROPY_MARKER:
+        if (b == STUFFED_BYTE || (b >= RST_FIRST && b <= RST_LAST)) {
+          return setState(STATE_ENTROPY);
+        } else if (b == MARKER_PREFIX) {
+          return RESULT_CONTINUE;
+        }
+        scanCount++;
+        int result = startSegment(b);
+        return result == RESULT_DONE ? RESULT_DONE : RESULT_SCAN_END;
+      case STATE_DONE:
+        return RESULT_DONE;
+      default:
+        throw new IllegalStateException("Unrecognized state: " + state);
+    }
+  }
+
+  /**
+   * Returns the offset of the first byte after the most recently completed scan.
+   */
+  int getScanEndOffset() {
+    return scanEndOffset;
+  }
+
+  /**
+   * Returns the number of scans that have been completed.
+   */
+  int getScanCount() {
+    return scanCount;
+  }
+
+  /**
+   * Returns the width of the image, or {@code 0} if the frame header hasn't been parsed yet.
+   */
+  int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image, or {@code 0} if the frame header hasn't been parsed yet.
+   */
+  int getHeight() {
+    return height;
+  }
+
+  private int startSegment(int b) {
+    marker = b;
+    if (b == EOI) {
+      return setState(STATE_DONE);
+    } else if (b == TEM || (b >= RST_FIRST && b <= RST_LAST)) {
+      // Standalone markers have no length or payload.
+      return setState(STATE_MARKER_PREFIX);
+    }
+    if (isStartOfFrame(b)) {
+      isProgressive = (b & PROGRESSIVE_SOF_MASK) != 0;
+    }
+    return setState(STATE_LENGTH_HIGH);
+  }
+
+  private int endSegment() {
+    if (isStartOfFrame(marker) && !isProgressive) {
+      return setState(STATE_DONE);
+    }
+    return setState(marker == SOS ? STATE_ENTROPY : STATE_MARKER_PREFIX);
+  }
+
+  private void parseFrameHeader(int b) {
+    // The frame header starts with the sample precision, followed by the height and width.
+    switch (segmentOffset) {
+      case 1:
+        height = b << 8;
+        break;
+      case 2:
+        height |= b;
+        break;
+      case 3:
+        width = b << 8;
+        break;
+      case 4:
+        width |= b;
+        break;
+      default:
+        // Ignore the remainder of the header.
+    }
+  }
+
+  private int setState(int state) {
+    this.state = state;
+    return state == STATE_DONE ? RESULT_DONE : RESULT_CONTINUE;
+  }
+
+  private static boolean isStartOfFrame(int marker) {
+    return marker >= SOF_FIRST && marker <= SOF_LAST
+        && marker != DHT && marker != JPG && marker != DAC;
+  }
+}
@@ -0,0 +1,232 @@
+package com.bumptech.glide.load.engine;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes lower quality previews of a progressive JPEG as the scans of the image are read from the
+ * wrapped stream.
+ *
+ * <p>The bytes that are read are copied into a buffer obtained from the {@link ArrayPool}. Each
+ * time a scan is completed, the buffer is decoded as if the image ended after that scan. To avoid
+ * decoding every scan of large images, which is expensive, a preview is only decoded once at least
+ * twice as much data is available as was used for the previous preview.
+ *
+ * <p>The buffer is released once the end of the image is read, as soon as the data is found not
+ * to be a progressive JPEG, or when {@link #release()} is called.
+ */
+final class ProgressivePreviewStream extends FilterInputStream {
+  private static final String TAG = "ProgressivePreview";
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  // Previews stop once the image is larger than this rather than holding on to ever larger arrays.
+  private static final int MAX_BUFFER_SIZE = 8 * 1024 * 1024;
+  private static final int MAX_SAMPLE_SIZE = 8;
+  private static final byte[] EOI = new byte[] { (byte) 0xFF, (byte) 0xD9 };
+
+  private final ProgressiveJpegParser parser = new ProgressiveJpegParser();
+  private final ArrayPool arrayPool;
+  private final BitmapPool bitmapPool;
+  private final DecodeJob.Callback<?> callback;
+  private final int targetWidth;
+  private final int targetHeight;
+  private final byte[] singleByte = new byte[1];
+
+  private byte[] buffer;
+  private int size;
+  private int lastPreviewOffset;
+  private boolean isReleased;
+
+  ProgressivePreviewStream(InputStream in, ArrayPool arrayPool, BitmapPool bitmapPool,
+      DecodeJob.Callback<?> callback, int targetWidth, int targetHeight) {
+    super(in);
+    this.arrayPool = arrayPool;
+    this.bitmapPool = bitmapPool;
+    this.callback = callback;
+    this.targetWidth = targetWidth;
+    this.targetHeight = targetHeight;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int result = super.read();
+    if (result == -1) {
+      release();
+    } else if (!isReleased) {
+      singleByte[0] = (byte) result;
+      append(singleByte, 0, 1);
+    }
+    return result;
+  }
+
+  @Override
+  public int read(@NonNull byte[] b, int off, int len) throws IOException {
+    int read = super.read(b, off, len);
+    if (read == -1) {
+      release();
+    } else if (read > 0) {
+      append(b, off, read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    // Skipped bytes aren't seen, so they can't be decoded.
+    release();
+    return super.skip(n);
+  }
+
+  @Override
+  public boolean markSupported() {
+    // Bytes read after a reset would be buffered twice.
+    return false;
+  }
+
+  @Override
+  public void mark(int readLimit) {
+    // Not supported.
+  }
+
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("Mark is not supported");
+  }
+
+  @Override
+  public void close() throws IOException {
+    release();
+    super.close();
+  }
+
+  /**
+   * Stops decoding previews and returns the buffer to the {@link ArrayPool}.
+   */
+  void release() {
+    isReleased = true;
+    if (buffer != null) {
+      arrayPool.put(buffer);
+      buffer = null;
+    }
+  }
+
+  private void append(byte[] bytes, int offset, int length) {
+    if (isReleased) {
+      return;
+    }
+    // Leaves room for an end of image marker to be written after every byte in the buffer.
+    int required = size + length + EOI.length;
+    if (required > MAX_BUFFER_SIZE) {
+      release();
+      return;
+    }
+    ensureCapacity(required);
+    System.arraycopy(bytes, offset, buffer, size, length);
+    for (int i = 0; i < length; i++) {
+      int result = parser.consume(buffer[size + i] & 0xFF);
+      if (result == ProgressiveJpegParser.RESULT_DONE) {
+        release();
+        return;
+      } else if (result == ProgressiveJpegParser.RESULT_SCAN_END) {
+        maybeDecodePreview(parser.getScanEndOffset());
+      }
+    }
+    size += length;
+  }
+
+  private void ensureCapacity(int required) {
+    if (buffer == null) {
+      buffer = arrayPool.get(Math.max(INITIAL_BUFFER_SIZE, required), byte[].class);
+    } else if (buffer.length < required) {
+      int newLength = Math.min(MAX_BUFFER_SIZE, Math.max(buffer.length * 2, required));
+      byte[] grown = arrayPool.get(newLength, byte[].class);
+      System.arraycopy(buffer, 0, grown, 0, size);
+      arrayPool.put(buffer);
+      buffer = grown;
+    }
+  }
+
+  private void maybeDecodePreview(int scanEndOffset) {
+    if (scanEndOffset < 2 * lastPreviewOffset
+        || parser.getWidth() <= 0 || parser.getHeight() <= 0) {
+      return;
+    }
+    lastPreviewOffset = scanEndOffset;
+
+    // Temporarily ends the image after the scan, the overwritten bytes are restored afterwards.
+    byte first = buffer[scanEndOffset];
+    byte second = buffer[scanEndOffset + 1];
+    buffer[scanEndOffset] = EOI[0];
+    buffer[scanEndOffset + 1] = EOI[1];
+    Bitmap preview;
+    try {
+      preview = decodePreview(scanEndOffset + EOI.length);
+    } finally {
+      buffer[scanEndOffset] = first;
+      buffer[scanEndOffset + 1] = second;
+    }
+
+    if (preview != null) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Decoded preview after scan " + parser.getScanCount()
+            + ", bytes: " + scanEndOffset
+            + ", size: [" + preview.getWidth() + "x" + preview.getHeight() + "]");
+      }
+      callback.onIntermediateResourceReady(BitmapResource.obtain(preview, bitmapPool));
+    }
+  }
+
+  @Nullable
+  private Bitmap decodePreview(int length) {
+    int sampleSize = getSampleSize(parser.getWidth(), parser.getHeight());
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inSampleSize = sampleSize;
+    options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    // Mutable so that the preview can be returned to the pool once it's replaced.
+    options.inMutable = true;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      options.inBitmap = bitmapPool.getDirty(
+          divideRoundingUp(parser.getWidth(), sampleSize),
+          divideRoundingUp(parser.getHeight(), sampleSize),
+          Bitmap.Config.ARGB_8888);
+    }
+    Bitmap result = null;
+    try {
+      result = BitmapFactory.decodeByteArray(buffer, 0, length, options);
+    } catch (IllegalArgumentException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode preview", e);
+      }
+    }
+    if (options.inBitmap != null && options.inBitmap != result) {
+      bitmapPool.put(options.inBitmap);
+    }
+    return result;
+  }
+
+  private int getSampleSize(int width, int height) {
+    int sampleSize = 1;
+    if (targetWidth <= 0 || targetHeight <= 0) {
+      return sampleSize;
+    }
+    while (sampleSize < MAX_SAMPLE_SIZE
+        && width / (sampleSize * 2) >= targetWidth
+        && height / (sampleSize * 2) >= targetHeight) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  private static int divideRoundingUp(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+}
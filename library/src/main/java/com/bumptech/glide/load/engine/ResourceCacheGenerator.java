@@ -23,13 +23,13 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
   private int sourceIdIndex;
   private int resourceClassIndex = -1;
   private Key sourceKey;
-  private List<ModelLoader<File, ?>> modelLoaders;
+  private List<ModelLoader<Object, ?>> modelLoaders;
   private int modelLoaderIndex;
   private volatile LoadData<?> loadData;
-  // PMD is wrong here, this File must be an instance variable because it may be used across
+  // PMD is wrong here, this model must be an instance variable because it may be used across
   // multiple calls to startNext.
   @SuppressWarnings("PMD.SingularField")
-  private File cacheFile;
+  private Object cacheModel;
   private ResourceCacheKey currentKey;
 
   ResourceCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
@@ -83,10 +83,10 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
               transformation,
               resourceClass,
               helper.getOptions());
-      cacheFile = helper.getDiskCache().get(currentKey);
-      if (cacheFile != null) {
+      cacheModel = helper.getDiskCacheModel(currentKey);
+      if (cacheModel != null) {
         sourceKey = sourceId;
-        modelLoaders = helper.getModelLoaders(cacheFile);
+        modelLoaders = helper.getModelLoaders(cacheModel);
         modelLoaderIndex = 0;
       }
     }
@@ -94,8 +94,8 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
     loadData = null;
     boolean started = false;
     while (!started && hasNextModelLoader()) {
-      ModelLoader<File, ?> modelLoader = modelLoaders.get(modelLoaderIndex++);
-      loadData = modelLoader.buildLoadData(cacheFile,
+      ModelLoader<Object, ?> modelLoader = modelLoaders.get(modelLoaderIndex++);
+      loadData = modelLoader.buildLoadData(cacheModel,
           helper.getWidth(), helper.getHeight(), helper.getOptions());
       if (loadData != null && helper.hasLoadPath(loadData.fetcher.getDataClass())) {
         started = true;
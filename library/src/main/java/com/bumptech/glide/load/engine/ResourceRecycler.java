@@ -16,8 +16,16 @@ class ResourceRecycler {
 
   void recycle(Resource<?> resource) {
     Util.assertMainThread();
+    recycle(resource, /*forceNextFrame=*/ false);
+  }
 
-    if (isRecycling) {
+  /**
+   * Recycles the given resource, or posts it to be recycled on the main thread if we're already
+   * recycling or if {@code forceNextFrame} is {@code true}, which allows callers on background
+   * threads to recycle resources safely.
+   */
+  synchronized void recycle(Resource<?> resource, boolean forceNextFrame) {
+    if (isRecycling || forceNextFrame) {
       // If a resource has sub-resources, releasing a sub resource can cause it's parent to be
       // synchronously
       // evicted which leads to a recycle loop when the parent releases it's children. Posting
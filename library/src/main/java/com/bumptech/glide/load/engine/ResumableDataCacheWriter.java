@@ -0,0 +1,55 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+
+/**
+ * Writes source data to the disk cache using another {@link DiskCache.Writer} and, if the data
+ * can't be written in full, keeps whatever was written as a {@link PartialDownload} so that the
+ * download can later be resumed.
+ */
+final class ResumableDataCacheWriter implements DiskCache.Writer {
+  private final DiskCache diskCache;
+  private final Key partialKey;
+  private final String validator;
+  private final DiskCache.Writer writer;
+  @Synthetic boolean isPartialSaved;
+
+  ResumableDataCacheWriter(
+      DiskCache diskCache, Key partialKey, String validator, DiskCache.Writer writer) {
+    this.diskCache = diskCache;
+    this.partialKey = partialKey;
+    this.validator = validator;
+    this.writer = writer;
+  }
+
+  @Override
+  public boolean write(@NonNull final File file) {
+    if (writer.write(file)) {
+      return true;
+    }
+    if (file.length() > 0) {
+      // Puts don't replace existing entries, so any earlier partial download must be removed.
+      diskCache.delete(partialKey);
+      diskCache.put(partialKey, new DiskCache.Writer() {
+        @Override
+        public boolean write(@NonNull File partialFile) {
+          isPartialSaved = PartialDownload.write(file, validator, partialFile);
+          return isPartialSaved;
+        }
+      });
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if the data couldn't be written in full and the bytes that were written
+   * were kept instead.
+   */
+  boolean isPartialSaved() {
+    return isPartialSaved;
+  }
+}
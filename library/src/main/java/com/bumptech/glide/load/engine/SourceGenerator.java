@@ -1,14 +1,22 @@
 package com.bumptech.glide.load.engine;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.HttpException;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.ResumableDataFetcher;
+import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
+import com.bumptech.glide.load.resource.bitmap.ImageHeaderCache;
 import com.bumptech.glide.util.LogTime;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.Collections;
 
 /**
@@ -18,6 +26,13 @@ import java.util.Collections;
  *
  * <p> Depending on the disk cache strategy, source data may first be written to disk and then
  * loaded from the cache file rather than returned directly. </p>
+ *
+ * <p> If source data is written to disk by a {@link ResumableDataFetcher} and the download fails,
+ * the bytes that were received are kept so that the next load for the same data only requests the
+ * remaining bytes. </p>
+ *
+ * <p> If the callback requests intermediate resources, previews of progressive JPEGs downloaded
+ * from a remote source are decoded as the source data is read. </p>
  */
 class SourceGenerator implements DataFetcherGenerator,
     DataFetcher.DataCallback<Object>,
@@ -26,16 +41,21 @@ class SourceGenerator implements DataFetcherGenerator,
 
   private final DecodeHelper<?> helper;
   private final FetcherReadyCallback cb;
+  private final DecodeJob.Callback<?> previewCallback;
 
   private int loadDataListIndex;
   private DataCacheGenerator sourceCacheGenerator;
   private Object dataToCache;
   private volatile ModelLoader.LoadData<?> loadData;
   private DataCacheKey originalKey;
+  @Nullable private PartialDownload partialDownload;
+  @Nullable private InputStream partialStream;
 
-  SourceGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
+  SourceGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb,
+      DecodeJob.Callback<?> previewCallback) {
     this.helper = helper;
     this.cb = cb;
+    this.previewCallback = previewCallback;
   }
 
   @Override
@@ -59,6 +79,7 @@ class SourceGenerator implements DataFetcherGenerator,
           && (helper.getDiskCacheStrategy().isDataCacheable(loadData.fetcher.getDataSource())
           || helper.hasLoadPath(loadData.fetcher.getDataClass()))) {
         started = true;
+        maybeResumePartialDownload(loadData);
         loadData.fetcher.loadData(helper.getPriority(), this);
       }
     }
@@ -69,22 +90,96 @@ class SourceGenerator implements DataFetcherGenerator,
     return loadDataListIndex < helper.getLoadData().size();
   }
 
+  private void maybeResumePartialDownload(LoadData<?> loadData) {
+    closePartialDownload();
+    if (!(loadData.fetcher instanceof ResumableDataFetcher)
+        || !helper.getDiskCacheStrategy().isDataCacheable(loadData.fetcher.getDataSource())) {
+      return;
+    }
+    PartialDownload partial = PartialDownload.read(helper.getDiskCache().get(
+        new PartialDataCacheKey(loadData.sourceKey, helper.getSignature())));
+    if (partial == null) {
+      return;
+    }
+    try {
+      // Opened now so that the bytes remain readable even if the entry is evicted.
+      partialStream = partial.open();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to open partial download", e);
+      }
+      return;
+    }
+    partialDownload = partial;
+    ((ResumableDataFetcher) loadData.fetcher)
+        .setResumeFrom(partial.getLength(), partial.getValidator());
+  }
+
+  private void closePartialDownload() {
+    if (partialStream != null) {
+      try {
+        partialStream.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+    partialStream = null;
+    partialDownload = null;
+  }
+
   private void cacheData(Object dataToCache) {
     long startTime = LogTime.getLogTime();
+    ProgressivePreviewStream previewStream = null;
     try {
-      Encoder<Object> encoder = helper.getSourceEncoder(dataToCache);
-      DataCacheWriter<Object> writer =
-          new DataCacheWriter<>(encoder, dataToCache, helper.getOptions());
+      ResumableDataFetcher resumable = loadData.fetcher instanceof ResumableDataFetcher
+          ? (ResumableDataFetcher) loadData.fetcher : null;
+      Object data = dataToCache;
+      boolean isResumed = resumable != null && partialDownload != null
+          && data instanceof InputStream
+          && resumable.getResumedOffset() == partialDownload.getLength();
+      if (isResumed) {
+        data = new SequenceInputStream(partialStream, (InputStream) dataToCache);
+      }
+      previewStream = maybeDecodePreviews(data);
+      if (previewStream != null) {
+        data = previewStream;
+      }
+      Encoder<Object> encoder = helper.getSourceEncoder(data);
+      DiskCache.Writer writer = new DataCacheWriter<>(encoder, data, helper.getOptions());
       originalKey = new DataCacheKey(loadData.sourceKey, helper.getSignature());
+      PartialDataCacheKey partialKey =
+          new PartialDataCacheKey(loadData.sourceKey, helper.getSignature());
+      String validator = resumable != null ? resumable.getValidator() : null;
+      ResumableDataCacheWriter resumableWriter = null;
+      if (validator != null && data instanceof InputStream) {
+        resumableWriter =
+            new ResumableDataCacheWriter(helper.getDiskCache(), partialKey, validator, writer);
+        writer = resumableWriter;
+      }
       helper.getDiskCache().put(originalKey, writer);
+      // A header cached for data that was previously written under the same key and has since
+      // been evicted describes the old data.
+      ImageHeaderCache headerCache = helper.getImageHeaderCache();
+      if (headerCache != null) {
+        headerCache.remove(originalKey);
+      }
+      if (partialDownload != null
+          && (resumableWriter == null || !resumableWriter.isPartialSaved())) {
+        helper.getDiskCache().delete(partialKey);
+      }
       if (Log.isLoggable(TAG, Log.VERBOSE)) {
         Log.v(TAG, "Finished encoding source to cache"
             + ", key: " + originalKey
-            + ", data: " + dataToCache
+            + ", data: " + data
             + ", encoder: " + encoder
+            + ", resumed from: " + (isResumed ? partialDownload.getLength() : 0)
             + ", duration: " + LogTime.getElapsedMillis(startTime));
       }
     } finally {
+      if (previewStream != null) {
+        previewStream.release();
+      }
+      closePartialDownload();
       loadData.fetcher.cleanup();
     }
 
@@ -92,6 +187,21 @@ class SourceGenerator implements DataFetcherGenerator,
         new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
   }
 
+  /**
+   * Returns a stream that decodes previews as the given data is read, or {@code null} if previews
+   * weren't requested or can't be decoded from the given data.
+   */
+  @Nullable
+  private ProgressivePreviewStream maybeDecodePreviews(Object data) {
+    if (!(data instanceof InputStream)
+        || loadData.fetcher.getDataSource() != DataSource.REMOTE
+        || !previewCallback.isIntermediateResourceRequested()) {
+      return null;
+    }
+    return new ProgressivePreviewStream((InputStream) data, helper.getArrayPool(),
+        helper.getBitmapPool(), previewCallback, helper.getWidth(), helper.getHeight());
+  }
+
   @Override
   public void cancel() {
     LoadData<?> local = loadData;
@@ -109,13 +219,21 @@ class SourceGenerator implements DataFetcherGenerator,
       // reschedule to get back onto Glide's thread.
       cb.reschedule();
     } else {
-      cb.onDataFetcherReady(loadData.sourceKey, data, loadData.fetcher,
-          loadData.fetcher.getDataSource(), originalKey);
+      ProgressivePreviewStream previewStream = maybeDecodePreviews(data);
+      cb.onDataFetcherReady(loadData.sourceKey, previewStream != null ? previewStream : data,
+          loadData.fetcher, loadData.fetcher.getDataSource(), originalKey);
     }
   }
 
   @Override
   public void onLoadFailed(@NonNull Exception e) {
+    // The server responded but refused the range or sent the wrong one, so start over next time.
+    if (partialDownload != null && e instanceof HttpException
+        && ((HttpException) e).getStatusCode() != HttpException.UNKNOWN) {
+      helper.getDiskCache().delete(
+          new PartialDataCacheKey(loadData.sourceKey, helper.getSignature()));
+    }
+    closePartialDownload();
     cb.onDataFetcherFailed(originalKey, e, loadData.fetcher, loadData.fetcher.getDataSource());
   }
 
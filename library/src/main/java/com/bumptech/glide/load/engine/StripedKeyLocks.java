@@ -0,0 +1,45 @@
+package com.bumptech.glide.load.engine;
+
+import com.bumptech.glide.load.Key;
+
+/**
+ * A fixed set of monitors used by {@link Engine} to make compound operations on a single
+ * {@link Key} atomic without serializing loads for unrelated keys.
+ *
+ * <p>Keys are mapped to stripes by their hash code, so two keys may share a stripe. Callers must
+ * never invoke user callbacks while holding a stripe, otherwise two threads holding different
+ * stripes could deadlock by re-entering the {@link Engine}.
+ */
+final class StripedKeyLocks {
+  private final Object[] locks;
+  private final int mask;
+
+  /**
+   * @param stripes The number of stripes, rounded up to the next power of two.
+   */
+  StripedKeyLocks(int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("Stripe count must be positive, but was: " + stripes);
+    }
+    int size = 1;
+    while (size < stripes) {
+      size <<= 1;
+    }
+    locks = new Object[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new Object();
+    }
+    mask = size - 1;
+  }
+
+  Object get(Key key) {
+    int hash = key.hashCode();
+    // Spread the higher bits down so that keys with similar low bits land on different stripes.
+    hash ^= (hash >>> 16);
+    return locks[hash & mask];
+  }
+
+  int size() {
+    return locks.length;
+  }
+}
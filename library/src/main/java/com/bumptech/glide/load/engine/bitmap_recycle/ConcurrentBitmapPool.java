@@ -0,0 +1,416 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.annotation.SuppressLint;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BitmapPool} that doesn't take a lock to get or put {@link Bitmap}s, for apps that
+ * decode and transform on many threads at once.
+ *
+ * <p>Bitmaps are only reused for requests with exactly the same width, height and config. Each
+ * thread that gets Bitmaps from the pool keeps the few Bitmaps it most recently put back in a
+ * front cache only it looks in, so that the intermediate Bitmaps of a transformation are reused
+ * on the same thread without touching shared state. Bitmaps that don't fit in the front cache,
+ * and Bitmaps put by threads that never get Bitmaps from the pool, like the main thread when it
+ * releases resources, go to a shared tier of concurrent queues per width, height and config.
+ *
+ * <p>To keep the pool below its maximum size, the Bitmaps that were put in the pool the longest
+ * time ago are evicted first, whether they're in a front cache or in the shared tier. Unlike
+ * {@link LruBitmapPool}, Bitmaps are never reconfigured to serve requests for smaller sizes, and
+ * Bitmaps whose config is {@code null} aren't pooled.
+ *
+ * <p>Use {@link com.bumptech.glide.GlideBuilder#setBitmapPool(BitmapPool)} to use this pool in
+ * place of the default {@link LruBitmapPool}.
+ */
+// Public API.
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ConcurrentBitmapPool implements BitmapPool, BudgetedMemory {
+  private static final String TAG = "ConcurrentBitmapPool";
+  private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+  /** The number of Bitmaps each thread keeps in its front cache. */
+  @VisibleForTesting
+  static final int FRONT_CACHE_SIZE = 4;
+  /**
+   * The number of Bitmaps removed from the pool between sweeps of the queues for entries that
+   * have already been removed.
+   */
+  @VisibleForTesting
+  static final int SWEEP_INTERVAL = 64;
+
+  private final Set<Bitmap.Config> allowedConfigs;
+  private final long initialMaxSize;
+  private final ConcurrentMap<Key, Queue<Entry>> buckets = new ConcurrentHashMap<>();
+  /** Every Bitmap in the pool, in the order they were put, including those in front caches. */
+  private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<FrontCache> frontCaches = new ThreadLocal<FrontCache>() {
+    @Override
+    protected FrontCache initialValue() {
+      return new FrontCache();
+    }
+  };
+  private final AtomicLong currentSize = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicInteger removalsSinceSweep = new AtomicInteger();
+  private volatile long maxSize;
+
+  /**
+   * Constructor for ConcurrentBitmapPool.
+   *
+   * @param maxSize The initial maximum size of the pool in bytes.
+   */
+  public ConcurrentBitmapPool(long maxSize) {
+    this(maxSize, LruBitmapPool.getDefaultAllowedConfigs());
+  }
+
+  /**
+   * Constructor for ConcurrentBitmapPool.
+   *
+   * @param maxSize        The initial maximum size of the pool in bytes.
+   * @param allowedConfigs A white listed set of {@link android.graphics.Bitmap.Config} that are
+   *                       allowed to be put into the pool. Configs not in the allowed set will be
+   *                       rejected.
+   */
+  public ConcurrentBitmapPool(long maxSize, @NonNull Set<Bitmap.Config> allowedConfigs) {
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+    this.allowedConfigs = allowedConfigs;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    trimToSize(maxSize);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    if (bitmap == null) {
+      throw new NullPointerException("Bitmap must not be null");
+    }
+    if (bitmap.isRecycled()) {
+      throw new IllegalStateException("Cannot pool recycled bitmap");
+    }
+    int size = Util.getBitmapByteSize(bitmap);
+    Bitmap.Config config = bitmap.getConfig();
+    if (!bitmap.isMutable() || size > maxSize || config == null
+        || !allowedConfigs.contains(config)) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Reject bitmap from pool"
+            + ", bitmap: " + bitmap.getWidth() + "x" + bitmap.getHeight() + " " + config
+            + ", is mutable: " + bitmap.isMutable()
+            + ", is allowed config: " + allowedConfigs.contains(config));
+      }
+      bitmap.recycle();
+      return;
+    }
+
+    Entry entry = new Entry(bitmap, size);
+    currentSize.addAndGet(size);
+    evictionQueue.offer(entry);
+
+    FrontCache frontCache = frontCaches.get();
+    Entry demoted = frontCache.hasGotten ? frontCache.offer(entry) : entry;
+    if (demoted != null && !demoted.isRemoved()) {
+      getBucket(demoted.bitmap.getWidth(), demoted.bitmap.getHeight(), demoted.bitmap.getConfig(),
+          frontCache.lookupKey).offer(demoted);
+    }
+
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Put bitmap in pool=" + bitmap.getWidth() + "x" + bitmap.getHeight());
+    }
+    trimToSize(maxSize);
+  }
+
+  @Override
+  @NonNull
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result != null) {
+      // See LruBitmapPool#get, consumers expect Bitmaps from get to be transparent.
+      result.eraseColor(Color.TRANSPARENT);
+    } else {
+      result = LruBitmapPool.createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result == null) {
+      result = LruBitmapPool.createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @Nullable
+  private Bitmap getDirtyOrNull(int width, int height, @Nullable Bitmap.Config config) {
+    LruBitmapPool.assertNotHardwareConfig(config);
+    Bitmap.Config nonNullConfig = config != null ? config : DEFAULT_CONFIG;
+    FrontCache frontCache = frontCaches.get();
+    frontCache.hasGotten = true;
+
+    Entry entry = frontCache.take(width, height, nonNullConfig);
+    if (entry == null) {
+      frontCache.lookupKey.init(width, height, nonNullConfig);
+      Queue<Entry> bucket = buckets.get(frontCache.lookupKey);
+      if (bucket != null) {
+        Entry candidate;
+        while ((candidate = bucket.poll()) != null) {
+          if (candidate.tryRemove()) {
+            entry = candidate;
+            break;
+          }
+        }
+      }
+    }
+
+    if (entry == null) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Missing bitmap=" + width + "x" + height + " " + config);
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    currentSize.addAndGet(-entry.size);
+    // The entry is still in the eviction queue.
+    onRemoved();
+    LruBitmapPool.normalize(entry.bitmap);
+    return entry.bitmap;
+  }
+
+  @Override
+  public void clearMemory() {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "clearMemory");
+    }
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "trimMemory, level=" + level);
+    }
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  private void trimToSize(long size) {
+    while (currentSize.get() > size) {
+      Entry entry = evictionQueue.poll();
+      if (entry == null) {
+        return;
+      }
+      if (!entry.tryRemove()) {
+        // Already taken by a get.
+        continue;
+      }
+      currentSize.addAndGet(-entry.size);
+      evictions.incrementAndGet();
+      // The entry may still be in a front cache or bucket.
+      onRemoved();
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Evicting bitmap=" + entry.bitmap.getWidth() + "x" + entry.bitmap.getHeight());
+      }
+      entry.bitmap.recycle();
+    }
+  }
+
+  private Queue<Entry> getBucket(
+      int width, int height, Bitmap.Config config, Key lookupKey) {
+    lookupKey.init(width, height, config);
+    Queue<Entry> bucket = buckets.get(lookupKey);
+    if (bucket == null) {
+      Key key = new Key();
+      key.init(width, height, config);
+      bucket = new ConcurrentLinkedQueue<>();
+      Queue<Entry> existing = buckets.putIfAbsent(key, bucket);
+      if (existing != null) {
+        bucket = existing;
+      }
+    }
+    return bucket;
+  }
+
+  /**
+   * Entries are removed from the queue they were taken from but left in the other queues they're
+   * in, so periodically drops removed entries and empty buckets from all queues.
+   */
+  private void onRemoved() {
+    if (removalsSinceSweep.incrementAndGet() % SWEEP_INTERVAL != 0) {
+      return;
+    }
+    removeRemovedEntries(evictionQueue);
+    for (Iterator<Map.Entry<Key, Queue<Entry>>> iterator = buckets.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Queue<Entry> bucket = iterator.next().getValue();
+      removeRemovedEntries(bucket);
+      // A concurrent put may add to the bucket after it's removed, in which case the Bitmap can
+      // still be evicted but won't be returned by a get.
+      if (bucket.isEmpty()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static void removeRemovedEntries(Queue<Entry> queue) {
+    for (Iterator<Entry> iterator = queue.iterator(); iterator.hasNext(); ) {
+      if (iterator.next().isRemoved()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * A Bitmap in the pool, which is removed by whichever of a get or an eviction claims it first.
+   */
+  private static final class Entry {
+    @Synthetic final Bitmap bitmap;
+    @Synthetic final int size;
+    private final AtomicBoolean isRemoved = new AtomicBoolean();
+
+    @Synthetic
+    Entry(Bitmap bitmap, int size) {
+      this.bitmap = bitmap;
+      this.size = size;
+    }
+
+    boolean tryRemove() {
+      return isRemoved.compareAndSet(false, true);
+    }
+
+    boolean isRemoved() {
+      return isRemoved.get();
+    }
+  }
+
+  /** The Bitmaps most recently put back by one thread, only accessed by that thread. */
+  private static final class FrontCache {
+    private final Entry[] entries = new Entry[FRONT_CACHE_SIZE];
+    @Synthetic final Key lookupKey = new Key();
+    /** Threads that never get Bitmaps from the pool put their Bitmaps in the shared tier. */
+    @Synthetic boolean hasGotten;
+    private int next;
+
+    @Synthetic
+    FrontCache() { }
+
+    /**
+     * Adds the given entry in place of the least recently put entry and returns the replaced entry,
+     * if any.
+     */
+    @Nullable
+    Entry offer(Entry entry) {
+      Entry replaced = entries[next];
+      entries[next] = entry;
+      next = (next + 1) % FRONT_CACHE_SIZE;
+      return replaced;
+    }
+
+    @Nullable
+    Entry take(int width, int height, Bitmap.Config config) {
+      // Most recently put first.
+      for (int i = 1; i <= FRONT_CACHE_SIZE; i++) {
+        int index = (next - i + FRONT_CACHE_SIZE) % FRONT_CACHE_SIZE;
+        Entry entry = entries[index];
+        if (entry == null) {
+          continue;
+        }
+        Bitmap bitmap = entry.bitmap;
+        if (entry.isRemoved()) {
+          entries[index] = null;
+        } else if (bitmap.getWidth() == width && bitmap.getHeight() == height
+            && bitmap.getConfig() == config && entry.tryRemove()) {
+          entries[index] = null;
+          return entry;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class Key {
+    private int width;
+    private int height;
+    private Bitmap.Config config;
+
+    @Synthetic
+    Key() { }
+
+    void init(int width, int height, Bitmap.Config config) {
+      this.width = width;
+      this.height = height;
+      this.config = config;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Key) {
+        Key other = (Key) o;
+        return width == other.width && height == other.height && config == other.config;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = width;
+      result = 31 * result + height;
+      result = 31 * result + (config != null ? config.hashCode() : 0);
+      return result;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.bumptech.glide.load.engine.bitmap_recycle;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import java.util.HashMap;
@@ -11,10 +12,10 @@ import java.util.NavigableMap;
 import java.util.TreeMap;
 
 /**
- * A fixed size Array Pool that evicts arrays using an LRU strategy to keep the pool under
- * the maximum byte size.
+ * An Array Pool that evicts arrays using an LRU strategy to keep the pool under the maximum byte
+ * size.
  */
-public final class LruArrayPool implements ArrayPool {
+public final class LruArrayPool implements ArrayPool, BudgetedMemory {
   // 4MB.
   private static final int DEFAULT_SIZE = 4 * 1024 * 1024;
 
@@ -31,12 +32,16 @@ public final class LruArrayPool implements ArrayPool {
   private final KeyPool keyPool = new KeyPool();
   private final Map<Class<?>, NavigableMap<Integer, Integer>> sortedSizes = new HashMap<>();
   private final Map<Class<?>, ArrayAdapterInterface<?>> adapters = new HashMap<>();
-  private final int maxSize;
+  private final int initialMaxSize;
+  private int maxSize;
   private int currentSize;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
 
   @VisibleForTesting
   public LruArrayPool() {
-    maxSize = DEFAULT_SIZE;
+    this(DEFAULT_SIZE);
   }
 
   /**
@@ -45,6 +50,7 @@ public final class LruArrayPool implements ArrayPool {
    * @param maxSize The maximum size in integers of the pool.
    */
   public LruArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
     this.maxSize = maxSize;
   }
 
@@ -97,11 +103,13 @@ public final class LruArrayPool implements ArrayPool {
     ArrayAdapterInterface<T> arrayAdapter = getAdapterFromType(arrayClass);
     T result = getArrayForKey(key);
     if (result != null) {
+      hitCount++;
       currentSize -= arrayAdapter.getArrayLength(result) * arrayAdapter.getElementSizeInBytes();
       decrementArrayOfSize(arrayAdapter.getArrayLength(result), arrayClass);
     }
 
     if (result == null) {
+      missCount++;
       if (Log.isLoggable(arrayAdapter.getTag(), Log.VERBOSE)) {
         Log.v(arrayAdapter.getTag(), "Allocated " + key.size + " bytes");
       }
@@ -136,6 +144,33 @@ public final class LruArrayPool implements ArrayPool {
     evictToSize(0);
   }
 
+  @Override
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  @Override
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public synchronized void setSizeMultiplier(float multiplier) {
+    Preconditions.checkArgument(multiplier >= 0, "Multiplier must be >= 0");
+    maxSize = Math.round(initialMaxSize * multiplier);
+    evict();
+  }
+
   @Override
   public synchronized void trimMemory(int level) {
     if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
@@ -154,6 +189,7 @@ public final class LruArrayPool implements ArrayPool {
     while (currentSize > size) {
       Object evicted = groupedMap.removeLast();
       Preconditions.checkNotNull(evicted);
+      evictionCount++;
       ArrayAdapterInterface<Object> arrayAdapter = getAdapterFromObject(evicted);
       currentSize -= arrayAdapter.getArrayLength(evicted) * arrayAdapter.getElementSizeInBytes();
       decrementArrayOfSize(arrayAdapter.getArrayLength(evicted), evicted.getClass());
@@ -208,9 +244,9 @@ public final class LruArrayPool implements ArrayPool {
     return (ArrayAdapterInterface<T>) adapter;
   }
 
-  // VisibleForTesting
-  int getCurrentSize() {
-    int currentSize = 0;
+  @Override
+  public synchronized long getCurrentSize() {
+    long currentSize = 0;
     for (Class<?> type : sortedSizes.keySet()) {
       for (Integer size : sortedSizes.get(type).keySet()) {
         ArrayAdapterInterface<?> adapter = getAdapterFromType(type);
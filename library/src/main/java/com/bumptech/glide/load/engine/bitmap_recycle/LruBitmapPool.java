@@ -8,6 +8,7 @@ import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
 import com.bumptech.glide.util.Synthetic;
 import java.util.Arrays;
 import java.util.Collections;
@@ -20,7 +21,7 @@ import java.util.Set;
  * and then uses an LRU eviction policy to evict {@link android.graphics.Bitmap}s from the least
  * recently used bucket in order to keep the pool below a given maximum size limit.
  */
-public class LruBitmapPool implements BitmapPool {
+public class LruBitmapPool implements BitmapPool, BudgetedMemory {
   private static final String TAG = "LruBitmapPool";
   private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
 
@@ -73,6 +74,26 @@ public class LruBitmapPool implements BitmapPool {
     return maxSize;
   }
 
+  @Override
+  public synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  @Override
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  @Override
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  @Override
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
   @Override
   public synchronized void setSizeMultiplier(float sizeMultiplier) {
     maxSize = Math.round(initialMaxSize * sizeMultiplier);
@@ -145,12 +166,12 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @NonNull
-  private static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
+  static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
     return Bitmap.createBitmap(width, height, config != null ? config : DEFAULT_CONFIG);
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static void assertNotHardwareConfig(Bitmap.Config config) {
+  static void assertNotHardwareConfig(Bitmap.Config config) {
     // Avoid short circuiting on sdk int since it breaks on some versions of Android.
     if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
       return;
@@ -191,7 +212,7 @@ public class LruBitmapPool implements BitmapPool {
 
   // Setting these two values provides Bitmaps that are essentially equivalent to those returned
   // from Bitmap.createBitmap.
-  private static void normalize(Bitmap bitmap) {
+  static void normalize(Bitmap bitmap) {
     bitmap.setHasAlpha(true);
     maybeSetPreMultiplied(bitmap);
   }
@@ -270,7 +291,7 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static Set<Bitmap.Config> getDefaultAllowedConfigs() {
+  static Set<Bitmap.Config> getDefaultAllowedConfigs() {
     Set<Bitmap.Config> configs = new HashSet<>(Arrays.asList(Bitmap.Config.values()));
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
       // GIFs, among other types, end up with a native Bitmap config that doesn't map to a java
@@ -0,0 +1,530 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An Array Pool that rounds array lengths to size classes and keeps a few arrays of each small
+ * size class in a per-thread magazine in front of a shared, locked depot.
+ *
+ * <p>Size classes are a quarter of a power of two apart, so arrays are at most 25% longer than the
+ * requested length. Arrays are allocated with the length of their size class, so any array in a
+ * size class can be returned for any request in that size class.
+ *
+ * <p>Arrays of up to {@link #STANDARD_BUFFER_SIZE_BYTES} are first put into and taken from a
+ * magazine owned by the calling thread without taking a lock, which is the common case for
+ * decoders that get and put a standard buffer on the same thread. Arrays that don't fit in the
+ * magazine, and arrays larger than a standard buffer, go to the depot, which evicts the arrays of
+ * the least recently requested size class first to keep the pool under its maximum byte size.
+ *
+ * <p>Use {@link com.bumptech.glide.GlideBuilder#setArrayPool(ArrayPool)} to use this pool in place
+ * of the default {@link LruArrayPool}.
+ */
+// Public API.
+@SuppressWarnings("unused")
+public final class SizeClassArrayPool implements ArrayPool, BudgetedMemory {
+  // 4MB.
+  private static final int DEFAULT_SIZE = 4 * 1024 * 1024;
+  /** The length of the smallest size class, shorter arrays aren't pooled. */
+  @VisibleForTesting
+  static final int MIN_CLASS_LENGTH = 16;
+  private static final int MIN_CLASS_SHIFT = 4;
+  private static final int CLASSES_PER_DOUBLING = 4;
+  private static final int CLASSES_PER_DOUBLING_SHIFT = 2;
+  /** The number of size classes, enough for arrays of up to 2^30 elements. */
+  private static final int CLASS_COUNT = getClassIndex(1 << 30) + 1;
+  /** The number of arrays of each size class each thread's magazine holds. */
+  @VisibleForTesting
+  static final int MAGAZINE_CAPACITY = 2;
+  /** Used to calculate the maximum % of the total pool size a single array may consume. */
+  private static final int SINGLE_ARRAY_MAX_SIZE_DIVISOR = 2;
+
+  private final TypePool[] typePools = new TypePool[] {
+      new TypePool(/*index=*/ 0, byte[].class, new ByteArrayAdapter()),
+      new TypePool(/*index=*/ 1, int[].class, new IntegerArrayAdapter()),
+  };
+  private final List<Magazine[]> magazines = new ArrayList<>();
+  private final ThreadLocal<Magazine[]> threadMagazines = new ThreadLocal<Magazine[]>() {
+    @Override
+    protected Magazine[] initialValue() {
+      return registerMagazines();
+    }
+  };
+  private final AtomicLong currentSize = new AtomicLong();
+  private final int initialMaxSize;
+  private volatile int maxSize;
+  private long evictionCount;
+  private long accessCount;
+
+  public SizeClassArrayPool() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Constructor for a new pool.
+   *
+   * @param maxSize The maximum size in bytes of the pool.
+   */
+  public SizeClassArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+  }
+
+  @Deprecated
+  @Override
+  public <T> void put(T array, Class<T> arrayClass) {
+    put(array);
+  }
+
+  @Override
+  public <T> void put(T array) {
+    TypePool typePool = getTypePool(array.getClass());
+    int length = typePool.adapter.getArrayLength(array);
+    int arrayBytes = length * typePool.elementSize;
+    if (length < MIN_CLASS_LENGTH || !isSmallEnoughForReuse(arrayBytes)) {
+      return;
+    }
+    int classIndex = getFloorClassIndex(length);
+    if (classIndex >= CLASS_COUNT) {
+      return;
+    }
+
+    if (classIndex < typePool.magazineClassCount
+        && currentSize.get() + arrayBytes <= maxSize
+        && getMagazine(typePool).offer(classIndex, array)) {
+      currentSize.addAndGet(arrayBytes);
+      return;
+    }
+
+    synchronized (this) {
+      typePool.getDepot(classIndex).addLast(array);
+      currentSize.addAndGet(arrayBytes);
+      evictToSize(maxSize);
+    }
+  }
+
+  @Override
+  public <T> T get(int size, Class<T> arrayClass) {
+    TypePool typePool = getTypePool(arrayClass);
+    if (size < MIN_CLASS_LENGTH) {
+      return newArray(typePool, size);
+    }
+    int classIndex = getClassIndex(size);
+    int classLength = classIndex < CLASS_COUNT ? getClassLength(classIndex) : size;
+    if (classIndex >= CLASS_COUNT
+        || !isSmallEnoughForReuse(classLength * typePool.elementSize)) {
+      synchronized (this) {
+        typePool.oversizeMissCount++;
+      }
+      return newArray(typePool, size);
+    }
+
+    Object result = take(typePool, classIndex);
+    return newArrayIfNull(typePool, result, classLength);
+  }
+
+  /**
+   * Returns an array of exactly the given length.
+   *
+   * <p>Only lengths that are equal to the length of a size class can be returned from the pool, so
+   * requests for other lengths always allocate.
+   */
+  @Override
+  public <T> T getExact(int size, Class<T> arrayClass) {
+    TypePool typePool = getTypePool(arrayClass);
+    int classIndex = size < MIN_CLASS_LENGTH ? CLASS_COUNT : getClassIndex(size);
+    if (classIndex >= CLASS_COUNT || getClassLength(classIndex) != size
+        || !isSmallEnoughForReuse(size * typePool.elementSize)) {
+      return newArray(typePool, size);
+    }
+
+    Object result = take(typePool, classIndex);
+    // Arrays are put in the largest size class no longer than them, so this one may be longer.
+    if (result != null && typePool.adapter.getArrayLength(result) != size) {
+      put(result);
+      result = null;
+    }
+    return newArrayIfNull(typePool, result, size);
+  }
+
+  @Override
+  public synchronized void clearMemory() {
+    drainMagazines();
+    evictToSize(0);
+  }
+
+  @Override
+  public synchronized void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      drainMagazines();
+      evictToSize(maxSize / 2);
+    }
+  }
+
+  /**
+   * Returns the number of hits and misses of each size class of each type of array that has been
+   * requested from this pool at least once.
+   *
+   * <p>Requests for arrays too large to be pooled are counted in a final entry per type whose
+   * length is {@link SizeClassStats#OVERSIZE_LENGTH}. Requests for arrays shorter than
+   * {@code 16} aren't counted.
+   */
+  @NonNull
+  public synchronized List<SizeClassStats> getStats() {
+    pruneMagazines();
+    List<SizeClassStats> result = new ArrayList<>();
+    for (int type = 0; type < typePools.length; type++) {
+      TypePool typePool = typePools[type];
+      for (int classIndex = 0; classIndex < CLASS_COUNT; classIndex++) {
+        long hits = getHitCount(type, classIndex);
+        long misses = typePool.missCounts[classIndex];
+        if (hits > 0 || misses > 0) {
+          result.add(new SizeClassStats(
+              typePool.arrayClass, getClassLength(classIndex), hits, misses));
+        }
+      }
+      if (typePool.oversizeMissCount > 0) {
+        result.add(new SizeClassStats(typePool.arrayClass, SizeClassStats.OVERSIZE_LENGTH,
+            /*hitCount=*/ 0, typePool.oversizeMissCount));
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  @Override
+  public synchronized long getHitCount() {
+    pruneMagazines();
+    long result = 0;
+    for (int type = 0; type < typePools.length; type++) {
+      for (int classIndex = 0; classIndex < CLASS_COUNT; classIndex++) {
+        result += getHitCount(type, classIndex);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized long getMissCount() {
+    long result = 0;
+    for (TypePool typePool : typePools) {
+      for (long misses : typePool.missCounts) {
+        result += misses;
+      }
+      result += typePool.oversizeMissCount;
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public synchronized void setSizeMultiplier(float multiplier) {
+    Preconditions.checkArgument(multiplier >= 0, "Multiplier must be >= 0");
+    maxSize = Math.round(initialMaxSize * multiplier);
+    evictToSize(maxSize);
+  }
+
+  /**
+   * Returns the index of the smallest size class whose arrays are at least as long as the given
+   * length.
+   */
+  @VisibleForTesting
+  static int getClassIndex(int length) {
+    if (length <= MIN_CLASS_LENGTH) {
+      return 0;
+    }
+    int shift = 31 - Integer.numberOfLeadingZeros(length - 1);
+    int step = 1 << (shift - CLASSES_PER_DOUBLING_SHIFT);
+    int quarter = (length - 1 - (1 << shift)) / step;
+    return (shift - MIN_CLASS_SHIFT) * CLASSES_PER_DOUBLING + quarter + 1;
+  }
+
+  /** Returns the length of the arrays in the size class with the given index. */
+  @VisibleForTesting
+  static int getClassLength(int classIndex) {
+    if (classIndex == 0) {
+      return MIN_CLASS_LENGTH;
+    }
+    int shift = (classIndex - 1) / CLASSES_PER_DOUBLING + MIN_CLASS_SHIFT;
+    int quarter = (classIndex - 1) % CLASSES_PER_DOUBLING + 1;
+    return (1 << shift) + quarter * (1 << (shift - CLASSES_PER_DOUBLING_SHIFT));
+  }
+
+  /**
+   * Returns the index of the largest size class whose arrays are no longer than the given length,
+   * which is the size class an array of the given length can be returned for.
+   */
+  @VisibleForTesting
+  static int getFloorClassIndex(int length) {
+    int classIndex = getClassIndex(length);
+    return getClassLength(classIndex) > length ? classIndex - 1 : classIndex;
+  }
+
+  private Object take(TypePool typePool, int classIndex) {
+    Object result = null;
+    if (classIndex < typePool.magazineClassCount) {
+      result = getMagazine(typePool).take(classIndex);
+    }
+    if (result == null) {
+      synchronized (this) {
+        typePool.accessTimes[classIndex] = ++accessCount;
+        ArrayDeque<Object> depot = typePool.depots[classIndex];
+        result = depot != null ? depot.pollLast() : null;
+        if (result == null) {
+          typePool.missCounts[classIndex]++;
+        } else {
+          typePool.depotHitCounts[classIndex]++;
+        }
+      }
+    }
+    if (result != null) {
+      currentSize.addAndGet(-typePool.adapter.getArrayLength(result) * typePool.elementSize);
+    }
+    return result;
+  }
+
+  private <T> T newArrayIfNull(TypePool typePool, Object result, int length) {
+    if (result == null) {
+      return newArray(typePool, length);
+    }
+    @SuppressWarnings("unchecked")
+    T array = (T) result;
+    return array;
+  }
+
+  private <T> T newArray(TypePool typePool, int length) {
+    if (Log.isLoggable(typePool.adapter.getTag(), Log.VERBOSE)) {
+      Log.v(typePool.adapter.getTag(), "Allocated " + length + " bytes");
+    }
+    @SuppressWarnings("unchecked")
+    T array = (T) typePool.adapter.newArray(length);
+    return array;
+  }
+
+  private boolean isSmallEnoughForReuse(int byteSize) {
+    return byteSize <= maxSize / SINGLE_ARRAY_MAX_SIZE_DIVISOR;
+  }
+
+  private Magazine getMagazine(TypePool typePool) {
+    return threadMagazines.get()[typePool.index];
+  }
+
+  @Synthetic
+  synchronized Magazine[] registerMagazines() {
+    pruneMagazines();
+    Magazine[] result = new Magazine[typePools.length];
+    for (int type = 0; type < typePools.length; type++) {
+      result[type] = new Magazine(typePools[type].magazineClassCount);
+    }
+    magazines.add(result);
+    return result;
+  }
+
+  /**
+   * Moves the arrays in the magazines of threads that have died to the depot, and keeps their hit
+   * counts.
+   */
+  private void pruneMagazines() {
+    for (Iterator<Magazine[]> iterator = magazines.iterator(); iterator.hasNext(); ) {
+      Magazine[] threadMagazines = iterator.next();
+      Thread owner = threadMagazines[0].owner.get();
+      if (owner != null && owner.isAlive()) {
+        continue;
+      }
+      iterator.remove();
+      for (int type = 0; type < typePools.length; type++) {
+        TypePool typePool = typePools[type];
+        Magazine magazine = threadMagazines[type];
+        for (int i = 0; i < magazine.slots.length(); i++) {
+          Object array = magazine.slots.getAndSet(i, null);
+          if (array != null) {
+            typePool.getDepot(i / MAGAZINE_CAPACITY).addLast(array);
+          }
+        }
+        for (int classIndex = 0; classIndex < typePool.magazineClassCount; classIndex++) {
+          typePool.depotHitCounts[classIndex] += magazine.hitCounts.get(classIndex);
+        }
+      }
+    }
+  }
+
+  private void drainMagazines() {
+    pruneMagazines();
+    for (Magazine[] threadMagazines : magazines) {
+      for (int type = 0; type < typePools.length; type++) {
+        TypePool typePool = typePools[type];
+        AtomicReferenceArray<Object> slots = threadMagazines[type].slots;
+        for (int i = 0; i < slots.length(); i++) {
+          Object array = slots.getAndSet(i, null);
+          if (array != null) {
+            currentSize.addAndGet(-typePool.adapter.getArrayLength(array) * typePool.elementSize);
+            evictionCount++;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Evicts arrays from the depot, least recently requested size class first, until the pool is no
+   * larger than the given size or the depot is empty.
+   */
+  private void evictToSize(int size) {
+    while (currentSize.get() > size) {
+      TypePool evictType = null;
+      int evictClass = -1;
+      long oldestAccess = Long.MAX_VALUE;
+      for (TypePool typePool : typePools) {
+        for (int classIndex = 0; classIndex < CLASS_COUNT; classIndex++) {
+          ArrayDeque<Object> depot = typePool.depots[classIndex];
+          if (depot != null && !depot.isEmpty()
+              && typePool.accessTimes[classIndex] <= oldestAccess) {
+            evictType = typePool;
+            evictClass = classIndex;
+            oldestAccess = typePool.accessTimes[classIndex];
+          }
+        }
+      }
+      if (evictType == null) {
+        // The rest of the pool is in magazines.
+        break;
+      }
+      Object evicted = evictType.depots[evictClass].pollFirst();
+      currentSize.addAndGet(-evictType.adapter.getArrayLength(evicted) * evictType.elementSize);
+      evictionCount++;
+      if (Log.isLoggable(evictType.adapter.getTag(), Log.VERBOSE)) {
+        Log.v(evictType.adapter.getTag(),
+            "evicted: " + evictType.adapter.getArrayLength(evicted));
+      }
+    }
+  }
+
+  private long getHitCount(int type, int classIndex) {
+    TypePool typePool = typePools[type];
+    long result = typePool.depotHitCounts[classIndex];
+    if (classIndex < typePool.magazineClassCount) {
+      for (Magazine[] threadMagazines : magazines) {
+        result += threadMagazines[type].hitCounts.get(classIndex);
+      }
+    }
+    return result;
+  }
+
+  private TypePool getTypePool(Class<?> arrayClass) {
+    for (TypePool typePool : typePools) {
+      if (typePool.arrayClass.equals(arrayClass)) {
+        return typePool;
+      }
+    }
+    throw new IllegalArgumentException("No array pool found for: " + arrayClass.getSimpleName());
+  }
+
+  /** The depot and counts for one type of array, guarded by the pool's lock. */
+  private static final class TypePool {
+    @Synthetic final Class<?> arrayClass;
+    @Synthetic final ArrayAdapterInterface<Object> adapter;
+    @Synthetic final int elementSize;
+    @Synthetic final int index;
+    /** Size classes with arrays no larger than a standard buffer are kept in magazines. */
+    @Synthetic final int magazineClassCount;
+    @Synthetic final ArrayDeque<Object>[] depots;
+    @Synthetic final long[] accessTimes = new long[CLASS_COUNT];
+    @Synthetic final long[] depotHitCounts = new long[CLASS_COUNT];
+    @Synthetic final long[] missCounts = new long[CLASS_COUNT];
+    @Synthetic long oversizeMissCount;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Synthetic
+    TypePool(int index, Class<?> arrayClass, ArrayAdapterInterface<?> adapter) {
+      this.index = index;
+      this.arrayClass = arrayClass;
+      this.adapter = (ArrayAdapterInterface<Object>) adapter;
+      elementSize = adapter.getElementSizeInBytes();
+      magazineClassCount =
+          getFloorClassIndex(STANDARD_BUFFER_SIZE_BYTES / adapter.getElementSizeInBytes()) + 1;
+      depots = new ArrayDeque[CLASS_COUNT];
+    }
+
+    @Synthetic
+    ArrayDeque<Object> getDepot(int classIndex) {
+      ArrayDeque<Object> result = depots[classIndex];
+      if (result == null) {
+        result = new ArrayDeque<>();
+        depots[classIndex] = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Holds up to {@link #MAGAZINE_CAPACITY} arrays of each size class for one thread.
+   *
+   * <p>Only the owning thread takes or offers arrays and counts hits, but other threads may drain
+   * the slots when the pool is cleared or trimmed, so slots are swapped atomically.
+   */
+  private static final class Magazine {
+    @Synthetic final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+    @Synthetic final AtomicReferenceArray<Object> slots;
+    @Synthetic final AtomicLongArray hitCounts;
+
+    @Synthetic
+    Magazine(int classCount) {
+      slots = new AtomicReferenceArray<>(classCount * MAGAZINE_CAPACITY);
+      hitCounts = new AtomicLongArray(classCount);
+    }
+
+    @Synthetic
+    Object take(int classIndex) {
+      int start = classIndex * MAGAZINE_CAPACITY;
+      for (int i = start; i < start + MAGAZINE_CAPACITY; i++) {
+        Object array = slots.get(i);
+        if (array != null && slots.compareAndSet(i, array, null)) {
+          // Only the owning thread writes its counts, so they don't need to be atomic updates.
+          hitCounts.lazySet(classIndex, hitCounts.get(classIndex) + 1);
+          return array;
+        }
+      }
+      return null;
+    }
+
+    @Synthetic
+    boolean offer(int classIndex, Object array) {
+      int start = classIndex * MAGAZINE_CAPACITY;
+      for (int i = start; i < start + MAGAZINE_CAPACITY; i++) {
+        if (slots.get(i) == null && slots.compareAndSet(i, null, array)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
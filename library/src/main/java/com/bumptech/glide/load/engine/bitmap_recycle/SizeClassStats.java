@@ -0,0 +1,60 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The number of times arrays of one size class were requested from a {@link SizeClassArrayPool}
+ * and found or not found in the pool.
+ */
+// Public API.
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class SizeClassStats {
+  /** The length reported for requests for arrays too large to be pooled. */
+  public static final int OVERSIZE_LENGTH = -1;
+
+  private final Class<?> arrayClass;
+  private final int length;
+  private final long hitCount;
+  private final long missCount;
+
+  SizeClassStats(Class<?> arrayClass, int length, long hitCount, long missCount) {
+    this.arrayClass = arrayClass;
+    this.length = length;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+  }
+
+  /** Returns the type of array, for example {@code byte[].class}. */
+  @NonNull
+  public Class<?> getArrayClass() {
+    return arrayClass;
+  }
+
+  /**
+   * Returns the length of the arrays in the size class, or {@link #OVERSIZE_LENGTH} for arrays too
+   * large to be pooled.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /** Returns the number of requests that were served from the pool. */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of requests that allocated a new array. */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public String toString() {
+    return "SizeClassStats{"
+        + "arrayClass=" + arrayClass.getSimpleName()
+        + ", length=" + length
+        + ", hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + '}';
+  }
+}
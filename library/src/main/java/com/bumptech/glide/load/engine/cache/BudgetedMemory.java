@@ -0,0 +1,34 @@
+package com.bumptech.glide.load.engine.cache;
+
+/**
+ * A memory cache or pool that counts how often it's hit, so that {@link MemoryBudgetController}
+ * can move memory to it from caches and pools that are hit less often.
+ *
+ * <p>Counts are cumulative from when the cache or pool was created. Sizes are in bytes.
+ */
+public interface BudgetedMemory {
+
+  /** Returns the number of lookups that found what they were looking for. */
+  long getHitCount();
+
+  /** Returns the number of lookups that didn't find what they were looking for. */
+  long getMissCount();
+
+  /**
+   * Returns the number of items that were removed, or not added, to keep the cache or pool below
+   * its maximum size.
+   */
+  long getEvictionCount();
+
+  /** Returns the sum of the sizes of the items currently in the cache or pool. */
+  long getCurrentSize();
+
+  /** Returns the current maximum size of the cache or pool. */
+  long getMaxSize();
+
+  /**
+   * Sets the maximum size of the cache or pool to its initial maximum size multiplied by the given
+   * multiplier, evicting items if the new maximum size is smaller than the current size.
+   */
+  void setSizeMultiplier(float multiplier);
+}
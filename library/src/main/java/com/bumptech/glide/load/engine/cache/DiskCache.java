@@ -4,6 +4,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.bumptech.glide.load.Key;
 import java.io.File;
+import java.nio.ByteBuffer;
 
 /**
  * An interface for writing to and reading from a disk cache.
@@ -36,6 +37,42 @@ public interface DiskCache {
     boolean write(@NonNull File file);
   }
 
+  /**
+   * An optional interface for disk caches that can read values directly into memory mapped
+   * {@link ByteBuffer}s so that cache hits can be decoded without being copied.
+   */
+  interface ByteBufferReader {
+    /**
+     * Returns a read only view of a value this cache returned from {@link #get(Key)}, or from
+     * {@link EntryReader#getEntry(Key)} for caches that implement {@link EntryReader}, or
+     * {@code null} if the value couldn't be mapped.
+     *
+     * <p>Mapping a value that was already looked up means callers that decide not to use the
+     * mapped view can fall back to the value without a second lookup.
+     *
+     * @param value The value returned by this cache.
+     */
+    @Nullable
+    ByteBuffer getByteBuffer(@NonNull Object value);
+  }
+
+  /**
+   * An optional interface for disk caches that don't store each value in a file of its own and can
+   * instead return values as models that a registered
+   * {@link com.bumptech.glide.load.model.ModelLoader} opens directly, so that cache hits aren't
+   * copied into a file first.
+   */
+  interface EntryReader {
+    /**
+     * Returns a model for the value at the given key, or {@code null} if the key isn't in the
+     * cache.
+     *
+     * @param key The key in the cache.
+     */
+    @Nullable
+    Object getEntry(Key key);
+  }
+
   /**
    * Get the cache for the value at the given key.
    *
@@ -14,6 +14,7 @@ import java.io.File;
 public class DiskLruCacheFactory implements DiskCache.Factory {
   private final long diskCacheSize;
   private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final KeyHashStrategy keyHashStrategy;
 
   /**
    * Interface called out of UI thread to get the cache folder.
@@ -51,8 +52,24 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this(cacheDirectoryGetter, diskCacheSize, KeyHashStrategy.SHA_256);
+  }
+
+  /**
+   * Like {@link #DiskLruCacheFactory(CacheDirectoryGetter, long)}, but names files in the cache
+   * using the given {@link KeyHashStrategy}.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the LRU disk cache.
+   * @param keyHashStrategy      The hash function used to turn keys into file names.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize,
+      KeyHashStrategy keyHashStrategy) {
     this.diskCacheSize = diskCacheSize;
     this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.keyHashStrategy = keyHashStrategy;
   }
 
   @Override
@@ -67,6 +84,6 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
       return null;
     }
 
-    return DiskLruCacheWrapper.create(cacheDir, diskCacheSize);
+    return DiskLruCacheWrapper.create(cacheDir, diskCacheSize, keyHashStrategy);
   }
 }
@@ -4,24 +4,36 @@
 
 package com.bumptech.glide.load.engine.cache;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.disklrucache.DiskLruCache;
 import com.bumptech.glide.disklrucache.DiskLruCache.Value;
 import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The default DiskCache implementation. There must be no more than one active instance for a given
  * directory at a time.
  *
+ * <p>Keeps a {@link KeyBloomFilter} of the keys on disk, built from the cache directory when the
+ * cache is opened, so that lookups for keys that were never written return without consulting
+ * {@link DiskLruCache}.
+ *
  * @see #get(java.io.File, long)
  */
-public class DiskLruCacheWrapper implements DiskCache {
+public class DiskLruCacheWrapper implements DiskCache, DiskCache.ByteBufferReader {
   private static final String TAG = "DiskLruCacheWrapper";
 
   private static final int APP_VERSION = 1;
   private static final int VALUE_COUNT = 1;
+  // DiskLruCache names the file for the first and only value of each entry <key>.0.
+  private static final String CLEAN_FILE_SUFFIX = ".0";
+  private static final int MIN_EXPECTED_KEYS = 1024;
+  private static final int MAX_EXPECTED_KEYS = 1 << 20;
   private static DiskLruCacheWrapper wrapper;
 
   private final SafeKeyGenerator safeKeyGenerator;
@@ -29,6 +41,10 @@ public class DiskLruCacheWrapper implements DiskCache {
   private final long maxSize;
   private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
   private DiskLruCache diskLruCache;
+  // Null until the cache is opened or if the cache directory can't be listed.
+  @Nullable private volatile KeyBloomFilter keyFilter;
+  // Receives keys as they're written while a saturated keyFilter is rebuilt.
+  @Nullable private volatile KeyBloomFilter pendingKeyFilter;
 
   /**
    * Get a DiskCache in the given directory and size. If a disk cache has already been created with
@@ -64,6 +80,20 @@ public class DiskLruCacheWrapper implements DiskCache {
     return new DiskLruCacheWrapper(directory, maxSize);
   }
 
+  /**
+   * Create a new DiskCache in the given directory with a specified max size that names files using
+   * the given {@link KeyHashStrategy}.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @param keyHashStrategy The hash function used to turn keys into file names
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(
+      File directory, long maxSize, @NonNull KeyHashStrategy keyHashStrategy) {
+    return new DiskLruCacheWrapper(directory, maxSize, new SafeKeyGenerator(keyHashStrategy));
+  }
+
   /**
    * @deprecated Do not extend this class.
    */
@@ -71,18 +101,91 @@ public class DiskLruCacheWrapper implements DiskCache {
   // Deprecated public API.
   @SuppressWarnings({"WeakerAccess", "DeprecatedIsStillUsed"})
   protected DiskLruCacheWrapper(File directory, long maxSize) {
+    this(directory, maxSize, new SafeKeyGenerator());
+  }
+
+  private DiskLruCacheWrapper(File directory, long maxSize, SafeKeyGenerator safeKeyGenerator) {
     this.directory = directory;
     this.maxSize = maxSize;
-    this.safeKeyGenerator = new SafeKeyGenerator();
+    this.safeKeyGenerator = safeKeyGenerator;
   }
 
   private synchronized DiskLruCache getDiskCache() throws IOException {
     if (diskLruCache == null) {
       diskLruCache = DiskLruCache.open(directory, APP_VERSION, VALUE_COUNT, maxSize);
+      keyFilter = buildKeyFilter();
     }
     return diskLruCache;
   }
 
+  /**
+   * Returns a filter containing every entry in the cache directory, or {@code null} if the
+   * directory can't be listed.
+   *
+   * <p>{@link DiskLruCache#open} removes incomplete entries, so every clean file left in the
+   * directory belongs to an entry that's readable.
+   */
+  @Nullable
+  private KeyBloomFilter buildKeyFilter() {
+    String[] fileNames = directory.list();
+    if (fileNames == null) {
+      return null;
+    }
+    KeyBloomFilter result = new KeyBloomFilter(getExpectedKeys(fileNames.length));
+    addCleanFiles(result, fileNames);
+    return result;
+  }
+
+  private void addToKeyFilter(String safeKey) {
+    // The pending filter must be read before the current filter, see rebuildKeyFilter.
+    KeyBloomFilter pending = pendingKeyFilter;
+    KeyBloomFilter filter = keyFilter;
+    if (pending != null) {
+      pending.add(safeKey);
+    }
+    if (filter != null) {
+      filter.add(safeKey);
+      if (filter.isSaturated() && filter.getExpectedKeys() < MAX_EXPECTED_KEYS) {
+        rebuildKeyFilter(filter);
+      }
+    }
+  }
+
+  /**
+   * Replaces a filter that holds more keys than it was sized for, and so has a higher false
+   * positive rate than intended, with a new filter built from the cache directory.
+   */
+  private synchronized void rebuildKeyFilter(KeyBloomFilter saturated) {
+    String[] fileNames = directory.list();
+    if (keyFilter != saturated || fileNames == null) {
+      return;
+    }
+    KeyBloomFilter rebuilt = new KeyBloomFilter(getExpectedKeys(fileNames.length));
+    // Keys committed from here on are added to the rebuilt filter by addToKeyFilter, which reads
+    // pendingKeyFilter before keyFilter. Keys committed before here are in the directory listing
+    // below. So no key can be missed, even if it's written while the filter is swapped.
+    pendingKeyFilter = rebuilt;
+    fileNames = directory.list();
+    if (fileNames != null) {
+      addCleanFiles(rebuilt, fileNames);
+      keyFilter = rebuilt;
+    }
+    pendingKeyFilter = null;
+  }
+
+  private static int getExpectedKeys(int fileCount) {
+    // Leave room for the cache to grow before the filter has to be rebuilt.
+    return Math.min(MAX_EXPECTED_KEYS, Math.max(MIN_EXPECTED_KEYS, fileCount * 2));
+  }
+
+  private static void addCleanFiles(KeyBloomFilter filter, String[] fileNames) {
+    for (String fileName : fileNames) {
+      if (fileName.endsWith(CLEAN_FILE_SUFFIX)) {
+        filter.add(fileName.substring(0, fileName.length() - CLEAN_FILE_SUFFIX.length()));
+      }
+    }
+  }
+
   @Override
   public File get(Key key) {
     String safeKey = safeKeyGenerator.getSafeKey(key);
@@ -94,7 +197,12 @@ public class DiskLruCacheWrapper implements DiskCache {
       // It is possible that the there will be a put in between these two gets. If so that shouldn't
       // be a problem because we will always put the same value at the same key so our input streams
       // will still represent the same data.
-      final DiskLruCache.Value value = getDiskCache().get(safeKey);
+      DiskLruCache diskCache = getDiskCache();
+      KeyBloomFilter filter = keyFilter;
+      if (filter != null && !filter.mightContain(safeKey)) {
+        return null;
+      }
+      final DiskLruCache.Value value = diskCache.get(safeKey);
       if (value != null) {
         result = value.getFile(0);
       }
@@ -106,6 +214,22 @@ public class DiskLruCacheWrapper implements DiskCache {
     return result;
   }
 
+  @Nullable
+  @Override
+  public ByteBuffer getByteBuffer(@NonNull Object value) {
+    if (!(value instanceof File)) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile((File) value);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to map file from disk cache", e);
+      }
+      return null;
+    }
+  }
+
   @Override
   public void put(Key key, Writer writer) {
     // We want to make sure that puts block so that data is available when put completes. We may
@@ -133,6 +257,7 @@ public class DiskLruCacheWrapper implements DiskCache {
           File file = editor.getFile(0);
           if (writer.write(file)) {
             editor.commit();
+            addToKeyFilter(safeKey);
           }
         } finally {
           editor.abortUnlessCommitted();
@@ -177,5 +302,6 @@ public class DiskLruCacheWrapper implements DiskCache {
 
   private synchronized void resetDiskCache() {
     diskLruCache = null;
+    keyFilter = null;
   }
 }
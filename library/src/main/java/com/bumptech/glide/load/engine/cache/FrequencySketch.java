@@ -0,0 +1,119 @@
+package com.bumptech.glide.load.engine.cache;
+
+/**
+ * A probabilistic estimate of how often keys have been seen recently, used by
+ * {@link TinyLfuResourceCache} to decide whether a new entry is worth more than the entry it would
+ * replace.
+ *
+ * <p>The sketch is a count-min sketch with four rows of 4 bit counters packed sixteen to a
+ * {@code long}. Counters saturate at 15. After a fixed number of increments every counter is
+ * halved so that the sketch favors recent history over keys that were popular long ago.
+ *
+ * <p>This class is not thread safe, callers are expected to synchronize.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = new long[] {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAX_TABLE_LENGTH = 1 << 24;
+  private static final int SAMPLE_MULTIPLIER = 10;
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int size;
+
+  /**
+   * @param expectedEntries The approximate number of distinct entries the owning cache can hold.
+   */
+  FrequencySketch(int expectedEntries) {
+    allocate(expectedEntries);
+  }
+
+  /**
+   * Grows the sketch if it's too small for the given number of entries, discarding all counts.
+   */
+  void ensureCapacity(int entries) {
+    if (entries > table.length && table.length < MAX_TABLE_LENGTH) {
+      allocate(entries);
+    }
+  }
+
+  private void allocate(int entries) {
+    int length = ceilingPowerOfTwo(Math.min(Math.max(entries, 8), MAX_TABLE_LENGTH));
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = SAMPLE_MULTIPLIER * length;
+    size = 0;
+  }
+
+  /**
+   * Returns the estimated number of times the given hash has been seen, between 0 and 15.
+   */
+  int frequency(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records one occurrence of the given hash.
+   */
+  void increment(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves every counter, dropping the low bit of each.
+   */
+  private void reset() {
+    int oddCounters = 0;
+    for (int i = 0; i < table.length; i++) {
+      oddCounters += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (oddCounters >>> 2);
+  }
+
+  private int indexOf(int hash, int row) {
+    long result = (hash + SEEDS[row]) * SEEDS[row];
+    result += result >>> 32;
+    return ((int) result) & tableMask;
+  }
+
+  private static int spread(int hashCode) {
+    int hash = hashCode * 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int ceilingPowerOfTwo(int value) {
+    int result = Integer.highestOneBit(value);
+    return result == value ? result : result << 1;
+  }
+}
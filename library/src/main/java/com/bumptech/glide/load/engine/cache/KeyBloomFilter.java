@@ -0,0 +1,105 @@
+package com.bumptech.glide.load.engine.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, thread safe bloom filter of {@link SafeKeyGenerator} keys used to answer disk cache
+ * lookups for keys that were never written without touching the cache or the file system.
+ *
+ * <p>Keys can't be removed, so keys that are deleted or evicted from the disk cache remain in the
+ * filter as false positives until the filter is replaced.
+ */
+final class KeyBloomFilter {
+  // Roughly a 0.1% false positive rate when the filter holds its expected number of keys.
+  private static final int BITS_PER_KEY = 16;
+  private static final int HASH_COUNT = 6;
+  private static final int SAFE_KEY_HASH_LENGTH = 32;
+
+  private final AtomicLongArray words;
+  private final long bitMask;
+  private final int expectedKeys;
+  private final AtomicInteger keyCount = new AtomicInteger();
+
+  KeyBloomFilter(int expectedKeys) {
+    this.expectedKeys = Math.max(1, expectedKeys);
+    long bitCount = Long.highestOneBit((long) this.expectedKeys * BITS_PER_KEY - 1) << 1;
+    bitCount = Math.max(Long.SIZE, bitCount);
+    words = new AtomicLongArray((int) (bitCount / Long.SIZE));
+    bitMask = bitCount - 1;
+  }
+
+  /**
+   * Returns {@code false} if the given key was definitely never added, or {@code true} if it may
+   * have been.
+   */
+  boolean mightContain(String safeKey) {
+    long hash1 = hash1(safeKey);
+    long hash2 = hash2(safeKey, hash1);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = (hash1 + i * hash2) & bitMask;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void add(String safeKey) {
+    long hash1 = hash1(safeKey);
+    long hash2 = hash2(safeKey, hash1);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = (hash1 + i * hash2) & bitMask;
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(index);
+      } while ((current & mask) == 0 && !words.compareAndSet(index, current, current | mask));
+    }
+    keyCount.incrementAndGet();
+  }
+
+  int getExpectedKeys() {
+    return expectedKeys;
+  }
+
+  /**
+   * Returns {@code true} if more keys have been added than the filter was sized for, in which case
+   * its false positive rate is higher than intended.
+   */
+  boolean isSaturated() {
+    return keyCount.get() > expectedKeys;
+  }
+
+  // Safe keys are already uniformly distributed hex hashes, so rather than hashing them again, the
+  // filter's two hashes are read straight from the first 128 bits of the key.
+  private static long hash1(String safeKey) {
+    if (safeKey.length() < SAFE_KEY_HASH_LENGTH) {
+      return mix(safeKey.hashCode());
+    }
+    return parseHex(safeKey, 0);
+  }
+
+  private static long hash2(String safeKey, long hash1) {
+    long result =
+        safeKey.length() < SAFE_KEY_HASH_LENGTH ? mix(hash1) : parseHex(safeKey, 16);
+    // An odd step visits different bits for each of the hash functions.
+    return result | 1;
+  }
+
+  private static long parseHex(String safeKey, int start) {
+    long result = 0;
+    for (int i = start; i < start + 16; i++) {
+      result = (result << 4) | Character.digit(safeKey.charAt(i), 16);
+    }
+    return result;
+  }
+
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    return value;
+  }
+}
@@ -0,0 +1,72 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Chooses the hash function {@link SafeKeyGenerator} uses to turn
+ * {@link com.bumptech.glide.load.Key}s into disk cache file names.
+ *
+ * <p>Changing the strategy used by an existing disk cache changes every file name, so entries
+ * written with the previous strategy will never be read again and will only be removed as they
+ * are evicted or when the cache is cleared.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public abstract class KeyHashStrategy {
+
+  /**
+   * Hashes keys with SHA-256, Glide's original and default strategy.
+   */
+  public static final KeyHashStrategy SHA_256 = new Sha256();
+
+  /**
+   * Hashes keys with the 128 bit x64 variant of MurmurHash3.
+   *
+   * <p>Several times faster than {@link #SHA_256} and still wide enough that accidental collisions
+   * between keys aren't a practical concern, but not cryptographic, so shouldn't be used where
+   * keys may be chosen by someone trying to overwrite other entries in the cache.
+   */
+  public static final KeyHashStrategy MURMUR3_128 = new Murmur3();
+
+  /**
+   * Returns a new {@link MessageDigest} that produces at least 16 bytes.
+   *
+   * <p>Digests are pooled and reused, so this is called rarely, but may be called concurrently.
+   */
+  @NonNull
+  public abstract MessageDigest newDigest();
+
+  private static final class Sha256 extends KeyHashStrategy {
+
+    @NonNull
+    @Override
+    public MessageDigest newDigest() {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "SHA_256";
+    }
+  }
+
+  private static final class Murmur3 extends KeyHashStrategy {
+
+    @NonNull
+    @Override
+    public MessageDigest newDigest() {
+      return new Murmur3MessageDigest();
+    }
+
+    @Override
+    public String toString() {
+      return "MURMUR3_128";
+    }
+  }
+}
@@ -10,8 +10,12 @@ import com.bumptech.glide.util.LruCache;
 /**
  * An LRU in memory cache for {@link com.bumptech.glide.load.engine.Resource}s.
  */
-public class LruResourceCache extends LruCache<Key, Resource<?>> implements MemoryCache {
+public class LruResourceCache extends LruCache<Key, Resource<?>>
+    implements MemoryCache, BudgetedMemory {
   private ResourceRemovedListener listener;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
 
   /**
    * Constructor for LruResourceCache.
@@ -27,8 +31,41 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
     this.listener = listener;
   }
 
+  /**
+   * Removes and returns the resource for the given key, counting the call as a hit or a miss
+   * because {@link com.bumptech.glide.load.engine.Engine} removes resources to look them up.
+   */
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    Resource<?> result = super.remove(key);
+    if (result != null) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  @Override
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
   @Override
   protected void onItemEvicted(@NonNull Key key, @Nullable Resource<?> item) {
+    // Always called while holding the lock on this cache.
+    evictionCount++;
     if (listener != null && item != null) {
       listener.onResourceRemoved(item);
     }
@@ -0,0 +1,290 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically moves memory between Glide's memory cache and pools so that the ones that are
+ * thrashing get more of a single, shared budget and the ones that aren't get less.
+ *
+ * <p>The budget starts as the sum of the initial maximum sizes of the given {@link BudgetedMemory}
+ * caches and pools, typically the sizes chosen by {@link MemorySizeCalculator}. Every
+ * {@link #DEFAULT_INTERVAL_MS} the controller looks at the hits, misses and evictions of each
+ * cache and pool since the last update. Misses while a cache or pool is also evicting are misses
+ * that a larger cache or pool may have avoided, so a share of the budget is moved to the cache or
+ * pool with the highest rate of those misses from the one with the lowest. Each cache or pool keeps
+ * at least a quarter of its initial share.
+ *
+ * <p>The budget shrinks when the Java heap is nearly full or when the app is asked to trim its
+ * memory, and grows back slowly once the heap has room again. Bitmap pixels aren't part of the
+ * Java heap on Android O and above, so on those versions only calls to
+ * {@link #trimMemory(int)} shrink the budget for native memory pressure.
+ *
+ * <p>All methods must be called on the main thread, other than {@link #start()} and
+ * {@link #stop()}.
+ */
+public final class MemoryBudgetController {
+  private static final String TAG = "MemoryBudget";
+  @VisibleForTesting
+  static final long DEFAULT_INTERVAL_MS = 5_000;
+  /** The fraction of the budget moved from one cache or pool to another in each update. */
+  @VisibleForTesting
+  static final float STEP = 0.05f;
+  /** The smallest fraction of its initial share that each cache or pool is allowed to shrink to. */
+  @VisibleForTesting
+  static final float MIN_SHARE_FRACTION = 0.25f;
+  /** The minimum number of lookups in an update for a cache or pool's miss rate to be trusted. */
+  @VisibleForTesting
+  static final int MIN_LOOKUPS = 20;
+  /** The minimum rate of misses while evicting for a cache or pool to get more of the budget. */
+  @VisibleForTesting
+  static final float MIN_THRASH_RATE = 0.05f;
+  @VisibleForTesting
+  static final float HIGH_HEAP_USAGE = 0.85f;
+  @VisibleForTesting
+  static final float LOW_HEAP_USAGE = 0.7f;
+  @VisibleForTesting
+  static final float MIN_PRESSURE_MULTIPLIER = 0.25f;
+  private static final float PRESSURE_DECREASE = 0.75f;
+  private static final float PRESSURE_INCREASE = 0.05f;
+
+  private final List<Participant> participants;
+  private final HeapUsage heapUsage;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable update = new Runnable() {
+    @Override
+    public void run() {
+      update();
+      handler.postDelayed(this, DEFAULT_INTERVAL_MS);
+    }
+  };
+  private final long initialBudget;
+  private float categoryMultiplier = 1f;
+  private float pressureMultiplier = 1f;
+
+  /**
+   * @param caches The caches and pools to share a budget between, in the order they should be
+   *               resized, memory caches before the pools their resources are returned to.
+   */
+  public MemoryBudgetController(@NonNull List<BudgetedMemory> caches) {
+    this(caches, new RuntimeHeapUsage());
+  }
+
+  @VisibleForTesting
+  MemoryBudgetController(@NonNull List<BudgetedMemory> caches, @NonNull HeapUsage heapUsage) {
+    this.heapUsage = Preconditions.checkNotNull(heapUsage);
+    participants = new ArrayList<>(caches.size());
+    long total = 0;
+    for (BudgetedMemory cache : caches) {
+      total += cache.getMaxSize();
+    }
+    initialBudget = total;
+    for (BudgetedMemory cache : caches) {
+      float share = total > 0 ? cache.getMaxSize() / (float) total : 0f;
+      participants.add(new Participant(cache, share));
+    }
+  }
+
+  /** Starts updating the budget periodically on the main thread. */
+  public void start() {
+    handler.removeCallbacks(update);
+    handler.postDelayed(update, DEFAULT_INTERVAL_MS);
+  }
+
+  /** Stops updating the budget, leaving the caches and pools at their current sizes. */
+  public void stop() {
+    handler.removeCallbacks(update);
+  }
+
+  /**
+   * Scales the whole budget by the given multiplier, typically from a
+   * {@link com.bumptech.glide.MemoryCategory}.
+   */
+  public void setSizeMultiplier(float multiplier) {
+    Util.assertMainThread();
+    Preconditions.checkArgument(multiplier >= 0, "Multiplier must be >= 0");
+    categoryMultiplier = multiplier;
+    apply();
+  }
+
+  /**
+   * Shrinks the budget after the caches and pools have been trimmed for the given level.
+   *
+   * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+   */
+  @SuppressLint("InlinedApi")
+  public void trimMemory(int level) {
+    Util.assertMainThread();
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      pressureMultiplier = Math.max(MIN_PRESSURE_MULTIPLIER, pressureMultiplier / 2);
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      pressureMultiplier =
+          Math.max(MIN_PRESSURE_MULTIPLIER, pressureMultiplier * PRESSURE_DECREASE);
+    }
+    // Evictions caused by the trim aren't a sign that a cache or pool is too small.
+    resetCounts();
+    apply();
+  }
+
+  /**
+   * Shrinks the budget to its minimum after the caches and pools have been cleared.
+   *
+   * @see android.content.ComponentCallbacks#onLowMemory()
+   */
+  public void clearMemory() {
+    Util.assertMainThread();
+    pressureMultiplier = MIN_PRESSURE_MULTIPLIER;
+    resetCounts();
+    apply();
+  }
+
+  /**
+   * Returns the total number of bytes currently shared by the caches and pools.
+   */
+  public long getBudget() {
+    return Math.round(initialBudget * categoryMultiplier * pressureMultiplier);
+  }
+
+  @VisibleForTesting
+  void update() {
+    updatePressure();
+
+    Participant recipient = null;
+    float recipientRate = MIN_THRASH_RATE;
+    for (Participant participant : participants) {
+      participant.sample();
+      if (participant.thrashRate > recipientRate) {
+        recipient = participant;
+        recipientRate = participant.thrashRate;
+      }
+    }
+
+    Participant donor = null;
+    if (recipient != null) {
+      for (Participant participant : participants) {
+        // Only take from caches and pools that are thrashing much less than the recipient.
+        if (participant != recipient && participant.share > participant.getMinShare()
+            && participant.thrashRate < recipientRate / 2
+            && (donor == null || participant.thrashRate < donor.thrashRate)) {
+          donor = participant;
+        }
+      }
+    }
+
+    if (donor != null) {
+      float step = Math.min(STEP, donor.share - donor.getMinShare());
+      donor.share -= step;
+      recipient.share += step;
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Moved " + Math.round(step * getBudget()) + " bytes from " + donor
+            + " to " + recipient);
+      }
+    }
+    apply();
+  }
+
+  private void updatePressure() {
+    float usage = heapUsage.getUsedFraction();
+    if (usage > HIGH_HEAP_USAGE) {
+      pressureMultiplier =
+          Math.max(MIN_PRESSURE_MULTIPLIER, pressureMultiplier * PRESSURE_DECREASE);
+    } else if (usage < LOW_HEAP_USAGE) {
+      pressureMultiplier = Math.min(1f, pressureMultiplier + PRESSURE_INCREASE);
+    }
+  }
+
+  private void resetCounts() {
+    for (Participant participant : participants) {
+      participant.sample();
+    }
+  }
+
+  private void apply() {
+    long budget = getBudget();
+    for (Participant participant : participants) {
+      participant.apply(budget);
+    }
+  }
+
+  /** Returns the fraction of the Java heap that's in use. */
+  interface HeapUsage {
+    float getUsedFraction();
+  }
+
+  private static final class RuntimeHeapUsage implements HeapUsage {
+    @Synthetic
+    RuntimeHeapUsage() { }
+
+    @Override
+    public float getUsedFraction() {
+      Runtime runtime = Runtime.getRuntime();
+      return (runtime.totalMemory() - runtime.freeMemory()) / (float) runtime.maxMemory();
+    }
+  }
+
+  private static final class Participant {
+    private final BudgetedMemory cache;
+    private final long initialMaxSize;
+    private final float initialShare;
+    @Synthetic float share;
+    @Synthetic float thrashRate;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    @Synthetic
+    Participant(BudgetedMemory cache, float initialShare) {
+      this.cache = cache;
+      this.initialShare = initialShare;
+      share = initialShare;
+      initialMaxSize = cache.getMaxSize();
+      hitCount = cache.getHitCount();
+      missCount = cache.getMissCount();
+      evictionCount = cache.getEvictionCount();
+    }
+
+    float getMinShare() {
+      return initialShare * MIN_SHARE_FRACTION;
+    }
+
+    /**
+     * Updates the rate of misses that happened while the cache or pool was evicting since the
+     * previous sample.
+     */
+    void sample() {
+      long hits = cache.getHitCount();
+      long misses = cache.getMissCount();
+      long evictions = cache.getEvictionCount();
+      long newHits = hits - hitCount;
+      long newMisses = misses - missCount;
+      long newEvictions = evictions - evictionCount;
+      hitCount = hits;
+      missCount = misses;
+      evictionCount = evictions;
+
+      long lookups = newHits + newMisses;
+      thrashRate = lookups >= MIN_LOOKUPS ? Math.min(newMisses, newEvictions) / (float) lookups : 0;
+    }
+
+    void apply(long budget) {
+      if (initialMaxSize > 0) {
+        cache.setSizeMultiplier(budget * share / initialMaxSize);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return cache.getClass().getSimpleName();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.bumptech.glide.load.engine.cache;
+
+import java.security.MessageDigest;
+
+/**
+ * A streaming implementation of the 128 bit x64 variant of MurmurHash3 with a seed of 0.
+ *
+ * <p>Implemented as a {@link MessageDigest} so that it can be passed to
+ * {@link com.bumptech.glide.load.Key#updateDiskCacheKey(MessageDigest)}. The digest is the first
+ * half of the hash followed by the second half, each in little endian order, which matches the
+ * bytes produced by other common implementations.
+ */
+final class Murmur3MessageDigest extends MessageDigest {
+  private static final int BLOCK_SIZE = 16;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final byte[] buffer = new byte[BLOCK_SIZE];
+  private int bufferLength;
+  private long length;
+  private long h1;
+  private long h2;
+
+  Murmur3MessageDigest() {
+    super("MURMUR3-128");
+  }
+
+  @Override
+  protected int engineGetDigestLength() {
+    return BLOCK_SIZE;
+  }
+
+  @Override
+  protected void engineUpdate(byte input) {
+    buffer[bufferLength++] = input;
+    length++;
+    if (bufferLength == BLOCK_SIZE) {
+      processBlock(buffer, 0);
+      bufferLength = 0;
+    }
+  }
+
+  @Override
+  protected void engineUpdate(byte[] input, int offset, int len) {
+    length += len;
+    if (bufferLength > 0) {
+      int toCopy = Math.min(BLOCK_SIZE - bufferLength, len);
+      System.arraycopy(input, offset, buffer, bufferLength, toCopy);
+      bufferLength += toCopy;
+      offset += toCopy;
+      len -= toCopy;
+      if (bufferLength < BLOCK_SIZE) {
+        return;
+      }
+      processBlock(buffer, 0);
+      bufferLength = 0;
+    }
+    while (len >= BLOCK_SIZE) {
+      processBlock(input, offset);
+      offset += BLOCK_SIZE;
+      len -= BLOCK_SIZE;
+    }
+    if (len > 0) {
+      System.arraycopy(input, offset, buffer, 0, len);
+      bufferLength = len;
+    }
+  }
+
+  @Override
+  protected byte[] engineDigest() {
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = bufferLength - 1; i >= 8; i--) {
+      k2 = (k2 << 8) | (buffer[i] & 0xFF);
+    }
+    for (int i = Math.min(bufferLength, 8) - 1; i >= 0; i--) {
+      k1 = (k1 << 8) | (buffer[i] & 0xFF);
+    }
+    if (bufferLength > 8) {
+      h2 ^= mixK2(k2);
+    }
+    if (bufferLength > 0) {
+      h1 ^= mixK1(k1);
+    }
+
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+
+    byte[] result = new byte[BLOCK_SIZE];
+    putLongLittleEndian(result, 0, h1);
+    putLongLittleEndian(result, 8, h2);
+    engineReset();
+    return result;
+  }
+
+  @Override
+  protected void engineReset() {
+    bufferLength = 0;
+    length = 0;
+    h1 = 0;
+    h2 = 0;
+  }
+
+  private void processBlock(byte[] block, int offset) {
+    long k1 = getLongLittleEndian(block, offset);
+    long k2 = getLongLittleEndian(block, offset + 8);
+
+    h1 ^= mixK1(k1);
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    h2 ^= mixK2(k2);
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    return k1;
+  }
+
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    return k2;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static long getLongLittleEndian(byte[] bytes, int offset) {
+    long result = 0;
+    for (int i = offset + 7; i >= offset; i--) {
+      result = (result << 8) | (bytes[i] & 0xFF);
+    }
+    return result;
+  }
+
+  private static void putLongLittleEndian(byte[] bytes, int offset, long value) {
+    for (int i = 0; i < 8; i++) {
+      bytes[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+}
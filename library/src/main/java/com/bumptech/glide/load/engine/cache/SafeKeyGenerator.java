@@ -10,27 +10,36 @@ import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
 import com.bumptech.glide.util.pool.StateVerifier;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * A class that generates and caches safe and unique string file names from {@link
  * com.bumptech.glide.load.Key}s.
+ *
+ * <p>Keys are hashed with the given {@link KeyHashStrategy}, or {@link KeyHashStrategy#SHA_256} by
+ * default. File names are lower case hex strings of at least 32 characters.
  */
 // Public API.
 @SuppressWarnings("WeakerAccess")
 public class SafeKeyGenerator {
+  private static final char[] HEX_CHAR_ARRAY = "0123456789abcdef".toCharArray();
+
   private final LruCache<Key, String> loadIdToSafeHash = new LruCache<>(1000);
-  private final Pools.Pool<PoolableDigestContainer> digestPool = FactoryPools.threadSafe(10,
-      new FactoryPools.Factory<PoolableDigestContainer>() {
-        @Override
-        public PoolableDigestContainer create() {
-          try {
-            return new PoolableDigestContainer(MessageDigest.getInstance("SHA-256"));
-          } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+  private final Pools.Pool<PoolableDigestContainer> digestPool;
+
+  public SafeKeyGenerator() {
+    this(KeyHashStrategy.SHA_256);
+  }
+
+  public SafeKeyGenerator(@NonNull final KeyHashStrategy keyHashStrategy) {
+    Preconditions.checkNotNull(keyHashStrategy);
+    digestPool = FactoryPools.threadSafe(10,
+        new FactoryPools.Factory<PoolableDigestContainer>() {
+          @Override
+          public PoolableDigestContainer create() {
+            return new PoolableDigestContainer(keyHashStrategy.newDigest());
           }
-        }
-      });
+        });
+  }
 
   public String getSafeKey(Key key) {
     String safeKey;
@@ -39,9 +48,9 @@ public class SafeKeyGenerator {
     }
     if (safeKey == null) {
       safeKey = calculateHexStringDigest(key);
-    }
-    synchronized (loadIdToSafeHash) {
-      loadIdToSafeHash.put(key, safeKey);
+      synchronized (loadIdToSafeHash) {
+        loadIdToSafeHash.put(key, safeKey);
+      }
     }
     return safeKey;
   }
@@ -51,12 +60,23 @@ public class SafeKeyGenerator {
     try {
       key.updateDiskCacheKey(container.messageDigest);
       // calling digest() will automatically reset()
-      return Util.sha256BytesToHex(container.messageDigest.digest());
+      byte[] digest = container.messageDigest.digest();
+      return digest.length == 32 ? Util.sha256BytesToHex(digest) : bytesToHex(digest);
     } finally {
       digestPool.release(container);
     }
   }
 
+  private static String bytesToHex(byte[] bytes) {
+    char[] hexChars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int value = bytes[i] & 0xFF;
+      hexChars[i * 2] = HEX_CHAR_ARRAY[value >>> 4];
+      hexChars[i * 2 + 1] = HEX_CHAR_ARRAY[value & 0x0F];
+    }
+    return new String(hexChars);
+  }
+
   private static final class PoolableDigestContainer implements FactoryPools.Poolable {
 
     @Synthetic final MessageDigest messageDigest;
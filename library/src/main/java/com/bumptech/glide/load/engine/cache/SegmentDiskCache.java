@@ -0,0 +1,761 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DiskCache} that appends entries to a small number of large segment files and finds them
+ * using a memory mapped hash table keyed by the {@link SafeKeyGenerator} hash of each key.
+ *
+ * <p>Opening the cache maps the index and lists the segment files, there's no journal to replay, so
+ * startup time doesn't grow with the number of entries. Space is reclaimed by deleting whole
+ * segments in least recently used order, where a segment is used whenever any of its entries is
+ * read. Deleted and replaced entries keep using space until their segment is evicted.
+ *
+ * <p>Entries are handed to decoders as {@link Entry}s rather than as individual files, see
+ * {@link #getEntry(Key)} and {@link com.bumptech.glide.load.model.SegmentEntryLoader}.
+ * {@link #get(Key)} is still supported for callers that need a {@link File}, but has to copy the
+ * entry into a file of its own.
+ *
+ * <p>There must be no more than one active instance for a given directory at a time.
+ */
+public final class SegmentDiskCache
+    implements DiskCache, DiskCache.ByteBufferReader, DiskCache.EntryReader {
+  private static final String TAG = "SegmentDiskCache";
+
+  private static final String INDEX_FILE_NAME = "index";
+  private static final String SEGMENT_FILE_PREFIX = "segment.";
+  private static final String EXTRACTED_FILE_PREFIX = "extracted.";
+  private static final String TEMP_FILE_PREFIX = "tmp.";
+
+  private static final int INDEX_MAGIC = 0x676c6964;
+  private static final int INDEX_VERSION = 1;
+  private static final int INDEX_HEADER_SIZE = 16;
+  private static final int SLOT_SIZE = 32;
+  // Slot layout: hash high bits, hash low bits, segment id, offset, length, state.
+  private static final int SLOT_HASH_HIGH = 0;
+  private static final int SLOT_HASH_LOW = 8;
+  private static final int SLOT_SEGMENT = 16;
+  private static final int SLOT_OFFSET = 20;
+  private static final int SLOT_LENGTH = 24;
+  private static final int SLOT_STATE = 28;
+  private static final int STATE_EMPTY = 0;
+  private static final int STATE_LIVE = 1;
+  private static final int STATE_DELETED = 2;
+
+  private static final int INITIAL_SLOT_COUNT = 4096;
+  private static final float MAX_LOAD_FACTOR = 0.75f;
+
+  // Evicting a segment frees at least 1/16th of the cache.
+  private static final int SEGMENTS_PER_CACHE = 16;
+  private static final int MIN_SEGMENT_SIZE = 1024 * 1024;
+  private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  private final File directory;
+  private final long maxSize;
+  private final int segmentSize;
+
+  // Access ordered so that iteration starts at the least recently used segment.
+  private final LinkedHashMap<Integer, Segment> segments = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Integer> extractedFileSegments = new HashMap<>();
+  private MappedByteBuffer index;
+  private int slotCount;
+  private int usedSlotCount;
+  private int liveEntryCount;
+  private Segment activeSegment;
+  private RandomAccessFile activeSegmentFile;
+  private long size;
+  private boolean isOpen;
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize) {
+    return new SegmentDiskCache(directory, maxSize);
+  }
+
+  @VisibleForTesting
+  SegmentDiskCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    segmentSize =
+        (int) Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxSize / SEGMENTS_PER_CACHE));
+  }
+
+  /**
+   * Returns the entry for the given key without copying it, or {@code null} if the key isn't in the
+   * cache.
+   */
+  @Nullable
+  @Override
+  public Entry getEntry(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    long hashHigh = parseHex(safeKey, 0);
+    long hashLow = parseHex(safeKey, 16);
+    synchronized (this) {
+      try {
+        open();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to get from disk cache", e);
+        }
+        return null;
+      }
+      int slot = findSlot(hashHigh, hashLow);
+      if (slot == -1 || getState(slot) != STATE_LIVE) {
+        return null;
+      }
+      int segmentId = index.getInt(slotPosition(slot) + SLOT_SEGMENT);
+      // Marks the segment as recently used.
+      Segment segment = segments.get(segmentId);
+      if (segment == null) {
+        return null;
+      }
+      return new Entry(this, safeKey, segmentId, index.getInt(slotPosition(slot) + SLOT_OFFSET),
+          index.getInt(slotPosition(slot) + SLOT_LENGTH));
+    }
+  }
+
+  @Override
+  public File get(Key key) {
+    Entry entry = getEntry(key);
+    if (entry == null) {
+      return null;
+    }
+    try {
+      return entry.extract();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getByteBuffer(@NonNull Object value) {
+    if (!(value instanceof Entry)) {
+      return null;
+    }
+    try {
+      return ((Entry) value).getByteBuffer();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    // We want to make sure that puts block so that data is available when put completes. We may
+    // actually not write any data if we find that data is written by the time we acquire the lock.
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    long hashHigh = parseHex(safeKey, 0);
+    long hashLow = parseHex(safeKey, 16);
+    writeLocker.acquire(safeKey);
+    File tempFile = new File(directory, TEMP_FILE_PREFIX + safeKey);
+    try {
+      synchronized (this) {
+        open();
+        int slot = findSlot(hashHigh, hashLow);
+        // We assume we only need to put once, so if data was written while we were trying to get
+        // the lock, we can simply abort.
+        if (slot != -1 && getState(slot) == STATE_LIVE) {
+          return;
+        }
+      }
+      if (writer.write(tempFile)) {
+        append(hashHigh, hashLow, tempFile);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to put to disk cache", e);
+      }
+    } finally {
+      if (tempFile.exists() && !tempFile.delete() && Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to delete temp file: " + tempFile);
+      }
+      writeLocker.release(safeKey);
+    }
+  }
+
+  @Override
+  public synchronized void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    try {
+      open();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to delete from disk cache", e);
+      }
+      return;
+    }
+    int slot = findSlot(parseHex(safeKey, 0), parseHex(safeKey, 16));
+    if (slot != -1 && getState(slot) == STATE_LIVE) {
+      removeSlot(slot);
+    }
+    deleteExtractedFile(safeKey);
+  }
+
+  @Override
+  public synchronized void clear() {
+    close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (isOwnedFile(file.getName()) && !file.delete() && Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to delete file in disk cache: " + file);
+        }
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getSize() {
+    return size;
+  }
+
+  @VisibleForTesting
+  synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Closes all open files, the next operation will open the cache again.
+   */
+  @VisibleForTesting
+  synchronized void close() {
+    if (activeSegmentFile != null) {
+      try {
+        activeSegmentFile.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+    index = null;
+    activeSegment = null;
+    activeSegmentFile = null;
+    segments.clear();
+    extractedFileSegments.clear();
+    size = 0;
+    isOpen = false;
+  }
+
+  private void open() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Unable to create disk cache directory: " + directory);
+    }
+
+    int maxSegmentId = -1;
+    File[] files = directory.listFiles();
+    List<Segment> existing = new ArrayList<>();
+    if (files != null) {
+      for (File file : files) {
+        String name = file.getName();
+        if (name.startsWith(SEGMENT_FILE_PREFIX)) {
+          int id;
+          try {
+            id = Integer.parseInt(name.substring(SEGMENT_FILE_PREFIX.length()));
+          } catch (NumberFormatException e) {
+            continue;
+          }
+          maxSegmentId = Math.max(maxSegmentId, id);
+          Segment segment = new Segment(id, file);
+          segment.length = file.length();
+          if (segment.length == 0) {
+            deleteFile(file);
+          } else {
+            existing.add(segment);
+          }
+        } else if (name.startsWith(EXTRACTED_FILE_PREFIX) || name.startsWith(TEMP_FILE_PREFIX)) {
+          // Left over from a previous run, extracted files are only tracked in memory.
+          deleteFile(file);
+        }
+      }
+    }
+
+    // Older segments were written earlier and so are treated as less recently used.
+    sortById(existing);
+    for (Segment segment : existing) {
+      segments.put(segment.id, segment);
+      size += segment.length;
+    }
+
+    File indexFile = new File(directory, INDEX_FILE_NAME);
+    if (!mapIndex(indexFile)) {
+      // Without a valid index there's no way to find entries in existing segments.
+      for (Segment segment : existing) {
+        deleteFile(segment.file);
+      }
+      segments.clear();
+      size = 0;
+      createIndex(indexFile, INITIAL_SLOT_COUNT);
+    }
+    validateIndex();
+
+    // Start a new segment rather than appending to one that may have been partially written.
+    activeSegment = new Segment(maxSegmentId + 1, segmentFile(maxSegmentId + 1));
+    activeSegmentFile = new RandomAccessFile(activeSegment.file, "rw");
+    activeSegmentFile.setLength(0);
+    segments.put(activeSegment.id, activeSegment);
+    isOpen = true;
+  }
+
+  private boolean mapIndex(File indexFile) throws IOException {
+    if (!indexFile.exists() || indexFile.length() < INDEX_HEADER_SIZE) {
+      return false;
+    }
+    MappedByteBuffer mapped = map(indexFile, indexFile.length(), FileChannel.MapMode.READ_WRITE);
+    int mappedSlotCount = mapped.getInt(8);
+    if (mapped.getInt(0) != INDEX_MAGIC
+        || mapped.getInt(4) != INDEX_VERSION
+        || Integer.bitCount(mappedSlotCount) != 1
+        || indexFile.length() != INDEX_HEADER_SIZE + (long) mappedSlotCount * SLOT_SIZE) {
+      return false;
+    }
+    index = mapped;
+    slotCount = mappedSlotCount;
+    return true;
+  }
+
+  private void createIndex(File indexFile, int newSlotCount) throws IOException {
+    long length = INDEX_HEADER_SIZE + (long) newSlotCount * SLOT_SIZE;
+    RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+    try {
+      // Truncate first so that the new index starts out filled with zeros, or empty slots.
+      file.setLength(0);
+      file.setLength(length);
+    } finally {
+      file.close();
+    }
+    index = map(indexFile, length, FileChannel.MapMode.READ_WRITE);
+    index.putInt(0, INDEX_MAGIC);
+    index.putInt(4, INDEX_VERSION);
+    index.putInt(8, newSlotCount);
+    slotCount = newSlotCount;
+    usedSlotCount = 0;
+    liveEntryCount = 0;
+  }
+
+  /**
+   * Drops index entries that point to segments that are missing or too short, which can happen if
+   * the process dies while writing, and counts the slots in use.
+   */
+  private void validateIndex() {
+    usedSlotCount = 0;
+    liveEntryCount = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      int state = getState(slot);
+      if (state == STATE_EMPTY) {
+        continue;
+      }
+      usedSlotCount++;
+      if (state != STATE_LIVE) {
+        continue;
+      }
+      int position = slotPosition(slot);
+      Segment segment = segments.get(index.getInt(position + SLOT_SEGMENT));
+      long end = (long) index.getInt(position + SLOT_OFFSET) + index.getInt(position + SLOT_LENGTH);
+      if (segment == null || end > segment.length) {
+        index.putInt(position + SLOT_STATE, STATE_DELETED);
+      } else {
+        liveEntryCount++;
+      }
+    }
+  }
+
+  private void append(long hashHigh, long hashLow, File data) throws IOException {
+    long dataLength = data.length();
+    if (dataLength > Integer.MAX_VALUE || dataLength > maxSize) {
+      return;
+    }
+    synchronized (this) {
+      open();
+      if (activeSegment.length > 0 && activeSegment.length + dataLength > segmentSize) {
+        startNewSegment();
+      }
+      int offset = (int) activeSegment.length;
+      FileChannel source = new RandomAccessFile(data, "r").getChannel();
+      try {
+        FileChannel destination = activeSegmentFile.getChannel();
+        long transferred = 0;
+        while (transferred < dataLength) {
+          long count =
+              destination.transferFrom(source, offset + transferred, dataLength - transferred);
+          if (count <= 0) {
+            throw new IOException("Unable to copy data into segment");
+          }
+          transferred += count;
+        }
+      } finally {
+        source.close();
+      }
+      activeSegment.length += dataLength;
+      size += dataLength;
+
+      if (usedSlotCount + 1 > slotCount * MAX_LOAD_FACTOR) {
+        rebuildIndex();
+      }
+      int slot = findSlotForInsert(hashHigh, hashLow);
+      int position = slotPosition(slot);
+      int previousState = getState(slot);
+      if (previousState == STATE_EMPTY) {
+        usedSlotCount++;
+      }
+      index.putLong(position + SLOT_HASH_HIGH, hashHigh);
+      index.putLong(position + SLOT_HASH_LOW, hashLow);
+      index.putInt(position + SLOT_SEGMENT, activeSegment.id);
+      index.putInt(position + SLOT_OFFSET, offset);
+      index.putInt(position + SLOT_LENGTH, (int) dataLength);
+      // Written last so that a partially written slot is never live.
+      index.putInt(position + SLOT_STATE, STATE_LIVE);
+      liveEntryCount++;
+
+      trimToSize();
+    }
+  }
+
+  private void startNewSegment() throws IOException {
+    activeSegmentFile.close();
+    int id = activeSegment.id + 1;
+    activeSegment = new Segment(id, segmentFile(id));
+    activeSegmentFile = new RandomAccessFile(activeSegment.file, "rw");
+    activeSegmentFile.setLength(0);
+    segments.put(id, activeSegment);
+  }
+
+  private void trimToSize() {
+    Iterator<Segment> iterator = segments.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      Segment segment = iterator.next();
+      if (segment == activeSegment) {
+        continue;
+      }
+      iterator.remove();
+      evict(segment);
+    }
+  }
+
+  private void evict(Segment segment) {
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (getState(slot) == STATE_LIVE
+          && index.getInt(slotPosition(slot) + SLOT_SEGMENT) == segment.id) {
+        removeSlot(slot);
+      }
+    }
+    Iterator<Map.Entry<String, Integer>> extracted = extractedFileSegments.entrySet().iterator();
+    while (extracted.hasNext()) {
+      Map.Entry<String, Integer> entry = extracted.next();
+      if (entry.getValue() == segment.id) {
+        deleteFile(extractedFile(entry.getKey()));
+        extracted.remove();
+      }
+    }
+    deleteFile(segment.file);
+    size -= segment.length;
+  }
+
+  /**
+   * Rewrites the index with only its live entries, doubling its size if it's still more than half
+   * full.
+   */
+  private void rebuildIndex() throws IOException {
+    int newSlotCount = liveEntryCount + 1 > slotCount / 2 ? slotCount * 2 : slotCount;
+    long[] hashes = new long[liveEntryCount * 2];
+    int[] locations = new int[liveEntryCount * 3];
+    int count = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (getState(slot) == STATE_LIVE) {
+        int position = slotPosition(slot);
+        hashes[count * 2] = index.getLong(position + SLOT_HASH_HIGH);
+        hashes[count * 2 + 1] = index.getLong(position + SLOT_HASH_LOW);
+        locations[count * 3] = index.getInt(position + SLOT_SEGMENT);
+        locations[count * 3 + 1] = index.getInt(position + SLOT_OFFSET);
+        locations[count * 3 + 2] = index.getInt(position + SLOT_LENGTH);
+        count++;
+      }
+    }
+
+    createIndex(new File(directory, INDEX_FILE_NAME), newSlotCount);
+    for (int i = 0; i < count; i++) {
+      int slot = findSlotForInsert(hashes[i * 2], hashes[i * 2 + 1]);
+      int position = slotPosition(slot);
+      index.putLong(position + SLOT_HASH_HIGH, hashes[i * 2]);
+      index.putLong(position + SLOT_HASH_LOW, hashes[i * 2 + 1]);
+      index.putInt(position + SLOT_SEGMENT, locations[i * 3]);
+      index.putInt(position + SLOT_OFFSET, locations[i * 3 + 1]);
+      index.putInt(position + SLOT_LENGTH, locations[i * 3 + 2]);
+      index.putInt(position + SLOT_STATE, STATE_LIVE);
+    }
+    usedSlotCount = count;
+    liveEntryCount = count;
+  }
+
+  private void removeSlot(int slot) {
+    // Deleted slots keep their hash so that lookups continue probing past them.
+    index.putInt(slotPosition(slot) + SLOT_STATE, STATE_DELETED);
+    liveEntryCount--;
+  }
+
+  /**
+   * Returns the slot holding the given hash, live or deleted, or -1 if there is none.
+   */
+  private int findSlot(long hashHigh, long hashLow) {
+    int mask = slotCount - 1;
+    int slot = (int) (hashLow ^ (hashLow >>> 32)) & mask;
+    for (int probes = 0; probes < slotCount; probes++) {
+      int state = getState(slot);
+      if (state == STATE_EMPTY) {
+        return -1;
+      }
+      int position = slotPosition(slot);
+      if (index.getLong(position + SLOT_HASH_LOW) == hashLow
+          && index.getLong(position + SLOT_HASH_HIGH) == hashHigh) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int findSlotForInsert(long hashHigh, long hashLow) {
+    int existing = findSlot(hashHigh, hashLow);
+    if (existing != -1) {
+      if (getState(existing) == STATE_LIVE) {
+        liveEntryCount--;
+      }
+      return existing;
+    }
+    int mask = slotCount - 1;
+    int slot = (int) (hashLow ^ (hashLow >>> 32)) & mask;
+    while (getState(slot) != STATE_EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private int getState(int slot) {
+    return index.getInt(slotPosition(slot) + SLOT_STATE);
+  }
+
+  private static int slotPosition(int slot) {
+    return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+  }
+
+  /**
+   * Returns a read only view of the given entry's data.
+   */
+  @Synthetic
+  ByteBuffer read(Entry entry) throws IOException {
+    synchronized (this) {
+      Segment segment = isOpen ? segments.get(entry.segmentId) : null;
+      if (segment == null) {
+        throw new FileNotFoundException("Segment was evicted: " + entry.segmentId);
+      }
+      long end = (long) entry.offset + entry.length;
+      if (segment.mapped == null || segment.mapped.capacity() < end) {
+        // The active segment grows as entries are appended, so it's remapped as needed.
+        segment.mapped = map(segment.file, segment.length, FileChannel.MapMode.READ_ONLY);
+      }
+      ByteBuffer result = segment.mapped.duplicate();
+      result.position(entry.offset);
+      result.limit((int) end);
+      return result.slice();
+    }
+  }
+
+  /**
+   * Copies the given entry into a file of its own and returns it.
+   */
+  @Synthetic
+  File extract(Entry entry) throws IOException {
+    File file = extractedFile(entry.safeKey);
+    synchronized (this) {
+      Integer segmentId = extractedFileSegments.get(entry.safeKey);
+      if (segmentId != null && segmentId == entry.segmentId && file.length() == entry.length) {
+        return file;
+      }
+    }
+    ByteBuffer data = read(entry);
+    File tempFile = new File(directory, TEMP_FILE_PREFIX + EXTRACTED_FILE_PREFIX + entry.safeKey);
+    ByteBufferUtil.toFile(data, tempFile);
+    synchronized (this) {
+      if (!segments.containsKey(entry.segmentId)) {
+        deleteFile(tempFile);
+        throw new FileNotFoundException("Segment was evicted: " + entry.segmentId);
+      }
+      if (!tempFile.renameTo(file)) {
+        deleteFile(tempFile);
+        throw new IOException("Unable to rename extracted file: " + file);
+      }
+      extractedFileSegments.put(entry.safeKey, entry.segmentId);
+    }
+    return file;
+  }
+
+  private void deleteExtractedFile(String safeKey) {
+    if (extractedFileSegments.remove(safeKey) != null) {
+      deleteFile(extractedFile(safeKey));
+    }
+  }
+
+  private File extractedFile(String safeKey) {
+    return new File(directory, EXTRACTED_FILE_PREFIX + safeKey);
+  }
+
+  private File segmentFile(int id) {
+    return new File(directory, SEGMENT_FILE_PREFIX + id);
+  }
+
+  private static boolean isOwnedFile(String name) {
+    return name.equals(INDEX_FILE_NAME)
+        || name.startsWith(SEGMENT_FILE_PREFIX)
+        || name.startsWith(EXTRACTED_FILE_PREFIX)
+        || name.startsWith(TEMP_FILE_PREFIX);
+  }
+
+  private static void deleteFile(File file) {
+    if (!file.delete() && file.exists() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Unable to delete file in disk cache: " + file);
+    }
+  }
+
+  private static MappedByteBuffer map(File file, long length, FileChannel.MapMode mode)
+      throws IOException {
+    RandomAccessFile randomAccessFile =
+        new RandomAccessFile(file, mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw");
+    try {
+      // The mapping remains valid after the file is closed.
+      return randomAccessFile.getChannel().map(mode, 0, length);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  private static void sortById(List<Segment> segments) {
+    // Insertion sort, there are only a few segments.
+    for (int i = 1; i < segments.size(); i++) {
+      Segment current = segments.get(i);
+      int j = i - 1;
+      while (j >= 0 && segments.get(j).id > current.id) {
+        segments.set(j + 1, segments.get(j));
+        j--;
+      }
+      segments.set(j + 1, current);
+    }
+  }
+
+  /**
+   * Parses 16 hex characters from the given {@link SafeKeyGenerator} key starting at the given
+   * index.
+   */
+  private static long parseHex(String safeKey, int start) {
+    long result = 0;
+    for (int i = start; i < start + 16; i++) {
+      result = (result << 4) | Character.digit(safeKey.charAt(i), 16);
+    }
+    return result;
+  }
+
+  private static final class Segment {
+    final int id;
+    final File file;
+    long length;
+    @Nullable MappedByteBuffer mapped;
+
+    Segment(int id, File file) {
+      this.id = id;
+      this.file = file;
+    }
+  }
+
+  /**
+   * The location of a single cache entry within a segment.
+   *
+   * <p>Entries remain readable until their segment is evicted. Reading an evicted entry throws a
+   * {@link FileNotFoundException}.
+   */
+  public static final class Entry {
+    private final SegmentDiskCache cache;
+    @Synthetic final String safeKey;
+    @Synthetic final int segmentId;
+    @Synthetic final int offset;
+    @Synthetic final int length;
+
+    @Synthetic
+    Entry(SegmentDiskCache cache, String safeKey, int segmentId, int offset, int length) {
+      this.cache = cache;
+      this.safeKey = safeKey;
+      this.segmentId = segmentId;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** Returns the size of the entry in bytes. */
+    public int getLength() {
+      return length;
+    }
+
+    /** Returns a read only {@link ByteBuffer} backed by the memory mapped segment. */
+    @NonNull
+    public ByteBuffer getByteBuffer() throws IOException {
+      return cache.read(this);
+    }
+
+    /** Returns an {@link InputStream} over the entry's data. */
+    @NonNull
+    public InputStream getInputStream() throws IOException {
+      return ByteBufferUtil.toStream(getByteBuffer());
+    }
+
+    /**
+     * Returns a {@link File} containing only this entry's data, copying it out of its segment if
+     * necessary.
+     */
+    @NonNull
+    public File extract() throws IOException {
+      return cache.extract(this);
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{"
+          + "safeKey=" + safeKey
+          + ", segmentId=" + segmentId
+          + ", offset=" + offset
+          + ", length=" + length
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.content.Context;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory.CacheDirectoryGetter;
+import java.io.File;
+
+/**
+ * Creates a {@link SegmentDiskCache} in the specified disk cache directory, or by default in a
+ * directory in the application's internal cache directory.
+ *
+ * <p>The cache uses a different directory than {@link InternalCacheDiskCacheFactory} by default
+ * because the two caches store entries in incompatible formats.
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class SegmentDiskCacheFactory implements DiskCache.Factory {
+  public static final String DEFAULT_SEGMENT_DISK_CACHE_DIR = "image_manager_segment_disk_cache";
+
+  private final long diskCacheSize;
+  private final CacheDirectoryGetter cacheDirectoryGetter;
+
+  public SegmentDiskCacheFactory(Context context) {
+    this(context, DEFAULT_SEGMENT_DISK_CACHE_DIR, DiskCache.Factory.DEFAULT_DISK_CACHE_SIZE);
+  }
+
+  public SegmentDiskCacheFactory(Context context, long diskCacheSize) {
+    this(context, DEFAULT_SEGMENT_DISK_CACHE_DIR, diskCacheSize);
+  }
+
+  public SegmentDiskCacheFactory(final Context context, final String diskCacheName,
+      long diskCacheSize) {
+    this(new CacheDirectoryGetter() {
+      @Override
+      public File getCacheDirectory() {
+        File cacheDirectory = context.getCacheDir();
+        if (cacheDirectory == null) {
+          return null;
+        }
+        if (diskCacheName != null) {
+          return new File(cacheDirectory, diskCacheName);
+        }
+        return cacheDirectory;
+      }
+    }, diskCacheSize);
+  }
+
+  /**
+   * When using this constructor {@link CacheDirectoryGetter#getCacheDirectory()} will be called out
+   * of UI thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache.
+   */
+  public SegmentDiskCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this.diskCacheSize = diskCacheSize;
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    return SegmentDiskCache.create(cacheDir, diskCacheSize);
+  }
+}
@@ -0,0 +1,554 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sharded in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that uses a
+ * W-TinyLFU admission policy.
+ *
+ * <p>Keys are split across a fixed number of shards, each with its own lock, so that threads
+ * loading different keys rarely contend with each other. The size limit is shared across all
+ * shards, so a single large resource can use as much of the cache as it could in
+ * {@link LruResourceCache}.
+ *
+ * <p>New entries are first added to an LRU window. Entries that fall out of the window are only
+ * admitted to the main LRU region if there's room for them or if they've been seen more often
+ * than the entries they would replace, as estimated by a {@link FrequencySketch}. As a result, a
+ * burst of resources that are only ever seen once, like the thumbnails shown while flinging
+ * through a large grid, can't push out resources that are requested repeatedly.
+ *
+ * <p>{@link com.bumptech.glide.load.engine.Engine} removes resources from the memory cache while
+ * they're in use and puts them back when they're released. So that every hit isn't treated as a
+ * new entry, resources removed from the main region keep their place there until they're put
+ * back, or until they become the least recently used entry and are dropped.
+ *
+ * <p>{@link MemoryCache.ResourceRemovedListener} is called with every resource that is evicted or
+ * rejected, but never while a shard lock is held.
+ */
+public class TinyLfuResourceCache implements MemoryCache, BudgetedMemory {
+  private static final int DEFAULT_SHARD_COUNT = 8;
+  // Window sizes are in basis points of each shard's share of the cache.
+  private static final int INITIAL_WINDOW_BASIS_POINTS = 2_000;
+  private static final int MIN_WINDOW_BASIS_POINTS = 100;
+  private static final int MAX_WINDOW_BASIS_POINTS = 8_000;
+  private static final int INITIAL_STEP_BASIS_POINTS = 625;
+  private static final int MIN_STEP_BASIS_POINTS = 50;
+  private static final float STEP_DECAY = 0.98f;
+  private static final float RESTART_THRESHOLD = 0.05f;
+  private static final int MIN_SAMPLE_SIZE = 128;
+  // Used only for the initial size of the frequency sketches, which grow if more entries fit.
+  private static final int ESTIMATED_AVERAGE_RESOURCE_SIZE = 64 * 1024;
+
+  private final Shard[] shards;
+  private final int shardMask;
+  private final long initialMaxSize;
+  private final AtomicInteger totalWindowBasisPoints = new AtomicInteger();
+  private final AtomicInteger evictionCursor = new AtomicInteger();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private volatile long maxSize;
+  private volatile ResourceRemovedListener listener;
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public TinyLfuResourceCache(long size) {
+    this(size, DEFAULT_SHARD_COUNT);
+  }
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size       The maximum size in bytes the in memory cache can use.
+   * @param shardCount The number of independently locked shards, rounded up to a power of two.
+   */
+  public TinyLfuResourceCache(long size, int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be > 0, but was: " + shardCount);
+    }
+    int count = Integer.highestOneBit(shardCount);
+    if (count != shardCount) {
+      count <<= 1;
+    }
+    initialMaxSize = size;
+    maxSize = size;
+    shardMask = count - 1;
+    shards = new Shard[count];
+    int expectedEntriesPerShard =
+        (int) Math.min(Integer.MAX_VALUE, size / ESTIMATED_AVERAGE_RESOURCE_SIZE / count);
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(expectedEntriesPerShard);
+    }
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    long result = 0;
+    for (Shard shard : shards) {
+      result += shard.size.get();
+    }
+    return result;
+  }
+
+  @Synthetic
+  long getMainSize() {
+    long result = 0;
+    for (Shard shard : shards) {
+      result += shard.mainSize.get();
+    }
+    return result;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    trimToSize(maxSize);
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> remove(@NonNull Key key) {
+    Shard shard = shardFor(key);
+    Resource<?> result;
+    synchronized (shard) {
+      result = shard.remove(key);
+    }
+    if (result != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+    return result;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  @Override
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    Shard shard = shardFor(key);
+    if (resource == null) {
+      Resource<?> old;
+      synchronized (shard) {
+        old = shard.invalidate(key);
+      }
+      notifyRemoved(old);
+      return old;
+    }
+    int resourceSize = resource.getSize();
+    if (resourceSize >= maxSize) {
+      evictionCount.incrementAndGet();
+      notifyRemoved(resource);
+      return null;
+    }
+
+    Resource<?> old;
+    List<Resource<?>> removed;
+    synchronized (shard) {
+      old = shard.put(key, resource, resourceSize);
+      removed = shard.drainRemoved();
+    }
+    if (old != null && !old.equals(resource)) {
+      notifyRemoved(old);
+    }
+    if (removed != null) {
+      evictionCount.addAndGet(removed.size());
+    }
+    notifyRemoved(removed);
+
+    if (getCurrentSize() > maxSize) {
+      trimToSize(maxSize);
+    }
+    return old;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /**
+   * Evicts entries round robin across shards, holding at most one shard lock at a time, until the
+   * current size is less than or equal to the given size. Windows are only evicted from once
+   * every main region is empty.
+   */
+  private void trimToSize(long size) {
+    int index = evictionCursor.getAndIncrement();
+    int consecutiveEmptyShards = 0;
+    boolean includeWindows = false;
+    while (getCurrentSize() > size) {
+      Shard shard = shards[index++ & shardMask];
+      Resource<?> evicted;
+      synchronized (shard) {
+        evicted = shard.evictOne(includeWindows);
+      }
+      if (evicted != null) {
+        consecutiveEmptyShards = 0;
+        evictionCount.incrementAndGet();
+        notifyRemoved(evicted);
+      } else if (++consecutiveEmptyShards == shards.length) {
+        if (includeWindows) {
+          break;
+        }
+        includeWindows = true;
+        consecutiveEmptyShards = 0;
+      }
+    }
+  }
+
+  private Shard shardFor(Key key) {
+    // Use different bits than the shard's HashMaps so that each shard's keys are still spread
+    // across all of its buckets.
+    int hash = key.hashCode() * 0x85ebca6b;
+    return shards[(hash >>> 16) & shardMask];
+  }
+
+  private void notifyRemoved(@Nullable List<Resource<?>> removed) {
+    if (removed == null) {
+      return;
+    }
+    for (int i = 0, size = removed.size(); i < size; i++) {
+      notifyRemoved(removed.get(i));
+    }
+  }
+
+  private void notifyRemoved(@Nullable Resource<?> removed) {
+    ResourceRemovedListener listener = this.listener;
+    if (listener != null && removed != null) {
+      listener.onResourceRemoved(removed);
+    }
+  }
+
+  /**
+   * An entry in a main region, {@link #resource} is {@code null} while the resource has been
+   * removed from the cache but the entry is still holding its place.
+   */
+  private static final class Entry {
+    @Nullable
+    @Synthetic
+    Resource<?> resource;
+    @Synthetic
+    int size;
+
+    @Synthetic
+    Entry(@NonNull Resource<?> resource, int size) {
+      this.resource = resource;
+      this.size = size;
+    }
+  }
+
+  /**
+   * A window and main LRU region for a subset of keys. All methods must be called while holding
+   * the shard's lock.
+   */
+  private final class Shard {
+    private final Map<Key, Resource<?>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    // The size of all resources currently held by the shard. Sizes are only updated while holding
+    // the shard's lock, but may be read at any time.
+    final AtomicLong size = new AtomicLong();
+    // The size of all entries in the main region, including those whose resources were removed.
+    final AtomicLong mainSize = new AtomicLong();
+    private final FrequencySketch sketch;
+    private long windowSize;
+    private int windowBasisPoints = INITIAL_WINDOW_BASIS_POINTS;
+    private int stepBasisPoints = INITIAL_STEP_BASIS_POINTS;
+    private int sampleHits;
+    private int sampleMisses;
+    private float previousHitRate = -1;
+    @Nullable
+    private List<Resource<?>> removed;
+
+    @Synthetic
+    Shard(int expectedEntries) {
+      sketch = new FrequencySketch(expectedEntries);
+      totalWindowBasisPoints.addAndGet(windowBasisPoints);
+    }
+
+    /**
+     * Returns and clears the resources evicted or rejected by {@link #put(Key, Resource, int)},
+     * or returns {@code null} if there weren't any.
+     */
+    @Nullable
+    List<Resource<?>> drainRemoved() {
+      List<Resource<?>> result = removed;
+      removed = null;
+      return result;
+    }
+
+    @Nullable
+    Resource<?> remove(Key key) {
+      sketch.increment(key.hashCode());
+      Resource<?> result = window.remove(key);
+      if (result != null) {
+        windowSize -= result.getSize();
+        size.addAndGet(-result.getSize());
+      } else {
+        // Also marks the entry as the most recently used.
+        Entry entry = main.get(key);
+        if (entry != null && entry.resource != null) {
+          result = entry.resource;
+          entry.resource = null;
+          size.addAndGet(-entry.size);
+        }
+      }
+      recordAccess(/*isHit=*/ result != null);
+      return result;
+    }
+
+    /**
+     * Adjusts the size of the window after each sample period to whichever direction improved the
+     * hit rate during the previous period, so that workloads that favor recency get a larger
+     * window and workloads that favor frequency get a larger main region.
+     */
+    private void recordAccess(boolean isHit) {
+      if (isHit) {
+        sampleHits++;
+      } else {
+        sampleMisses++;
+      }
+      int sampleSize = sampleHits + sampleMisses;
+      if (sampleSize < Math.max(MIN_SAMPLE_SIZE, 10 * (window.size() + main.size()))) {
+        return;
+      }
+      float hitRate = sampleHits / (float) sampleSize;
+      sampleHits = 0;
+      sampleMisses = 0;
+      if (previousHitRate >= 0) {
+        float change = hitRate - previousHitRate;
+        if (change < 0) {
+          stepBasisPoints = -stepBasisPoints;
+        }
+        if (Math.abs(change) >= RESTART_THRESHOLD) {
+          stepBasisPoints = stepBasisPoints > 0
+              ? INITIAL_STEP_BASIS_POINTS : -INITIAL_STEP_BASIS_POINTS;
+        } else if (Math.abs(stepBasisPoints) > MIN_STEP_BASIS_POINTS) {
+          stepBasisPoints = (int) (stepBasisPoints * STEP_DECAY);
+        }
+        int updated = Math.max(MIN_WINDOW_BASIS_POINTS,
+            Math.min(MAX_WINDOW_BASIS_POINTS, windowBasisPoints + stepBasisPoints));
+        totalWindowBasisPoints.addAndGet(updated - windowBasisPoints);
+        windowBasisPoints = updated;
+      }
+      previousHitRate = hitRate;
+    }
+
+    /**
+     * Removes the given key from both regions without recording an access.
+     */
+    @Nullable
+    Resource<?> invalidate(Key key) {
+      Resource<?> result = window.remove(key);
+      if (result != null) {
+        windowSize -= result.getSize();
+        size.addAndGet(-result.getSize());
+        return result;
+      }
+      Entry entry = main.remove(key);
+      if (entry == null) {
+        return null;
+      }
+      mainSize.addAndGet(-entry.size);
+      if (entry.resource != null) {
+        size.addAndGet(-entry.size);
+      }
+      return entry.resource;
+    }
+
+    /**
+     * Adds the given resource and returns the resource previously cached for the given key, if
+     * any.
+     */
+    @Nullable
+    Resource<?> put(Key key, Resource<?> resource, int resourceSize) {
+      sketch.increment(key.hashCode());
+      size.addAndGet(resourceSize);
+
+      Resource<?> old;
+      Entry entry = main.get(key);
+      if (entry != null) {
+        // Usually a resource that was removed while it was in use and is now being returned.
+        old = entry.resource;
+        if (old != null) {
+          size.addAndGet(-entry.size);
+        }
+        mainSize.addAndGet(resourceSize - entry.size);
+        entry.resource = resource;
+        entry.size = resourceSize;
+        long maxMainSize = getMaxMainSize();
+        while (getMainSize() > maxMainSize && main.size() > 1) {
+          addRemoved(evictEldest());
+        }
+      } else {
+        old = window.put(key, resource);
+        windowSize += resourceSize;
+        if (old != null) {
+          windowSize -= old.getSize();
+          size.addAndGet(-old.getSize());
+        }
+        sketch.ensureCapacity(window.size() + main.size());
+        evictFromWindow();
+      }
+
+      // The window may be under its limit while the cache as a whole is full.
+      while (getCurrentSize() > maxSize && !main.isEmpty()) {
+        addRemoved(evictEldest());
+      }
+      return old;
+    }
+
+    private long getMaxMainSize() {
+      return maxSize - maxSize * totalWindowBasisPoints.get() / 10_000 / shards.length;
+    }
+
+    private void evictFromWindow() {
+      long maxWindowSize = maxSize * windowBasisPoints / 10_000 / shards.length;
+      while (windowSize > maxWindowSize && window.size() > 1) {
+        Iterator<Map.Entry<Key, Resource<?>>> iterator = window.entrySet().iterator();
+        Map.Entry<Key, Resource<?>> eldest = iterator.next();
+        Key candidateKey = eldest.getKey();
+        Resource<?> candidate = eldest.getValue();
+        iterator.remove();
+        int candidateSize = candidate.getSize();
+        windowSize -= candidateSize;
+        if (admit(candidateKey, candidateSize)) {
+          main.put(candidateKey, new Entry(candidate, candidateSize));
+          mainSize.addAndGet(candidateSize);
+        } else {
+          size.addAndGet(-candidateSize);
+          addRemoved(candidate);
+        }
+      }
+    }
+
+    /**
+     * Returns {@code true} after making room in the main region for the given candidate if
+     * there's already room for it or if it's been seen more often than each of the least recently
+     * used entries it displaces, or returns {@code false} otherwise.
+     */
+    private boolean admit(Key candidateKey, int candidateSize) {
+      long maxMainSize = getMaxMainSize();
+      int candidateFrequency = -1;
+      while (getMainSize() + candidateSize > maxMainSize && !main.isEmpty()) {
+        Map.Entry<Key, Entry> victim = main.entrySet().iterator().next();
+        // Entries that were removed long ago and never returned are dropped without a contest.
+        if (victim.getValue().resource != null) {
+          if (candidateFrequency == -1) {
+            candidateFrequency = sketch.frequency(candidateKey.hashCode());
+          }
+          if (candidateFrequency <= sketch.frequency(victim.getKey().hashCode())) {
+            return false;
+          }
+        }
+        addRemoved(evictEldest());
+      }
+      return true;
+    }
+
+    /**
+     * Evicts the least recently used entry in the main region and returns its resource, or
+     * {@code null} if the entry's resource has been removed.
+     */
+    @Nullable
+    private Resource<?> evictEldest() {
+      Iterator<Entry> iterator = main.values().iterator();
+      Entry eldest = iterator.next();
+      iterator.remove();
+      mainSize.addAndGet(-eldest.size);
+      if (eldest.resource != null) {
+        size.addAndGet(-eldest.size);
+      }
+      return eldest.resource;
+    }
+
+    private void addRemoved(@Nullable Resource<?> resource) {
+      if (resource == null) {
+        return;
+      }
+      if (removed == null) {
+        removed = new ArrayList<>();
+      }
+      removed.add(resource);
+    }
+
+    /**
+     * Evicts and returns the least recently used resource from the main region, or optionally from
+     * the window if the main region is empty, or returns {@code null} if there's nothing to evict.
+     */
+    @Nullable
+    Resource<?> evictOne(boolean includeWindow) {
+      while (!main.isEmpty()) {
+        Resource<?> evicted = evictEldest();
+        if (evicted != null) {
+          return evicted;
+        }
+      }
+      if (!includeWindow || window.isEmpty()) {
+        return null;
+      }
+      Iterator<Resource<?>> iterator = window.values().iterator();
+      Resource<?> evicted = iterator.next();
+      iterator.remove();
+      windowSize -= evicted.getSize();
+      size.addAndGet(-evicted.getSize());
+      return evicted;
+    }
+  }
+}
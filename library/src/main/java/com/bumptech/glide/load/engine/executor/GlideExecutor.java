@@ -3,8 +3,10 @@ package com.bumptech.glide.load.engine.executor;
 import android.os.StrictMode;
 import android.os.StrictMode.ThreadPolicy;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.util.Synthetic;
 import java.util.Collection;
 import java.util.List;
@@ -51,6 +53,18 @@ public final class GlideExecutor implements ExecutorService {
 
   private static final String ANIMATION_EXECUTOR_NAME = "animation";
 
+  /**
+   * The default thread name prefix for executors used to decode data retrieved from source on a
+   * separate executor.
+   */
+  private static final String DEFAULT_DECODE_EXECUTOR_NAME = "decode";
+
+  /**
+   * The default number of loads for the same host that executors returned from
+   * {@link #newVirtualThreadSourceExecutor()} run at once.
+   */
+  private static final int DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST = 6;
+
   /**
    * The default keep alive time for threads in our cached thread pools in milliseconds.
    */
@@ -194,6 +208,54 @@ public final class GlideExecutor implements ExecutorService {
             new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
   }
 
+  /**
+   * Returns a new fixed size work stealing pool with the default thread count returned from
+   * {@link #calculateBestThreadCount()}, the {@link #DEFAULT_SOURCE_EXECUTOR_NAME} thread name
+   * prefix, and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * @see #newWorkStealingSourceExecutor(int, String, UncaughtThrowableStrategy)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public static GlideExecutor newWorkStealingSourceExecutor() {
+    return newWorkStealingSourceExecutor(
+        calculateBestThreadCount(),
+        DEFAULT_SOURCE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new fixed size work stealing pool with the given thread count, thread name prefix,
+   * and {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Each thread has its own queue with a lane per {@link Priority} and steals work from the
+   * others when its own queue is empty. Unlike {@link #newSourceExecutor()}, which orders all jobs
+   * in a single lock protected heap, threads only contend when they steal, so this pool scales to
+   * thread counts above the default on devices and JVMs with many cores. Jobs still start in
+   * priority order, and jobs with the same priority start in the order they were queued.
+   *
+   * <p>This pool also records how long jobs of each priority wait before they start, see
+   * {@link #getQueueWaitStats()}.
+   *
+   * <p>Source executors allow network operations on their threads.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newWorkStealingSourceExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new PriorityWorkStealingExecutor(
+            threadCount, new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
   /**
    * Returns a new unlimited thread pool with zero core thread count to make sure no threads are
    * created by default, {@link #KEEP_ALIVE_TIME_MS} keep alive
@@ -221,6 +283,128 @@ public final class GlideExecutor implements ExecutorService {
             false)));
   }
 
+  /**
+   * Returns {@code true} if this runtime supports the virtual threads used by
+   * {@link #newVirtualThreadSourceExecutor()}.
+   *
+   * <p>Virtual threads are only available on JVMs, starting with Java 21, never on Android.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VirtualThreadExecutor.newVirtualThreadFactory(DEFAULT_SOURCE_EXECUTOR_NAME) != null;
+  }
+
+  /**
+   * Returns a new executor that runs each load on its own virtual thread, with at most
+   * {@link #DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST} loads for the same host running at once, and
+   * the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * @see #newVirtualThreadSourceExecutor(int, String, UncaughtThrowableStrategy)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public static GlideExecutor newVirtualThreadSourceExecutor() {
+    return newVirtualThreadSourceExecutor(
+        DEFAULT_MAX_CONCURRENT_FETCHES_PER_HOST,
+        DEFAULT_SOURCE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new executor that runs each load on its own virtual thread, with at most the given
+   * number of loads for the same host running at once.
+   *
+   * <p>Fetchers like {@link com.bumptech.glide.load.data.HttpUrlFetcher} block their thread for
+   * the entire download. A virtual thread gives up its carrier thread while it's blocked, so
+   * hundreds of downloads can wait on the network at once without a thread for each of them, and
+   * without the unbounded pool of platform threads that {@link #newUnlimitedSourceExecutor()}
+   * creates. Loads over a host's limit wait for a running load for that host to finish. Loads for
+   * models without a host aren't limited.
+   *
+   * <p>Decoding is CPU bound, so running hundreds of decodes at once only adds memory pressure.
+   * Pair this executor with a small platform thread pool from {@link #newDecodeExecutor()} so that
+   * data is decoded there once it's fetched, see
+   * {@link com.bumptech.glide.GlideBuilder#setDecodeExecutor(GlideExecutor)}. With the default
+   * {@link com.bumptech.glide.load.engine.DiskCacheStrategy}, data is written to the disk cache
+   * on the virtual thread, so the entire download finishes before the decode starts.
+   *
+   * <p>Loads start as soon as they're executed, so their {@link Priority} is ignored.
+   *
+   * <p>Virtual threads are only available on Java 21+ JVMs, see
+   * {@link #isVirtualThreadSupported()}.
+   *
+   * @param maxConcurrentFetchesPerHost The maximum number of loads for a single host that may run
+   *                                    at once.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   * @throws UnsupportedOperationException if virtual threads aren't supported.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newVirtualThreadSourceExecutor(
+      int maxConcurrentFetchesPerHost,
+      String name,
+      UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    ThreadFactory threadFactory = VirtualThreadExecutor.newVirtualThreadFactory(name);
+    if (threadFactory == null) {
+      throw new UnsupportedOperationException(
+          "Virtual threads require Java 21 or later, see isVirtualThreadSupported()");
+    }
+    return new GlideExecutor(
+        new VirtualThreadExecutor(
+            threadFactory, maxConcurrentFetchesPerHost, uncaughtThrowableStrategy));
+  }
+
+  /**
+   * Returns a new fixed thread pool with the default thread count returned from
+   * {@link #calculateBestThreadCount()}, the {@link #DEFAULT_DECODE_EXECUTOR_NAME} thread name
+   * prefix, and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * @see #newDecodeExecutor(int, String, UncaughtThrowableStrategy)
+   */
+  // Public API.
+  @SuppressWarnings("unused")
+  public static GlideExecutor newDecodeExecutor() {
+    return newDecodeExecutor(
+        calculateBestThreadCount(),
+        DEFAULT_DECODE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new fixed thread pool with the given thread count, thread name prefix,
+   * and {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}
+   * to use to decode data once it's been retrieved from source.
+   *
+   * <p>Decoding is CPU bound, so there's little point in using more threads than there are
+   * cores.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newDecodeExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new ThreadPoolExecutor(
+            threadCount /* corePoolSize */,
+            threadCount /* maximumPoolSize */,
+            0 /* keepAliveTime */,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            // Data retrieved from source may still be streaming from the network when it's decoded.
+            new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
   /**
    * Returns a new cached thread pool that defaults to either one or two threads depending on the
    * number of available cores to use when loading frames of animations.
@@ -268,6 +452,37 @@ public final class GlideExecutor implements ExecutorService {
     delegate.execute(command);
   }
 
+  /**
+   * Removes the given runnable from this executor's queue if it hasn't started yet.
+   *
+   * <p>Jobs are ordered by their priority when they're queued, so a job's priority can only be
+   * changed safely after it's removed. It can then be executed again to queue it by its new
+   * priority.
+   *
+   * @return {@code true} if the runnable was removed, or {@code false} if it has already started or
+   * was never queued.
+   */
+  public boolean remove(@NonNull Runnable runnable) {
+    if (delegate instanceof PriorityWorkStealingExecutor) {
+      return ((PriorityWorkStealingExecutor) delegate).remove(runnable);
+    } else if (delegate instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) delegate).remove(runnable);
+    }
+    return false;
+  }
+
+  /**
+   * Returns how long jobs of each {@link Priority} have waited to start on this executor, or
+   * {@code null} if this executor doesn't record wait times.
+   *
+   * <p>Only executors returned by {@link #newWorkStealingSourceExecutor()} record wait times.
+   */
+  @Nullable
+  public QueueWaitStats getQueueWaitStats() {
+    return delegate instanceof PriorityWorkStealingExecutor
+        ? ((PriorityWorkStealingExecutor) delegate).getQueueWaitStats() : null;
+  }
+
   @NonNull
   @Override
   public Future<?> submit(@NonNull Runnable task) {
@@ -361,6 +576,25 @@ public final class GlideExecutor implements ExecutorService {
     return bestThreadCount;
   }
 
+  /**
+   * A job with a {@link Priority} that decides which lane it's queued in by executors returned
+   * from {@link #newWorkStealingSourceExecutor()}.
+   */
+  public interface Prioritized {
+    /** Returns the current priority of this job. */
+    Priority getPriority();
+  }
+
+  /**
+   * A job that loads data from a host, used to limit how many jobs for the same host executors
+   * returned from {@link #newVirtualThreadSourceExecutor()} run at once.
+   */
+  public interface HostAware {
+    /** Returns the host this job will load data from, or {@code null} if it isn't known. */
+    @Nullable
+    String getHost();
+  }
+
   /**
    * A strategy for handling unexpected and uncaught {@link Throwable}s thrown by futures run on the
    * pool.
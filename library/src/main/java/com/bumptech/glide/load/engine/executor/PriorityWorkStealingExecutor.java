@@ -0,0 +1,357 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size pool whose workers each have their own queue, split into one lane per
+ * {@link Priority}, and steal from each other when they run out of work.
+ *
+ * <p>Unlike a {@link java.util.concurrent.ThreadPoolExecutor} over a
+ * {@link java.util.concurrent.PriorityBlockingQueue}, submitting and taking work only ever locks a
+ * single worker's queue, so threads don't contend on one global heap. Workers take the oldest task
+ * from the highest priority lane that has work in any queue, so priorities are still honored across
+ * the pool, but only the order within a lane is first in first out.
+ *
+ * <p>Runnables that implement {@link GlideExecutor.Prioritized} are queued in the lane for their
+ * priority, everything else is queued as {@link Priority#NORMAL}.
+ */
+final class PriorityWorkStealingExecutor extends AbstractExecutorService {
+  private static final int LANE_COUNT = Priority.values().length;
+
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+
+  private final ThreadFactory threadFactory;
+  private final Worker[] workers;
+  // Counts queued tasks per lane so that workers can skip empty lanes without locking every queue.
+  // Incremented before a task is queued, so it may briefly overcount, but never undercounts.
+  @Synthetic final AtomicInteger[] pending = new AtomicInteger[LANE_COUNT];
+  private final AtomicInteger nextWorker = new AtomicInteger();
+  @Synthetic final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+  private final Object sleepLock = new Object();
+  private final CountDownLatch terminated;
+  private final AtomicLongArray waitCounts = new AtomicLongArray(LANE_COUNT);
+  private final AtomicLongArray totalWaitNanos = new AtomicLongArray(LANE_COUNT);
+  private final AtomicLongArray maxWaitNanos = new AtomicLongArray(LANE_COUNT);
+  private volatile int sleepers;
+  @Synthetic volatile int runState = RUNNING;
+  private volatile boolean isStarted;
+
+  PriorityWorkStealingExecutor(int threadCount, ThreadFactory threadFactory) {
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("Thread count must be > 0, but was: " + threadCount);
+    }
+    this.threadFactory = threadFactory;
+    workers = new Worker[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      workers[i] = new Worker(i);
+    }
+    for (int i = 0; i < LANE_COUNT; i++) {
+      pending[i] = new AtomicInteger();
+    }
+    terminated = new CountDownLatch(threadCount);
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    if (runState != RUNNING) {
+      throw new RejectedExecutionException("Executor is shut down");
+    }
+    if (!isStarted) {
+      startIfNeeded();
+    }
+    Worker worker = currentWorker.get();
+    if (worker == null) {
+      worker = workers[(nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+    }
+    int lane = getLane(command);
+    pending[lane].incrementAndGet();
+    worker.offer(new Task(command, lane, System.nanoTime()));
+    if (sleepers > 0) {
+      synchronized (sleepLock) {
+        sleepLock.notify();
+      }
+    }
+  }
+
+  /**
+   * Removes the given runnable if it hasn't started yet and returns {@code true}, or returns
+   * {@code false} if it has already started or was never queued.
+   */
+  boolean remove(Runnable runnable) {
+    for (Worker worker : workers) {
+      Task task = worker.remove(runnable);
+      if (task != null) {
+        pending[task.lane].decrementAndGet();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns how long tasks have waited in each lane between being queued and starting.
+   */
+  QueueWaitStats getQueueWaitStats() {
+    long[] counts = new long[LANE_COUNT];
+    long[] totals = new long[LANE_COUNT];
+    long[] maximums = new long[LANE_COUNT];
+    for (int i = 0; i < LANE_COUNT; i++) {
+      counts[i] = waitCounts.get(i);
+      totals[i] = totalWaitNanos.get(i);
+      maximums[i] = maxWaitNanos.get(i);
+    }
+    return new QueueWaitStats(counts, totals, maximums);
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (sleepLock) {
+      if (runState == RUNNING) {
+        runState = SHUTDOWN;
+      }
+      terminateIfNotStarted();
+      sleepLock.notifyAll();
+    }
+  }
+
+  @NonNull
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> result = new ArrayList<>();
+    synchronized (sleepLock) {
+      runState = STOP;
+      terminateIfNotStarted();
+      sleepLock.notifyAll();
+    }
+    for (Worker worker : workers) {
+      worker.drainTo(result);
+      worker.interrupt();
+    }
+    return result;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return runState != RUNNING;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+      throws InterruptedException {
+    return terminated.await(timeout, unit);
+  }
+
+  private static int getLane(Runnable runnable) {
+    if (runnable instanceof GlideExecutor.Prioritized) {
+      Priority priority = ((GlideExecutor.Prioritized) runnable).getPriority();
+      if (priority != null) {
+        return priority.ordinal();
+      }
+    }
+    return Priority.NORMAL.ordinal();
+  }
+
+  private void startIfNeeded() {
+    synchronized (sleepLock) {
+      if (isStarted) {
+        return;
+      }
+      isStarted = true;
+      for (Worker worker : workers) {
+        threadFactory.newThread(worker).start();
+      }
+    }
+  }
+
+  // Workers count down the latch as they exit, so it has to be counted down here if they never
+  // started.
+  private void terminateIfNotStarted() {
+    if (!isStarted) {
+      isStarted = true;
+      for (int i = 0; i < workers.length; i++) {
+        terminated.countDown();
+      }
+    }
+  }
+
+  @Nullable
+  @Synthetic
+  Task take(Worker worker) {
+    for (int lane = 0; lane < LANE_COUNT; lane++) {
+      if (pending[lane].get() <= 0) {
+        continue;
+      }
+      Task task = worker.poll(lane);
+      for (int i = 1; task == null && i < workers.length; i++) {
+        task = workers[(worker.index + i) % workers.length].poll(lane);
+      }
+      if (task != null) {
+        pending[lane].decrementAndGet();
+        recordWait(lane, System.nanoTime() - task.enqueuedNanos);
+        return task;
+      }
+    }
+    return null;
+  }
+
+  private void recordWait(int lane, long waitNanos) {
+    waitCounts.incrementAndGet(lane);
+    totalWaitNanos.addAndGet(lane, waitNanos);
+    long max;
+    do {
+      max = maxWaitNanos.get(lane);
+    } while (waitNanos > max && !maxWaitNanos.compareAndSet(lane, max, waitNanos));
+  }
+
+  private boolean hasPending() {
+    for (AtomicInteger count : pending) {
+      if (count.get() > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Blocks until there may be work to do and returns {@code true}, or returns {@code false} if the
+   * calling worker should exit.
+   */
+  @Synthetic
+  boolean awaitWork() {
+    synchronized (sleepLock) {
+      sleepers++;
+      try {
+        while (runState == RUNNING && !hasPending()) {
+          sleepLock.wait();
+        }
+      } catch (InterruptedException e) {
+        // Only shutdownNow interrupts workers, so the run state decides what happens next.
+      } finally {
+        sleepers--;
+      }
+      return runState == RUNNING || (runState == SHUTDOWN && hasPending());
+    }
+  }
+
+  @Synthetic
+  void onWorkerExit(Worker worker, boolean completedAbruptly) {
+    if (completedAbruptly && runState != STOP) {
+      // A task threw. The worker's queue outlives its thread, so it just needs a new thread.
+      threadFactory.newThread(worker).start();
+    } else {
+      terminated.countDown();
+    }
+  }
+
+  private static final class Task {
+    @Synthetic final Runnable runnable;
+    @Synthetic final int lane;
+    @Synthetic final long enqueuedNanos;
+
+    Task(Runnable runnable, int lane, long enqueuedNanos) {
+      this.runnable = runnable;
+      this.lane = lane;
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+
+  private final class Worker implements Runnable {
+    @Synthetic final int index;
+    private final List<ArrayDeque<Task>> lanes = new ArrayList<>(LANE_COUNT);
+    private volatile Thread thread;
+
+    Worker(int index) {
+      this.index = index;
+      for (int i = 0; i < LANE_COUNT; i++) {
+        lanes.add(new ArrayDeque<Task>());
+      }
+    }
+
+    synchronized void offer(Task task) {
+      lanes.get(task.lane).offerLast(task);
+    }
+
+    @Nullable
+    synchronized Task poll(int lane) {
+      return lanes.get(lane).pollFirst();
+    }
+
+    @Nullable
+    synchronized Task remove(Runnable runnable) {
+      for (ArrayDeque<Task> lane : lanes) {
+        for (Iterator<Task> iterator = lane.iterator(); iterator.hasNext(); ) {
+          Task task = iterator.next();
+          if (task.runnable == runnable) {
+            iterator.remove();
+            return task;
+          }
+        }
+      }
+      return null;
+    }
+
+    synchronized void drainTo(List<Runnable> result) {
+      for (ArrayDeque<Task> lane : lanes) {
+        Task task;
+        while ((task = lane.pollFirst()) != null) {
+          pending[task.lane].decrementAndGet();
+          result.add(task.runnable);
+        }
+      }
+    }
+
+    void interrupt() {
+      Thread current = thread;
+      if (current != null) {
+        current.interrupt();
+      }
+    }
+
+    @Override
+    public void run() {
+      thread = Thread.currentThread();
+      currentWorker.set(this);
+      boolean completedAbruptly = true;
+      try {
+        runTasks();
+        completedAbruptly = false;
+      } finally {
+        currentWorker.remove();
+        thread = null;
+        onWorkerExit(this, completedAbruptly);
+      }
+    }
+
+    private void runTasks() {
+      while (runState != STOP) {
+        Task task = take(this);
+        if (task != null) {
+          task.runnable.run();
+        } else if (!awaitWork()) {
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
+/**
+ * A snapshot of how long tasks of each {@link Priority} waited in a {@link GlideExecutor}'s queue
+ * before they started.
+ *
+ * @see GlideExecutor#getQueueWaitStats()
+ */
+public final class QueueWaitStats {
+  private final long[] counts;
+  private final long[] totalWaitNanos;
+  private final long[] maxWaitNanos;
+
+  QueueWaitStats(long[] counts, long[] totalWaitNanos, long[] maxWaitNanos) {
+    this.counts = counts;
+    this.totalWaitNanos = totalWaitNanos;
+    this.maxWaitNanos = maxWaitNanos;
+  }
+
+  /** Returns the number of tasks with the given priority that have started. */
+  public long getCount(@NonNull Priority priority) {
+    return counts[priority.ordinal()];
+  }
+
+  /** Returns the total time tasks with the given priority spent queued in nanoseconds. */
+  public long getTotalWaitNanos(@NonNull Priority priority) {
+    return totalWaitNanos[priority.ordinal()];
+  }
+
+  /** Returns the longest time a task with the given priority spent queued in nanoseconds. */
+  public long getMaxWaitNanos(@NonNull Priority priority) {
+    return maxWaitNanos[priority.ordinal()];
+  }
+
+  /**
+   * Returns the average time tasks with the given priority spent queued in nanoseconds, or
+   * {@code 0} if none have started.
+   */
+  public long getAverageWaitNanos(@NonNull Priority priority) {
+    long count = getCount(priority);
+    return count == 0 ? 0 : getTotalWaitNanos(priority) / count;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("QueueWaitStats{");
+    for (Priority priority : Priority.values()) {
+      if (priority.ordinal() > 0) {
+        result.append(", ");
+      }
+      result.append(priority)
+          .append("=[count: ").append(getCount(priority))
+          .append(", avg: ").append(getAverageWaitNanos(priority))
+          .append("ns, max: ").append(getMaxWaitNanos(priority))
+          .append("ns]");
+    }
+    return result.append('}').toString();
+  }
+}
@@ -0,0 +1,203 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.util.Synthetic;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every task on its own new thread, typically a JVM virtual thread, and limits how many tasks
+ * for the same host run at once.
+ *
+ * <p>Virtual threads are cheap to create and park without holding on to a platform thread, so
+ * tasks that spend most of their time waiting on the network don't need to share a small fixed
+ * pool. Tasks over a host's limit wait on their own thread for one of the host's running tasks to
+ * finish. Runnables that implement {@link GlideExecutor.HostAware} are limited by their host,
+ * everything else runs immediately.
+ *
+ * <p>Tasks start as soon as they're executed, so they can't be removed and
+ * {@link #shutdownNow()} interrupts running tasks rather than returning queued ones.
+ */
+final class VirtualThreadExecutor extends AbstractExecutorService {
+  private final ThreadFactory threadFactory;
+  private final int maxConcurrentTasksPerHost;
+  @Synthetic final GlideExecutor.UncaughtThrowableStrategy uncaughtThrowableStrategy;
+  // Only hosts with running or waiting tasks are kept so that the map doesn't grow with every host
+  // ever seen.
+  private final Map<String, HostPermits> hostPermits = new HashMap<>();
+  private final Set<Thread> threads = new HashSet<>();
+  private boolean isShutdown;
+
+  VirtualThreadExecutor(
+      ThreadFactory threadFactory,
+      int maxConcurrentTasksPerHost,
+      GlideExecutor.UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    if (maxConcurrentTasksPerHost <= 0) {
+      throw new IllegalArgumentException(
+          "Max concurrent tasks per host must be > 0, but was: " + maxConcurrentTasksPerHost);
+    }
+    this.threadFactory = threadFactory;
+    this.maxConcurrentTasksPerHost = maxConcurrentTasksPerHost;
+    this.uncaughtThrowableStrategy = uncaughtThrowableStrategy;
+  }
+
+  /**
+   * Returns a {@link ThreadFactory} that creates virtual threads named with the given prefix, or
+   * {@code null} if virtual threads aren't available, as they never are on Android.
+   */
+  @Nullable
+  static ThreadFactory newVirtualThreadFactory(String name) {
+    try {
+      // Thread.ofVirtual() is only available on JDK 21+, so it's looked up reflectively to let us
+      // compile against older APIs.
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = ofVirtual.invoke(null /*obj*/);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, "glide-" + name + "-thread-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (NoSuchMethodException
+        | ClassNotFoundException
+        | IllegalAccessException
+        | InvocationTargetException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    String host = command instanceof GlideExecutor.HostAware
+        ? ((GlideExecutor.HostAware) command).getHost() : null;
+    Thread thread;
+    synchronized (this) {
+      if (isShutdown) {
+        throw new RejectedExecutionException("Executor is shut down");
+      }
+      HostPermits permits = host != null ? acquireHostPermits(host) : null;
+      thread = threadFactory.newThread(new Task(command, host, permits));
+      threads.add(thread);
+    }
+    thread.start();
+  }
+
+  private HostPermits acquireHostPermits(String host) {
+    HostPermits permits = hostPermits.get(host);
+    if (permits == null) {
+      permits = new HostPermits(maxConcurrentTasksPerHost);
+      hostPermits.put(host, permits);
+    }
+    permits.users++;
+    return permits;
+  }
+
+  @Synthetic
+  synchronized void onTaskComplete(@Nullable String host, @Nullable HostPermits permits) {
+    if (permits != null && --permits.users == 0) {
+      hostPermits.remove(host);
+    }
+    threads.remove(Thread.currentThread());
+    if (isShutdown && threads.isEmpty()) {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    isShutdown = true;
+    if (threads.isEmpty()) {
+      notifyAll();
+    }
+  }
+
+  @NonNull
+  @Override
+  public synchronized List<Runnable> shutdownNow() {
+    shutdown();
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+    return Collections.emptyList();
+  }
+
+  @Override
+  public synchronized boolean isShutdown() {
+    return isShutdown;
+  }
+
+  @Override
+  public synchronized boolean isTerminated() {
+    return isShutdown && threads.isEmpty();
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+      throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    long deadline = System.nanoTime() + remainingNanos;
+    while (!isTerminated()) {
+      if (remainingNanos <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+      remainingNanos = deadline - System.nanoTime();
+    }
+    return true;
+  }
+
+  private static final class HostPermits {
+    @Synthetic final Semaphore semaphore;
+    @Synthetic int users;
+
+    HostPermits(int permits) {
+      // Fair so that a busy host's tasks start in the order they were executed.
+      semaphore = new Semaphore(permits, true /*fair*/);
+    }
+  }
+
+  private final class Task implements Runnable {
+    private final Runnable runnable;
+    @Nullable private final String host;
+    @Nullable private final HostPermits permits;
+
+    Task(Runnable runnable, @Nullable String host, @Nullable HostPermits permits) {
+      this.runnable = runnable;
+      this.host = host;
+      this.permits = permits;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (permits != null) {
+          permits.semaphore.acquire();
+        }
+        try {
+          runnable.run();
+        } finally {
+          if (permits != null) {
+            permits.semaphore.release();
+          }
+        }
+      } catch (InterruptedException e) {
+        // Only shutdownNow interrupts waiting tasks, which are dropped.
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        uncaughtThrowableStrategy.handle(t);
+      } finally {
+        onTaskComplete(host, permits);
+      }
+    }
+  }
+}
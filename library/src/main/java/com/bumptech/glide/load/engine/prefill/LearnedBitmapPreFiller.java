@@ -0,0 +1,265 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.BudgetedMemory;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-fills a {@link BitmapPool} with {@link Bitmap}s of the sizes the app requested from the pool
+ * in previous launches.
+ *
+ * <p>Requests made through {@link #getBitmapPool()} are recorded in a {@link PreFillProfile} that
+ * is saved to a file by {@link #save()}. {@link #start()} reads the saved profile and then, on a
+ * background thread, allocates {@link Bitmap}s in proportion to how often each size was requested
+ * until the pool is full. Unlike {@link BitmapPreFiller}, nothing is put in the memory cache.
+ *
+ * <p>Allocation stops for a while whenever a batch of allocations takes long enough that a
+ * garbage collection probably happened, backing off the same way {@link BitmapPreFillRunner} does.
+ */
+public final class LearnedBitmapPreFiller {
+  private static final String TAG = "LearnedPreFiller";
+  /** The default name of the file the profile is saved to, in the app's cache directory. */
+  public static final String DEFAULT_PROFILE_FILE_NAME = "glide_prefill_profile";
+  private static final String THREAD_NAME = "glide-prefill";
+
+  private final BitmapPool bitmapPool;
+  private final PreFillProfile profile;
+  private final BitmapPool recordingBitmapPool;
+  private final File profileFile;
+  @Synthetic final Handler handler;
+  @Nullable private final HandlerThread handlerThread;
+  private final BitmapPreFillRunner.Clock clock;
+  private final Runnable loadAndPreFill = new Runnable() {
+    @Override
+    public void run() {
+      load();
+      toPreFill = generateAllocationOrder();
+      preFill.run();
+    }
+  };
+  private final Runnable preFill = new Runnable() {
+    @Override
+    public void run() {
+      if (allocate()) {
+        handler.postDelayed(this, getNextDelay());
+      }
+    }
+  };
+  private final Runnable save = new Runnable() {
+    @Override
+    public void run() {
+      saveProfile();
+    }
+  };
+
+  @Synthetic PreFillQueue toPreFill;
+  private long currentDelay = BitmapPreFillRunner.INITIAL_BACKOFF_MS;
+  private volatile boolean isCancelled;
+
+  /**
+   * @param bitmapPool  The pool to pre-fill.
+   * @param profileFile The file to save the profile to and read the profile from.
+   */
+  public LearnedBitmapPreFiller(@NonNull BitmapPool bitmapPool, @NonNull File profileFile) {
+    this(bitmapPool, profileFile, startHandlerThread(), new BitmapPreFillRunner.Clock());
+  }
+
+  private LearnedBitmapPreFiller(BitmapPool bitmapPool, File profileFile,
+      HandlerThread handlerThread, BitmapPreFillRunner.Clock clock) {
+    this(bitmapPool, profileFile, new Handler(handlerThread.getLooper()), handlerThread, clock);
+  }
+
+  @VisibleForTesting
+  LearnedBitmapPreFiller(BitmapPool bitmapPool, File profileFile, Handler handler,
+      @Nullable HandlerThread handlerThread, BitmapPreFillRunner.Clock clock) {
+    this.bitmapPool = bitmapPool;
+    this.profileFile = profileFile;
+    this.handler = handler;
+    this.handlerThread = handlerThread;
+    this.clock = clock;
+    profile = new PreFillProfile();
+    recordingBitmapPool = new RecordingBitmapPool(bitmapPool, profile);
+  }
+
+  private static HandlerThread startHandlerThread() {
+    HandlerThread result = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+    result.start();
+    return result;
+  }
+
+  /**
+   * Returns a pool that records the size of every requested {@link Bitmap} and otherwise behaves
+   * exactly like the pool being pre-filled.
+   */
+  @NonNull
+  public BitmapPool getBitmapPool() {
+    return recordingBitmapPool;
+  }
+
+  /** Returns the sizes requested so far, including those read from the saved profile. */
+  @NonNull
+  public PreFillProfile getProfile() {
+    return profile;
+  }
+
+  /** Reads the saved profile and starts pre-filling the pool in the background. */
+  public void start() {
+    handler.post(loadAndPreFill);
+  }
+
+  /** Saves the profile in the background. */
+  public void save() {
+    handler.post(save);
+  }
+
+  /** Stops pre-filling, and stops the background thread once any pending save has finished. */
+  public void stop() {
+    isCancelled = true;
+    handler.removeCallbacks(loadAndPreFill);
+    handler.removeCallbacks(preFill);
+    final HandlerThread thread = handlerThread;
+    if (thread != null) {
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          thread.quit();
+        }
+      });
+    }
+  }
+
+  @VisibleForTesting
+  PreFillQueue generateAllocationOrder() {
+    long freeBytes = bitmapPool.getMaxSize();
+    if (bitmapPool instanceof BudgetedMemory) {
+      freeBytes -= ((BudgetedMemory) bitmapPool).getCurrentSize();
+    }
+
+    List<PreFillProfile.Entry> entries = profile.getEntries();
+    // The average number of bytes per request, if the pool had one Bitmap for each request.
+    double bytesPerRequest = 0;
+    int totalCount = 0;
+    for (PreFillProfile.Entry entry : entries) {
+      bytesPerRequest += (double) entry.getCount() * getSizeInBytes(entry);
+      totalCount += entry.getCount();
+    }
+    Map<PreFillType, Integer> attributeToCount = new HashMap<>();
+    if (totalCount == 0 || freeBytes <= 0) {
+      return new PreFillQueue(attributeToCount);
+    }
+    bytesPerRequest /= totalCount;
+
+    double bitmapsPerRequest = freeBytes / bytesPerRequest;
+    for (PreFillProfile.Entry entry : entries) {
+      int count = (int) (bitmapsPerRequest * entry.getCount() / totalCount);
+      if (count > 0) {
+        attributeToCount.put(new PreFillType(entry.getWidth(), entry.getHeight(),
+            entry.getConfig(), entry.getCount()), count);
+      }
+    }
+    return new PreFillQueue(attributeToCount);
+  }
+
+  /**
+   * Allocates {@link Bitmap}s until a garbage collection is detected and returns {@code true} if
+   * there are more {@link Bitmap}s to allocate.
+   */
+  @VisibleForTesting
+  boolean allocate() {
+    long start = clock.now();
+    while (!isCancelled && !toPreFill.isEmpty()
+        && clock.now() - start < BitmapPreFillRunner.MAX_DURATION_MS) {
+      PreFillType toAllocate = toPreFill.remove();
+      Bitmap bitmap = Bitmap.createBitmap(
+          toAllocate.getWidth(), toAllocate.getHeight(), toAllocate.getConfig());
+      // Put directly into the pool being pre-filled so that pre-filling isn't recorded.
+      bitmapPool.put(bitmap);
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "allocated [" + toAllocate.getWidth() + "x" + toAllocate.getHeight() + "] "
+            + toAllocate.getConfig());
+      }
+    }
+    return !isCancelled && !toPreFill.isEmpty();
+  }
+
+  @Synthetic
+  long getNextDelay() {
+    long result = currentDelay;
+    currentDelay = Math.min(currentDelay * BitmapPreFillRunner.BACKOFF_RATIO,
+        BitmapPreFillRunner.MAX_BACKOFF_MS);
+    return result;
+  }
+
+  @VisibleForTesting
+  void load() {
+    InputStream is = null;
+    try {
+      is = new FileInputStream(profileFile);
+      profile.readFrom(is);
+    } catch (FileNotFoundException e) {
+      // Expected on the first launch.
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to read profile", e);
+      }
+    } finally {
+      closeQuietly(is);
+    }
+  }
+
+  @VisibleForTesting
+  void saveProfile() {
+    File tempFile = new File(profileFile.getPath() + ".tmp");
+    OutputStream os = null;
+    boolean isWritten = false;
+    try {
+      os = new FileOutputStream(tempFile);
+      profile.writeTo(os);
+      isWritten = true;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to write profile", e);
+      }
+    } finally {
+      closeQuietly(os);
+    }
+    // Replace the saved profile at once so that a partially written profile is never read.
+    if (isWritten && !tempFile.renameTo(profileFile) && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Failed to replace profile: " + profileFile);
+    }
+  }
+
+  private static int getSizeInBytes(PreFillProfile.Entry entry) {
+    return Util.getBitmapByteSize(entry.getWidth(), entry.getHeight(), entry.getConfig());
+  }
+
+  private static void closeQuietly(@Nullable Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Synthetic;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A histogram of the widths, heights and configs of the {@link Bitmap}s requested from a
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool}, used by
+ * {@link LearnedBitmapPreFiller} to pre-fill the pool with the {@link Bitmap}s an app is likely to
+ * need.
+ *
+ * <p>Older requests count for less than newer requests. Each time the total number of requests
+ * reaches {@link #MAX_TOTAL_COUNT}, every count is halved, and sizes whose count drops to zero are
+ * forgotten. At most {@link #MAX_SIZES} sizes are kept, the least requested size is forgotten to
+ * make room for a new one.
+ *
+ * <p>This class is thread safe.
+ */
+public final class PreFillProfile {
+  private static final String TAG = "PreFillProfile";
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final int VERSION = 1;
+  private static final String SEPARATOR = ",";
+  @VisibleForTesting
+  static final int MAX_TOTAL_COUNT = 10_000;
+  @VisibleForTesting
+  static final int MAX_SIZES = 32;
+
+  private final Map<Size, Integer> counts = new HashMap<>();
+  private final Size lookupSize = new Size();
+  private int totalCount;
+
+  /** Records a request for a {@link Bitmap} with the given attributes. */
+  public synchronized void record(int width, int height, @NonNull Bitmap.Config config) {
+    lookupSize.init(width, height, config);
+    Integer count = counts.get(lookupSize);
+    if (count == null) {
+      if (counts.size() >= MAX_SIZES) {
+        removeLeastRequested();
+      }
+      Size size = new Size();
+      size.init(width, height, config);
+      counts.put(size, 1);
+    } else {
+      // Replacing the value keeps the existing key, so the shared lookup key isn't stored.
+      counts.put(lookupSize, count + 1);
+    }
+    totalCount++;
+    if (totalCount >= MAX_TOTAL_COUNT) {
+      halveCounts();
+    }
+  }
+
+  /**
+   * Returns the sizes in this profile, most requested first.
+   */
+  @NonNull
+  public synchronized List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>(counts.size());
+    for (Map.Entry<Size, Integer> entry : counts.entrySet()) {
+      Size size = entry.getKey();
+      result.add(new Entry(size.width, size.height, size.config, entry.getValue()));
+    }
+    Collections.sort(result, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry first, Entry second) {
+        return second.count < first.count ? -1 : (second.count == first.count ? 0 : 1);
+      }
+    });
+    return result;
+  }
+
+  /** Returns the sum of the counts of every size in this profile. */
+  public synchronized int getTotalCount() {
+    return totalCount;
+  }
+
+  /** Forgets every recorded request. */
+  public synchronized void clear() {
+    counts.clear();
+    totalCount = 0;
+  }
+
+  /**
+   * Writes this profile to the given stream, which is not closed.
+   */
+  void writeTo(@NonNull OutputStream os) throws IOException {
+    List<Entry> entries = getEntries();
+    Writer writer = new BufferedWriter(new OutputStreamWriter(os, CHARSET));
+    writer.write(Integer.toString(VERSION));
+    writer.write('\n');
+    for (Entry entry : entries) {
+      writer.write(entry.width + SEPARATOR + entry.height + SEPARATOR + entry.config.name()
+          + SEPARATOR + entry.count + '\n');
+    }
+    writer.flush();
+  }
+
+  /**
+   * Adds the counts read from the given stream, written by {@link #writeTo(OutputStream)}, to
+   * this profile. Lines that can't be read, for example because a config isn't available on this
+   * version of Android, are skipped.
+   */
+  void readFrom(@NonNull InputStream is) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(is, CHARSET));
+    String version = reader.readLine();
+    if (version == null || !Integer.toString(VERSION).equals(version)) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Ignoring profile with unknown version: " + version);
+      }
+      return;
+    }
+    String line;
+    while ((line = reader.readLine()) != null) {
+      String[] parts = line.split(SEPARATOR);
+      Bitmap.Config config = parts.length == 4 ? parseConfig(parts[2]) : null;
+      if (config == null) {
+        continue;
+      }
+      try {
+        add(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), config,
+            Integer.parseInt(parts[3]));
+      } catch (NumberFormatException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Ignoring invalid line: " + line, e);
+        }
+      }
+    }
+  }
+
+  private synchronized void add(int width, int height, Bitmap.Config config, int count) {
+    if (width <= 0 || height <= 0 || count <= 0) {
+      return;
+    }
+    lookupSize.init(width, height, config);
+    Integer current = counts.get(lookupSize);
+    if (current == null && counts.size() >= MAX_SIZES) {
+      return;
+    }
+    Size size = new Size();
+    size.init(width, height, config);
+    counts.put(size, (current != null ? current : 0) + count);
+    totalCount += count;
+    while (totalCount >= MAX_TOTAL_COUNT) {
+      halveCounts();
+    }
+  }
+
+  @Nullable
+  private static Bitmap.Config parseConfig(String name) {
+    try {
+      return Bitmap.Config.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private void removeLeastRequested() {
+    Size leastRequested = null;
+    int leastCount = Integer.MAX_VALUE;
+    for (Map.Entry<Size, Integer> entry : counts.entrySet()) {
+      if (entry.getValue() < leastCount) {
+        leastRequested = entry.getKey();
+        leastCount = entry.getValue();
+      }
+    }
+    counts.remove(leastRequested);
+    totalCount -= leastCount;
+  }
+
+  private void halveCounts() {
+    totalCount = 0;
+    for (Iterator<Map.Entry<Size, Integer>> iterator = counts.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<Size, Integer> entry = iterator.next();
+      int halved = entry.getValue() / 2;
+      if (halved == 0) {
+        iterator.remove();
+      } else {
+        entry.setValue(halved);
+        totalCount += halved;
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "PreFillProfile{" + "totalCount=" + totalCount + ", entries=" + getEntries() + '}';
+  }
+
+  /** The number of requests for {@link Bitmap}s of one width, height and config. */
+  public static final class Entry {
+    @Synthetic final int width;
+    @Synthetic final int height;
+    @Synthetic final Bitmap.Config config;
+    @Synthetic final int count;
+
+    @Synthetic
+    Entry(int width, int height, Bitmap.Config config, int count) {
+      this.width = width;
+      this.height = height;
+      this.config = config;
+      this.count = count;
+    }
+
+    public int getWidth() {
+      return width;
+    }
+
+    public int getHeight() {
+      return height;
+    }
+
+    @NonNull
+    public Bitmap.Config getConfig() {
+      return config;
+    }
+
+    /** Returns the number of requests, after older requests have been discounted. */
+    public int getCount() {
+      return count;
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{" + "width=" + width + ", height=" + height + ", config=" + config
+          + ", count=" + count + '}';
+    }
+  }
+
+  private static final class Size {
+    private int width;
+    private int height;
+    private Bitmap.Config config;
+
+    @Synthetic
+    Size() { }
+
+    void init(int width, int height, Bitmap.Config config) {
+      this.width = width;
+      this.height = height;
+      this.config = config;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Size) {
+        Size other = (Size) o;
+        return width == other.width && height == other.height && config == other.config;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = width;
+      result = 31 * result + height;
+      result = 31 * result + config.hashCode();
+      return result;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+
+/**
+ * A {@link BitmapPool} that records the attributes of each requested {@link Bitmap} in a
+ * {@link PreFillProfile} and otherwise delegates to another pool.
+ */
+final class RecordingBitmapPool implements BitmapPool {
+  // Matches the config LruBitmapPool uses when none is given.
+  private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+
+  private final BitmapPool delegate;
+  private final PreFillProfile profile;
+
+  RecordingBitmapPool(BitmapPool delegate, PreFillProfile profile) {
+    this.delegate = delegate;
+    this.profile = profile;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return delegate.getMaxSize();
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    delegate.setSizeMultiplier(sizeMultiplier);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    delegate.put(bitmap);
+  }
+
+  @NonNull
+  @Override
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    record(width, height, config);
+    return delegate.get(width, height, config);
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    record(width, height, config);
+    return delegate.getDirty(width, height, config);
+  }
+
+  @Override
+  public void clearMemory() {
+    delegate.clearMemory();
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    delegate.trimMemory(level);
+  }
+
+  private void record(int width, int height, Bitmap.Config config) {
+    profile.record(width, height, config != null ? config : DEFAULT_CONFIG);
+  }
+}
@@ -0,0 +1,229 @@
+package com.bumptech.glide.load.model;
+
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.engine.cache.SegmentDiskCache;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads data from {@link SegmentDiskCache.Entry entries} in a
+ * {@link SegmentDiskCache}.
+ *
+ * @param <Data> The type of data loaded from the given entry ({@link ByteBuffer},
+ *               {@link InputStream} etc).
+ */
+public class SegmentEntryLoader<Data> implements ModelLoader<SegmentDiskCache.Entry, Data> {
+  private static final String TAG = "SegmentEntryLoader";
+
+  private final EntryOpener<Data> entryOpener;
+
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public SegmentEntryLoader(EntryOpener<Data> entryOpener) {
+    this.entryOpener = entryOpener;
+  }
+
+  @Override
+  public LoadData<Data> buildLoadData(@NonNull SegmentDiskCache.Entry model, int width,
+      int height, @NonNull Options options) {
+    return new LoadData<>(new ObjectKey(model), new EntryFetcher<>(model, entryOpener));
+  }
+
+  @Override
+  public boolean handles(@NonNull SegmentDiskCache.Entry model) {
+    return true;
+  }
+
+  /**
+   * Allows opening a specific type of data from a {@link SegmentDiskCache.Entry}.
+   * @param <Data> The type of data that can be opened.
+   */
+  public interface EntryOpener<Data> {
+    Data open(SegmentDiskCache.Entry entry) throws IOException;
+    void close(Data data) throws IOException;
+    Class<Data> getDataClass();
+  }
+
+  private static final class EntryFetcher<Data> implements DataFetcher<Data> {
+    private final SegmentDiskCache.Entry entry;
+    private final EntryOpener<Data> opener;
+    private Data data;
+
+    EntryFetcher(SegmentDiskCache.Entry entry, EntryOpener<Data> opener) {
+      this.entry = entry;
+      this.opener = opener;
+    }
+
+    @Override
+    public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super Data> callback) {
+      try {
+        data = opener.open(entry);
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to open entry", e);
+        }
+        callback.onLoadFailed(e);
+        return;
+      }
+      callback.onDataReady(data);
+    }
+
+    @Override
+    public void cleanup() {
+      if (data != null) {
+        try {
+          opener.close(data);
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+
+    @Override
+    public void cancel() {
+      // Do nothing.
+    }
+
+    @NonNull
+    @Override
+    public Class<Data> getDataClass() {
+      return opener.getDataClass();
+    }
+
+    @NonNull
+    @Override
+    public DataSource getDataSource() {
+      return DataSource.LOCAL;
+    }
+  }
+
+  /**
+   * Base factory for loading data from {@link SegmentDiskCache.Entry entries}.
+   * @param <Data> The type of data that will be loaded for a given entry.
+   */
+  public static class Factory<Data> implements ModelLoaderFactory<SegmentDiskCache.Entry, Data> {
+    private final EntryOpener<Data> opener;
+
+    public Factory(EntryOpener<Data> opener) {
+      this.opener = opener;
+    }
+
+    @NonNull
+    @Override
+    public final ModelLoader<SegmentDiskCache.Entry, Data> build(
+        @NonNull MultiModelLoaderFactory multiFactory) {
+      return new SegmentEntryLoader<>(opener);
+    }
+
+    @Override
+    public final void teardown() {
+      // Do nothing.
+    }
+  }
+
+  /**
+   * Factory for loading memory mapped {@link ByteBuffer}s from entries without copying them.
+   */
+  public static class ByteBufferFactory extends Factory<ByteBuffer> {
+    public ByteBufferFactory() {
+      super(new EntryOpener<ByteBuffer>() {
+        @Override
+        public ByteBuffer open(SegmentDiskCache.Entry entry) throws IOException {
+          return entry.getByteBuffer();
+        }
+
+        @Override
+        public void close(ByteBuffer byteBuffer) {
+          // Do nothing.
+        }
+
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+          return ByteBuffer.class;
+        }
+      });
+    }
+  }
+
+  /**
+   * Factory for loading {@link InputStream}s from entries.
+   */
+  public static class StreamFactory extends Factory<InputStream> {
+    public StreamFactory() {
+      super(new EntryOpener<InputStream>() {
+        @Override
+        public InputStream open(SegmentDiskCache.Entry entry) throws IOException {
+          return entry.getInputStream();
+        }
+
+        @Override
+        public void close(InputStream inputStream) throws IOException {
+          inputStream.close();
+        }
+
+        @Override
+        public Class<InputStream> getDataClass() {
+          return InputStream.class;
+        }
+      });
+    }
+  }
+
+  /**
+   * Factory for loading {@link File}s from entries, which copies each entry into a file of its own.
+   */
+  public static class FileFactory extends Factory<File> {
+    public FileFactory() {
+      super(new EntryOpener<File>() {
+        @Override
+        public File open(SegmentDiskCache.Entry entry) throws IOException {
+          return entry.extract();
+        }
+
+        @Override
+        public void close(File file) {
+          // Do nothing.
+        }
+
+        @Override
+        public Class<File> getDataClass() {
+          return File.class;
+        }
+      });
+    }
+  }
+
+  /**
+   * Factory for loading {@link ParcelFileDescriptor}s from entries, which copies each entry into a
+   * file of its own.
+   */
+  public static class FileDescriptorFactory extends Factory<ParcelFileDescriptor> {
+    public FileDescriptorFactory() {
+      super(new EntryOpener<ParcelFileDescriptor>() {
+        @Override
+        public ParcelFileDescriptor open(SegmentDiskCache.Entry entry) throws IOException {
+          return ParcelFileDescriptor.open(entry.extract(), ParcelFileDescriptor.MODE_READ_ONLY);
+        }
+
+        @Override
+        public void close(ParcelFileDescriptor parcelFileDescriptor) throws IOException {
+          parcelFileDescriptor.close();
+        }
+
+        @Override
+        public Class<ParcelFileDescriptor> getDataClass() {
+          return ParcelFileDescriptor.class;
+        }
+      });
+    }
+  }
+}
@@ -3,7 +3,11 @@ package com.bumptech.glide.load.resource.bitmap;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.Option;
+import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
@@ -64,6 +68,96 @@ import java.security.MessageDigest;
  * {@link #equals(Object)} and {@link #hashCode()} for memory caching to work correctly.
  */
 public abstract class BitmapTransformation implements Transformation<Bitmap> {
+  /**
+   * The {@link Backend} used by {@link TransformationUtils}, and so Glide's built in
+   * {@link BitmapTransformation}s, to transform {@link Bitmap}s for a load.
+   *
+   * <p>Defaults to {@link Backend#CANVAS}. The pixel backends copy the pixels of each
+   * {@link Bitmap} into arrays, so they're only used for {@link Bitmap.Config#ARGB_8888} and
+   * {@link Bitmap.Config#RGB_565} {@link Bitmap}s, other {@link Bitmap}s are always drawn with
+   * {@link android.graphics.Canvas}. Backends other than {@link Backend#CANVAS} are part of the
+   * disk cache key of transformed resources, so changing the backend doesn't load resources
+   * transformed with another backend.
+   *
+   * @see com.bumptech.glide.GlideBuilder#setTransformationBackend(Backend)
+   */
+  public static final Option<Backend> BACKEND = Option.disk(
+      "com.bumptech.glide.load.resource.bitmap.BitmapTransformation.Backend", Backend.CANVAS,
+      new Option.CacheKeyUpdater<Backend>() {
+        @Override
+        public void update(@NonNull byte[] keyBytes, @NonNull Backend value,
+            @NonNull MessageDigest messageDigest) {
+          // Leaves keys for the default backend unchanged so that existing entries remain valid.
+          if (value == Backend.CANVAS) {
+            return;
+          }
+          messageDigest.update(keyBytes);
+          messageDigest.update(value.name().getBytes(CHARSET));
+        }
+      });
+
+  private static final ThreadLocal<Backend> CURRENT_BACKEND = new ThreadLocal<>();
+
+  /**
+   * The implementations that {@link TransformationUtils}, and so Glide's built in
+   * {@link BitmapTransformation}s, use to resize, crop, mask and rotate {@link Bitmap}s.
+   */
+  public enum Backend {
+    /**
+     * Draws with {@link android.graphics.Canvas}, which is fast on most devices but serializes
+     * transformations on devices that require {@link TransformationUtils#getBitmapDrawableLock()}.
+     */
+    CANVAS,
+    /**
+     * Uses {@link PixelKernels} with {@link PixelKernels.Filter#AREA_AVERAGING}, which doesn't
+     * depend on {@link android.graphics.Canvas} and gives smoother results than
+     * {@link #CANVAS} when scaling down by more than half.
+     */
+    PIXELS_AREA_AVERAGING,
+    /**
+     * Uses {@link PixelKernels} with {@link PixelKernels.Filter#LANCZOS}, which is sharper than
+     * {@link #PIXELS_AREA_AVERAGING} but does more work per pixel.
+     */
+    PIXELS_LANCZOS,
+  }
+
+  /**
+   * Applies the given {@link Transformation} using the {@link Backend} set for {@link #BACKEND} in
+   * the given {@link Options}.
+   *
+   * <p>Glide applies the transformations for each of its loads this way, this only needs to be
+   * called to apply a {@link Transformation} with the options of a load outside of Glide.
+   */
+  @NonNull
+  public static <T> Resource<T> applyTransformation(@NonNull Transformation<T> transformation,
+      @NonNull Context context, @NonNull Resource<T> resource, int outWidth, int outHeight,
+      @NonNull Options options) {
+    Backend previous = CURRENT_BACKEND.get();
+    setCurrentBackend(options.get(BACKEND));
+    try {
+      return transformation.transform(context, resource, outWidth, outHeight);
+    } finally {
+      setCurrentBackend(previous);
+    }
+  }
+
+  /**
+   * Returns the {@link Backend} for the transformation being applied on the current thread.
+   */
+  @NonNull
+  static Backend getCurrentBackend() {
+    Backend backend = CURRENT_BACKEND.get();
+    return backend != null ? backend : Backend.CANVAS;
+  }
+
+  @VisibleForTesting
+  static void setCurrentBackend(@Nullable Backend backend) {
+    if (backend == null) {
+      CURRENT_BACKEND.remove();
+    } else {
+      CURRENT_BACKEND.set(backend);
+    }
+  }
 
   @NonNull
   @Override
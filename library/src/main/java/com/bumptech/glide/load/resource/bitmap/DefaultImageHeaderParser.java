@@ -7,6 +7,7 @@ import static com.bumptech.glide.load.ImageHeaderParser.ImageType.PNG_A;
 import static com.bumptech.glide.load.ImageHeaderParser.ImageType.UNKNOWN;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
@@ -163,18 +164,27 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
         return UNKNOWN_ORIENTATION;
       }
 
+      // ByteBuffers are parsed in place, streams are copied into a temporary array.
+      ByteBuffer exifSegment = reader.slice(exifSegmentLength);
+      if (exifSegment != null) {
+        return parseExifSegment(exifSegment, exifSegment.remaining(), exifSegmentLength);
+      }
       byte[] exifData = byteArrayPool.get(exifSegmentLength, byte[].class);
       try {
-        return parseExifSegment(reader, exifData, exifSegmentLength);
+        int read = reader.read(exifData, exifSegmentLength);
+        return parseExifSegment(
+            ByteBuffer.wrap(exifData, 0, exifSegmentLength), read, exifSegmentLength);
       } finally {
         byteArrayPool.put(exifData);
       }
     }
   }
 
-  private int parseExifSegment(Reader reader, byte[] tempArray, int exifSegmentLength)
-      throws IOException {
-    int read = reader.read(tempArray, exifSegmentLength);
+  /**
+   * Returns the orientation in the given APP1 segment, starting at index {@code 0} of the given
+   * buffer, or {@link #UNKNOWN_ORIENTATION} if the segment doesn't contain one.
+   */
+  static int parseExifSegment(ByteBuffer exifData, int read, int exifSegmentLength) {
     if (read != exifSegmentLength) {
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Unable to read exif segment data"
@@ -184,9 +194,9 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
       return UNKNOWN_ORIENTATION;
     }
 
-    boolean hasJpegExifPreamble = hasJpegExifPreamble(tempArray, exifSegmentLength);
+    boolean hasJpegExifPreamble = hasJpegExifPreamble(exifData, exifSegmentLength);
     if (hasJpegExifPreamble) {
-      return parseExifSegment(new RandomAccessReader(tempArray, exifSegmentLength));
+      return parseExifSegment(new RandomAccessReader(exifData));
     } else {
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Missing jpeg exif preamble");
@@ -195,12 +205,11 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
     }
   }
 
-  private boolean hasJpegExifPreamble(byte[] exifData, int exifSegmentLength) {
-    boolean result =
-        exifData != null && exifSegmentLength > JPEG_EXIF_SEGMENT_PREAMBLE_BYTES.length;
+  private static boolean hasJpegExifPreamble(ByteBuffer exifData, int exifSegmentLength) {
+    boolean result = exifSegmentLength > JPEG_EXIF_SEGMENT_PREAMBLE_BYTES.length;
     if (result) {
       for (int i = 0; i < JPEG_EXIF_SEGMENT_PREAMBLE_BYTES.length; i++) {
-        if (exifData[i] != JPEG_EXIF_SEGMENT_PREAMBLE_BYTES[i]) {
+        if (exifData.get(i) != JPEG_EXIF_SEGMENT_PREAMBLE_BYTES[i]) {
           result = false;
           break;
         }
@@ -350,10 +359,8 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
   private static final class RandomAccessReader {
     private final ByteBuffer data;
 
-    RandomAccessReader(byte[] data, int length) {
-      this.data = (ByteBuffer) ByteBuffer.wrap(data)
-          .order(ByteOrder.BIG_ENDIAN)
-          .limit(length);
+    RandomAccessReader(ByteBuffer data) {
+      this.data = data.order(ByteOrder.BIG_ENDIAN);
     }
 
     void order(ByteOrder byteOrder) {
@@ -383,6 +390,13 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
     long skip(long total) throws IOException;
     int read(byte[] buffer, int byteCount) throws IOException;
     int getByte() throws IOException;
+
+    /**
+     * Returns a view of up to the next {@code byteCount} bytes and skips them, or {@code null}
+     * if the data can't be viewed without copying it.
+     */
+    @Nullable
+    ByteBuffer slice(int byteCount);
   }
 
   private static final class ByteBufferReader implements Reader {
@@ -421,6 +435,14 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
       return toRead;
     }
 
+    @Override
+    public ByteBuffer slice(int byteCount) {
+      ByteBuffer result = byteBuffer.slice();
+      result.limit(Math.min(byteCount, result.remaining()));
+      byteBuffer.position(byteBuffer.position() + result.remaining());
+      return result;
+    }
+
     @Override
     public int getByte() {
       if (byteBuffer.remaining() < 1) {
@@ -489,5 +511,10 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
     public int getByte() throws IOException {
       return is.read();
     }
+
+    @Override
+    public ByteBuffer slice(int byteCount) {
+      return null;
+    }
   }
 }
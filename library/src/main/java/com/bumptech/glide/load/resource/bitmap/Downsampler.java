@@ -12,6 +12,7 @@ import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.ImageHeaderParser.ImageType;
 import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.engine.Resource;
@@ -20,6 +21,7 @@ import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy.SampleSizeRounding;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.ByteBufferUtil;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Util;
@@ -91,6 +93,35 @@ public final class Downsampler {
       Option.memory(
           "com.bumptech.glide.load.resource.bitmap.Downsampler.AllowHardwareDecode", false);
 
+  /**
+   * Identifies the source data being decoded so that its header can be looked up in, or added to,
+   * the {@link ImageHeaderCache}, see {@link #USE_CACHED_HEADER} and {@link #CACHE_HEADER}, and so
+   * that decodes can be shared with other loads of the same data using {@link SharedDecodes}.
+   *
+   * <p>Glide sets this to the key of the data in the disk cache when decoding original source data.
+   * It must not be set when decoding data that may differ for the same key, like transformed
+   * resources.
+   */
+  public static final Option<Key> SOURCE_DATA_KEY =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.SourceDataKey");
+
+  /**
+   * Indicates that the data identified by {@link #SOURCE_DATA_KEY} was read from the disk cache, so
+   * that a header added to the {@link ImageHeaderCache} for the cached data can be used for it.
+   *
+   * <p>Headers are evicted separately from the cached data, so a header can't be used for data
+   * fetched from elsewhere, which may have changed since the header was cached.
+   */
+  public static final Option<Boolean> USE_CACHED_HEADER =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.UseCachedHeader", false);
+
+  /**
+   * Indicates that the data identified by {@link #SOURCE_DATA_KEY} is in, or is being written to,
+   * the disk cache, so that its header can be added to the {@link ImageHeaderCache}.
+   */
+  public static final Option<Boolean> CACHE_HEADER =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.CacheHeader", false);
+
   private static final String WBMP_MIME_TYPE = "image/vnd.wap.wbmp";
   private static final String ICO_MIME_TYPE = "image/x-ico";
   private static final Set<String> NO_DOWNSAMPLE_PRE_N_MIME_TYPES =
@@ -130,14 +161,45 @@ public final class Downsampler {
   private final DisplayMetrics displayMetrics;
   private final ArrayPool byteArrayPool;
   private final List<ImageHeaderParser> parsers;
+  @Nullable private final ImageHeaderCache headerCache;
+  @Nullable private final SharedDecodes sharedDecodes;
   private final HardwareConfigState hardwareConfigState = HardwareConfigState.getInstance();
 
   public Downsampler(List<ImageHeaderParser> parsers, DisplayMetrics displayMetrics,
       BitmapPool bitmapPool, ArrayPool byteArrayPool) {
+    this(parsers, displayMetrics, bitmapPool, byteArrayPool, /*headerCache=*/ null);
+  }
+
+  /**
+   * @param headerCache Caches the headers of images decoded with a {@link #SOURCE_DATA_KEY}, or
+   *                    {@code null} to parse the header of every image.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public Downsampler(List<ImageHeaderParser> parsers, DisplayMetrics displayMetrics,
+      BitmapPool bitmapPool, ArrayPool byteArrayPool, @Nullable ImageHeaderCache headerCache) {
+    this(parsers, displayMetrics, bitmapPool, byteArrayPool, headerCache,
+        /*sharedDecodes=*/ null);
+  }
+
+  /**
+   * @param headerCache Caches the headers of images decoded with a {@link #SOURCE_DATA_KEY}, or
+   *                    {@code null} to parse the header of every image.
+   * @param sharedDecodes Shares decodes of images decoded with a {@link #SOURCE_DATA_KEY} between
+   *                      concurrent loads at different sizes, or {@code null} to decode every
+   *                      image separately.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public Downsampler(List<ImageHeaderParser> parsers, DisplayMetrics displayMetrics,
+      BitmapPool bitmapPool, ArrayPool byteArrayPool, @Nullable ImageHeaderCache headerCache,
+      @Nullable SharedDecodes sharedDecodes) {
     this.parsers = parsers;
     this.displayMetrics = Preconditions.checkNotNull(displayMetrics);
     this.bitmapPool = Preconditions.checkNotNull(bitmapPool);
     this.byteArrayPool = Preconditions.checkNotNull(byteArrayPool);
+    this.headerCache = headerCache;
+    this.sharedDecodes = sharedDecodes;
   }
 
   public boolean handles(@SuppressWarnings("unused") InputStream is) {
@@ -186,9 +248,32 @@ public final class Downsampler {
    * @return A new bitmap containing the image from the given InputStream, or recycle if recycle is
    * not null.
    */
-  @SuppressWarnings({"resource", "deprecation"})
   public Resource<Bitmap> decode(InputStream is, int requestedWidth, int requestedHeight,
       Options options, DecodeCallbacks callbacks) throws IOException {
+    return decode(is, /*header=*/ null, requestedWidth, requestedHeight, options, callbacks);
+  }
+
+  /**
+   * Returns a Bitmap decoded from the given {@link ByteBuffer} that is rotated to match any EXIF
+   * data present in the buffer and that is downsampled according to the given dimensions and any
+   * provided  {@link com.bumptech.glide.load.resource.bitmap.DownsampleStrategy} option.
+   *
+   * <p>The image header is parsed directly from the buffer, so memory mapped buffers, like those
+   * returned for disk cache hits, are only read by {@link BitmapFactory} itself.
+   *
+   * @see #decode(InputStream, int, int, Options, DecodeCallbacks)
+   */
+  public Resource<Bitmap> decode(ByteBuffer buffer, int requestedWidth, int requestedHeight,
+      Options options) throws IOException {
+    // The stream reads from its own view of the buffer so that it can't move the header's position.
+    return decode(ByteBufferUtil.toStream(buffer.duplicate()), buffer, requestedWidth,
+        requestedHeight, options, EMPTY_CALLBACKS);
+  }
+
+  @SuppressWarnings({"resource", "deprecation"})
+  private Resource<Bitmap> decode(InputStream is, @Nullable ByteBuffer header,
+      int requestedWidth, int requestedHeight, Options options, DecodeCallbacks callbacks)
+      throws IOException {
     Preconditions.checkArgument(is.markSupported(), "You must provide an InputStream that supports"
         + " mark()");
 
@@ -201,11 +286,15 @@ public final class Downsampler {
     boolean fixBitmapToRequestedDimensions = options.get(FIX_BITMAP_SIZE_TO_REQUESTED_DIMENSIONS);
     boolean isHardwareConfigAllowed =
       options.get(ALLOW_HARDWARE_CONFIG) != null && options.get(ALLOW_HARDWARE_CONFIG);
+    Key dataKey = options.get(SOURCE_DATA_KEY);
+    Key cachedHeaderKey = headerCache != null && options.get(USE_CACHED_HEADER) ? dataKey : null;
+    Key headerCacheKey = headerCache != null && options.get(CACHE_HEADER) ? dataKey : null;
 
     try {
-      Bitmap result = decodeFromWrappedStreams(is, bitmapFactoryOptions,
-          downsampleStrategy, decodeFormat, isHardwareConfigAllowed, requestedWidth,
-          requestedHeight, fixBitmapToRequestedDimensions, callbacks);
+      Bitmap result = decodeFromWrappedStreams(is, header, dataKey, cachedHeaderKey,
+          headerCacheKey, bitmapFactoryOptions, downsampleStrategy, decodeFormat,
+          isHardwareConfigAllowed, requestedWidth, requestedHeight,
+          fixBitmapToRequestedDimensions, callbacks);
       return BitmapResource.obtain(result, bitmapPool);
     } finally {
       releaseOptions(bitmapFactoryOptions);
@@ -213,14 +302,31 @@ public final class Downsampler {
     }
   }
 
-  private Bitmap decodeFromWrappedStreams(InputStream is,
-      BitmapFactory.Options options, DownsampleStrategy downsampleStrategy,
-      DecodeFormat decodeFormat, boolean isHardwareConfigAllowed, int requestedWidth,
-      int requestedHeight, boolean fixBitmapToRequestedDimensions,
-      DecodeCallbacks callbacks) throws IOException {
+  private Bitmap decodeFromWrappedStreams(InputStream is, @Nullable ByteBuffer header,
+      @Nullable Key dataKey, @Nullable Key cachedHeaderKey, @Nullable Key headerCacheKey,
+      BitmapFactory.Options options,
+      DownsampleStrategy downsampleStrategy, DecodeFormat decodeFormat,
+      boolean isHardwareConfigAllowed, int requestedWidth, int requestedHeight,
+      boolean fixBitmapToRequestedDimensions, DecodeCallbacks callbacks) throws IOException {
     long startTime = LogTime.getLogTime();
 
-    int[] sourceDimensions = getDimensions(is, options, callbacks, bitmapPool);
+    // Data decoded before, for example at a different size, doesn't need its header parsed again.
+    ImageHeaderSniffer.Header cachedHeader =
+        cachedHeaderKey != null ? headerCache.get(cachedHeaderKey) : null;
+    // Common formats are described by a single pass over the header, which avoids a separate
+    // decode of the bounds and, unless other parsers were registered, a pass per
+    // ImageHeaderParser.
+    ImageHeaderSniffer.Header sniffedHeader;
+    if (cachedHeader != null) {
+      sniffedHeader = cachedHeader;
+    } else if (header != null) {
+      sniffedHeader = ImageHeaderSniffer.sniff(header);
+    } else {
+      sniffedHeader = ImageHeaderSniffer.sniff(is, byteArrayPool);
+    }
+    int[] sourceDimensions = sniffedHeader != null
+        ? getDimensions(sniffedHeader, options)
+        : getDimensions(is, options, callbacks, bitmapPool);
     int sourceWidth = sourceDimensions[0];
     int sourceHeight = sourceDimensions[1];
     String sourceMimeType = options.outMimeType;
@@ -233,14 +339,45 @@ public final class Downsampler {
       isHardwareConfigAllowed = false;
     }
 
-    int orientation = ImageHeaderParserUtils.getOrientation(parsers, is, byteArrayPool);
+    // The sniffer reads headers the way DefaultImageHeaderParser does, so it can only stand in for
+    // the registered parsers' type and orientation if no other parsers were registered.
+    ImageHeaderSniffer.Header parsedHeader;
+    if (cachedHeader != null) {
+      parsedHeader = cachedHeader;
+    } else if (hasOnlyDefaultParsers()) {
+      parsedHeader = sniffedHeader;
+    } else {
+      parsedHeader = null;
+    }
+
+    int orientation;
+    if (parsedHeader != null) {
+      orientation = parsedHeader.getOrientation();
+    } else if (header != null) {
+      orientation = ImageHeaderParserUtils.getOrientation(parsers, header, byteArrayPool);
+    } else {
+      orientation = ImageHeaderParserUtils.getOrientation(parsers, is, byteArrayPool);
+    }
     int degreesToRotate = TransformationUtils.getExifOrientationDegrees(orientation);
     boolean isExifOrientationRequired = TransformationUtils.isExifOrientationRequired(orientation);
 
     int targetWidth = requestedWidth == Target.SIZE_ORIGINAL ? sourceWidth : requestedWidth;
     int targetHeight = requestedHeight == Target.SIZE_ORIGINAL ? sourceHeight : requestedHeight;
 
-    ImageType imageType = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool);
+    ImageType imageType;
+    if (parsedHeader != null) {
+      imageType = parsedHeader.getType();
+    } else if (header != null) {
+      imageType = ImageHeaderParserUtils.getType(parsers, header);
+    } else {
+      imageType = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool);
+    }
+
+    if (headerCacheKey != null && cachedHeader == null && sourceWidth > 0 && sourceHeight > 0) {
+      headerCache.put(headerCacheKey, parsedHeader != null ? parsedHeader
+          : new ImageHeaderSniffer.Header(
+              imageType, sourceMimeType, sourceWidth, sourceHeight, orientation));
+    }
 
     calculateScaling(
         imageType,
@@ -255,7 +392,7 @@ public final class Downsampler {
         targetHeight,
         options);
     calculateConfig(
-        is,
+        imageType,
         decodeFormat,
         isHardwareConfigAllowed,
         isExifOrientationRequired,
@@ -263,60 +400,129 @@ public final class Downsampler {
         targetWidth,
         targetHeight);
 
-    boolean isKitKatOrGreater = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
-    // Prior to KitKat, the inBitmap size must exactly match the size of the bitmap we're decoding.
-    if ((options.inSampleSize == 1 || isKitKatOrGreater) && shouldUsePool(imageType)) {
-      int expectedWidth;
-      int expectedHeight;
-      if (sourceWidth >= 0 && sourceHeight >= 0
-          && fixBitmapToRequestedDimensions && isKitKatOrGreater) {
-        expectedWidth = targetWidth;
-        expectedHeight = targetHeight;
-      } else {
-        float densityMultiplier = isScaling(options)
-            ? (float) options.inTargetDensity / options.inDensity : 1f;
-        int sampleSize = options.inSampleSize;
-        int downsampledWidth = (int) Math.ceil(sourceWidth / (float) sampleSize);
-        int downsampledHeight = (int) Math.ceil(sourceHeight / (float) sampleSize);
-        expectedWidth = Math.round(downsampledWidth * densityMultiplier);
-        expectedHeight = Math.round(downsampledHeight * densityMultiplier);
-
-        if (Log.isLoggable(TAG, Log.VERBOSE)) {
-          Log.v(TAG, "Calculated target [" + expectedWidth + "x" + expectedHeight + "] for source"
-              + " [" + sourceWidth + "x" + sourceHeight + "]"
-              + ", sampleSize: " + sampleSize
-              + ", targetDensity: " + options.inTargetDensity
-              + ", density: " + options.inDensity
-              + ", density multiplier: " + densityMultiplier);
-        }
+    // Concurrent loads of the same data at other sizes can share a single decode at the largest
+    // size any of them needs.
+    SharedDecodes.Claim claim = null;
+    int[] outputSize = null;
+    if (sharedDecodes != null && dataKey != null && sourceWidth > 0 && sourceHeight > 0
+        && !fixBitmapToRequestedDimensions && isShareable(options.inPreferredConfig)) {
+      outputSize = getExpectedSize(options, sourceWidth, sourceHeight);
+      if (degreesToRotate == 90 || degreesToRotate == 270) {
+        outputSize = new int[] { outputSize[1], outputSize[0] };
       }
-      // If this isn't an image, or BitmapFactory was unable to parse the size, width and height
-      // will be -1 here.
-      if (expectedWidth > 0 && expectedHeight > 0) {
-        setInBitmap(options, bitmapPool, expectedWidth, expectedHeight);
+      claim = sharedDecodes.claim(
+          dataKey, outputSize[0], outputSize[1], options.inPreferredConfig, bitmapPool);
+      Bitmap derived = claim != null ? claim.getDerived() : null;
+      if (derived != null) {
+        derived.setDensity(displayMetrics.densityDpi);
+        return derived;
+      } else if (claim != null) {
+        // The config chosen for this load is kept so that the shared Bitmap matches it.
+        int decodeWidth = claim.getDecodeWidth() == Target.SIZE_ORIGINAL
+            ? sourceWidth : claim.getDecodeWidth();
+        int decodeHeight = claim.getDecodeHeight() == Target.SIZE_ORIGINAL
+            ? sourceHeight : claim.getDecodeHeight();
+        calculateScaling(
+            imageType,
+            is,
+            callbacks,
+            bitmapPool,
+            downsampleStrategy,
+            degreesToRotate,
+            sourceWidth,
+            sourceHeight,
+            decodeWidth,
+            decodeHeight,
+            options);
       }
     }
-    Bitmap downsampled = decodeStream(is, options, callbacks, bitmapPool);
-    callbacks.onDecodeComplete(bitmapPool, downsampled);
 
-    if (Log.isLoggable(TAG, Log.VERBOSE)) {
-      logDecode(sourceWidth, sourceHeight, sourceMimeType, options, downsampled,
-          requestedWidth, requestedHeight, startTime);
-    }
+    boolean isClaimResolved = false;
+    try {
+      boolean isKitKatOrGreater = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+      // Prior to KitKat, the inBitmap size must exactly match the size of the bitmap we're
+      // decoding.
+      if ((options.inSampleSize == 1 || isKitKatOrGreater) && shouldUsePool(imageType)) {
+        int expectedWidth;
+        int expectedHeight;
+        if (sourceWidth >= 0 && sourceHeight >= 0
+            && fixBitmapToRequestedDimensions && isKitKatOrGreater) {
+          expectedWidth = targetWidth;
+          expectedHeight = targetHeight;
+        } else {
+          int[] expectedSize = getExpectedSize(options, sourceWidth, sourceHeight);
+          expectedWidth = expectedSize[0];
+          expectedHeight = expectedSize[1];
+
+          if (Log.isLoggable(TAG, Log.VERBOSE)) {
+            Log.v(TAG, "Calculated target [" + expectedWidth + "x" + expectedHeight + "] for"
+                + " source [" + sourceWidth + "x" + sourceHeight + "]"
+                + ", sampleSize: " + options.inSampleSize
+                + ", targetDensity: " + options.inTargetDensity
+                + ", density: " + options.inDensity);
+          }
+        }
+        // If this isn't an image, or BitmapFactory was unable to parse the size, width and height
+        // will be -1 here.
+        if (expectedWidth > 0 && expectedHeight > 0) {
+          setInBitmap(options, bitmapPool, expectedWidth, expectedHeight);
+        }
+      }
+      Bitmap downsampled = decodeStream(is, options, callbacks, bitmapPool);
+      callbacks.onDecodeComplete(bitmapPool, downsampled);
 
-    Bitmap rotated = null;
-    if (downsampled != null) {
-      // If we scaled, the Bitmap density will be our inTargetDensity. Here we correct it back to
-      // the expected density dpi.
-      downsampled.setDensity(displayMetrics.densityDpi);
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        logDecode(sourceWidth, sourceHeight, sourceMimeType, options, downsampled,
+            requestedWidth, requestedHeight, startTime);
+      }
+
+      Bitmap rotated = null;
+      if (downsampled != null) {
+        // If we scaled, the Bitmap density will be our inTargetDensity. Here we correct it back to
+        // the expected density dpi.
+        downsampled.setDensity(displayMetrics.densityDpi);
+
+        rotated = TransformationUtils.rotateImageExif(bitmapPool, downsampled, orientation);
+        if (!downsampled.equals(rotated)) {
+          bitmapPool.put(downsampled);
+        }
+      }
 
-      rotated = TransformationUtils.rotateImageExif(bitmapPool, downsampled, orientation);
-      if (!downsampled.equals(rotated)) {
-        bitmapPool.put(downsampled);
+      if (claim != null && rotated != null) {
+        rotated = claim.publish(rotated, outputSize[0], outputSize[1], bitmapPool);
+        rotated.setDensity(displayMetrics.densityDpi);
+        isClaimResolved = true;
+      }
+      return rotated;
+    } finally {
+      if (claim != null && !isClaimResolved) {
+        claim.abandon();
       }
     }
+  }
 
-    return rotated;
+  /**
+   * Returns the size of the {@link Bitmap} that decoding with the given options will produce,
+   * before any rotation, in the form {width, height}.
+   */
+  private static int[] getExpectedSize(BitmapFactory.Options options, int sourceWidth,
+      int sourceHeight) {
+    float densityMultiplier = isScaling(options)
+        ? (float) options.inTargetDensity / options.inDensity : 1f;
+    int sampleSize = options.inSampleSize;
+    int downsampledWidth = (int) Math.ceil(sourceWidth / (float) sampleSize);
+    int downsampledHeight = (int) Math.ceil(sourceHeight / (float) sampleSize);
+    return new int[] {
+        Math.round(downsampledWidth * densityMultiplier),
+        Math.round(downsampledHeight * densityMultiplier)
+    };
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  private static boolean isShareable(@Nullable Bitmap.Config config) {
+    // Hardware Bitmaps can't be drawn into the Bitmaps derived from them.
+    return config != null
+        && (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || config != Bitmap.Config.HARDWARE);
   }
 
   private static void calculateScaling(
@@ -502,7 +708,7 @@ public final class Downsampler {
 
   @SuppressWarnings("deprecation")
   private void calculateConfig(
-      InputStream is,
+      ImageType imageType,
       DecodeFormat format,
       boolean isHardwareConfigAllowed,
       boolean isExifOrientationRequired,
@@ -527,18 +733,8 @@ public final class Downsampler {
       return;
     }
 
-    boolean hasAlpha = false;
-    try {
-      hasAlpha = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool).hasAlpha();
-    } catch (IOException e) {
-      if (Log.isLoggable(TAG, Log.DEBUG)) {
-        Log.d(TAG, "Cannot determine whether the image has alpha or not from header"
-            + ", format " + format, e);
-      }
-    }
-
     optionsWithScaling.inPreferredConfig =
-        hasAlpha ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+        imageType.hasAlpha() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
     if (optionsWithScaling.inPreferredConfig == Config.RGB_565) {
       optionsWithScaling.inDither = true;
     }
@@ -560,6 +756,33 @@ public final class Downsampler {
     return new int[] { options.outWidth, options.outHeight };
   }
 
+  private boolean hasOnlyDefaultParsers() {
+    for (ImageHeaderParser parser : parsers) {
+      if (!(parser instanceof DefaultImageHeaderParser)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the dimensions from the given header in the form {width, height}, setting the outputs
+   * of the given options that a decode with {@link BitmapFactory.Options#inJustDecodeBounds} would
+   * have set.
+   */
+  @TargetApi(Build.VERSION_CODES.O)
+  private static int[] getDimensions(ImageHeaderSniffer.Header header,
+      BitmapFactory.Options options) {
+    options.outWidth = header.getWidth();
+    options.outHeight = header.getHeight();
+    options.outMimeType = header.getMimeType();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      // The config isn't known without decoding, so let setInBitmap fall back to the preferred one.
+      options.outConfig = null;
+    }
+    return new int[] { options.outWidth, options.outHeight };
+  }
+
   private static Bitmap decodeStream(InputStream is, BitmapFactory.Options options,
       DecodeCallbacks callbacks, BitmapPool bitmapPool) throws IOException {
     if (options.inJustDecodeBounds) {
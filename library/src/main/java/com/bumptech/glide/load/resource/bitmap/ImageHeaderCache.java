@@ -0,0 +1,213 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.util.LruCache;
+import com.bumptech.glide.util.Synthetic;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+
+/**
+ * Remembers the type, mime type, orientation and dimensions of source images so that decoding the
+ * same data again, for example at a different size, can skip parsing the header and decoding the
+ * bounds of the image.
+ *
+ * <p>Entries are keyed by the key of the source data in the disk cache, which includes any
+ * signature for the request. The most recently used entries are kept in memory. Every entry is
+ * also written to the {@link DiskCache} so that it's still available after the process restarts.
+ * Headers are stored separately from the data they describe, so {@link #remove(Key)} must be
+ * called whenever new data is written under a key.
+ */
+public final class ImageHeaderCache {
+  private static final String TAG = "ImageHeaderCache";
+  // Each entry is a few dozen bytes, so a few hundred of them are cheap to keep around.
+  private static final int DEFAULT_MEMORY_CACHE_SIZE = 512;
+  // Incremented whenever the format of the persisted entries changes.
+  private static final int VERSION = 1;
+  // Remembers keys without a header on disk so that each one is only looked up on disk once.
+  private static final ImageHeaderSniffer.Header MISSING = new ImageHeaderSniffer.Header(
+      ImageType.UNKNOWN, /*mimeType=*/ null, -1, -1, ImageHeaderParser.UNKNOWN_ORIENTATION);
+
+  private final LruCache<Key, ImageHeaderSniffer.Header> memoryCache;
+  private final DiskCacheProvider diskCacheProvider;
+
+  /**
+   * Provides the {@link DiskCache} entries are persisted to, which may be created lazily.
+   */
+  public interface DiskCacheProvider {
+    @NonNull
+    DiskCache getDiskCache();
+  }
+
+  public ImageHeaderCache(@NonNull DiskCacheProvider diskCacheProvider) {
+    this(diskCacheProvider, DEFAULT_MEMORY_CACHE_SIZE);
+  }
+
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public ImageHeaderCache(@NonNull DiskCacheProvider diskCacheProvider, int memoryCacheSize) {
+    this.diskCacheProvider = diskCacheProvider;
+    this.memoryCache = new LruCache<>(memoryCacheSize);
+  }
+
+  /**
+   * Returns the header for the data with the given key, or {@code null} if it isn't cached.
+   *
+   * <p>May read from disk, so must not be called on the main thread.
+   */
+  @Nullable
+  ImageHeaderSniffer.Header get(@NonNull Key dataKey) {
+    ImageHeaderSniffer.Header result = memoryCache.get(dataKey);
+    if (result != null) {
+      return result != MISSING ? result : null;
+    }
+    File file = diskCacheProvider.getDiskCache().get(new HeaderKey(dataKey));
+    if (file != null) {
+      try {
+        result = read(file);
+      } catch (IOException | IllegalArgumentException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to read cached header for: " + dataKey, e);
+        }
+      }
+    }
+    memoryCache.put(dataKey, result != null ? result : MISSING);
+    return result;
+  }
+
+  /**
+   * Caches the header for the data with the given key in memory and on disk.
+   *
+   * <p>Writes to disk, so must not be called on the main thread.
+   */
+  void put(@NonNull Key dataKey, @NonNull final ImageHeaderSniffer.Header header) {
+    memoryCache.put(dataKey, header);
+    diskCacheProvider.getDiskCache().put(new HeaderKey(dataKey), new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          ImageHeaderCache.write(file, header);
+          return true;
+        } catch (IOException e) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Failed to write header", e);
+          }
+          return false;
+        }
+      }
+    });
+  }
+
+  /**
+   * Removes the header for the data with the given key from memory and from disk.
+   *
+   * <p>Must be called whenever new data is written to the disk cache under the given key, because
+   * {@link DiskCache#put(Key, DiskCache.Writer)} doesn't replace existing entries, so a header
+   * that outlived the data it describes would otherwise be used for the new data.
+   *
+   * <p>Writes to disk, so must not be called on the main thread.
+   */
+  public void remove(@NonNull Key dataKey) {
+    memoryCache.remove(dataKey);
+    diskCacheProvider.getDiskCache().delete(new HeaderKey(dataKey));
+  }
+
+  /**
+   * Clears the entries held in memory, entries written to the {@link DiskCache} are cleared along
+   * with the rest of the disk cache.
+   */
+  public void clearMemory() {
+    memoryCache.clearMemory();
+  }
+
+  @Nullable
+  private static ImageHeaderSniffer.Header read(File file) throws IOException {
+    DataInputStream is = null;
+    try {
+      is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (is.readInt() != VERSION) {
+        return null;
+      }
+      ImageType type = ImageType.valueOf(is.readUTF());
+      String mimeType = is.readUTF();
+      int width = is.readInt();
+      int height = is.readInt();
+      int orientation = is.readInt();
+      return new ImageHeaderSniffer.Header(
+          type, mimeType.isEmpty() ? null : mimeType, width, height, orientation);
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  @Synthetic
+  static void write(File file, ImageHeaderSniffer.Header header) throws IOException {
+    DataOutputStream os = null;
+    try {
+      os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      os.writeInt(VERSION);
+      os.writeUTF(header.getType().name());
+      String mimeType = header.getMimeType();
+      os.writeUTF(mimeType != null ? mimeType : "");
+      os.writeInt(header.getWidth());
+      os.writeInt(header.getHeight());
+      os.writeInt(header.getOrientation());
+    } finally {
+      if (os != null) {
+        os.close();
+      }
+    }
+  }
+
+  /**
+   * The key of a header in the {@link DiskCache}, distinct from the key of the data itself.
+   */
+  private static final class HeaderKey implements Key {
+    private static final byte[] ID_BYTES = TAG.getBytes(CHARSET);
+
+    private final Key dataKey;
+
+    HeaderKey(Key dataKey) {
+      this.dataKey = dataKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof HeaderKey && dataKey.equals(((HeaderKey) o).dataKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * dataKey.hashCode() + TAG.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "HeaderKey{" + "dataKey=" + dataKey + '}';
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      dataKey.updateDiskCacheKey(messageDigest);
+      messageDigest.update(ID_BYTES);
+    }
+  }
+}
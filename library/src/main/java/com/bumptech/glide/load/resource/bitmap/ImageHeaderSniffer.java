@@ -0,0 +1,314 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Parses the type, orientation and dimensions of JPEG, PNG, GIF and WebP images in a single pass
+ * over the start of the image.
+ *
+ * <p>Streams are read once into a pooled buffer of at most {@link #PEEK_SIZE} bytes, which is then
+ * parsed in place, rather than being reset and read again by each
+ * {@link com.bumptech.glide.load.ImageHeaderParser} and by {@link android.graphics.BitmapFactory}.
+ * The results match those of {@link DefaultImageHeaderParser}.
+ *
+ * <p>If the image is in some other format, or the information can't be found in the bytes that
+ * were read, {@code null} is returned so that callers can fall back to the registered
+ * {@link com.bumptech.glide.load.ImageHeaderParser}s.
+ */
+final class ImageHeaderSniffer {
+  private static final String TAG = "ImageHeaderSniffer";
+  // Matches the initial buffer size of RecyclableBufferedInputStream so that peeking doesn't
+  // cause the stream's buffer to grow.
+  static final int PEEK_SIZE = ArrayPool.STANDARD_BUFFER_SIZE_BYTES;
+
+  private static final int JPEG_MAGIC_NUMBER = 0xFFD8;
+  private static final int PNG_HEADER = 0x89504E47;
+  private static final int GIF_HEADER = 0x474946;
+  // "RIFF".
+  private static final int RIFF_HEADER = 0x52494646;
+  // "WEBP".
+  private static final int WEBP_HEADER = 0x57454250;
+  // "VP8 ".
+  private static final int VP8_LOSSY_HEADER = 0x56503820;
+  // "VP8L".
+  private static final int VP8_LOSSLESS_HEADER = 0x5650384C;
+  // "VP8X".
+  private static final int VP8_EXTENDED_HEADER = 0x56503858;
+  private static final int VP8_LOSSY_START_CODE = 0x9D012A;
+  private static final int WEBP_EXTENDED_ALPHA_FLAG = 1 << 4;
+  // Matches DefaultImageHeaderParser, which checks this bit of the first byte of the chunk.
+  private static final int WEBP_LOSSLESS_ALPHA_FLAG = 1 << 3;
+  private static final int WEBP_DIMENSION_MASK = 0x3FFF;
+
+  private static final int SEGMENT_START_ID = 0xFF;
+  private static final int SEGMENT_SOS = 0xDA;
+  private static final int MARKER_EOI = 0xD9;
+  private static final int SEGMENT_SOF_FIRST = 0xC0;
+  private static final int SEGMENT_SOF_LAST = 0xCF;
+  private static final int SEGMENT_DHT = 0xC4;
+  private static final int SEGMENT_JPG = 0xC8;
+  private static final int SEGMENT_DAC = 0xCC;
+  private static final int EXIF_SEGMENT_TYPE = 0xE1;
+
+  private static final String MIME_TYPE_JPEG = "image/jpeg";
+  private static final String MIME_TYPE_PNG = "image/png";
+  private static final String MIME_TYPE_GIF = "image/gif";
+  private static final String MIME_TYPE_WEBP = "image/webp";
+
+  private ImageHeaderSniffer() {
+    // Utility class.
+  }
+
+  /**
+   * Reads up to {@link #PEEK_SIZE} bytes from the given stream, which must support
+   * {@link InputStream#mark(int)}, and resets it before returning.
+   */
+  @Nullable
+  static Header sniff(@NonNull InputStream is, @NonNull ArrayPool byteArrayPool)
+      throws IOException {
+    byte[] buffer = byteArrayPool.get(PEEK_SIZE, byte[].class);
+    is.mark(PEEK_SIZE);
+    try {
+      int length = 0;
+      int read;
+      while (length < PEEK_SIZE && (read = is.read(buffer, length, PEEK_SIZE - length)) != -1) {
+        length += read;
+      }
+      return parse(ByteBuffer.wrap(buffer, 0, length).slice());
+    } finally {
+      is.reset();
+      byteArrayPool.put(buffer);
+    }
+  }
+
+  /**
+   * Parses the image starting at the given buffer's position without moving its position.
+   */
+  @Nullable
+  static Header sniff(@NonNull ByteBuffer buffer) {
+    return parse(buffer.slice());
+  }
+
+  @Nullable
+  private static Header parse(ByteBuffer data) {
+    data.order(ByteOrder.BIG_ENDIAN);
+    if (data.remaining() < 4) {
+      return null;
+    }
+    int firstFourBytes = data.getInt(0);
+    if (firstFourBytes >>> 16 == JPEG_MAGIC_NUMBER) {
+      return parseJpeg(data);
+    } else if (firstFourBytes == PNG_HEADER) {
+      return parsePng(data);
+    } else if (firstFourBytes >>> 8 == GIF_HEADER) {
+      return parseGif(data);
+    } else if (firstFourBytes == RIFF_HEADER) {
+      return parseWebp(data);
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Header parseJpeg(ByteBuffer data) {
+    int width = -1;
+    int height = -1;
+    int orientation = ImageHeaderParser.UNKNOWN_ORIENTATION;
+    // Like DefaultImageHeaderParser, only the first APP1 segment is checked for an orientation.
+    boolean isExifSegmentChecked = false;
+    int offset = 2;
+    while (offset + 4 <= data.limit()) {
+      int segmentId = data.get(offset) & 0xFF;
+      int segmentType = data.get(offset + 1) & 0xFF;
+      if (segmentId != SEGMENT_START_ID) {
+        return null;
+      } else if (segmentType == SEGMENT_SOS || segmentType == MARKER_EOI) {
+        return width > 0 && height > 0
+            ? new Header(ImageType.JPEG, MIME_TYPE_JPEG, width, height, orientation) : null;
+      }
+      // Segment length includes bytes for segment length.
+      int segmentLength = (data.getShort(offset + 2) & 0xFFFF) - 2;
+      int segmentStart = offset + 4;
+      if (segmentLength < 0 || segmentStart + segmentLength > data.limit()) {
+        break;
+      }
+      if (segmentType == EXIF_SEGMENT_TYPE && !isExifSegmentChecked) {
+        isExifSegmentChecked = true;
+        orientation = parseOrientation(data, segmentStart, segmentLength);
+      } else if (isStartOfFrame(segmentType) && segmentLength >= 5) {
+        // The frame header starts with the sample precision, followed by the height and width.
+        height = data.getShort(segmentStart + 1) & 0xFFFF;
+        width = data.getShort(segmentStart + 3) & 0xFFFF;
+      }
+      if (width > 0 && height > 0 && isExifSegmentChecked) {
+        return new Header(ImageType.JPEG, MIME_TYPE_JPEG, width, height, orientation);
+      }
+      offset = segmentStart + segmentLength;
+    }
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Jpeg header extends beyond the bytes available: " + data.limit());
+    }
+    return null;
+  }
+
+  private static int parseOrientation(ByteBuffer data, int segmentStart, int segmentLength) {
+    ByteBuffer segment = data.duplicate();
+    segment.position(segmentStart);
+    segment.limit(segmentStart + segmentLength);
+    segment = segment.slice();
+    return DefaultImageHeaderParser.parseExifSegment(segment, segmentLength, segmentLength);
+  }
+
+  private static boolean isStartOfFrame(int segmentType) {
+    return segmentType >= SEGMENT_SOF_FIRST && segmentType <= SEGMENT_SOF_LAST
+        && segmentType != SEGMENT_DHT && segmentType != SEGMENT_JPG && segmentType != SEGMENT_DAC;
+  }
+
+  @Nullable
+  private static Header parsePng(ByteBuffer data) {
+    // The signature is followed by the IHDR chunk's length and type, then its width, height, bit
+    // depth and color type.
+    if (data.limit() < 26) {
+      return null;
+    }
+    int width = data.getInt(16);
+    int height = data.getInt(20);
+    int colorType = data.get(25) & 0xFF;
+    // A RGB indexed PNG can also have transparency.
+    ImageType type = colorType >= 3 ? ImageType.PNG_A : ImageType.PNG;
+    return width > 0 && height > 0
+        ? new Header(type, MIME_TYPE_PNG, width, height, ImageHeaderParser.UNKNOWN_ORIENTATION)
+        : null;
+  }
+
+  @Nullable
+  private static Header parseGif(ByteBuffer data) {
+    // The logical screen width and height follow the six byte signature.
+    if (data.limit() < 10) {
+      return null;
+    }
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    int width = data.getShort(6) & 0xFFFF;
+    int height = data.getShort(8) & 0xFFFF;
+    return width > 0 && height > 0
+        ? new Header(
+            ImageType.GIF, MIME_TYPE_GIF, width, height, ImageHeaderParser.UNKNOWN_ORIENTATION)
+        : null;
+  }
+
+  @Nullable
+  private static Header parseWebp(ByteBuffer data) {
+    // See https://developers.google.com/speed/webp/docs/riff_container.
+    if (data.limit() < 30 || data.getInt(8) != WEBP_HEADER) {
+      return null;
+    }
+    int chunkType = data.getInt(12);
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    ImageType type = ImageType.WEBP;
+    int width;
+    int height;
+    if (chunkType == VP8_EXTENDED_HEADER) {
+      if ((data.get(20) & WEBP_EXTENDED_ALPHA_FLAG) != 0) {
+        type = ImageType.WEBP_A;
+      }
+      width = getUInt24(data, 24) + 1;
+      height = getUInt24(data, 27) + 1;
+    } else if (chunkType == VP8_LOSSLESS_HEADER) {
+      if ((data.get(20) & WEBP_LOSSLESS_ALPHA_FLAG) != 0) {
+        type = ImageType.WEBP_A;
+      }
+      // The signature byte is followed by 14 bits each for the width and height minus one.
+      int bits = data.getInt(21);
+      width = (bits & WEBP_DIMENSION_MASK) + 1;
+      height = (bits >> 14 & WEBP_DIMENSION_MASK) + 1;
+    } else if (chunkType == VP8_LOSSY_HEADER) {
+      // The three byte frame tag is followed by the start code and then the width and height.
+      int startCode = (data.get(23) & 0xFF) << 16 | (data.get(24) & 0xFF) << 8
+          | (data.get(25) & 0xFF);
+      if (startCode != VP8_LOSSY_START_CODE) {
+        return null;
+      }
+      width = data.getShort(26) & WEBP_DIMENSION_MASK;
+      height = data.getShort(28) & WEBP_DIMENSION_MASK;
+    } else {
+      return null;
+    }
+    return width > 0 && height > 0
+        ? new Header(type, MIME_TYPE_WEBP, width, height, ImageHeaderParser.UNKNOWN_ORIENTATION)
+        : null;
+  }
+
+  private static int getUInt24(ByteBuffer data, int offset) {
+    return (data.get(offset) & 0xFF)
+        | (data.get(offset + 1) & 0xFF) << 8
+        | (data.get(offset + 2) & 0xFF) << 16;
+  }
+
+  /**
+   * The type, orientation and dimensions of an image.
+   */
+  static final class Header {
+    private final ImageType type;
+    private final String mimeType;
+    private final int width;
+    private final int height;
+    private final int orientation;
+
+    Header(ImageType type, String mimeType, int width, int height, int orientation) {
+      this.type = type;
+      this.mimeType = mimeType;
+      this.width = width;
+      this.height = height;
+      this.orientation = orientation;
+    }
+
+    ImageType getType() {
+      return type;
+    }
+
+    /**
+     * Returns the mime type {@link android.graphics.BitmapFactory} reports for images of this
+     * type.
+     */
+    String getMimeType() {
+      return mimeType;
+    }
+
+    int getWidth() {
+      return width;
+    }
+
+    int getHeight() {
+      return height;
+    }
+
+    /**
+     * Returns the exif orientation, or {@link ImageHeaderParser#UNKNOWN_ORIENTATION} if the image
+     * doesn't have one.
+     */
+    int getOrientation() {
+      return orientation;
+    }
+
+    boolean hasAlpha() {
+      return type.hasAlpha();
+    }
+
+    @Override
+    public String toString() {
+      return "Header{"
+          + "type=" + type
+          + ", size=[" + width + "x" + height + "]"
+          + ", orientation=" + orientation
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,414 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * Resizes, crops, masks and rotates images stored as {@code int[]}s of ARGB pixels, in row major
+ * order, without using {@link android.graphics.Canvas}.
+ *
+ * <p>Unlike the {@link android.graphics.Canvas} based methods in {@link TransformationUtils}, these
+ * methods don't depend on the Android framework, so they can run on any JVM, and they don't need
+ * the lock that {@link TransformationUtils} holds while drawing on some devices. They're written as
+ * simple loops over arrays that the JIT can unroll and vectorize.
+ *
+ * <p>Pixels are expected in the non-premultiplied format returned by
+ * {@link android.graphics.Bitmap#getPixels(int[], int, int, int, int, int, int)}. Resampling is
+ * done with premultiplied colors so that the colors of transparent pixels don't bleed into their
+ * neighbours.
+ */
+public final class PixelKernels {
+  private static final int MAX_CHANNEL = 0xFF;
+  private static final int LANCZOS_LOBES = 3;
+
+  /**
+   * The filters {@link #resample} can use.
+   */
+  public enum Filter {
+    /**
+     * Averages every source pixel covered by each output pixel, weighted by how much of the source
+     * pixel is covered. Fast and free of aliasing when downscaling, and equivalent to linear
+     * interpolation when upscaling.
+     */
+    AREA_AVERAGING(0.5f),
+    /**
+     * Weights source pixels with a three lobe Lanczos window. Sharper than area averaging, at the
+     * cost of more work per pixel and slight ringing around hard edges.
+     */
+    LANCZOS(LANCZOS_LOBES);
+
+    final float support;
+
+    Filter(float support) {
+      this.support = support;
+    }
+  }
+
+  private PixelKernels() {
+    // Utility class.
+  }
+
+  /**
+   * Scales the given region of the source image to fill the destination image.
+   *
+   * <p>The region may have fractional bounds. Source pixels just outside of the region, but inside
+   * the source image, contribute to the edges of the output so that crops are as sharp as the rest
+   * of the image.
+   *
+   * @param src The source pixels.
+   * @param srcWidth The width of the source image.
+   * @param srcHeight The height of the source image.
+   * @param left The left edge of the region of the source image to scale.
+   * @param top The top edge of the region of the source image to scale.
+   * @param width The width of the region of the source image to scale.
+   * @param height The height of the region of the source image to scale.
+   * @param dst The array to write the output pixels to, which must not be {@code src}.
+   * @param dstWidth The width of the output image.
+   * @param dstHeight The height of the output image.
+   * @param filter The filter to resample with.
+   */
+  public static void resample(@NonNull int[] src, int srcWidth, int srcHeight, float left,
+      float top, float width, float height, @NonNull int[] dst, int dstWidth, int dstHeight,
+      @NonNull Filter filter) {
+    checkImage(src, srcWidth, srcHeight);
+    checkImage(dst, dstWidth, dstHeight);
+    if (src == dst) {
+      throw new IllegalArgumentException("Source and destination must be different arrays");
+    }
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Region must not be empty: " + width + "x" + height);
+    }
+
+    Coefficients horizontal = Coefficients.compute(srcWidth, left, width, dstWidth, filter);
+    Coefficients vertical = Coefficients.compute(srcHeight, top, height, dstHeight, filter);
+
+    // Only the source rows that contribute to the output are scaled horizontally.
+    int firstRow = vertical.starts[0];
+    int lastRow = vertical.starts[dstHeight - 1] + vertical.counts[dstHeight - 1];
+    int rows = lastRow - firstRow;
+    int planeSize = dstWidth * rows;
+    float[] scaled = new float[4 * planeSize];
+    float[] row = new float[4 * srcWidth];
+    for (int y = 0; y < rows; y++) {
+      unpackPremultiplied(src, (firstRow + y) * srcWidth, srcWidth, row);
+      scaleRow(row, srcWidth, horizontal, scaled, planeSize, y * dstWidth, dstWidth);
+    }
+
+    float[] accumulated = new float[4 * dstWidth];
+    for (int y = 0; y < dstHeight; y++) {
+      Arrays.fill(accumulated, 0f);
+      int start = vertical.starts[y] - firstRow;
+      int count = vertical.counts[y];
+      int weightOffset = y * vertical.taps;
+      for (int k = 0; k < count; k++) {
+        float weight = vertical.weights[weightOffset + k];
+        int rowOffset = (start + k) * dstWidth;
+        for (int plane = 0; plane < 4; plane++) {
+          accumulateRow(scaled, plane * planeSize + rowOffset, weight, accumulated,
+              plane * dstWidth, dstWidth);
+        }
+      }
+      packUnpremultiplied(accumulated, dstWidth, dst, y * dstWidth);
+    }
+  }
+
+  /**
+   * Copies the given region of the source image into the destination image, which must have the
+   * same size as the region.
+   */
+  public static void crop(@NonNull int[] src, int srcWidth, int srcHeight, int left, int top,
+      @NonNull int[] dst, int width, int height) {
+    checkImage(src, srcWidth, srcHeight);
+    checkImage(dst, width, height);
+    if (left < 0 || top < 0 || left + width > srcWidth || top + height > srcHeight) {
+      throw new IllegalArgumentException("Region [" + left + ", " + top + ", " + width + "x"
+          + height + "] is outside of the source image: " + srcWidth + "x" + srcHeight);
+    }
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(src, (top + y) * srcWidth + left, dst, y * width, width);
+    }
+  }
+
+  /**
+   * Rotates the source image clockwise by the given multiple of 90 degrees.
+   *
+   * <p>The destination image is {@code srcHeight} pixels wide and {@code srcWidth} pixels tall for
+   * rotations of 90 and 270 degrees.
+   */
+  public static void rotate(@NonNull int[] src, int srcWidth, int srcHeight, int degrees,
+      @NonNull int[] dst) {
+    checkImage(src, srcWidth, srcHeight);
+    checkImage(dst, srcWidth, srcHeight);
+    if (src == dst) {
+      throw new IllegalArgumentException("Source and destination must be different arrays");
+    }
+    switch (degrees) {
+      case 0:
+        System.arraycopy(src, 0, dst, 0, srcWidth * srcHeight);
+        break;
+      case 90:
+        transpose(src, srcWidth, srcHeight, dst, /*isClockwise=*/ true);
+        break;
+      case 180:
+        int last = srcWidth * srcHeight - 1;
+        for (int i = 0; i <= last; i++) {
+          dst[last - i] = src[i];
+        }
+        break;
+      case 270:
+        transpose(src, srcWidth, srcHeight, dst, /*isClockwise=*/ false);
+        break;
+      default:
+        throw new IllegalArgumentException("Degrees must be a multiple of 90: " + degrees);
+    }
+  }
+
+  /**
+   * Makes the pixels of the image outside of the largest circle centered in the image transparent,
+   * with an anti-aliased edge.
+   */
+  public static void applyCircleMask(@NonNull int[] pixels, int width, int height) {
+    checkImage(pixels, width, height);
+    float radius = Math.min(width, height) / 2f;
+    float centerX = width / 2f;
+    float centerY = height / 2f;
+    for (int y = 0; y < height; y++) {
+      float dy = y + 0.5f - centerY;
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        float dx = x + 0.5f - centerX;
+        applyCoverage(pixels, offset + x, radius - (float) Math.sqrt(dx * dx + dy * dy));
+      }
+    }
+  }
+
+  /**
+   * Makes the pixels of the image outside of a rectangle with corners of the given radius
+   * transparent, with anti-aliased edges.
+   *
+   * <p>Like {@link android.graphics.Canvas#drawRoundRect}, the radius is reduced to half of the
+   * shortest side of the image if it's larger.
+   */
+  public static void applyRoundedCornerMask(
+      @NonNull int[] pixels, int width, int height, float radius) {
+    checkImage(pixels, width, height);
+    if (radius <= 0) {
+      throw new IllegalArgumentException("Radius must be > 0: " + radius);
+    }
+    radius = Math.min(radius, Math.min(width, height) / 2f);
+    int cornerSize = Math.min((int) Math.ceil(radius), Math.min(width, height));
+    for (int y = 0; y < cornerSize; y++) {
+      float dy = radius - (y + 0.5f);
+      if (dy <= 0) {
+        continue;
+      }
+      for (int x = 0; x < cornerSize; x++) {
+        float dx = radius - (x + 0.5f);
+        if (dx <= 0) {
+          continue;
+        }
+        float inside = radius - (float) Math.sqrt(dx * dx + dy * dy);
+        applyCoverage(pixels, y * width + x, inside);
+        applyCoverage(pixels, y * width + width - 1 - x, inside);
+        applyCoverage(pixels, (height - 1 - y) * width + x, inside);
+        applyCoverage(pixels, (height - 1 - y) * width + width - 1 - x, inside);
+      }
+    }
+  }
+
+  /**
+   * Scales the alpha of the given pixel by the fraction of it that's covered by a shape whose
+   * edge is {@code inside} pixels from the pixel's center.
+   */
+  private static void applyCoverage(int[] pixels, int index, float inside) {
+    float coverage = inside + 0.5f;
+    if (coverage >= 1f) {
+      return;
+    } else if (coverage <= 0f) {
+      pixels[index] = 0;
+      return;
+    }
+    int color = pixels[index];
+    int alpha = Math.round((color >>> 24) * coverage);
+    pixels[index] = alpha << 24 | (color & 0xFFFFFF);
+  }
+
+  private static void transpose(
+      int[] src, int srcWidth, int srcHeight, int[] dst, boolean isClockwise) {
+    // Works in blocks so that both the reads and the writes stay within a few cache lines.
+    final int blockSize = 32;
+    for (int blockY = 0; blockY < srcHeight; blockY += blockSize) {
+      int endY = Math.min(blockY + blockSize, srcHeight);
+      for (int blockX = 0; blockX < srcWidth; blockX += blockSize) {
+        int endX = Math.min(blockX + blockSize, srcWidth);
+        for (int y = blockY; y < endY; y++) {
+          int srcOffset = y * srcWidth;
+          for (int x = blockX; x < endX; x++) {
+            int dstIndex = isClockwise
+                ? x * srcHeight + (srcHeight - 1 - y)
+                : (srcWidth - 1 - x) * srcHeight + y;
+            dst[dstIndex] = src[srcOffset + x];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits a row of ARGB pixels into premultiplied alpha, red, green and blue planes.
+   */
+  private static void unpackPremultiplied(int[] src, int offset, int width, float[] row) {
+    int redOffset = width;
+    int greenOffset = 2 * width;
+    int blueOffset = 3 * width;
+    for (int x = 0; x < width; x++) {
+      int color = src[offset + x];
+      float alpha = color >>> 24;
+      float multiplier = alpha / MAX_CHANNEL;
+      row[x] = alpha;
+      row[redOffset + x] = (color >> 16 & MAX_CHANNEL) * multiplier;
+      row[greenOffset + x] = (color >> 8 & MAX_CHANNEL) * multiplier;
+      row[blueOffset + x] = (color & MAX_CHANNEL) * multiplier;
+    }
+  }
+
+  private static void scaleRow(float[] row, int srcWidth, Coefficients coefficients,
+      float[] scaled, int planeSize, int offset, int dstWidth) {
+    for (int plane = 0; plane < 4; plane++) {
+      int rowOffset = plane * srcWidth;
+      int scaledOffset = plane * planeSize + offset;
+      for (int x = 0; x < dstWidth; x++) {
+        int start = rowOffset + coefficients.starts[x];
+        int count = coefficients.counts[x];
+        int weightOffset = x * coefficients.taps;
+        float sum = 0;
+        for (int k = 0; k < count; k++) {
+          sum += row[start + k] * coefficients.weights[weightOffset + k];
+        }
+        scaled[scaledOffset + x] = sum;
+      }
+    }
+  }
+
+  private static void accumulateRow(
+      float[] scaled, int offset, float weight, float[] accumulated, int accumulatedOffset,
+      int width) {
+    for (int x = 0; x < width; x++) {
+      accumulated[accumulatedOffset + x] += weight * scaled[offset + x];
+    }
+  }
+
+  private static void packUnpremultiplied(float[] accumulated, int width, int[] dst, int offset) {
+    for (int x = 0; x < width; x++) {
+      int alpha = clamp(accumulated[x], MAX_CHANNEL);
+      if (alpha == 0) {
+        dst[offset + x] = 0;
+        continue;
+      }
+      // Divide by the unrounded alpha so that rounding it doesn't shift the color.
+      float multiplier = MAX_CHANNEL / accumulated[x];
+      int red = clamp(accumulated[width + x] * multiplier, MAX_CHANNEL);
+      int green = clamp(accumulated[2 * width + x] * multiplier, MAX_CHANNEL);
+      int blue = clamp(accumulated[3 * width + x] * multiplier, MAX_CHANNEL);
+      dst[offset + x] = alpha << 24 | red << 16 | green << 8 | blue;
+    }
+  }
+
+  private static int clamp(float value, int max) {
+    int result = Math.round(value);
+    return result < 0 ? 0 : result > max ? max : result;
+  }
+
+  private static void checkImage(int[] pixels, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Width and height must be > 0: " + width + "x" + height);
+    }
+    if (pixels.length < width * height) {
+      throw new IllegalArgumentException("Array of length " + pixels.length
+          + " is too small for an image of size " + width + "x" + height);
+    }
+  }
+
+  /**
+   * The source pixels, and their weights, that contribute to each output pixel along one axis.
+   */
+  private static final class Coefficients {
+    final int[] starts;
+    final int[] counts;
+    final float[] weights;
+    final int taps;
+
+    private Coefficients(int outSize, int taps) {
+      this.starts = new int[outSize];
+      this.counts = new int[outSize];
+      this.weights = new float[outSize * taps];
+      this.taps = taps;
+    }
+
+    static Coefficients compute(
+        int inSize, float regionStart, float regionSize, int outSize, Filter filter) {
+      float scale = regionSize / outSize;
+      // Downscaling widens the filter so that every source pixel contributes.
+      float filterScale = Math.max(scale, 1f);
+      float support = filter.support * filterScale;
+      int taps = (int) Math.ceil(support) * 2 + 1;
+      Coefficients result = new Coefficients(outSize, taps);
+
+      for (int i = 0; i < outSize; i++) {
+        float center = regionStart + (i + 0.5f) * scale;
+        int start = Math.max(0, (int) Math.floor(center - support));
+        int end = Math.min(inSize, (int) Math.ceil(center + support));
+        // Regions at the very edge of the image still need at least one pixel.
+        start = Math.min(start, inSize - 1);
+        end = Math.max(end, start + 1);
+        int count = Math.min(end - start, taps);
+        int weightOffset = i * taps;
+        float sum = 0;
+        for (int k = 0; k < count; k++) {
+          float weight = weight(filter, start + k, center, support, filterScale);
+          result.weights[weightOffset + k] = weight;
+          sum += weight;
+        }
+        if (sum == 0) {
+          // Only possible for source regions that fall between pixels, use the nearest pixel.
+          int nearest = Math.min(inSize - 1, Math.max(0, (int) center));
+          start = nearest;
+          count = 1;
+          result.weights[weightOffset] = 1;
+        } else {
+          for (int k = 0; k < count; k++) {
+            result.weights[weightOffset + k] /= sum;
+          }
+        }
+        result.starts[i] = start;
+        result.counts[i] = count;
+      }
+      return result;
+    }
+
+    private static float weight(
+        Filter filter, int pixel, float center, float support, float filterScale) {
+      switch (filter) {
+        case AREA_AVERAGING:
+          // The fraction of the pixel covered by the box around the center.
+          float overlap = Math.min(pixel + 1, center + support) - Math.max(pixel, center - support);
+          return Math.max(0f, overlap);
+        case LANCZOS:
+          return lanczos((pixel + 0.5f - center) / filterScale);
+        default:
+          throw new IllegalArgumentException("Unrecognized filter: " + filter);
+      }
+    }
+
+    private static float lanczos(float x) {
+      if (x == 0) {
+        return 1f;
+      } else if (x <= -LANCZOS_LOBES || x >= LANCZOS_LOBES) {
+        return 0f;
+      }
+      double piX = Math.PI * x;
+      return (float) (LANCZOS_LOBES * Math.sin(piX) * Math.sin(piX / LANCZOS_LOBES)
+          / (piX * piX));
+    }
+  }
+}
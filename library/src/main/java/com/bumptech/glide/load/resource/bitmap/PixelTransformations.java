@@ -0,0 +1,126 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+
+/**
+ * Implements the transformations in {@link TransformationUtils} with {@link PixelKernels} by
+ * copying the pixels of the given {@link Bitmap} into an {@code int[]} and the transformed pixels
+ * into a {@link Bitmap} from the {@link BitmapPool}.
+ *
+ * <p>Each transformation allocates arrays for the input and output pixels, so these trade extra
+ * garbage for avoiding {@link android.graphics.Canvas} and the lock
+ * {@link TransformationUtils#getBitmapDrawableLock()}.
+ */
+final class PixelTransformations {
+
+  private PixelTransformations() {
+    // Utility class.
+  }
+
+  /**
+   * Returns {@code true} if {@link Bitmap#getPixels(int[], int, int, int, int, int, int)} can copy
+   * the given {@link Bitmap}'s pixels without losing precision.
+   */
+  static boolean canTransform(@NonNull Bitmap bitmap) {
+    Bitmap.Config config = bitmap.getConfig();
+    return config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.RGB_565;
+  }
+
+  static Bitmap centerCrop(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int width,
+      int height, @NonNull PixelKernels.Filter filter) {
+    int srcWidth = inBitmap.getWidth();
+    int srcHeight = inBitmap.getHeight();
+    float scale = Math.max(width / (float) srcWidth, height / (float) srcHeight);
+    float regionWidth = width / scale;
+    float regionHeight = height / scale;
+
+    Bitmap result = resample(pool, inBitmap, (srcWidth - regionWidth) / 2f,
+        (srcHeight - regionHeight) / 2f, regionWidth, regionHeight, width, height,
+        inBitmap.getConfig(), filter);
+    // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
+    TransformationUtils.setAlpha(inBitmap, result);
+    return result;
+  }
+
+  static Bitmap scale(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int width, int height,
+      @NonNull PixelKernels.Filter filter) {
+    Bitmap result = resample(pool, inBitmap, 0, 0, inBitmap.getWidth(), inBitmap.getHeight(),
+        width, height, inBitmap.getConfig(), filter);
+    // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
+    TransformationUtils.setAlpha(inBitmap, result);
+    return result;
+  }
+
+  static Bitmap circleCrop(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int destWidth,
+      int destHeight, @NonNull PixelKernels.Filter filter) {
+    int destMinEdge = Math.min(destWidth, destHeight);
+    int srcWidth = inBitmap.getWidth();
+    int srcHeight = inBitmap.getHeight();
+    float regionSize = Math.min(srcWidth, srcHeight);
+
+    int[] pixels = new int[destMinEdge * destMinEdge];
+    PixelKernels.resample(getPixels(inBitmap), srcWidth, srcHeight,
+        (srcWidth - regionSize) / 2f, (srcHeight - regionSize) / 2f, regionSize, regionSize,
+        pixels, destMinEdge, destMinEdge, filter);
+    PixelKernels.applyCircleMask(pixels, destMinEdge, destMinEdge);
+
+    Bitmap result = pool.get(destMinEdge, destMinEdge, Bitmap.Config.ARGB_8888);
+    result.setHasAlpha(true);
+    setPixels(result, pixels);
+    return result;
+  }
+
+  static Bitmap roundedCorners(
+      @NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int roundingRadius) {
+    int width = inBitmap.getWidth();
+    int height = inBitmap.getHeight();
+    int[] pixels = getPixels(inBitmap);
+    PixelKernels.applyRoundedCornerMask(pixels, width, height, roundingRadius);
+
+    Bitmap result = pool.get(width, height, Bitmap.Config.ARGB_8888);
+    result.setHasAlpha(true);
+    setPixels(result, pixels);
+    return result;
+  }
+
+  static Bitmap rotate(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int degrees) {
+    int width = inBitmap.getWidth();
+    int height = inBitmap.getHeight();
+    int[] pixels = new int[width * height];
+    PixelKernels.rotate(getPixels(inBitmap), width, height, degrees, pixels);
+
+    boolean isTransposed = degrees == 90 || degrees == 270;
+    Bitmap result = pool.get(
+        isTransposed ? height : width, isTransposed ? width : height, inBitmap.getConfig());
+    TransformationUtils.setAlpha(inBitmap, result);
+    setPixels(result, pixels);
+    return result;
+  }
+
+  private static Bitmap resample(BitmapPool pool, Bitmap inBitmap, float left, float top,
+      float regionWidth, float regionHeight, int width, int height, Bitmap.Config config,
+      PixelKernels.Filter filter) {
+    int[] pixels = new int[width * height];
+    PixelKernels.resample(getPixels(inBitmap), inBitmap.getWidth(), inBitmap.getHeight(), left,
+        top, regionWidth, regionHeight, pixels, width, height, filter);
+    Bitmap result = pool.get(width, height, config);
+    setPixels(result, pixels);
+    return result;
+  }
+
+  private static int[] getPixels(Bitmap bitmap) {
+    int width = bitmap.getWidth();
+    int height = bitmap.getHeight();
+    int[] pixels = new int[width * height];
+    bitmap.getPixels(pixels, /*offset=*/ 0, /*stride=*/ width, /*x=*/ 0, /*y=*/ 0, width, height);
+    return pixels;
+  }
+
+  private static void setPixels(Bitmap bitmap, int[] pixels) {
+    int width = bitmap.getWidth();
+    int height = bitmap.getHeight();
+    bitmap.setPixels(pixels, /*offset=*/ 0, /*stride=*/ width, /*x=*/ 0, /*y=*/ 0, width, height);
+  }
+}
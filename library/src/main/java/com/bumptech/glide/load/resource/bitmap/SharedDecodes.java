@@ -0,0 +1,311 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets concurrent loads of the same source data at different sizes share a single decode.
+ *
+ * <p>Loads register the size they need for their source data's key before they start to decode.
+ * When {@link Downsampler} decodes data that more than one load has registered for, the first
+ * decode is done at the largest registered size and the decoded {@link Bitmap} is kept until every
+ * registered load has unregistered. Each load, including the one that decoded, then gets its own
+ * {@link Bitmap} scaled down from the shared one rather than decoding the data again. Loads that
+ * arrive while the shared decode is in progress wait a bounded amount of time for it to finish,
+ * and decode the data themselves if it doesn't, or if they're cancelled while waiting.
+ *
+ * <p>Loads that need a larger {@link Bitmap} than the one that was shared, or a different
+ * {@link Bitmap.Config}, decode the data themselves.
+ */
+public final class SharedDecodes {
+  private static final String TAG = "SharedDecodes";
+  // Long enough for most decodes to finish, short enough not to hold a decode thread for long.
+  private static final long DEFAULT_MAX_WAIT_MILLIS = 250;
+
+  private final Map<Key, Entry> entries = new HashMap<>();
+  private final long maxWaitMillis;
+
+  public SharedDecodes() {
+    this(DEFAULT_MAX_WAIT_MILLIS);
+  }
+
+  @VisibleForTesting
+  SharedDecodes(long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  /**
+   * Records that a load of the data with the given key is going to decode it at the given size.
+   *
+   * <p>Every call must be followed by a call to {@link #unregister(Key, int, int)} with the same
+   * arguments once the load has finished decoding, or has failed or been cancelled.
+   */
+  public void register(@NonNull Key dataKey, int width, int height) {
+    synchronized (this) {
+      Entry entry = entries.get(dataKey);
+      if (entry == null) {
+        entry = new Entry();
+        entries.put(dataKey, entry);
+      }
+      synchronized (entry) {
+        entry.sizes.add(new int[] { width, height });
+      }
+    }
+  }
+
+  /**
+   * Removes a size added with {@link #register(Key, int, int)}, releasing any shared
+   * {@link Bitmap} for the key once no loads remain.
+   */
+  public void unregister(@NonNull Key dataKey, int width, int height) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(dataKey);
+    }
+    if (entry == null) {
+      return;
+    }
+    synchronized (entry) {
+      entry.removeSize(width, height);
+    }
+    maybeRemove(dataKey, entry);
+  }
+
+  /**
+   * Stops the given thread from waiting for another load's decode of the data with the given key,
+   * so that a cancelled load doesn't hold its thread until the other decode finishes.
+   *
+   * <p>Has no effect if the thread isn't waiting.
+   */
+  public void cancelWait(@NonNull Key dataKey, @NonNull Thread thread) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(dataKey);
+    }
+    if (entry == null) {
+      return;
+    }
+    synchronized (entry) {
+      if (entry.waiters.remove(thread)) {
+        entry.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns a claim on a shared decode of the data with the given key for a load that will produce
+   * a {@link Bitmap} with the given size and config, or {@code null} if the load should decode the
+   * data itself.
+   *
+   * <p>If another load is decoding the data, waits for it to finish first. Returns {@code null}
+   * if the other decode doesn't finish in time, or if the wait is cancelled with
+   * {@link #cancelWait(Key, Thread)}.
+   *
+   * @param width The width of the {@link Bitmap} the load will produce, after any rotation.
+   * @param height The height of the {@link Bitmap} the load will produce, after any rotation.
+   */
+  @Nullable
+  Claim claim(@NonNull Key dataKey, int width, int height, @NonNull Bitmap.Config config,
+      @NonNull BitmapPool bitmapPool) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(dataKey);
+    }
+    if (entry == null) {
+      return null;
+    }
+    synchronized (entry) {
+      if (entry.isDecoding && !awaitDecodeLocked(entry)) {
+        return null;
+      }
+      Bitmap shared = entry.bitmap;
+      if (shared != null && shared.getConfig() == config
+          && shared.getWidth() >= width && shared.getHeight() >= height) {
+        if (Log.isLoggable(TAG, Log.VERBOSE)) {
+          Log.v(TAG, "Deriving [" + width + "x" + height + "] from shared decode"
+              + " [" + shared.getWidth() + "x" + shared.getHeight() + "] for: " + dataKey);
+        }
+        Bitmap derived = TransformationUtils.scale(bitmapPool, shared, width, height);
+        return new Claim(dataKey, entry, derived, /*decodeWidth=*/ 0, /*decodeHeight=*/ 0);
+      }
+      // The data is only decoded once for the group, or there's no one to share a decode with.
+      if (shared != null || entry.sizes.size() < 2) {
+        return null;
+      }
+      entry.isDecoding = true;
+      return new Claim(dataKey, entry, /*derived=*/ null, entry.getLargestWidth(),
+          entry.getLargestHeight());
+    }
+  }
+
+  // Returns true if the decode in progress finished in time, or false if waiting timed out, was
+  // cancelled or was interrupted.
+  private boolean awaitDecodeLocked(Entry entry) {
+    Thread current = Thread.currentThread();
+    entry.waiters.add(current);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    try {
+      while (entry.isDecoding && entry.waiters.contains(current)) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+          return false;
+        }
+        entry.wait(remainingMillis);
+      }
+      return !entry.isDecoding;
+    } catch (InterruptedException e) {
+      current.interrupt();
+      return false;
+    } finally {
+      entry.waiters.remove(current);
+    }
+  }
+
+  @Synthetic
+  void maybeRemove(Key dataKey, Entry entry) {
+    Bitmap toRelease = null;
+    BitmapPool bitmapPool = null;
+    synchronized (this) {
+      synchronized (entry) {
+        if (entry.sizes.isEmpty() && !entry.isDecoding && entries.get(dataKey) == entry) {
+          entries.remove(dataKey);
+          toRelease = entry.bitmap;
+          bitmapPool = entry.bitmapPool;
+          entry.bitmap = null;
+          entry.bitmapPool = null;
+        }
+      }
+    }
+    if (toRelease != null) {
+      bitmapPool.put(toRelease);
+    }
+  }
+
+  /**
+   * Either a {@link Bitmap} derived from a shared decode, or the obligation to decode the data at a
+   * larger size for the loads that registered for it and to call {@link #publish} or
+   * {@link #abandon()}.
+   */
+  final class Claim {
+    private final Key dataKey;
+    private final Entry entry;
+    @Nullable private final Bitmap derived;
+    private final int decodeWidth;
+    private final int decodeHeight;
+
+    Claim(Key dataKey, Entry entry, @Nullable Bitmap derived, int decodeWidth,
+        int decodeHeight) {
+      this.dataKey = dataKey;
+      this.entry = entry;
+      this.derived = derived;
+      this.decodeWidth = decodeWidth;
+      this.decodeHeight = decodeHeight;
+    }
+
+    /**
+     * Returns the {@link Bitmap} derived for the load, or {@code null} if the load must decode the
+     * data itself at {@link #getDecodeWidth()} by {@link #getDecodeHeight()}.
+     */
+    @Nullable
+    Bitmap getDerived() {
+      return derived;
+    }
+
+    /**
+     * Returns the width to decode at, which may be {@link Target#SIZE_ORIGINAL}.
+     */
+    int getDecodeWidth() {
+      return decodeWidth;
+    }
+
+    /**
+     * Returns the height to decode at, which may be {@link Target#SIZE_ORIGINAL}.
+     */
+    int getDecodeHeight() {
+      return decodeHeight;
+    }
+
+    /**
+     * Shares the given decoded {@link Bitmap}, which is then owned by this class, and returns a
+     * copy of it scaled to the given size for the load that decoded it.
+     */
+    @NonNull
+    Bitmap publish(@NonNull Bitmap decoded, int width, int height,
+        @NonNull BitmapPool bitmapPool) {
+      Bitmap result;
+      synchronized (entry) {
+        entry.bitmap = decoded;
+        entry.bitmapPool = bitmapPool;
+        entry.isDecoding = false;
+        result = TransformationUtils.scale(bitmapPool, decoded, width, height);
+        entry.notifyAll();
+      }
+      maybeRemove(dataKey, entry);
+      return result;
+    }
+
+    /**
+     * Gives up on sharing a decode so that waiting loads decode the data themselves.
+     */
+    void abandon() {
+      synchronized (entry) {
+        entry.isDecoding = false;
+        entry.notifyAll();
+      }
+      maybeRemove(dataKey, entry);
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final List<int[]> sizes = new ArrayList<>();
+    // Threads waiting in claim for the decode in progress to finish.
+    @Synthetic final List<Thread> waiters = new ArrayList<>();
+    @Synthetic boolean isDecoding;
+    @Nullable @Synthetic Bitmap bitmap;
+    @Nullable @Synthetic BitmapPool bitmapPool;
+
+    @Synthetic
+    Entry() { }
+
+    void removeSize(int width, int height) {
+      for (int i = 0; i < sizes.size(); i++) {
+        int[] size = sizes.get(i);
+        if (size[0] == width && size[1] == height) {
+          sizes.remove(i);
+          return;
+        }
+      }
+    }
+
+    int getLargestWidth() {
+      return getLargest(/*index=*/ 0);
+    }
+
+    int getLargestHeight() {
+      return getLargest(/*index=*/ 1);
+    }
+
+    private int getLargest(int index) {
+      int result = 0;
+      for (int[] size : sizes) {
+        if (size[index] == Target.SIZE_ORIGINAL) {
+          return Target.SIZE_ORIGINAL;
+        }
+        result = Math.max(result, size[index]);
+      }
+      return result;
+    }
+  }
+}
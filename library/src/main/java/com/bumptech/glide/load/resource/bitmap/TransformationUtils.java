@@ -14,6 +14,7 @@ import android.graphics.Shader;
 import android.media.ExifInterface;
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 import com.bumptech.glide.load.Transformation;
@@ -135,6 +136,11 @@ public final class TransformationUtils {
       dy = (height - inBitmap.getHeight() * scale) * 0.5f;
     }
 
+    PixelKernels.Filter filter = getPixelFilter(inBitmap);
+    if (filter != null) {
+      return PixelTransformations.centerCrop(pool, inBitmap, width, height, filter);
+    }
+
     m.setScale(scale, scale);
     m.postTranslate((int) (dx + 0.5f), (int) (dy + 0.5f));
 
@@ -187,6 +193,11 @@ public final class TransformationUtils {
     targetWidth = (int) (minPercentage * inBitmap.getWidth());
     targetHeight = (int) (minPercentage * inBitmap.getHeight());
 
+    PixelKernels.Filter filter = getPixelFilter(inBitmap);
+    if (filter != null) {
+      return PixelTransformations.scale(pool, inBitmap, targetWidth, targetHeight, filter);
+    }
+
     Bitmap.Config config = getNonNullConfig(inBitmap);
     Bitmap toReuse = pool.get(targetWidth, targetHeight, config);
 
@@ -233,6 +244,27 @@ public final class TransformationUtils {
     }
   }
 
+  /**
+   * Returns a new {@link Bitmap} from the given pool containing the given {@link Bitmap} scaled to
+   * exactly the given width and height.
+   *
+   * <p>Unlike the transformations above, the given {@link Bitmap} is never returned, even if it's
+   * already the requested size, so the caller can keep using it.
+   */
+  static Bitmap scale(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int width, int height) {
+    PixelKernels.Filter filter = getPixelFilter(inBitmap);
+    if (filter != null) {
+      return PixelTransformations.scale(pool, inBitmap, width, height, filter);
+    }
+    Bitmap result = pool.get(width, height, getNonNullConfig(inBitmap));
+    // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
+    setAlpha(inBitmap, result);
+    Matrix matrix = new Matrix();
+    matrix.setScale(width / (float) inBitmap.getWidth(), height / (float) inBitmap.getHeight());
+    applyMatrix(inBitmap, result, matrix);
+    return result;
+  }
+
   /**
    * Sets the alpha of the Bitmap we're going to re-use to the alpha of the Bitmap we're going to
    * transform. This keeps {@link android.graphics.Bitmap#hasAlpha()}} consistent before and after
@@ -314,6 +346,14 @@ public final class TransformationUtils {
     if (!isExifOrientationRequired(exifOrientation)) {
       return inBitmap;
     }
+    // PixelKernels only rotates, flipped orientations are always drawn with a Canvas.
+    boolean isRotation = exifOrientation == ExifInterface.ORIENTATION_ROTATE_90
+        || exifOrientation == ExifInterface.ORIENTATION_ROTATE_180
+        || exifOrientation == ExifInterface.ORIENTATION_ROTATE_270;
+    if (isRotation && getPixelFilter(inBitmap) != null) {
+      return PixelTransformations.rotate(
+          pool, inBitmap, getExifOrientationDegrees(exifOrientation));
+    }
 
     final Matrix matrix = new Matrix();
     initializeMatrixForRotation(exifOrientation, matrix);
@@ -365,6 +405,11 @@ public final class TransformationUtils {
    */
   public static Bitmap circleCrop(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap,
       int destWidth, int destHeight) {
+    PixelKernels.Filter filter = getPixelFilter(inBitmap);
+    if (filter != null) {
+      return PixelTransformations.circleCrop(pool, inBitmap, destWidth, destHeight, filter);
+    }
+
     int destMinEdge = Math.min(destWidth, destHeight);
     float radius = destMinEdge / 2f;
 
@@ -475,6 +520,9 @@ public final class TransformationUtils {
   public static Bitmap roundedCorners(
       @NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int roundingRadius) {
     Preconditions.checkArgument(roundingRadius > 0, "roundingRadius must be greater than 0.");
+    if (getPixelFilter(inBitmap) != null) {
+      return PixelTransformations.roundedCorners(pool, inBitmap, roundingRadius);
+    }
 
     // Alpha is required for this transformation.
     Bitmap.Config safeConfig = getAlphaSafeConfig(inBitmap);
@@ -506,6 +554,23 @@ public final class TransformationUtils {
     return result;
   }
 
+  /**
+   * Returns the filter to transform the given {@link Bitmap} with using {@link PixelKernels}, or
+   * {@code null} if it should be drawn with a {@link Canvas}.
+   */
+  @Nullable
+  private static PixelKernels.Filter getPixelFilter(@NonNull Bitmap inBitmap) {
+    switch (BitmapTransformation.getCurrentBackend()) {
+      case PIXELS_AREA_AVERAGING:
+        return PixelTransformations.canTransform(inBitmap)
+            ? PixelKernels.Filter.AREA_AVERAGING : null;
+      case PIXELS_LANCZOS:
+        return PixelTransformations.canTransform(inBitmap) ? PixelKernels.Filter.LANCZOS : null;
+      default:
+        return null;
+    }
+  }
+
   // Avoids warnings in M+.
   private static void clear(Canvas canvas) {
     canvas.setBitmap(null);
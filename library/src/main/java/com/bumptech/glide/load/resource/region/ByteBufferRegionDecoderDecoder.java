@@ -0,0 +1,57 @@
+package com.bumptech.glide.load.resource.region;
+
+import android.graphics.BitmapRegionDecoder;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Creates {@link BitmapRegionDecoder}s for JPEG, PNG and WebP images from
+ * {@link java.nio.ByteBuffer}s so that parts of very large images can be decoded as {@link Tile}s
+ * without decoding the entire image.
+ */
+public class ByteBufferRegionDecoderDecoder
+    implements ResourceDecoder<ByteBuffer, BitmapRegionDecoder> {
+  private final List<ImageHeaderParser> parsers;
+
+  public ByteBufferRegionDecoderDecoder(List<ImageHeaderParser> parsers) {
+    this.parsers = parsers;
+  }
+
+  @Override
+  public boolean handles(@NonNull ByteBuffer source, @NonNull Options options)
+      throws IOException {
+    return isSupported(ImageHeaderParserUtils.getType(parsers, source));
+  }
+
+  @Override
+  public Resource<BitmapRegionDecoder> decode(@NonNull ByteBuffer source, int width, int height,
+      @NonNull Options options) throws IOException {
+    int size = source.remaining();
+    // The decoder copies the data, so it's fine for the buffer to be reused once we return.
+    BitmapRegionDecoder decoder =
+        BitmapRegionDecoder.newInstance(ByteBufferUtil.toStream(source), /*isShareable=*/ false);
+    return decoder != null ? new RegionDecoderResource(decoder, size) : null;
+  }
+
+  static boolean isSupported(ImageType type) {
+    switch (type) {
+      case JPEG:
+      case PNG:
+      case PNG_A:
+      case WEBP:
+      case WEBP_A:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.bumptech.glide.load.resource.region;
+
+import android.graphics.BitmapRegionDecoder;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Preconditions;
+
+/**
+ * A resource wrapping a {@link BitmapRegionDecoder} that {@link Tile}s of an image can be decoded
+ * from.
+ */
+public final class RegionDecoderResource implements Resource<BitmapRegionDecoder> {
+  private final BitmapRegionDecoder decoder;
+  private final int size;
+
+  /**
+   * @param decoder The decoder to wrap.
+   * @param size    The number of bytes of encoded image data the decoder holds on to.
+   */
+  public RegionDecoderResource(@NonNull BitmapRegionDecoder decoder, int size) {
+    this.decoder = Preconditions.checkNotNull(decoder, "Decoder must not be null");
+    this.size = size;
+  }
+
+  @NonNull
+  @Override
+  public Class<BitmapRegionDecoder> getResourceClass() {
+    return BitmapRegionDecoder.class;
+  }
+
+  @NonNull
+  @Override
+  public BitmapRegionDecoder get() {
+    return decoder;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public void recycle() {
+    decoder.recycle();
+  }
+}
@@ -0,0 +1,50 @@
+package com.bumptech.glide.load.resource.region;
+
+import android.graphics.BitmapRegionDecoder;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Creates {@link BitmapRegionDecoder}s from {@link java.io.InputStream}s by reading the stream
+ * into a {@link java.nio.ByteBuffer} and passing it to a wrapped decoder.
+ *
+ * <p>{@link BitmapRegionDecoder} keeps a copy of the entire image either way, so reading the stream
+ * up front lets us report how much memory the decoder holds on to.
+ */
+public class StreamRegionDecoderDecoder
+    implements ResourceDecoder<InputStream, BitmapRegionDecoder> {
+  private final List<ImageHeaderParser> parsers;
+  private final ResourceDecoder<ByteBuffer, BitmapRegionDecoder> byteBufferDecoder;
+  private final ArrayPool byteArrayPool;
+
+  public StreamRegionDecoderDecoder(List<ImageHeaderParser> parsers,
+      ResourceDecoder<ByteBuffer, BitmapRegionDecoder> byteBufferDecoder,
+      ArrayPool byteArrayPool) {
+    this.parsers = parsers;
+    this.byteBufferDecoder = byteBufferDecoder;
+    this.byteArrayPool = byteArrayPool;
+  }
+
+  @Override
+  public boolean handles(@NonNull InputStream source, @NonNull Options options)
+      throws IOException {
+    return ByteBufferRegionDecoderDecoder.isSupported(
+        ImageHeaderParserUtils.getType(parsers, source, byteArrayPool));
+  }
+
+  @Override
+  public Resource<BitmapRegionDecoder> decode(@NonNull InputStream source, int width, int height,
+      @NonNull Options options) throws IOException {
+    return byteBufferDecoder.decode(ByteBufferUtil.fromStream(source), width, height, options);
+  }
+}
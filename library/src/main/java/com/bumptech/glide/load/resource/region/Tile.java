@@ -0,0 +1,112 @@
+package com.bumptech.glide.load.resource.region;
+
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.util.Preconditions;
+
+/**
+ * A model for a rectangular region of an image decoded with a {@link BitmapRegionDecoder} at a
+ * particular sample size.
+ *
+ * <p>Tiles are equal if they're for the same region of the same {@link BitmapRegionDecoder} at the
+ * same sample size, so they can be loaded with Glide like any other model and the decoded
+ * {@link android.graphics.Bitmap}s are cached in memory and returned to the
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool} as usual. Tiles should be loaded
+ * with {@link com.bumptech.glide.load.engine.DiskCacheStrategy#NONE} because their keys aren't
+ * stable across instances of {@link BitmapRegionDecoder}.
+ */
+public final class Tile {
+  private final BitmapRegionDecoder decoder;
+  private final int left;
+  private final int top;
+  private final int right;
+  private final int bottom;
+  private final int sampleSize;
+
+  /**
+   * @param decoder    The decoder for the image the tile is a part of.
+   * @param region     The region of the image in the image's original coordinates.
+   * @param sampleSize The {@link android.graphics.BitmapFactory.Options#inSampleSize} to decode the
+   *                   region with.
+   */
+  public Tile(@NonNull BitmapRegionDecoder decoder, @NonNull Rect region, int sampleSize) {
+    Preconditions.checkArgument(!region.isEmpty(), "Region must not be empty");
+    Preconditions.checkArgument(sampleSize > 0, "Sample size must be > 0");
+    this.decoder = Preconditions.checkNotNull(decoder);
+    this.left = region.left;
+    this.top = region.top;
+    this.right = region.right;
+    this.bottom = region.bottom;
+    this.sampleSize = sampleSize;
+  }
+
+  @NonNull
+  public BitmapRegionDecoder getDecoder() {
+    return decoder;
+  }
+
+  /**
+   * Returns a copy of the region of the image in the image's original coordinates.
+   */
+  @NonNull
+  public Rect getRegion() {
+    return new Rect(left, top, right, bottom);
+  }
+
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  /**
+   * Returns the width of the decoded tile in pixels.
+   */
+  public int getWidth() {
+    return getSampledDimension(right - left);
+  }
+
+  /**
+   * Returns the height of the decoded tile in pixels.
+   */
+  public int getHeight() {
+    return getSampledDimension(bottom - top);
+  }
+
+  private int getSampledDimension(int dimension) {
+    // Matches the rounding BitmapRegionDecoder uses so that re-used Bitmaps are filled entirely.
+    return Math.max(1, dimension / sampleSize);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof Tile) {
+      Tile other = (Tile) o;
+      return decoder == other.decoder
+          && left == other.left
+          && top == other.top
+          && right == other.right
+          && bottom == other.bottom
+          && sampleSize == other.sampleSize;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = System.identityHashCode(decoder);
+    result = 31 * result + left;
+    result = 31 * result + top;
+    result = 31 * result + right;
+    result = 31 * result + bottom;
+    result = 31 * result + sampleSize;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "Tile{"
+        + "region=[" + left + ", " + top + ", " + right + ", " + bottom + "]"
+        + ", sampleSize=" + sampleSize
+        + '}';
+  }
+}
@@ -0,0 +1,82 @@
+package com.bumptech.glide.load.resource.region;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+
+/**
+ * Decodes the region of an image described by a {@link Tile} into a {@link Bitmap}, re-using
+ * {@link Bitmap}s from the {@link BitmapPool} where possible.
+ *
+ * <p>The requested width and height are ignored, tiles are always decoded at the size given by
+ * their region and sample size.
+ */
+public final class TileDecoder implements ResourceDecoder<Tile, Bitmap> {
+  private static final String TAG = "TileDecoder";
+
+  private final BitmapPool bitmapPool;
+
+  public TileDecoder(BitmapPool bitmapPool) {
+    this.bitmapPool = bitmapPool;
+  }
+
+  @Override
+  public boolean handles(@NonNull Tile source, @NonNull Options options) {
+    return true;
+  }
+
+  @Override
+  public Resource<Bitmap> decode(@NonNull Tile source, int width, int height,
+      @NonNull Options options) {
+    Bitmap.Config config = options.get(Downsampler.DECODE_FORMAT) == DecodeFormat.PREFER_RGB_565
+        ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+    decodeOptions.inSampleSize = source.getSampleSize();
+    decodeOptions.inPreferredConfig = config;
+    // Prior to KitKat, the inBitmap size must exactly match the size of the decoded region.
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      decodeOptions.inMutable = true;
+      decodeOptions.inBitmap = bitmapPool.getDirty(source.getWidth(), source.getHeight(), config);
+    }
+
+    Bitmap result;
+    try {
+      result = decodeRegion(source, decodeOptions);
+    } catch (IllegalArgumentException e) {
+      if (decodeOptions.inBitmap == null) {
+        throw e;
+      }
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode with inBitmap, trying again without Bitmap re-use", e);
+      }
+      bitmapPool.put(decodeOptions.inBitmap);
+      decodeOptions.inBitmap = null;
+      result = decodeRegion(source, decodeOptions);
+    }
+    if (result == null && decodeOptions.inBitmap != null) {
+      bitmapPool.put(decodeOptions.inBitmap);
+    }
+    return BitmapResource.obtain(result, bitmapPool);
+  }
+
+  private static Bitmap decodeRegion(Tile tile, BitmapFactory.Options options) {
+    try {
+      return tile.getDecoder().decodeRegion(tile.getRegion(), options);
+    } catch (IllegalStateException e) {
+      // Thrown if the decoder was recycled because the load of the whole image was cleared.
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode " + tile, e);
+      }
+      return null;
+    }
+  }
+}
@@ -15,7 +15,10 @@ import java.util.WeakHashMap;
 /**
  * A class for tracking, canceling, and restarting in progress, completed, and failed requests.
  *
- * <p>This class is not thread safe and must be accessed on the main thread.
+ * <p>Requests are usually tracked on the main thread, but with a concurrent
+ * {@link com.bumptech.glide.load.engine.Engine} requests for
+ * {@link com.bumptech.glide.request.FutureTarget}s are tracked and started on the thread that
+ * submitted them, so all methods are synchronized.
  */
 public class RequestTracker {
   private static final String TAG = "RequestTracker";
@@ -38,7 +41,7 @@ public class RequestTracker {
   /**
    * Starts tracking the given request.
    */
-  public void runRequest(@NonNull Request request) {
+  public synchronized void runRequest(@NonNull Request request) {
     requests.add(request);
     if (!isPaused) {
       request.begin();
@@ -52,7 +55,7 @@ public class RequestTracker {
   }
 
   @VisibleForTesting
-  void addRequest(Request request) {
+  synchronized void addRequest(Request request) {
     requests.add(request);
   }
 
@@ -60,7 +63,7 @@ public class RequestTracker {
    * Stops tracking the given request, clears, and recycles it, and returns {@code true} if the
    * request was removed or invalid or {@code false} if the request was not found.
    */
-  public boolean clearRemoveAndRecycle(@Nullable Request request) {
+  public synchronized boolean clearRemoveAndRecycle(@Nullable Request request) {
     // It's safe for us to recycle because this is only called when the user is explicitly clearing
     // a Target so we know that there are no remaining references to the Request.
     return clearRemoveAndMaybeRecycle(request, /*isSafeToRecycle=*/ true);
@@ -87,14 +90,14 @@ public class RequestTracker {
   /**
    * Returns {@code true} if requests are currently paused, and {@code false} otherwise.
    */
-  public boolean isPaused() {
+  public synchronized boolean isPaused() {
     return isPaused;
   }
 
   /**
    * Stops any in progress requests.
    */
-  public void pauseRequests() {
+  public synchronized void pauseRequests() {
     isPaused = true;
     for (Request request : Util.getSnapshot(requests)) {
       if (request.isRunning()) {
@@ -105,7 +108,7 @@ public class RequestTracker {
   }
 
   /** Stops any in progress requests and releases bitmaps associated with completed requests. */
-  public void pauseAllRequests() {
+  public synchronized void pauseAllRequests() {
     isPaused = true;
     for (Request request : Util.getSnapshot(requests)) {
       if (request.isRunning() || request.isComplete()) {
@@ -118,7 +121,7 @@ public class RequestTracker {
   /**
    * Starts any not yet completed or failed requests.
    */
-  public void resumeRequests() {
+  public synchronized void resumeRequests() {
     isPaused = false;
     for (Request request : Util.getSnapshot(requests)) {
       // We don't need to check for cleared here. Any explicit clear by a user will remove the
@@ -136,7 +139,7 @@ public class RequestTracker {
    *
    * <p>After this call requests cannot be restarted.
    */
-  public void clearRequests() {
+  public synchronized void clearRequests() {
     for (Request request : Util.getSnapshot(requests)) {
       // It's unsafe to recycle the Request here because we don't know who might else have a
       // reference to it.
@@ -148,7 +151,7 @@ public class RequestTracker {
   /**
    * Restarts failed requests and cancels and restarts in progress requests.
    */
-  public void restartRequests() {
+  public synchronized void restartRequests() {
     for (Request request : Util.getSnapshot(requests)) {
       if (!request.isComplete() && !request.isCleared()) {
         request.clear();
@@ -163,7 +166,7 @@ public class RequestTracker {
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     return super.toString() + "{numRequests=" + requests.size() + ", isPaused=" + isPaused + "}";
   }
 }
@@ -16,41 +16,41 @@ public final class TargetTracker implements LifecycleListener {
   private final Set<Target<?>> targets =
       Collections.newSetFromMap(new WeakHashMap<Target<?>, Boolean>());
 
-  public void track(@NonNull Target<?> target) {
+  public synchronized void track(@NonNull Target<?> target) {
     targets.add(target);
   }
 
-  public void untrack(@NonNull Target<?> target) {
+  public synchronized void untrack(@NonNull Target<?> target) {
     targets.remove(target);
   }
 
   @Override
-  public void onStart() {
+  public synchronized void onStart() {
     for (Target<?> target : Util.getSnapshot(targets)) {
       target.onStart();
     }
   }
 
   @Override
-  public void onStop() {
+  public synchronized void onStop() {
     for (Target<?> target : Util.getSnapshot(targets)) {
       target.onStop();
     }
   }
 
   @Override
-  public void onDestroy() {
+  public synchronized void onDestroy() {
     for (Target<?> target : Util.getSnapshot(targets)) {
       target.onDestroy();
     }
   }
 
   @NonNull
-  public List<Target<?>> getAll() {
+  public synchronized List<Target<?>> getAll() {
     return Util.getSnapshot(targets);
   }
 
-  public void clear() {
+  public synchronized void clear() {
     targets.clear();
   }
 }
@@ -1,13 +1,15 @@
 package com.bumptech.glide.request;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * Runs a single primary {@link Request} until it completes and then a fallback error request only
  * if the single primary request fails.
  */
 public final class ErrorRequestCoordinator implements RequestCoordinator,
-    Request {
+    PrioritizableRequest {
 
   @Nullable
   private final RequestCoordinator parent;
@@ -71,6 +73,18 @@ public final class ErrorRequestCoordinator implements RequestCoordinator,
     error.recycle();
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    setPriority(primary, priority);
+    setPriority(error, priority);
+  }
+
+  private static void setPriority(Request request, Priority priority) {
+    if (request instanceof PrioritizableRequest) {
+      ((PrioritizableRequest) request).setPriority(priority);
+    }
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ErrorRequestCoordinator) {
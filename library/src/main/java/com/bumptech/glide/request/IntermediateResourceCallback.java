@@ -0,0 +1,30 @@
+package com.bumptech.glide.request;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+/**
+ * An optional interface for {@link ResourceCallback}s that can display lower quality previews of
+ * an image while the image is loaded.
+ */
+public interface IntermediateResourceCallback {
+
+  /**
+   * Returns {@code true} if previews should be decoded for loads this callback is waiting for.
+   *
+   * <p>Called when the callback is added to a load, the result must not change afterwards.
+   */
+  boolean isIntermediateResourceRequested();
+
+  /**
+   * Called on the main thread with a preview of the image that's being loaded.
+   *
+   * <p>The {@link Bitmap} may be reused once a newer preview has been passed to this method, so it
+   * must not be referenced after that point. Previews are always delivered before the resource is
+   * passed to {@link ResourceCallback#onResourceReady}, but may be followed by
+   * {@link ResourceCallback#onLoadFailed} instead.
+   *
+   * @param preview The preview, which may be smaller than the final resource.
+   */
+  void onIntermediateResourceReady(@NonNull Bitmap preview);
+}
@@ -0,0 +1,23 @@
+package com.bumptech.glide.request;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
+/**
+ * An optional interface for {@link Request}s whose loads can be re-prioritized after they've been
+ * started.
+ *
+ * @see com.bumptech.glide.RequestManager#setPriority(com.bumptech.glide.request.target.Target,
+ * Priority)
+ */
+public interface PrioritizableRequest extends Request {
+
+  /**
+   * Changes the priority of this request's load, for example when its target scrolls back into
+   * view. Loads that haven't started yet are moved ahead of or behind other queued loads.
+   *
+   * <p>The new priority doesn't change whether this request is equivalent to another, see
+   * {@link #isEquivalentTo(Request)}.
+   */
+  void setPriority(@NonNull Priority priority);
+}
@@ -0,0 +1,31 @@
+package com.bumptech.glide.request;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.request.target.ProgressiveTarget;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * An optional interface for {@link RequestListener}s that want to be notified of previews shown
+ * for requests started with {@link RequestOptions#useProgressivePreviews(boolean)}.
+ */
+public interface ProgressiveRequestListener {
+
+  /**
+   * Called on the main thread when a preview of the image being loaded has been decoded,
+   * immediately before {@link ProgressiveTarget#onIntermediateResourceReady(Bitmap)}.
+   *
+   * <p>The {@link Bitmap} may be reused once a newer preview has been decoded or once the request
+   * completes, so it must not be referenced after the next call to this method or to one of the
+   * {@link RequestListener} methods.
+   *
+   * @param preview The preview, which may be smaller than the final resource.
+   * @param model The model that is being loaded.
+   * @param target The {@link Target} the image is being loaded into.
+   * @return {@code true} to prevent the preview from being passed to {@code target}, or
+   * {@code false} to allow the preview to be passed to {@code target} if it's a
+   * {@link ProgressiveTarget}.
+   */
+  boolean onIntermediateResourceReady(
+      @NonNull Bitmap preview, Object model, Target<?> target);
+}
@@ -138,13 +138,13 @@ public class RequestFutureTarget<R> implements FutureTarget<R>,
   }
 
   @Override
-  public void setRequest(@Nullable Request request) {
+  public synchronized void setRequest(@Nullable Request request) {
     this.request = request;
   }
 
   @Override
   @Nullable
-  public Request getRequest() {
+  public synchronized Request getRequest() {
     return request;
   }
 
@@ -224,10 +224,15 @@ public class RequestFutureTarget<R> implements FutureTarget<R>,
    */
   @Override
   public void run() {
-    if (request != null) {
-      request.clear();
+    // Clear outside of the lock, the request calls back into this target while holding its own.
+    Request toClear;
+    synchronized (this) {
+      toClear = request;
       request = null;
     }
+    if (toClear != null) {
+      toClear.clear();
+    }
   }
 
   private void clearOnMainThread() {
@@ -63,6 +63,7 @@ public class RequestOptions implements Cloneable {
   private static final int USE_UNLIMITED_SOURCE_GENERATORS_POOL = 1 << 18;
   private static final int ONLY_RETRIEVE_FROM_CACHE = 1 << 19;
   private static final int USE_ANIMATION_POOL = 1 << 20;
+  private static final int USE_PROGRESSIVE_PREVIEWS = 1 << 21;
 
   @Nullable
   private static RequestOptions skipMemoryCacheTrueOptions;
@@ -117,6 +118,7 @@ public class RequestOptions implements Cloneable {
   private boolean onlyRetrieveFromCache;
   private boolean isScaleOnlyOrNoTransform = true;
   private boolean useAnimationPool;
+  private boolean useProgressivePreviews;
 
   /**
    * Returns a {@link RequestOptions} object with {@link #sizeMultiplier(float)} set.
@@ -496,6 +498,34 @@ public class RequestOptions implements Cloneable {
     return selfOrThrowIfLocked();
   }
 
+  /**
+   * If set to {@code true}, lower quality previews of progressive JPEGs are shown while they're
+   * downloaded from source.
+   *
+   * <p>A preview is decoded each time another scan of the image is received, starting with the
+   * first, so that something can be shown as soon as possible on slow connections. Previews are
+   * passed to {@link com.bumptech.glide.request.target.ProgressiveTarget}s and
+   * {@link ProgressiveRequestListener}s and are replaced by the fully decoded resource once it's
+   * ready. Previews aren't transformed, so they're best suited to targets that scale images
+   * themselves, like {@link android.widget.ImageView}s.
+   *
+   * <p>Previews are only shown for images that aren't already in one of Glide's caches. Decoding
+   * previews costs extra CPU time and memory while the image is downloaded, so this is best used
+   * for a small number of large and important images. Defaults to {@code false}.
+   */
+  @NonNull
+  @CheckResult
+  public RequestOptions useProgressivePreviews(boolean flag) {
+    if (isAutoCloneEnabled) {
+      return clone().useProgressivePreviews(flag);
+    }
+
+    useProgressivePreviews = flag;
+    fields |= USE_PROGRESSIVE_PREVIEWS;
+
+    return selfOrThrowIfLocked();
+  }
+
   /**
    *
    * If set to true, will only load an item if found in the cache, and will not fetch from source.
@@ -1478,6 +1508,9 @@ public class RequestOptions implements Cloneable {
     if (isSet(other.fields, ONLY_RETRIEVE_FROM_CACHE)) {
       onlyRetrieveFromCache = other.onlyRetrieveFromCache;
     }
+    if (isSet(other.fields, USE_PROGRESSIVE_PREVIEWS)) {
+      useProgressivePreviews = other.useProgressivePreviews;
+    }
 
     // Applying options with dontTransform() is expected to clear our transformations.
     if (!isTransformationAllowed) {
@@ -1513,6 +1546,7 @@ public class RequestOptions implements Cloneable {
           && isTransformationAllowed == other.isTransformationAllowed
           && useUnlimitedSourceGeneratorsPool == other.useUnlimitedSourceGeneratorsPool
           && onlyRetrieveFromCache == other.onlyRetrieveFromCache
+          && useProgressivePreviews == other.useProgressivePreviews
           && diskCacheStrategy.equals(other.diskCacheStrategy)
           && priority == other.priority
           && options.equals(other.options)
@@ -1540,6 +1574,7 @@ public class RequestOptions implements Cloneable {
     hashCode = Util.hashCode(isTransformationAllowed, hashCode);
     hashCode = Util.hashCode(useUnlimitedSourceGeneratorsPool, hashCode);
     hashCode = Util.hashCode(onlyRetrieveFromCache, hashCode);
+    hashCode = Util.hashCode(useProgressivePreviews, hashCode);
     hashCode = Util.hashCode(diskCacheStrategy, hashCode);
     hashCode = Util.hashCode(priority, hashCode);
     hashCode = Util.hashCode(options, hashCode);
@@ -1700,7 +1735,7 @@ public class RequestOptions implements Cloneable {
     return sizeMultiplier;
   }
 
-  boolean isScaleOnlyOrNoTransform() {
+  public final boolean isScaleOnlyOrNoTransform() {
     return isScaleOnlyOrNoTransform;
   }
 
@@ -1725,4 +1760,10 @@ public class RequestOptions implements Cloneable {
   public final boolean getOnlyRetrieveFromCache() {
     return onlyRetrieveFromCache;
   }
+
+  // get is just as clear.
+  @SuppressWarnings("PMD.BooleanGetMethodName")
+  public final boolean getUseProgressivePreviews() {
+    return useProgressivePreviews;
+  }
 }
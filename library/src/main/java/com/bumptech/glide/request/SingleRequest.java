@@ -2,6 +2,7 @@ package com.bumptech.glide.request;
 
 import android.content.Context;
 import android.content.res.Resources.Theme;
+import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
@@ -9,12 +10,14 @@ import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import android.util.Log;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideMetricsListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.resource.drawable.DrawableDecoderCompat;
+import com.bumptech.glide.request.target.ProgressiveTarget;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.transition.Transition;
@@ -32,15 +35,16 @@ import java.util.List;
  *
  * @param <R> The type of the resource that will be transcoded from the loaded resource.
  */
-public final class SingleRequest<R> implements Request,
+public final class SingleRequest<R> implements PrioritizableRequest,
     SizeReadyCallback,
     ResourceCallback,
+    IntermediateResourceCallback,
     FactoryPools.Poolable {
   /** Tag for logging internal events, not generally suitable for public use. */
   private static final String TAG = "Request";
   /** Tag for logging externally useful events (request completion, timing etc). */
   private static final String GLIDE_TAG = "Glide";
-  private static final Pools.Pool<SingleRequest<?>> POOL = FactoryPools.simple(150,
+  private static final Pools.Pool<SingleRequest<?>> POOL = FactoryPools.threadSafe(150,
       new FactoryPools.Factory<SingleRequest<?>>() {
         @Override
         public SingleRequest<?> create() {
@@ -95,6 +99,8 @@ public final class SingleRequest<R> implements Request,
   private int overrideWidth;
   private int overrideHeight;
   private Priority priority;
+  // The priority of the load, which may differ from the requested priority if it's changed.
+  private Priority loadPriority;
   private Target<R> target;
   @Nullable private List<RequestListener<R>> requestListeners;
   private Engine engine;
@@ -102,7 +108,8 @@ public final class SingleRequest<R> implements Request,
   private Resource<R> resource;
   private Engine.LoadStatus loadStatus;
   private long startTime;
-  private Status status;
+  private long startNanos;
+  private volatile Status status;
   private Drawable errorDrawable;
   private Drawable placeholderDrawable;
   private Drawable fallbackDrawable;
@@ -176,6 +183,7 @@ public final class SingleRequest<R> implements Request,
     this.overrideWidth = overrideWidth;
     this.overrideHeight = overrideHeight;
     this.priority = priority;
+    this.loadPriority = priority;
     this.target = target;
     this.targetListener = targetListener;
     this.requestListeners = requestListeners;
@@ -192,7 +200,7 @@ public final class SingleRequest<R> implements Request,
   }
 
   @Override
-  public void recycle() {
+  public synchronized void recycle() {
     assertNotCallingCallbacks();
     context = null;
     glideContext = null;
@@ -216,10 +224,11 @@ public final class SingleRequest<R> implements Request,
   }
 
   @Override
-  public void begin() {
+  public synchronized void begin() {
     assertNotCallingCallbacks();
     stateVerifier.throwIfRecycled();
     startTime = LogTime.getLogTime();
+    startNanos = System.nanoTime();
     if (model == null) {
       if (Util.isValidDimensions(overrideWidth, overrideHeight)) {
         width = overrideWidth;
@@ -303,8 +312,12 @@ public final class SingleRequest<R> implements Request,
    * @see #cancel()
    */
   @Override
-  public void clear() {
-    Util.assertMainThread();
+  public synchronized void clear() {
+    // Concurrent engines let requests for FutureTargets start, and so also be cleared, on any
+    // thread.
+    if (!engine.isConcurrent()) {
+      Util.assertMainThread();
+    }
     assertNotCallingCallbacks();
     stateVerifier.throwIfRecycled();
     if (status == Status.CLEARED) {
@@ -352,6 +365,15 @@ public final class SingleRequest<R> implements Request,
     return status == Status.FAILED;
   }
 
+  @Override
+  public synchronized void setPriority(@NonNull Priority priority) {
+    stateVerifier.throwIfRecycled();
+    loadPriority = priority;
+    if (loadStatus != null) {
+      loadStatus.setPriority(priority);
+    }
+  }
+
   private Drawable getErrorDrawable() {
     if (errorDrawable == null) {
       errorDrawable = requestOptions.getErrorPlaceholder();
@@ -412,7 +434,7 @@ public final class SingleRequest<R> implements Request,
    * A callback method that should never be invoked directly.
    */
   @Override
-  public void onSizeReady(int width, int height) {
+  public synchronized void onSizeReady(int width, int height) {
     stateVerifier.throwIfRecycled();
     if (IS_VERBOSE_LOGGABLE) {
       logV("Got onSizeReady in " + LogTime.getElapsedMillis(startTime));
@@ -437,7 +459,7 @@ public final class SingleRequest<R> implements Request,
         this.height,
         requestOptions.getResourceClass(),
         transcodeClass,
-        priority,
+        loadPriority,
         requestOptions.getDiskCacheStrategy(),
         requestOptions.getTransformations(),
         requestOptions.isTransformationRequired(),
@@ -497,7 +519,7 @@ public final class SingleRequest<R> implements Request,
    */
   @SuppressWarnings("unchecked")
   @Override
-  public void onResourceReady(Resource<?> resource, DataSource dataSource) {
+  public synchronized void onResourceReady(Resource<?> resource, DataSource dataSource) {
     stateVerifier.throwIfRecycled();
     loadStatus = null;
     if (resource == null) {
@@ -530,6 +552,43 @@ public final class SingleRequest<R> implements Request,
     onResourceReady((Resource<R>) resource, (R) received, dataSource);
   }
 
+  @Override
+  public boolean isIntermediateResourceRequested() {
+    return requestOptions.getUseProgressivePreviews();
+  }
+
+  /**
+   * A callback method that should never be invoked directly.
+   */
+  @Override
+  public synchronized void onIntermediateResourceReady(@NonNull Bitmap preview) {
+    stateVerifier.throwIfRecycled();
+    if (status != Status.RUNNING || !canSetResource()) {
+      return;
+    }
+
+    isCallingCallbacks = true;
+    try {
+      boolean anyListenerHandledUpdatingTarget = false;
+      if (requestListeners != null) {
+        for (RequestListener<R> listener : requestListeners) {
+          anyListenerHandledUpdatingTarget |= listener instanceof ProgressiveRequestListener
+              && ((ProgressiveRequestListener) listener)
+              .onIntermediateResourceReady(preview, model, target);
+        }
+      }
+      anyListenerHandledUpdatingTarget |= targetListener instanceof ProgressiveRequestListener
+          && ((ProgressiveRequestListener) targetListener)
+          .onIntermediateResourceReady(preview, model, target);
+
+      if (!anyListenerHandledUpdatingTarget && target instanceof ProgressiveTarget) {
+        ((ProgressiveTarget) target).onIntermediateResourceReady(preview);
+      }
+    } finally {
+      isCallingCallbacks = false;
+    }
+  }
+
   /**
    * Internal {@link #onResourceReady(Resource, DataSource)} where arguments are known to be safe.
    *
@@ -548,6 +607,10 @@ public final class SingleRequest<R> implements Request,
           + dataSource + " for " + model + " with size [" + width + "x" + height + "] in "
           + LogTime.getElapsedMillis(startTime) + " ms");
     }
+    GlideMetricsListener metricsListener = glideContext.getMetricsListener();
+    if (metricsListener != null) {
+      metricsListener.onRequestComplete(model, dataSource, System.nanoTime() - startNanos);
+    }
 
     isCallingCallbacks = true;
     try {
@@ -578,7 +641,7 @@ public final class SingleRequest<R> implements Request,
    * A callback method that should never be invoked directly.
    */
   @Override
-  public void onLoadFailed(GlideException e) {
+  public synchronized void onLoadFailed(GlideException e) {
     onLoadFailed(e, Log.WARN);
   }
 
@@ -594,6 +657,10 @@ public final class SingleRequest<R> implements Request,
 
     loadStatus = null;
     status = Status.FAILED;
+    GlideMetricsListener metricsListener = glideContext.getMetricsListener();
+    if (metricsListener != null) {
+      metricsListener.onRequestFailed(model, System.nanoTime() - startNanos);
+    }
 
     isCallingCallbacks = true;
     try {
@@ -1,14 +1,16 @@
 package com.bumptech.glide.request;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.Priority;
 
 /**
  * A coordinator that coordinates two individual {@link Request}s that load a small thumbnail
  * version of an image and the full size version of the image at the same time.
  */
 public class ThumbnailRequestCoordinator implements RequestCoordinator,
-    Request {
+    PrioritizableRequest {
   @Nullable private final RequestCoordinator parent;
 
   private Request full;
@@ -167,6 +169,18 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator,
     thumb.recycle();
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    setPriority(full, priority);
+    setPriority(thumb, priority);
+  }
+
+  private static void setPriority(Request request, Priority priority) {
+    if (request instanceof PrioritizableRequest) {
+      ((PrioritizableRequest) request).setPriority(priority);
+    }
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ThumbnailRequestCoordinator) {
@@ -1,5 +1,6 @@
 package com.bumptech.glide.request.target;
 
+import android.graphics.Bitmap;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
@@ -17,7 +18,7 @@ import com.bumptech.glide.request.transition.Transition;
 // Public API.
 @SuppressWarnings("WeakerAccess")
 public abstract class ImageViewTarget<Z> extends ViewTarget<ImageView, Z>
-    implements Transition.ViewAdapter {
+    implements Transition.ViewAdapter, ProgressiveTarget {
 
   @Nullable
   private Animatable animatable;
@@ -98,6 +99,20 @@ public abstract class ImageViewTarget<Z> extends ViewTarget<ImageView, Z>
     setDrawable(placeholder);
   }
 
+  /**
+   * Sets the given preview on the view using {@link ImageView#setImageBitmap(Bitmap)}.
+   *
+   * @param preview {@inheritDoc}
+   */
+  @Override
+  public void onIntermediateResourceReady(@NonNull Bitmap preview) {
+    if (animatable != null) {
+      animatable.stop();
+      animatable = null;
+    }
+    view.setImageBitmap(preview);
+  }
+
   @Override
   public void onResourceReady(@NonNull Z resource, @Nullable Transition<? super Z> transition) {
     if (transition == null || !transition.transition(resource, this)) {
@@ -0,0 +1,24 @@
+package com.bumptech.glide.request.target;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+/**
+ * An optional interface for {@link Target}s that can display lower quality previews of an image
+ * before the image has loaded, see
+ * {@link com.bumptech.glide.request.RequestOptions#useProgressivePreviews(boolean)}.
+ */
+public interface ProgressiveTarget {
+
+  /**
+   * Called on the main thread with a preview of the image that's being loaded, replacing any
+   * placeholder or previous preview.
+   *
+   * <p>The {@link Bitmap} may be reused once a newer preview has been passed to this method, so it
+   * must not be referenced after that point. The preview will be replaced by a call to
+   * {@link Target#onResourceReady}, {@link Target#onLoadFailed} or {@link Target#onLoadCleared}.
+   *
+   * @param preview The preview, which may be smaller than the final resource and isn't transformed.
+   */
+  void onIntermediateResourceReady(@NonNull Bitmap preview);
+}
@@ -0,0 +1,230 @@
+package com.bumptech.glide.request.target;
+
+import static com.bumptech.glide.request.RequestOptions.diskCacheStrategyOf;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.region.Tile;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.transition.Transition;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Target} for {@link BitmapRegionDecoder}s that loads {@link Tile}s of very large images
+ * for the part of the image that's visible, at a sample size that matches the current zoom.
+ *
+ * <p>Load an image into this target with
+ * {@code requestManager.as(BitmapRegionDecoder.class).load(model).into(target)}, then call
+ * {@link #setViewport(Rect, float)} whenever the visible part of the image or the zoom changes.
+ * Tiles that become visible are loaded on Glide's source executor and passed to
+ * {@link #onTileReady(Tile, Bitmap)}. Tiles that are no longer visible, or that were loaded at a
+ * different sample size, are cleared, which cancels them if they're still loading, and passed to
+ * {@link #onTileCleared(Tile)} if they were ready. Bitmaps must not be drawn once they've been
+ * cleared.
+ *
+ * <p>Tiles are cleared as soon as the sample size changes, so subclasses typically draw a smaller
+ * version of the whole image, loaded separately, underneath the tiles.
+ *
+ * <p>All methods must be called on the main thread.
+ */
+public abstract class TiledImageTarget extends SimpleTarget<BitmapRegionDecoder> {
+  /**
+   * The width and height of each tile in pixels, after sampling.
+   */
+  public static final int DEFAULT_TILE_SIZE = 512;
+  private static final RequestOptions TILE_OPTIONS =
+      diskCacheStrategyOf(DiskCacheStrategy.NONE).dontTransform().lock();
+
+  private final RequestManager requestManager;
+  private final int tileSize;
+  private final Map<Tile, TileTarget> tiles = new HashMap<>();
+  @Nullable private BitmapRegionDecoder decoder;
+  @Nullable private Rect viewport;
+  private float scale;
+
+  // Public API.
+  @SuppressWarnings("unused")
+  protected TiledImageTarget(@NonNull RequestManager requestManager) {
+    this(requestManager, DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * @param tileSize The width and height of each tile in pixels, after sampling.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  protected TiledImageTarget(@NonNull RequestManager requestManager, int tileSize) {
+    Preconditions.checkArgument(tileSize > 0, "Tile size must be > 0");
+    this.requestManager = Preconditions.checkNotNull(requestManager);
+    this.tileSize = tileSize;
+  }
+
+  /**
+   * Sets the part of the image that's visible and starts loading the tiles for it.
+   *
+   * @param visibleRegion The visible part of the image, in the image's original coordinates.
+   * @param scale The number of pixels on screen per pixel of the original image.
+   */
+  public final void setViewport(@NonNull Rect visibleRegion, float scale) {
+    Util.assertMainThread();
+    Preconditions.checkArgument(scale > 0, "Scale must be > 0");
+    this.viewport = new Rect(visibleRegion);
+    this.scale = scale;
+    if (decoder != null) {
+      updateTiles(decoder);
+    }
+  }
+
+  @Override
+  public final void onResourceReady(@NonNull BitmapRegionDecoder resource,
+      @Nullable Transition<? super BitmapRegionDecoder> transition) {
+    clearTiles();
+    decoder = resource;
+    onImageReady(resource.getWidth(), resource.getHeight());
+    if (viewport != null) {
+      updateTiles(resource);
+    }
+  }
+
+  @Override
+  public void onLoadCleared(@Nullable Drawable placeholder) {
+    clearTiles();
+    decoder = null;
+  }
+
+  /**
+   * Called when the image has been opened and tiles can be loaded.
+   *
+   * @param width The width of the original image in pixels.
+   * @param height The height of the original image in pixels.
+   */
+  @SuppressWarnings("WeakerAccess")
+  protected void onImageReady(int width, int height) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a visible tile has been decoded.
+   *
+   * <p>The tile's {@link Tile#getRegion()} gives the part of the original image the
+   * {@link Bitmap} should be drawn over.
+   */
+  protected abstract void onTileReady(@NonNull Tile tile, @NonNull Bitmap bitmap);
+
+  /**
+   * Called when a tile passed to {@link #onTileReady(Tile, Bitmap)} has been cleared and its
+   * {@link Bitmap} must no longer be drawn.
+   */
+  protected abstract void onTileCleared(@NonNull Tile tile);
+
+  private void updateTiles(BitmapRegionDecoder decoder) {
+    int sampleSize = getSampleSize(scale);
+    List<Rect> regions = getVisibleRegions(
+        viewport, decoder.getWidth(), decoder.getHeight(), tileSize, sampleSize);
+    Set<Tile> visible = new HashSet<>(regions.size());
+    for (Rect region : regions) {
+      visible.add(new Tile(decoder, region, sampleSize));
+    }
+
+    for (Iterator<Map.Entry<Tile, TileTarget>> iterator = tiles.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<Tile, TileTarget> entry = iterator.next();
+      if (!visible.contains(entry.getKey())) {
+        iterator.remove();
+        requestManager.clear(entry.getValue());
+      }
+    }
+
+    for (Tile tile : visible) {
+      if (!tiles.containsKey(tile)) {
+        TileTarget target = new TileTarget(tile);
+        tiles.put(tile, target);
+        requestManager.asBitmap().apply(TILE_OPTIONS).load(tile).into(target);
+      }
+    }
+  }
+
+  private void clearTiles() {
+    // Copied in case subclasses update the viewport when they're told a tile was cleared.
+    List<TileTarget> toClear = new ArrayList<>(tiles.values());
+    tiles.clear();
+    for (TileTarget target : toClear) {
+      requestManager.clear(target);
+    }
+  }
+
+  /**
+   * Returns the largest power of two sample size that decodes at least as many pixels as are
+   * displayed at the given scale.
+   */
+  @VisibleForTesting
+  static int getSampleSize(float scale) {
+    int sampleSize = 1;
+    while (sampleSize * 2 <= 1f / scale) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * Returns the regions, in the image's original coordinates, of the tiles that overlap the given
+   * visible region.
+   */
+  @VisibleForTesting
+  static List<Rect> getVisibleRegions(
+      Rect visibleRegion, int imageWidth, int imageHeight, int tileSize, int sampleSize) {
+    List<Rect> result = new ArrayList<>();
+    Rect visible = new Rect(visibleRegion);
+    if (!visible.intersect(0, 0, imageWidth, imageHeight)) {
+      return result;
+    }
+    int span = tileSize * sampleSize;
+    for (int top = visible.top / span * span; top < visible.bottom; top += span) {
+      for (int left = visible.left / span * span; left < visible.right; left += span) {
+        result.add(new Rect(
+            left, top, Math.min(left + span, imageWidth), Math.min(top + span, imageHeight)));
+      }
+    }
+    return result;
+  }
+
+  private final class TileTarget extends SimpleTarget<Bitmap> {
+    private final Tile tile;
+    private boolean isReady;
+
+    TileTarget(Tile tile) {
+      super(tile.getWidth(), tile.getHeight());
+      this.tile = tile;
+    }
+
+    @Override
+    public void onResourceReady(@NonNull Bitmap resource,
+        @Nullable Transition<? super Bitmap> transition) {
+      isReady = true;
+      onTileReady(tile, resource);
+    }
+
+    @Override
+    public void onLoadCleared(@Nullable Drawable placeholder) {
+      if (isReady) {
+        isReady = false;
+        onTileCleared(tile);
+      }
+    }
+  }
+}
@@ -7,16 +7,26 @@ import android.support.v4.os.TraceCompat;
  */
 public final class GlideTrace {
 
-  // Enable this locally to see tracing statements.
-  private static final boolean TRACING_ENABLED = false;
-
   /** Maximum length of a systrace tag. */
   private static final int MAX_LENGTH = 127;
 
+  // Set when Glide is built, see GlideBuilder#setIsTracingEnabled(boolean).
+  private static volatile boolean isEnabled;
+
   private GlideTrace() {
     // Utility class.
   }
 
+  /**
+   * Enables or disables tracing statements.
+   *
+   * <p>Sections begun while tracing is enabled must still be ended, so this should only be called
+   * while no loads are in progress.
+   */
+  public static void setEnabled(boolean enabled) {
+    isEnabled = enabled;
+  }
+
   private static String truncateTag(String tag) {
     if (tag.length() > MAX_LENGTH) {
       return tag.substring(0, MAX_LENGTH - 1);
@@ -25,31 +35,31 @@ public final class GlideTrace {
   }
 
   public static void beginSection(String tag) {
-    if (TRACING_ENABLED) {
+    if (isEnabled) {
       TraceCompat.beginSection(truncateTag(tag));
     }
   }
 
   public static void beginSectionFormat(String format, Object arg1) {
-    if (TRACING_ENABLED) {
+    if (isEnabled) {
       TraceCompat.beginSection(truncateTag(String.format(format, arg1)));
     }
   }
 
   public static void beginSectionFormat(String format, Object arg1, Object arg2) {
-    if (TRACING_ENABLED) {
+    if (isEnabled) {
       TraceCompat.beginSection(truncateTag(String.format(format, arg1, arg2)));
     }
   }
 
   public static void beginSectionFormat(String format, Object arg1, Object arg2, Object arg3) {
-    if (TRACING_ENABLED) {
+    if (isEnabled) {
       TraceCompat.beginSection(truncateTag(String.format(format, arg1, arg2, arg3)));
     }
   }
 
   public static void endSection() {
-    if (TRACING_ENABLED) {
+    if (isEnabled) {
       TraceCompat.endSection();
     }
   }
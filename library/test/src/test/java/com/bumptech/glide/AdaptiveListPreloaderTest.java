@@ -0,0 +1,301 @@
+package com.bumptech.glide;
+
+import static com.bumptech.glide.tests.Util.cast;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.widget.AbsListView;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.SizeReadyCallback;
+import com.bumptech.glide.request.target.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class AdaptiveListPreloaderTest {
+  private static final int VISIBLE_COUNT = 5;
+  private static final int TOTAL_COUNT = 100;
+
+  @Mock private RequestManager requestManager;
+  private FakeClock clock;
+  private Adapter adapter;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    clock = new FakeClock();
+    adapter = new Adapter();
+  }
+
+  @Test
+  public void onScroll_withoutVelocity_preloadsMinPreloadItems() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(2, 10);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getPreloadedPositions()).containsExactly(5, 6).inOrder();
+  }
+
+  @Test
+  public void onScroll_scrollingQuickly_preloadsMoreItems() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(2, 50);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    clock.timeMs += 100;
+    preloader.onScroll(null, 10, VISIBLE_COUNT, TOTAL_COUNT);
+
+    // 0.1 items per ms, times three times the default load time of 100ms.
+    assertThat(adapter.getPreloadedPositions()).hasSize(2 + 30);
+  }
+
+  @Test
+  public void onScroll_whenWindowShrinks_keepsLoadsAhead() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(2, 50);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    clock.timeMs += 100;
+    preloader.onScroll(null, 10, VISIBLE_COUNT, TOTAL_COUNT);
+
+    clock.timeMs += 2000;
+    preloader.onScroll(null, 11, VISIBLE_COUNT, TOTAL_COUNT);
+
+    // Only the two items preloaded before scrolling, which the list has scrolled past, are cleared.
+    verify(requestManager, times(2)).clear(any(Target.class));
+    assertThat(adapter.getPreloadedPositions()).hasSize(2 + 30);
+  }
+
+  @Test
+  public void onScroll_scrollingVeryQuickly_preloadsMaxPreloadItems() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(2, 4);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    clock.timeMs += 100;
+    preloader.onScroll(null, 50, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getPreloadedPositions()).containsExactly(5, 6, 55, 56, 57, 58).inOrder();
+  }
+
+  @Test
+  public void onScroll_assignsHigherPriorityToItemsCloserToVisibleItems() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(6, 6);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getPriorities()).containsExactly(Priority.HIGH, Priority.HIGH,
+        Priority.NORMAL, Priority.NORMAL, Priority.LOW, Priority.LOW).inOrder();
+  }
+
+  @Test
+  public void onScroll_whenItemsMoveCloserToVisibleItems_raisesPriorityOfTheirLoads() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(6, 6);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScroll(null, 2, VISIBLE_COUNT, TOTAL_COUNT);
+
+    List<Target<Object>> targets = new ArrayList<>();
+    for (int position = 5; position <= 10; position++) {
+      targets.add(adapter.getTarget(position));
+    }
+    // Positions 5 and 6 are now visible, so they're kept at their original priority.
+    verify(requestManager, never()).setPriority(eq(targets.get(0)), any(Priority.class));
+    verify(requestManager, never()).setPriority(eq(targets.get(1)), any(Priority.class));
+    verify(requestManager).setPriority(targets.get(2), Priority.HIGH);
+    verify(requestManager).setPriority(targets.get(3), Priority.HIGH);
+    verify(requestManager).setPriority(targets.get(4), Priority.NORMAL);
+    verify(requestManager).setPriority(targets.get(5), Priority.NORMAL);
+  }
+
+  @Test
+  public void onScroll_withUnchangedPriorities_doesNotUpdateLoads() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(3, 3);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    verify(requestManager, never()).setPriority(any(Target.class), any(Priority.class));
+  }
+
+  @Test
+  public void onScroll_doesNotChangePriorityOfProvidedRequestBuilder() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(1, 1);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    verify(adapter.builders.get(5), never()).apply(any(RequestOptions.class));
+  }
+
+  @Test
+  public void onScroll_withSamePosition_doesNotPreloadItemsAgain() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(3, 3);
+
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getPreloadedPositions()).containsExactly(5, 6, 7).inOrder();
+  }
+
+  @Test
+  public void onScroll_whenWindowMoves_clearsOnlyTargetsThatLeftWindowAndViewport() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(3, 3);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScroll(null, 1, VISIBLE_COUNT, TOTAL_COUNT);
+    verify(requestManager, never()).clear(any(Target.class));
+    preloader.onScroll(null, 6, VISIBLE_COUNT, TOTAL_COUNT);
+
+    Target<Object> left = adapter.getTarget(5);
+    Target<Object> visible = adapter.getTarget(6);
+    verify(requestManager).clear(left);
+    verify(requestManager, never()).clear(visible);
+    assertThat(adapter.getPreloadedPositions())
+        .containsExactly(5, 6, 7, 8, 11, 12, 13).inOrder();
+  }
+
+  @Test
+  public void onScroll_whenDirectionChanges_clearsTargetsAheadAndPreloadsBehind() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(3, 3);
+    preloader.onScroll(null, 10, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScroll(null, 9, VISIBLE_COUNT, TOTAL_COUNT);
+
+    for (int position = 15; position < 18; position++) {
+      Target<Object> target = adapter.getTarget(position);
+      verify(requestManager).clear(target);
+    }
+    assertThat(adapter.getPreloadedPositions()).containsExactly(15, 16, 17, 8, 7, 6).inOrder();
+  }
+
+  @Test
+  public void onScroll_nearEndOfList_doesNotPreloadPastLastItem() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(5, 5);
+
+    preloader.onScroll(null, TOTAL_COUNT - VISIBLE_COUNT - 2, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getPreloadedPositions()).containsExactly(98, 99).inOrder();
+  }
+
+  @Test
+  public void onScroll_reusesClearedTargets() {
+    AdaptiveListPreloader<Integer> preloader = createPreloader(1, 1);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScroll(null, 10, VISIBLE_COUNT, TOTAL_COUNT);
+
+    assertThat(adapter.getTarget(15)).isSameAs(adapter.getTarget(5));
+  }
+
+  @Test
+  public void onResourceReady_recordsTimeSinceLoadStarted() {
+    PreloadWindowEstimator estimator = new PreloadWindowEstimator(1, 1);
+    AdaptiveListPreloader<Integer> preloader =
+        new AdaptiveListPreloader<>(requestManager, adapter, adapter, estimator, clock);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    Target<Object> target = adapter.getTarget(5);
+
+    target.getSize(mock(SizeReadyCallback.class));
+    clock.timeMs += 400;
+    target.onResourceReady(new Object(), null);
+
+    assertThat(estimator.getLoadTimePercentile()).isEqualTo(400);
+  }
+
+  @Test
+  public void onScrollStateChanged_withIdle_forgetsVelocity() {
+    PreloadWindowEstimator estimator = new PreloadWindowEstimator(1, 10);
+    AdaptiveListPreloader<Integer> preloader =
+        new AdaptiveListPreloader<>(requestManager, adapter, adapter, estimator, clock);
+    preloader.onScroll(null, 0, VISIBLE_COUNT, TOTAL_COUNT);
+    clock.timeMs += 100;
+    preloader.onScroll(null, 10, VISIBLE_COUNT, TOTAL_COUNT);
+
+    preloader.onScrollStateChanged(null, AbsListView.OnScrollListener.SCROLL_STATE_IDLE);
+
+    assertThat(estimator.getVelocity()).isEqualTo(0f);
+  }
+
+  private AdaptiveListPreloader<Integer> createPreloader(int minPreload, int maxPreload) {
+    return new AdaptiveListPreloader<>(requestManager, adapter, adapter,
+        new PreloadWindowEstimator(minPreload, maxPreload), clock);
+  }
+
+  private static final class FakeClock extends AdaptiveListPreloader.Clock {
+    long timeMs;
+
+    @Override
+    long now() {
+      return timeMs;
+    }
+  }
+
+  private static final class Adapter implements ListPreloader.PreloadModelProvider<Integer>,
+      ListPreloader.PreloadSizeProvider<Integer> {
+    final Map<Integer, RequestBuilder<Object>> builders = new HashMap<>();
+    private final List<Integer> preloadedPositions = new ArrayList<>();
+    private final Map<Integer, RequestBuilder<Object>> clones = new HashMap<>();
+
+    @NonNull
+    @Override
+    public List<Integer> getPreloadItems(int position) {
+      return Collections.singletonList(position);
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public RequestBuilder<Object> getPreloadRequestBuilder(@NonNull Integer item) {
+      RequestBuilder<Object> builder = mock(RequestBuilder.class);
+      RequestBuilder<Object> clone = mock(RequestBuilder.class);
+      when(builder.clone()).thenReturn(clone);
+      when(clone.apply(any(RequestOptions.class))).thenReturn(clone);
+      builders.put(item, builder);
+      clones.put(item, clone);
+      preloadedPositions.add(item);
+      return builder;
+    }
+
+    @Nullable
+    @Override
+    public int[] getPreloadSize(@NonNull Integer item, int adapterPosition, int itemPosition) {
+      return new int[] { 100, 100 };
+    }
+
+    List<Integer> getPreloadedPositions() {
+      return preloadedPositions;
+    }
+
+    List<Priority> getPriorities() {
+      List<Priority> result = new ArrayList<>();
+      for (Integer position : preloadedPositions) {
+        ArgumentCaptor<RequestOptions> options = ArgumentCaptor.forClass(RequestOptions.class);
+        verify(clones.get(position)).apply(options.capture());
+        result.add(options.getValue().getPriority());
+      }
+      return result;
+    }
+
+    Target<Object> getTarget(int position) {
+      ArgumentCaptor<Target<Object>> target = cast(ArgumentCaptor.forClass(Target.class));
+      verify(clones.get(position)).into(target.capture());
+      return target.getValue();
+    }
+  }
+}
@@ -8,6 +8,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.notNull;
@@ -15,6 +17,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import android.content.ContentResolver;
@@ -68,8 +71,13 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -293,6 +301,109 @@ public class GlideTest {
     assertNotNull(imageView.getDrawable());
   }
 
+  @Test
+  public void load_withMetricsListener_reportsLoadEvents() throws MalformedURLException {
+    GlideMetricsListener metricsListener = mock(GlideMetricsListener.class);
+    Glide.tearDown();
+    GlideExecutor executor = MockGlideExecutor.newMainThreadExecutor();
+    Glide.init(
+        context,
+        new GlideBuilder()
+            .setMemoryCache(memoryCache)
+            .setDiskCache(diskCacheFactory)
+            .setSourceExecutor(executor)
+            .setDiskCacheExecutor(executor)
+            .setMetricsListener(metricsListener));
+    registerMockModelLoader(
+        GlideUrl.class,
+        InputStream.class,
+        new ByteArrayInputStream(new byte[0]),
+        Glide.get(context).getRegistry());
+    requestManager = new RequestManager(Glide.get(context), lifecycle, treeNode, context);
+    requestManager.resumeRequests();
+    URL url = new URL("http://www.google.com");
+
+    requestManager.load(url).into(target);
+
+    verify(target).onResourceReady(isA(BitmapDrawable.class), isA(Transition.class));
+    verify(metricsListener).onMemoryCacheMiss(any(Key.class));
+    // Once on the disk cache executor and once on the source executor.
+    verify(metricsListener, times(2)).onQueueWait(any(Key.class), anyLong());
+    verify(metricsListener)
+        .onFetch(any(Key.class), any(DataSource.class), anyLong(), eq(-1L));
+    verify(metricsListener).onDecode(any(Key.class), any(DataSource.class), anyLong());
+    verify(metricsListener).onTransform(any(Key.class), anyLong());
+    verify(metricsListener).onRequestComplete(eq(url), any(DataSource.class), anyLong());
+  }
+
+  @Test
+  public void loadAll_withListener_notifiesOnceWithResourcesInOrder() {
+    Uri first = Uri.parse("content://something/first");
+    Uri second = Uri.parse("content://something/second");
+    mockUri(first);
+    mockUri(second);
+    BatchListener<Bitmap> listener = mock(BatchListener.class);
+
+    BatchFuture<Bitmap> future =
+        requestManager.asBitmap()
+            .loadAll(Arrays.asList(first, second))
+            .listener(listener)
+            .submit(100, 100);
+
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    verify(listener).onBatchComplete(captor.capture(), anyListOf(GlideException.class));
+    assertThat(captor.getValue()).hasSize(2);
+    assertThat(captor.getValue().get(0)).isNotNull();
+    assertThat(captor.getValue().get(1)).isNotNull();
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.getExceptions()).containsExactly(null, null);
+  }
+
+  @Test
+  public void loadAll_withEmptyList_completesImmediately() {
+    BatchListener<Drawable> listener = mock(BatchListener.class);
+
+    BatchFuture<Drawable> future =
+        requestManager.loadAll(Collections.emptyList()).listener(listener).submit();
+
+    assertThat(future.isDone()).isTrue();
+    verify(listener)
+        .onBatchComplete(
+            eq(Collections.<Drawable>emptyList()), eq(Collections.<GlideException>emptyList()));
+  }
+
+  @Test
+  public void loadAll_withCancelledFuture_doesNotNotifyListener() throws InterruptedException {
+    BatchListener<Bitmap> listener = mock(BatchListener.class);
+    Uri uri = Uri.parse("content://something/else");
+    mockUri(uri);
+    Glide.tearDown();
+    // Never runs any jobs, so the batch stays in progress until it's cancelled.
+    ExecutorService executorService = mock(ExecutorService.class);
+    when(executorService.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
+    GlideExecutor executor = MockGlideExecutor.newTestExecutor(executorService);
+    Glide.init(
+        context,
+        new GlideBuilder()
+            .setMemoryCache(memoryCache)
+            .setDiskCache(diskCacheFactory)
+            .setSourceExecutor(executor)
+            .setDiskCacheExecutor(executor));
+    requestManager = new RequestManager(Glide.get(context), lifecycle, treeNode, context);
+    requestManager.resumeRequests();
+
+    BatchFuture<Bitmap> future =
+        requestManager.asBitmap()
+            .loadAll(Collections.singletonList(uri))
+            .listener(listener)
+            .submit(100, 100);
+
+    assertThat(future.isDone()).isFalse();
+    assertThat(future.cancel(/*mayInterruptIfRunning=*/ true)).isTrue();
+    assertThat(future.isCancelled()).isTrue();
+    verifyZeroInteractions(listener);
+  }
+
   @Test
   public void testAsBitmapOption() {
     Uri uri = Uri.parse("content://something/else");
@@ -575,6 +686,11 @@ public class GlideTest {
     verify(target, times(3)).onResourceReady(isA(Drawable.class), isA(Transition.class));
   }
 
+  @Test(expected = Registry.NoModelLoaderAvailableException.class)
+  public void testByteBufferIsNotARegisteredModel() {
+    Glide.get(context).getRegistry().getModelLoaders(ByteBuffer.allocate(1));
+  }
+
   @Test
   public void testNullModelInGenericImageLoadDoesNotThrow() {
     requestManager.load(NULL).into(target);
@@ -0,0 +1,148 @@
+package com.bumptech.glide;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class PreloadWindowEstimatorTest {
+  private PreloadWindowEstimator estimator;
+
+  @Before
+  public void setUp() {
+    estimator = new PreloadWindowEstimator(2, 100);
+  }
+
+  @Test
+  public void getWindowSize_withoutScrolling_returnsMinPreload() {
+    estimator.onScroll(10, 0);
+
+    assertThat(estimator.getWindowSize()).isEqualTo(2);
+  }
+
+  @Test
+  public void getVelocity_withSteadyScrolling_approachesScrollVelocity() {
+    for (int i = 0; i < 20; i++) {
+      estimator.onScroll(i * 5, i * 100L);
+    }
+
+    assertThat(estimator.getVelocity()).isWithin(0.001f).of(0.05f);
+  }
+
+  @Test
+  public void getVelocity_whenScrollingTowardsStart_isNegative() {
+    estimator.onScroll(50, 0);
+    estimator.onScroll(40, 100);
+
+    assertThat(estimator.getVelocity()).isLessThan(0f);
+  }
+
+  @Test
+  public void onScroll_withinSampleInterval_isCombinedWithNextScroll() {
+    estimator.onScroll(0, 0);
+    estimator.onScroll(10, PreloadWindowEstimator.MIN_SAMPLE_INTERVAL_MS - 1);
+    assertThat(estimator.getVelocity()).isEqualTo(0f);
+
+    estimator.onScroll(20, 100);
+
+    assertThat(estimator.getVelocity()).isWithin(0.0001f).of(0.2f);
+  }
+
+  @Test
+  public void onScroll_withSamePosition_measuresVelocitySinceLastChange() {
+    estimator.onScroll(0, 0);
+    for (int i = 1; i < 10; i++) {
+      estimator.onScroll(0, i * 16L);
+    }
+    estimator.onScroll(1, 500);
+
+    assertThat(estimator.getVelocity()).isWithin(0.0001f).of(0.002f);
+  }
+
+  @Test
+  public void onScroll_afterFirstVelocity_smoothsVelocity() {
+    estimator.onScroll(0, 0);
+    estimator.onScroll(10, 100);
+    estimator.onScroll(40, 200);
+
+    assertThat(estimator.getVelocity()).isWithin(0.0001f).of(0.2f);
+  }
+
+  @Test
+  public void onScrollStopped_resetsVelocity() {
+    estimator.onScroll(0, 0);
+    estimator.onScroll(10, 100);
+
+    estimator.onScrollStopped();
+    estimator.onScroll(20, 200);
+
+    assertThat(estimator.getVelocity()).isEqualTo(0f);
+  }
+
+  @Test
+  public void getWindowSize_coversItemsScrolledDuringSlowLoads() {
+    for (int i = 0; i < 20; i++) {
+      estimator.onScroll(i * 5, i * 100L);
+    }
+    for (int i = 0; i < 10; i++) {
+      estimator.onLoadFinished(i == 0 ? 410 : 30);
+    }
+
+    // The 90th percentile of ten loads is the ninth fastest, 30ms.
+    assertThat(estimator.getLoadTimePercentile()).isEqualTo(30);
+    assertThat(estimator.getWindowSize()).isEqualTo(5);
+
+    estimator.onLoadFinished(410);
+
+    // Three times 410ms at 0.05 items per ms is 61.5 items.
+    assertThat(estimator.getLoadTimePercentile()).isEqualTo(410);
+    assertThat(estimator.getWindowSize()).isEqualTo(62);
+  }
+
+  @Test
+  public void getWindowSize_isAtMostMaxPreload() {
+    estimator.onLoadFinished(10_000);
+    estimator.onScroll(0, 0);
+    estimator.onScroll(100, 100);
+
+    assertThat(estimator.getWindowSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void getLoadTimePercentile_withoutLoads_returnsDefault() {
+    assertThat(estimator.getLoadTimePercentile())
+        .isEqualTo(PreloadWindowEstimator.DEFAULT_LOAD_TIME_MS);
+  }
+
+  @Test
+  public void getLoadTimePercentile_forgetsOldestLoads() {
+    estimator.onLoadFinished(1000);
+    for (int i = 0; i < PreloadWindowEstimator.LOAD_TIME_SAMPLES; i++) {
+      estimator.onLoadFinished(10);
+    }
+
+    assertThat(estimator.getLoadTimePercentile()).isEqualTo(10);
+  }
+
+  @Test
+  public void getPriority_withWindowOfOne_returnsHigh() {
+    assertThat(PreloadWindowEstimator.getPriority(0, 1)).isEqualTo(Priority.HIGH);
+  }
+
+  @Test
+  public void getPriority_fartherFromVisibleItems_returnsLowerPriority() {
+    assertThat(PreloadWindowEstimator.getPriority(0, 9)).isEqualTo(Priority.HIGH);
+    assertThat(PreloadWindowEstimator.getPriority(3, 9)).isEqualTo(Priority.NORMAL);
+    assertThat(PreloadWindowEstimator.getPriority(6, 9)).isEqualTo(Priority.LOW);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withMaxPreloadLessThanMinPreload_throws() {
+    new PreloadWindowEstimator(5, 4);
+  }
+}
@@ -1,27 +1,43 @@
 package com.bumptech.glide;
 
 import static com.bumptech.glide.tests.BackgroundUtil.testInBackground;
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
 import android.widget.ImageView;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.resource.SimpleResource;
+import com.bumptech.glide.manager.Lifecycle;
+import com.bumptech.glide.manager.RequestManagerTreeNode;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.request.SingleRequest;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.target.ViewTarget;
 import com.bumptech.glide.tests.BackgroundUtil.BackgroundTester;
 import com.bumptech.glide.tests.TearDownGlide;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,6 +49,7 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
 @SuppressWarnings("unchecked")
 @RunWith(RobolectricTestRunner.class)
@@ -151,6 +168,68 @@ public class RequestBuilderTest {
             any(), any(), isA(Target.class), isA(DataSource.class), anyBoolean());
   }
 
+  @Test
+  public void submit_fromBackgroundThreads_withConcurrentEngine_startsLoadsWithoutMainThread()
+      throws InterruptedException {
+    Engine engine = mock(Engine.class);
+    when(engine.isConcurrent()).thenReturn(true);
+    Glide.init(context, new GlideBuilder().setEngine(engine));
+    final RequestManager requestManager =
+        new RequestManager(
+            Glide.get(context), mock(Lifecycle.class), mock(RequestManagerTreeNode.class), context);
+    ShadowLooper.pauseMainLooper();
+
+    int count = 2000;
+    final CountDownLatch latch = new CountDownLatch(count);
+    final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      for (int i = 0; i < count; i++) {
+        final int model = i;
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              requestManager.load(new Object()).submit(model + 1, model + 1);
+            } catch (RuntimeException e) {
+              failure.set(e);
+            } finally {
+              latch.countDown();
+            }
+          }
+        });
+      }
+      assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    assertThat(ShadowLooper.getShadowMainLooper().getScheduler().size()).isEqualTo(0);
+    verify(engine, times(count))
+        .load(
+            any(GlideContext.class),
+            any(),
+            any(Key.class),
+            anyInt(),
+            anyInt(),
+            any(Class.class),
+            any(Class.class),
+            any(Priority.class),
+            any(DiskCacheStrategy.class),
+            anyMap(),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            any(ResourceCallback.class));
+  }
+
   private RequestBuilder<Object> getNullModelRequest() {
     when(glideContext.buildImageViewTarget(isA(ImageView.class), isA(Class.class)))
         .thenReturn(mock(ViewTarget.class));
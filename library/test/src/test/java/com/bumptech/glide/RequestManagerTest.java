@@ -3,6 +3,7 @@ package com.bumptech.glide;
 import static com.bumptech.glide.tests.BackgroundUtil.testInBackground;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
@@ -21,6 +22,8 @@ import com.bumptech.glide.manager.ConnectivityMonitorFactory;
 import com.bumptech.glide.manager.Lifecycle;
 import com.bumptech.glide.manager.RequestManagerTreeNode;
 import com.bumptech.glide.manager.RequestTracker;
+import com.bumptech.glide.request.PrioritizableRequest;
+import com.bumptech.glide.request.Request;
 import com.bumptech.glide.request.target.BaseTarget;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.transition.Transition;
@@ -270,4 +273,34 @@ public class RequestManagerTest {
     parent.load(file).into(target);
     child.clear(target);
   }
+
+  @Test
+  public void setPriority_withRunningRequest_setsRequestPriority() {
+    PrioritizableRequest request = mock(PrioritizableRequest.class);
+    when(request.isRunning()).thenReturn(true);
+    target.setRequest(request);
+
+    manager.setPriority(target, Priority.IMMEDIATE);
+
+    verify(request).setPriority(Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void setPriority_withFinishedRequest_doesNotSetRequestPriority() {
+    PrioritizableRequest request = mock(PrioritizableRequest.class);
+    target.setRequest(request);
+
+    manager.setPriority(target, Priority.IMMEDIATE);
+
+    verify(request, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void setPriority_withRequestThatCantBePrioritized_doesNotThrow() {
+    Request request = mock(Request.class);
+    when(request.isRunning()).thenReturn(true);
+    target.setRequest(request);
+
+    manager.setPriority(target, Priority.IMMEDIATE);
+  }
 }
@@ -1,5 +1,8 @@
 package com.bumptech.glide.load.data;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.inOrder;
@@ -8,6 +11,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.HttpException;
 import com.bumptech.glide.load.model.GlideUrl;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -17,6 +21,7 @@ import java.net.URL;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -114,4 +119,96 @@ public class HttpUrlFetcherTest {
     order.verify(stream).close();
     order.verify(urlConnection).disconnect();
   }
+
+  @Test
+  public void loadData_withoutResume_doesNotSendRangeHeaders() {
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(urlConnection, never()).addRequestProperty(eq(HttpRanges.RANGE_HEADER), anyString());
+    verify(urlConnection, never()).addRequestProperty(eq(HttpRanges.IF_RANGE_HEADER), anyString());
+  }
+
+  @Test
+  public void loadData_withResume_sendsRangeHeaders() {
+    fetcher.setResumeFrom(1024, "\"etag\"");
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(urlConnection).addRequestProperty(HttpRanges.RANGE_HEADER, "bytes=1024-");
+    verify(urlConnection).addRequestProperty(HttpRanges.IF_RANGE_HEADER, "\"etag\"");
+  }
+
+  @Test
+  public void loadData_withResumeAndPartialContent_returnsResumedOffset() throws IOException {
+    when(urlConnection.getResponseCode()).thenReturn(HttpRanges.HTTP_PARTIAL_CONTENT);
+    when(urlConnection.getHeaderField(HttpRanges.CONTENT_RANGE_HEADER))
+        .thenReturn("bytes 1024-2047/2048");
+    fetcher.setResumeFrom(1024, "\"etag\"");
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(callback).onDataReady(any(InputStream.class));
+    assertThat(fetcher.getResumedOffset()).isEqualTo(1024L);
+  }
+
+  @Test
+  public void loadData_withResumeAndFullContent_returnsZeroResumedOffset() {
+    fetcher.setResumeFrom(1024, "\"etag\"");
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(callback).onDataReady(any(InputStream.class));
+    assertThat(fetcher.getResumedOffset()).isEqualTo(0L);
+  }
+
+  @Test
+  public void loadData_withResumeAndWrongContentRange_fails() throws IOException {
+    when(urlConnection.getResponseCode()).thenReturn(HttpRanges.HTTP_PARTIAL_CONTENT);
+    when(urlConnection.getHeaderField(HttpRanges.CONTENT_RANGE_HEADER))
+        .thenReturn("bytes 0-2047/2048");
+    fetcher.setResumeFrom(1024, "\"etag\"");
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+    verify(callback).onLoadFailed(captor.capture());
+    assertThat(captor.getValue()).isInstanceOf(HttpException.class);
+    assertThat(((HttpException) captor.getValue()).getStatusCode())
+        .isEqualTo(HttpRanges.HTTP_PARTIAL_CONTENT);
+  }
+
+  @Test
+  public void getValidator_withStrongETagAndLength_returnsETag() {
+    when(urlConnection.getHeaderField(HttpRanges.ETAG_HEADER)).thenReturn("\"etag\"");
+    when(urlConnection.getContentLength()).thenReturn(2048);
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    assertThat(fetcher.getValidator()).isEqualTo("\"etag\"");
+  }
+
+  @Test
+  public void getValidator_withWeakETag_returnsLastModified() {
+    when(urlConnection.getHeaderField(HttpRanges.ETAG_HEADER)).thenReturn("W/\"etag\"");
+    when(urlConnection.getHeaderField(HttpRanges.LAST_MODIFIED_HEADER))
+        .thenReturn("Wed, 21 Oct 2015 07:28:00 GMT");
+    when(urlConnection.getContentLength()).thenReturn(2048);
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    assertThat(fetcher.getValidator()).isEqualTo("Wed, 21 Oct 2015 07:28:00 GMT");
+  }
+
+  @Test
+  public void getValidator_withUnknownLength_returnsNull() {
+    when(urlConnection.getHeaderField(HttpRanges.ETAG_HEADER)).thenReturn("\"etag\"");
+    when(urlConnection.getContentLength()).thenReturn(-1);
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    assertThat(fetcher.getValidator()).isNull();
+  }
+
+  @Test
+  public void getValidator_withContentEncoding_returnsNull() {
+    when(urlConnection.getHeaderField(HttpRanges.ETAG_HEADER)).thenReturn("\"etag\"");
+    when(urlConnection.getContentLength()).thenReturn(2048);
+    when(urlConnection.getContentEncoding()).thenReturn("gzip");
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    assertThat(fetcher.getValidator()).isNull();
+  }
 }
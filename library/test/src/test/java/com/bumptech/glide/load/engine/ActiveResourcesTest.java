@@ -367,6 +367,57 @@ public class ActiveResourcesTest {
     waitForLatch(latch);
   }
 
+  @Test
+  public void deactivate_withExpectedResource_removesResource() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isConcurrent=*/ true);
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+
+    resources.deactivate(key, engineResource);
+
+    assertThat(resources.get(key)).isNull();
+  }
+
+  @Test
+  public void deactivate_withReplacedResource_keepsNewerResource() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isConcurrent=*/ true);
+    EngineResource<Object> first =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    EngineResource<Object> second =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, first);
+    resources.activate(key, second);
+
+    resources.deactivate(key, first);
+
+    assertThat(resources.get(key)).isEqualTo(second);
+  }
+
+  @Test
+  public void queueIdle_withConcurrentResources_notifiesListenerWithoutMainThread() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isConcurrent=*/ true);
+    resources.setListener(listener);
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+    ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
+    CountDownLatch latch = getLatchForClearedRef();
+    weakRef.enqueue();
+
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+
+    verify(listener).onResourceReleased(eq(key), any(EngineResource.class));
+    assertThat(resources.activeEngineResources).doesNotContainKey(key);
+  }
+
   private void waitForLatch(CountDownLatch latch) {
      try {
       latch.await(10, TimeUnit.SECONDS);
@@ -0,0 +1,143 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DecodePipelineTest {
+  private ExecutorService decodeService;
+  private ExecutorService encodeService;
+  private DecodePipeline pipeline;
+
+  @Before
+  public void setUp() {
+    decodeService = mock(ExecutorService.class);
+    encodeService = mock(ExecutorService.class);
+    pipeline = newPipeline(/*maxPendingDecodes=*/ 1);
+  }
+
+  @Test
+  public void decode_belowLimit_executesJobOnDecodeExecutor() {
+    pipeline = newPipeline(/*maxPendingDecodes=*/ 2);
+    DecodeJob<?> first = mock(DecodeJob.class);
+    DecodeJob<?> second = mock(DecodeJob.class);
+
+    pipeline.decode(first);
+    pipeline.decode(second);
+
+    verify(decodeService).execute(first);
+    verify(decodeService).execute(second);
+  }
+
+  @Test
+  public void decode_atLimitOnBackgroundThread_blocksUntilDecodeFinishes()
+      throws InterruptedException {
+    pipeline.decode(mock(DecodeJob.class));
+    final DecodeJob<?> blocked = mock(DecodeJob.class);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pipeline.decode(blocked);
+      }
+    });
+    thread.start();
+
+    thread.join(100);
+    assertThat(thread.isAlive()).isTrue();
+
+    pipeline.onDecodeFinished();
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(thread.isAlive()).isFalse();
+    verify(decodeService).execute(blocked);
+    assertThat(pipeline.getStats().getBlockedCount()).isEqualTo(1L);
+    assertThat(pipeline.getStats().getTotalBlockedNanos()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void decode_atLimitOnMainThread_doesNotBlock() {
+    pipeline.decode(mock(DecodeJob.class));
+    pipeline.decode(mock(DecodeJob.class));
+
+    verify(decodeService, times(2)).execute(any(Runnable.class));
+    assertThat(pipeline.getStats().getBlockedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void decode_whenRejected_doesNotCountPendingDecode() throws InterruptedException {
+    DecodeJob<?> rejected = mock(DecodeJob.class);
+    doThrow(new RejectedExecutionException()).when(decodeService).execute(rejected);
+    try {
+      pipeline.decode(rejected);
+    } catch (RejectedExecutionException e) {
+      // Expected.
+    }
+
+    final DecodeJob<?> next = mock(DecodeJob.class);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pipeline.decode(next);
+      }
+    });
+    thread.start();
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(thread.isAlive()).isFalse();
+    verify(decodeService).execute(next);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void decode_withoutDecodeExecutor_throws() {
+    new DecodePipeline(
+        /*decodeExecutor=*/ null,
+        MockGlideExecutor.newTestExecutor(encodeService),
+        /*maxPendingDecodes=*/ 1)
+        .decode(mock(DecodeJob.class));
+  }
+
+  @Test
+  public void encode_executesJobOnEncodeExecutor() {
+    DecodeJob<?> job = mock(DecodeJob.class);
+
+    pipeline.encode(job);
+
+    verify(encodeService).execute(job);
+  }
+
+  @Test
+  public void record_updatesStatsForStage() {
+    long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    pipeline.record(PipelineStats.Stage.FETCH, System.nanoTime() - elapsedNanos);
+    pipeline.record(PipelineStats.Stage.FETCH, System.nanoTime() - 2 * elapsedNanos);
+
+    PipelineStats stats = pipeline.getStats();
+    assertThat(stats.getCount(PipelineStats.Stage.FETCH)).isEqualTo(2L);
+    assertThat(stats.getTotalNanos(PipelineStats.Stage.FETCH)).isAtLeast(3 * elapsedNanos);
+    assertThat(stats.getMaxNanos(PipelineStats.Stage.FETCH)).isAtLeast(2 * elapsedNanos);
+    assertThat(stats.getCount(PipelineStats.Stage.DECODE)).isEqualTo(0L);
+    assertThat(stats.getAverageNanos(PipelineStats.Stage.DECODE)).isEqualTo(0L);
+  }
+
+  private DecodePipeline newPipeline(int maxPendingDecodes) {
+    GlideExecutor decodeExecutor = MockGlideExecutor.newTestExecutor(decodeService);
+    GlideExecutor encodeExecutor = MockGlideExecutor.newTestExecutor(encodeService);
+    return new DecodePipeline(decodeExecutor, encodeExecutor, maxPendingDecodes);
+  }
+}
@@ -3,6 +3,7 @@ package com.bumptech.glide.load.engine;
 import static com.bumptech.glide.tests.Util.anyResource;
 import static com.bumptech.glide.tests.Util.isADataSource;
 import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -15,16 +16,25 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import android.graphics.Bitmap;
 import android.os.Handler;
+import android.support.annotation.NonNull;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import com.bumptech.glide.request.IntermediateResourceCallback;
 import com.bumptech.glide.request.ResourceCallback;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -413,6 +423,75 @@ public class EngineJobTest {
     verify(harness.decodeJob).cancel();
   }
 
+  @Test
+  public void setPriority_withQueuedJob_requeuesDecodeJobWithNewPriority() {
+    // Never starts a thread, so jobs stay queued.
+    ThreadPoolExecutor decodeService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+          @Override
+          public Thread newThread(@NonNull Runnable r) {
+            return null;
+          }
+        });
+    EngineJob<Object> job = harness.getJob(MockGlideExecutor.newTestExecutor(decodeService));
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    job.start(harness.decodeJob);
+    job.rescheduleDecode(harness.decodeJob);
+
+    job.setPriority(Priority.IMMEDIATE);
+
+    verify(harness.decodeJob).setPriority(Priority.IMMEDIATE);
+    verify(harness.decodeJob, never()).setPendingPriority(any(Priority.class));
+    assertThat(decodeService.getQueue()).containsExactly(harness.decodeJob);
+  }
+
+  @Test
+  public void setPriority_withRunningJob_setsPendingPriority() {
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    job.start(harness.decodeJob);
+
+    job.setPriority(Priority.IMMEDIATE);
+
+    verify(harness.decodeJob).setPendingPriority(Priority.IMMEDIATE);
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+    verify(harness.decodeJob, times(1)).run();
+  }
+
+  @Test
+  public void setPriority_withSamePriority_doesNotUpdateDecodeJob() {
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    job.start(harness.decodeJob);
+
+    job.setPriority(Priority.NORMAL);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+    verify(harness.decodeJob).setPendingPriority(null);
+  }
+
+  @Test
+  public void rescheduleDecode_withDecodeExecutor_submitsDecodeJobToDecodeService() {
+    GlideExecutor decodeService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob(decodeService);
+    harness.sourceService.shutdownNow();
+
+    assertTrue(job.hasDecodeExecutor());
+    job.rescheduleDecode(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void rescheduleDecode_withoutDecodeExecutor_submitsDecodeJobToSourceService() {
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.hasDecodeExecutor());
+    job.rescheduleDecode(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
   @Test
   public void testSubmitsDecodeJobToSourceServiceOnSubmitForSource() {
     EngineJob<Object> job = harness.getJob();
@@ -454,6 +533,94 @@ public class EngineJobTest {
     verify(harness.decodeJob).run();
   }
 
+  @Test
+  public void testIsIntermediateResourceRequested_withoutRequestingCallbacks_returnsFalse() {
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.isIntermediateResourceRequested());
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_passesPreviewToRequestingCallbacks() {
+    EngineJob<Object> job = harness.getJob();
+    ResourceCallback requesting = mockIntermediateCallback(/*isRequested=*/ true);
+    ResourceCallback notRequesting = mockIntermediateCallback(/*isRequested=*/ false);
+    job.addCallback(requesting);
+    job.addCallback(notRequesting);
+    assertTrue(job.isIntermediateResourceRequested());
+
+    Resource<Bitmap> preview = mockPreview();
+    job.onIntermediateResourceReady(preview);
+    ShadowLooper.runUiThreadTasks();
+
+    verify((IntermediateResourceCallback) requesting).onIntermediateResourceReady(preview.get());
+    verify((IntermediateResourceCallback) notRequesting, never())
+        .onIntermediateResourceReady(any(Bitmap.class));
+    verify(preview, never()).recycle();
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_recyclesPreviousPreview() {
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mockIntermediateCallback(/*isRequested=*/ true));
+
+    Resource<Bitmap> first = mockPreview();
+    Resource<Bitmap> second = mockPreview();
+    job.onIntermediateResourceReady(first);
+    job.onIntermediateResourceReady(second);
+    ShadowLooper.runUiThreadTasks();
+
+    verify(first).recycle();
+    verify(second, never()).recycle();
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_whenCancelled_recyclesPreview() {
+    EngineJob<Object> job = harness.getJob();
+    ResourceCallback cb = mockIntermediateCallback(/*isRequested=*/ true);
+    job.addCallback(cb);
+    job.start(harness.decodeJob);
+    job.cancel();
+    assertFalse(job.isIntermediateResourceRequested());
+
+    Resource<Bitmap> preview = mockPreview();
+    job.onIntermediateResourceReady(preview);
+    ShadowLooper.runUiThreadTasks();
+
+    verify(preview).recycle();
+    verify((IntermediateResourceCallback) cb, never())
+        .onIntermediateResourceReady(any(Bitmap.class));
+  }
+
+  @Test
+  public void testOnResourceReady_afterPreview_doesNotRecyclePreview() {
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mockIntermediateCallback(/*isRequested=*/ true));
+    job.start(harness.decodeJob);
+
+    Resource<Bitmap> preview = mockPreview();
+    job.onIntermediateResourceReady(preview);
+    job.onResourceReady(harness.resource, harness.dataSource);
+    ShadowLooper.runUiThreadTasks();
+
+    verify(preview, never()).recycle();
+  }
+
+  private static ResourceCallback mockIntermediateCallback(boolean isRequested) {
+    ResourceCallback result = mock(ResourceCallback.class,
+        withSettings().extraInterfaces(IntermediateResourceCallback.class));
+    when(((IntermediateResourceCallback) result).isIntermediateResourceRequested())
+        .thenReturn(isRequested);
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Resource<Bitmap> mockPreview() {
+    Resource<Bitmap> result = mock(Resource.class);
+    when(result.get()).thenReturn(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    return result;
+  }
+
   @SuppressWarnings("unchecked")
   private static class MultiCbHarness {
     final Key key = mock(Key.class);
@@ -534,6 +701,23 @@ public class EngineJobTest {
               listener,
               pool,
               factory);
+      return init(result);
+    }
+
+    EngineJob<Object> getJob(GlideExecutor decodeService) {
+      return init(
+          new EngineJob<>(
+              diskCacheService,
+              sourceService,
+              sourceUnlimitedService,
+              animationService,
+              new DecodePipeline(decodeService, diskCacheService, /*maxPendingDecodes=*/ 1),
+              listener,
+              pool,
+              /*isConcurrent=*/ false));
+    }
+
+    private EngineJob<Object> init(EngineJob<Object> result) {
       result.init(
           key,
           isCacheable,
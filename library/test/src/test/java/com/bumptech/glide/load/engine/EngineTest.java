@@ -12,15 +12,19 @@ import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideMetricsListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
@@ -32,11 +36,17 @@ import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.tests.BackgroundUtil;
 import com.bumptech.glide.tests.GlideShadowLooper;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
@@ -188,6 +198,193 @@ public class EngineTest {
     verify(harness.job).start((DecodeJob) any());
   }
 
+  @Test
+  public void load_withMetricsListenerAndActiveResource_reportsActiveResourceHit() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+    harness.activeResources.activate(harness.cacheKey, harness.resource);
+
+    harness.doLoad();
+
+    verify(metricsListener).onActiveResourceHit(harness.cacheKey);
+    verify(metricsListener, never()).onMemoryCacheHit(any(Key.class));
+    verify(metricsListener, never()).onMemoryCacheMiss(any(Key.class));
+  }
+
+  @Test
+  public void load_withMetricsListenerAndCachedResource_reportsMemoryCacheHit() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+
+    harness.doLoad();
+
+    verify(metricsListener).onMemoryCacheHit(harness.cacheKey);
+    verify(metricsListener, never()).onMemoryCacheMiss(any(Key.class));
+  }
+
+  @Test
+  public void load_withMetricsListenerAndNoResource_reportsMemoryCacheMiss() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+
+    harness.doLoad();
+
+    verify(metricsListener).onMemoryCacheMiss(harness.cacheKey);
+    verify(metricsListener, never()).onJobCoalesced(any(Key.class));
+  }
+
+  @Test
+  public void load_withMetricsListenerAndExistingJob_reportsJobCoalesced() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+
+    harness.doLoad();
+    harness.doLoad();
+
+    verify(metricsListener, times(2)).onMemoryCacheMiss(harness.cacheKey);
+    verify(metricsListener).onJobCoalesced(harness.cacheKey);
+  }
+
+  @Test
+  public void load_withMetricsListenerAndNotMemoryCacheable_doesNotReportCacheEvents() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+    harness.isMemoryCacheable = false;
+
+    harness.doLoad();
+
+    verifyZeroInteractions(metricsListener);
+  }
+
+  @Test
+  public void loadAll_withCachedAndMissingModels_startsJobsBeforeDeliveringCacheHits() {
+    Object cachedModel = new Object();
+    EngineKey cachedKey = mock(EngineKey.class);
+    when(harness.keyFactory.buildKey(eq(cachedModel), eq(harness.signature), anyInt(), anyInt(),
+        eq(harness.transformations), eq(Object.class), eq(Object.class), eq(harness.options)))
+        .thenReturn(cachedKey);
+    when(harness.cache.remove(eq(cachedKey))).thenReturn(harness.resource);
+    ResourceCallback cachedCb = mock(ResourceCallback.class);
+    harness.stubJob();
+
+    List<Engine.LoadStatus> statuses =
+        harness.loadAll(
+            Arrays.asList(cachedModel, harness.model), Arrays.asList(cachedCb, harness.cb));
+
+    assertThat(statuses).hasSize(2);
+    assertNull(statuses.get(0));
+    assertNotNull(statuses.get(1));
+    InOrder order = inOrder(harness.job, cachedCb);
+    order.verify(harness.job).start((DecodeJob) any());
+    order.verify(cachedCb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    verify(harness.job).addCallback(harness.cb);
+  }
+
+  @Test
+  public void loadAll_withDuplicateModels_startsSingleJob() {
+    GlideMetricsListener metricsListener = harness.setMetricsListener();
+    ResourceCallback other = mock(ResourceCallback.class);
+    harness.stubJob();
+
+    harness.loadAll(Arrays.asList(harness.model, harness.model), Arrays.asList(harness.cb, other));
+
+    verify(harness.job, times(1)).start((DecodeJob) any());
+    verify(harness.job).addCallback(harness.cb);
+    verify(harness.job).addCallback(other);
+    verify(metricsListener).onJobCoalesced(harness.cacheKey);
+    assertThat(harness.jobs.getAll()).containsKey(harness.cacheKey);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void loadAll_withMismatchedCallbacks_throws() {
+    harness.loadAll(
+        Arrays.asList(harness.model, harness.model), Collections.singletonList(harness.cb));
+  }
+
+  @Test
+  public void load_withRecentFailure_failsWithoutStartingJob() {
+    GlideException failure = harness.setNegativeCacheWithFailure();
+
+    Engine.LoadStatus loadStatus = harness.doLoad();
+
+    assertNull(loadStatus);
+    verify(harness.cb).onLoadFailed(failure);
+    verify(harness.job, never()).start(any(DecodeJob.class));
+    assertThat(harness.jobs.getAll()).doesNotContainKey(harness.cacheKey);
+  }
+
+  @Test
+  public void load_withRecentFailureAndCachedResource_returnsCachedResource() {
+    harness.setNegativeCacheWithFailure();
+    when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
+
+    harness.doLoad();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    verify(harness.cb, never()).onLoadFailed(any(GlideException.class));
+  }
+
+  @Test
+  public void load_afterNegativeCacheCleared_startsJob() {
+    harness.setNegativeCacheWithFailure();
+    harness.getEngine().clearNegativeCache();
+
+    harness.doLoad();
+
+    verify(harness.job).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void loadAll_withRecentFailure_failsWithoutStartingJob() {
+    GlideException failure = harness.setNegativeCacheWithFailure();
+    harness.stubJob();
+
+    List<Engine.LoadStatus> statuses =
+        harness.loadAll(
+            Collections.singletonList(harness.model), Collections.singletonList(harness.cb));
+
+    assertNull(statuses.get(0));
+    verify(harness.cb).onLoadFailed(failure);
+    verify(harness.job, never()).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void onEngineJobComplete_withFailedJob_remembersFailure() {
+    harness.negativeCache = new NegativeCache(newNegativeCachePolicy());
+    GlideException failure = newNotFoundException();
+    when(harness.job.getException()).thenReturn(failure);
+
+    harness.getEngine().onEngineJobComplete(harness.job, harness.cacheKey, /*resource=*/ null);
+
+    assertThat(harness.negativeCache.get(harness.cacheKey)).isSameAs(failure);
+    assertThat(harness.getEngine().getNegativeCacheStats().getPutCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void onEngineJobComplete_withFailedOnlyRetrieveFromCacheJob_doesNotRememberFailure() {
+    harness.negativeCache = new NegativeCache(newNegativeCachePolicy());
+    when(harness.job.getException()).thenReturn(newNotFoundException());
+    when(harness.job.onlyRetrieveFromCache()).thenReturn(true);
+
+    harness.getEngine().onEngineJobComplete(harness.job, harness.cacheKey, /*resource=*/ null);
+
+    assertNull(harness.negativeCache.get(harness.cacheKey));
+  }
+
+  @Test
+  public void getNegativeCacheStats_withoutNegativeCache_returnsNull() {
+    assertNull(harness.getEngine().getNegativeCacheStats());
+  }
+
+  private static NegativeCachePolicy newNegativeCachePolicy() {
+    return new NegativeCachePolicy.Builder()
+        .setTtlForStatusCode(404, 1, TimeUnit.MINUTES)
+        .build();
+  }
+
+  private static GlideException newNotFoundException() {
+    GlideException fetchFailed =
+        new GlideException("Fetching data failed", new HttpException("Not found", 404));
+    fetchFailed.setLoggingDetails(mock(Key.class), DataSource.REMOTE);
+    return new GlideException("Failed to load resource", fetchFailed);
+  }
+
   @Test
   public void testResourceIsReturnedFromCacheIfPresent() {
     when(harness.cache.remove(eq(harness.cacheKey))).thenReturn(harness.resource);
@@ -436,6 +633,65 @@ public class EngineTest {
     });
   }
 
+  @Test
+  public void load_onBackgroundThread_withConcurrentEngine_startsNewJob()
+      throws InterruptedException {
+    harness.isConcurrent = true;
+    harness.stubJob();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        harness.load();
+      }
+    });
+
+    verify(harness.job).start((DecodeJob) any());
+    assertThat(harness.jobs.getAll()).containsKey(harness.cacheKey);
+  }
+
+  @Test
+  public void load_fromManyThreads_withConcurrentEngine_startsSingleJob()
+      throws InterruptedException {
+    harness.isConcurrent = true;
+    harness.stubJob();
+    // Create the engine up front, the harness creates it lazily and isn't thread safe.
+    harness.getEngine();
+    int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            harness.load();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+    start.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+
+    verify(harness.job, times(1)).start((DecodeJob) any());
+    verify(harness.job, times(threadCount)).addCallback(eq(harness.cb));
+  }
+
+  @Test
+  public void onResourceReleased_withConcurrentEngineAndReacquiredResource_doesNotCache() {
+    harness.isConcurrent = true;
+    when(harness.resource.isCacheable()).thenReturn(true);
+    when(harness.resource.isAcquired()).thenReturn(true);
+
+    harness.getEngine().onResourceReleased(harness.cacheKey, harness.resource);
+
+    verify(harness.cache, never()).put(any(Key.class), anyResource());
+  }
+
   @Test
   public void load_afterResourceIsLoadedInActiveResources_returnsFromMemoryCache() {
     when(harness.resource.isCacheable()).thenReturn(true);
@@ -649,6 +905,8 @@ public class EngineTest {
     boolean isMemoryCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
     boolean onlyRetrieveFromCache = false;
+    boolean isConcurrent = false;
+    NegativeCache negativeCache;
     final boolean isScaleOnlyOrNoTransform = true;
 
     EngineTestHarness() {
@@ -659,17 +917,38 @@ public class EngineTest {
       job = mock(EngineJob.class);
     }
 
+    GlideMetricsListener setMetricsListener() {
+      GlideMetricsListener metricsListener = mock(GlideMetricsListener.class);
+      when(glideContext.getMetricsListener()).thenReturn(metricsListener);
+      return metricsListener;
+    }
+
+    GlideException setNegativeCacheWithFailure() {
+      negativeCache = new NegativeCache(newNegativeCachePolicy());
+      GlideException failure = newNotFoundException();
+      negativeCache.put(cacheKey, failure);
+      return failure;
+    }
+
     void callOnEngineJobComplete() {
       getEngine().onEngineJobComplete(job, cacheKey, resource);
     }
 
 
     Engine.LoadStatus doLoad() {
+      stubJob();
+      return load();
+    }
+
+    void stubJob() {
       when(
           engineJobFactory.build(
               eq(cacheKey), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean()))
           .thenReturn((EngineJob<Object>) job);
       when(job.onlyRetrieveFromCache()).thenReturn(onlyRetrieveFromCache);
+    }
+
+    Engine.LoadStatus load() {
       return getEngine().load(glideContext,
           model,
           signature,
@@ -690,6 +969,28 @@ public class EngineTest {
           cb);
     }
 
+    List<Engine.LoadStatus> loadAll(
+        List<Object> models, List<? extends ResourceCallback> callbacks) {
+      return getEngine().loadAll(glideContext,
+          models,
+          signature,
+          width,
+          height,
+          Object.class /*resourceClass*/,
+          Object.class /*transcodeClass*/,
+          Priority.HIGH,
+          DiskCacheStrategy.ALL,
+          transformations,
+          false /*isTransformationRequired*/,
+          isScaleOnlyOrNoTransform,
+          options,
+          isMemoryCacheable,
+          useUnlimitedSourceGeneratorPool,
+          /*useAnimationPool=*/ false,
+          onlyRetrieveFromCache,
+          callbacks);
+    }
+
     Engine getEngine() {
       if (engine == null) {
         engine =
@@ -700,13 +1001,15 @@ public class EngineTest {
                 MockGlideExecutor.newMainThreadExecutor(),
                 MockGlideExecutor.newMainThreadExecutor(),
                 MockGlideExecutor.newMainThreadExecutor(),
+                negativeCache,
                 jobs,
                 keyFactory,
                 activeResources,
                 engineJobFactory,
                 decodeJobFactory,
                 resourceRecycler,
-                /*isActiveResourceRetentionAllowed=*/ true);
+                /*isActiveResourceRetentionAllowed=*/ true,
+                new EngineOptions.Builder().setIsConcurrent(isConcurrent).build());
       }
       return engine;
     }
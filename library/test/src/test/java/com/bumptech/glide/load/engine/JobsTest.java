@@ -0,0 +1,77 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.Key;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class JobsTest {
+  private Key key;
+  private EngineJob<?> job;
+
+  @Before
+  public void setUp() {
+    key = mock(Key.class);
+    job = mock(EngineJob.class);
+  }
+
+  @Test
+  public void get_withConcurrentJobs_returnsPutJob() {
+    Jobs jobs = new Jobs(/*isConcurrent=*/ true);
+    jobs.put(key, job);
+
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ false)).isEqualTo(job);
+  }
+
+  @Test
+  public void get_withConcurrentJobsAndOnlyCacheJob_separatesJobs() {
+    when(job.onlyRetrieveFromCache()).thenReturn(true);
+    Jobs jobs = new Jobs(/*isConcurrent=*/ true);
+    jobs.put(key, job);
+
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ false)).isNull();
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ true)).isEqualTo(job);
+  }
+
+  @Test
+  public void removeIfCurrent_withConcurrentJobsAndCurrentJob_removesJob() {
+    Jobs jobs = new Jobs(/*isConcurrent=*/ true);
+    jobs.put(key, job);
+
+    jobs.removeIfCurrent(key, job);
+
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ false)).isNull();
+  }
+
+  @Test
+  public void removeIfCurrent_withConcurrentJobsAndReplacedJob_keepsNewerJob() {
+    Jobs jobs = new Jobs(/*isConcurrent=*/ true);
+    EngineJob<?> newer = mock(EngineJob.class);
+    jobs.put(key, job);
+    jobs.put(key, newer);
+
+    jobs.removeIfCurrent(key, job);
+
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ false)).isEqualTo(newer);
+  }
+
+  @Test
+  public void removeIfCurrent_withReplacedJob_keepsNewerJob() {
+    Jobs jobs = new Jobs();
+    EngineJob<?> newer = mock(EngineJob.class);
+    jobs.put(key, job);
+    jobs.put(key, newer);
+
+    jobs.removeIfCurrent(key, job);
+
+    assertThat(jobs.get(key, /*onlyRetrieveFromCache=*/ false)).isEqualTo(newer);
+  }
+}
@@ -0,0 +1,104 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.FileNotFoundException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class NegativeCachePolicyTest {
+  private NegativeCachePolicy policy;
+
+  @Before
+  public void setUp() {
+    policy = new NegativeCachePolicy.Builder()
+        .setTtlForStatusCode(404, 5, TimeUnit.MINUTES)
+        .setTtlForStatusCode(410, 1, TimeUnit.HOURS)
+        .setTtlForDataSource(DataSource.LOCAL, 30, TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Test
+  public void getTtlMillis_withMatchingStatusCode_returnsStatusCodeTtl() {
+    GlideException exception = failed(DataSource.REMOTE, new HttpException("Not found", 404));
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(TimeUnit.MINUTES.toMillis(5));
+  }
+
+  @Test
+  public void getTtlMillis_withUnmatchedStatusCode_returnsZero() {
+    GlideException exception = failed(DataSource.REMOTE, new HttpException("Error", 500));
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(0L);
+  }
+
+  @Test
+  public void getTtlMillis_withMatchingDataSource_returnsDataSourceTtl() {
+    GlideException exception = failed(DataSource.LOCAL, new FileNotFoundException());
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(TimeUnit.SECONDS.toMillis(30));
+  }
+
+  @Test
+  public void getTtlMillis_withStatusCodeAndDataSourceRules_prefersStatusCodeRule() {
+    policy = new NegativeCachePolicy.Builder()
+        .setTtlForStatusCode(404, 5, TimeUnit.MINUTES)
+        .setTtlForDataSource(DataSource.REMOTE, 10, TimeUnit.SECONDS)
+        .build();
+    GlideException exception = failed(DataSource.REMOTE, new HttpException("Not found", 404));
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(TimeUnit.MINUTES.toMillis(5));
+  }
+
+  @Test
+  public void getTtlMillis_withMultipleMatchingCauses_returnsShortestTtl() {
+    GlideException exception =
+        new GlideException(
+            "Failed to load resource",
+            Arrays.<Throwable>asList(
+                failed(DataSource.REMOTE, new HttpException("Gone", 410)),
+                failed(DataSource.REMOTE, new HttpException("Not found", 404))));
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(TimeUnit.MINUTES.toMillis(5));
+  }
+
+  @Test
+  public void getTtlMillis_withAnyUnmatchedCause_returnsZero() {
+    GlideException exception =
+        new GlideException(
+            "Failed to load resource",
+            Arrays.<Throwable>asList(
+                failed(DataSource.REMOTE, new HttpException("Not found", 404)),
+                failed(DataSource.REMOTE, new SocketTimeoutException())));
+
+    assertThat(policy.getTtlMillis(exception)).isEqualTo(0L);
+  }
+
+  @Test
+  public void getTtlMillis_withoutCauses_returnsZero() {
+    assertThat(policy.getTtlMillis(new GlideException("Failed to load resource")))
+        .isEqualTo(0L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setMaxSize_withZero_throws() {
+    new NegativeCachePolicy.Builder().setMaxSize(0);
+  }
+
+  private static GlideException failed(DataSource dataSource, Throwable cause) {
+    GlideException fetchFailed = new GlideException("Fetching data failed", cause);
+    fetchFailed.setLoggingDetails(new ObjectKey("model"), dataSource, Object.class);
+    return new GlideException("Failed to load resource", fetchFailed);
+  }
+}
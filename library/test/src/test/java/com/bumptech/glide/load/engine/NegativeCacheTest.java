@@ -0,0 +1,119 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.SystemClock;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class NegativeCacheTest {
+  private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+  private final Key key = new ObjectKey("key");
+  private NegativeCache cache;
+  private GlideException notFound;
+
+  @Before
+  public void setUp() {
+    cache = newCache(/*maxSize=*/ 10);
+    GlideException fetchFailed =
+        new GlideException("Fetching data failed", new HttpException("Not found", 404));
+    fetchFailed.setLoggingDetails(key, DataSource.REMOTE);
+    notFound = new GlideException("Failed to load resource", fetchFailed);
+  }
+
+  @Test
+  public void get_withoutPut_returnsNull() {
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void get_afterPut_returnsException() {
+    cache.put(key, notFound);
+
+    assertThat(cache.get(key)).isSameAs(notFound);
+    assertThat(cache.getStats().getHitCount()).isEqualTo(1L);
+    assertThat(cache.getStats().getPutCount()).isEqualTo(1L);
+    assertThat(cache.getStats().getSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_afterPutOfExceptionNotAllowedByPolicy_returnsNull() {
+    cache.put(key, new GlideException("Failed to load resource"));
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.getStats().getPutCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void get_afterTtlExpires_returnsNull() {
+    cache.put(key, notFound);
+
+    SystemClock.sleep(TTL_MILLIS);
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.getStats().getExpiredCount()).isEqualTo(1L);
+    assertThat(cache.getStats().getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_beyondMaxSize_evictsEldestEntry() {
+    cache = newCache(/*maxSize=*/ 2);
+    Key second = new ObjectKey("second");
+    Key third = new ObjectKey("third");
+
+    cache.put(key, notFound);
+    cache.put(second, notFound);
+    cache.put(third, notFound);
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(cache.get(second)).isSameAs(notFound);
+    assertThat(cache.get(third)).isSameAs(notFound);
+    assertThat(cache.getStats().getEvictionCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void put_beyondMaxSize_prefersEvictingExpiredEntries() {
+    cache = newCache(/*maxSize=*/ 2);
+    Key second = new ObjectKey("second");
+    Key third = new ObjectKey("third");
+    cache.put(key, notFound);
+    SystemClock.sleep(TTL_MILLIS / 2);
+    cache.put(second, notFound);
+    SystemClock.sleep(TTL_MILLIS / 2);
+
+    cache.put(third, notFound);
+
+    assertThat(cache.get(second)).isSameAs(notFound);
+    assertThat(cache.get(third)).isSameAs(notFound);
+    assertThat(cache.getStats().getExpiredCount()).isEqualTo(1L);
+    assertThat(cache.getStats().getEvictionCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void clear_removesEntries() {
+    cache.put(key, notFound);
+
+    cache.clear();
+
+    assertThat(cache.get(key)).isNull();
+  }
+
+  private static NegativeCache newCache(int maxSize) {
+    return new NegativeCache(
+        new NegativeCachePolicy.Builder()
+            .setTtlForStatusCode(404, TTL_MILLIS, TimeUnit.MILLISECONDS)
+            .setMaxSize(maxSize)
+            .build());
+  }
+}
@@ -0,0 +1,173 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProgressiveJpegParserTest {
+  private static final int WIDTH = 512;
+  private static final int HEIGHT = 256;
+
+  private ProgressiveJpegParser parser;
+  private List<Integer> scanEndOffsets;
+
+  @Before
+  public void setUp() {
+    parser = new ProgressiveJpegParser();
+    scanEndOffsets = new ArrayList<>();
+  }
+
+  @Test
+  public void consume_withProgressiveJpeg_reportsEachScanBeforeTheLast() {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(4)
+        .addScan(8)
+        .addScan(2)
+        .build();
+
+    int result = consumeAll(data);
+
+    assertThat(result).isEqualTo(ProgressiveJpegParser.RESULT_DONE);
+    assertThat(parser.getScanCount()).isEqualTo(3);
+    assertThat(scanEndOffsets).hasSize(2);
+    assertThat(parser.getWidth()).isEqualTo(WIDTH);
+    assertThat(parser.getHeight()).isEqualTo(HEIGHT);
+  }
+
+  @Test
+  public void consume_withProgressiveJpeg_reportsOffsetOfMarkerAfterScan() {
+    JpegBuilder builder = new JpegBuilder(/*isProgressive=*/ true).addScan(4);
+    int expectedScanEnd = builder.size();
+    byte[] data = builder.addScan(4).build();
+
+    consumeAll(data);
+
+    assertThat(scanEndOffsets).containsExactly(expectedScanEnd);
+    assertThat(data[expectedScanEnd] & 0xFF).isEqualTo(0xFF);
+  }
+
+  @Test
+  public void consume_withStuffedBytesAndRestartMarkers_doesNotEndScan() {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addEntropyScan(0x12, 0xFF, 0x00, 0x34, 0xFF, 0xD0, 0x56, 0xFF, 0xD7)
+        .addScan(2)
+        .build();
+
+    consumeAll(data);
+
+    assertThat(parser.getScanCount()).isEqualTo(2);
+    assertThat(scanEndOffsets).hasSize(1);
+  }
+
+  @Test
+  public void consume_withFillBytesBeforeMarker_reportsOffsetOfFirstFillByte() {
+    JpegBuilder builder = new JpegBuilder(/*isProgressive=*/ true).addScan(4);
+    int expectedScanEnd = builder.size();
+    builder.write(0xFF);
+    byte[] data = builder.addScan(4).build();
+
+    consumeAll(data);
+
+    assertThat(scanEndOffsets).containsExactly(expectedScanEnd);
+  }
+
+  @Test
+  public void consume_withBaselineJpeg_isDoneAfterFrameHeader() {
+    JpegBuilder builder = new JpegBuilder(/*isProgressive=*/ false);
+    int frameHeaderEnd = builder.size();
+    byte[] data = builder.addScan(4).build();
+
+    for (int i = 0; i < frameHeaderEnd - 1; i++) {
+      assertThat(parser.consume(data[i] & 0xFF)).isEqualTo(ProgressiveJpegParser.RESULT_CONTINUE);
+    }
+    assertThat(parser.consume(data[frameHeaderEnd - 1] & 0xFF))
+        .isEqualTo(ProgressiveJpegParser.RESULT_DONE);
+    assertThat(parser.getScanCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void consume_withNonJpeg_isDoneImmediately() {
+    assertThat(parser.consume(0x89)).isEqualTo(ProgressiveJpegParser.RESULT_DONE);
+    assertThat(parser.consume(0xFF)).isEqualTo(ProgressiveJpegParser.RESULT_DONE);
+  }
+
+  @Test
+  public void consume_withInvalidSegmentLength_isDone() {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    os.write(0xFF);
+    os.write(0xD8);
+    os.write(0xFF);
+    os.write(0xE0);
+    os.write(0x00);
+    os.write(0x01);
+
+    assertThat(consumeAll(os.toByteArray())).isEqualTo(ProgressiveJpegParser.RESULT_DONE);
+  }
+
+  private int consumeAll(byte[] data) {
+    int result = ProgressiveJpegParser.RESULT_CONTINUE;
+    for (byte b : data) {
+      result = parser.consume(b & 0xFF);
+      if (result == ProgressiveJpegParser.RESULT_SCAN_END) {
+        scanEndOffsets.add(parser.getScanEndOffset());
+      } else if (result == ProgressiveJpegParser.RESULT_DONE) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the marker structure of a JPEG with placeholder tables and entropy coded data.
+   */
+  static final class JpegBuilder {
+    private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    JpegBuilder(boolean isProgressive) {
+      write(0xFF, 0xD8);
+      // APP0 with a two byte payload.
+      write(0xFF, 0xE0, 0x00, 0x04, 0xAA, 0xBB);
+      write(0xFF, isProgressive ? 0xC2 : 0xC0, 0x00, 0x0B, 0x08,
+          HEIGHT >> 8, HEIGHT & 0xFF, WIDTH >> 8, WIDTH & 0xFF,
+          0x01, 0x01, 0x11, 0x00);
+    }
+
+    JpegBuilder addScan(int entropyLength) {
+      int[] entropy = new int[entropyLength];
+      for (int i = 0; i < entropyLength; i++) {
+        entropy[i] = i % 0xFF;
+      }
+      return addEntropyScan(entropy);
+    }
+
+    JpegBuilder addEntropyScan(int... entropy) {
+      // An empty DHT segment followed by the SOS header.
+      write(0xFF, 0xC4, 0x00, 0x02);
+      write(0xFF, 0xDA, 0x00, 0x08, 0x01, 0x01, 0x00, 0x00, 0x3F, 0x00);
+      write(entropy);
+      return this;
+    }
+
+    int size() {
+      return os.size();
+    }
+
+    void write(int... bytes) {
+      for (int b : bytes) {
+        os.write(b);
+      }
+    }
+
+    byte[] build() {
+      write(0xFF, 0xD9);
+      return os.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.engine.ProgressiveJpegParserTest.JpegBuilder;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ProgressivePreviewStreamTest {
+  @Mock private DecodeJob.Callback<Object> callback;
+  private final BitmapPool bitmapPool = new BitmapPoolAdapter();
+  private ArrayPool arrayPool;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    arrayPool = new LruArrayPool();
+  }
+
+  @Test
+  public void read_returnsWrappedData() throws IOException {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(10)
+        .addScan(100)
+        .build();
+
+    byte[] read = readFully(newStream(data));
+
+    assertThat(read).isEqualTo(data);
+  }
+
+  @Test
+  public void read_withProgressiveJpeg_decodesPreviewsWithGeometricSpacing() throws IOException {
+    // The second scan ends before twice as much data is available as for the first, and the
+    // last scan ends with the image.
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(10)
+        .addScan(10)
+        .addScan(200)
+        .addScan(10)
+        .build();
+
+    readFully(newStream(data));
+
+    verify(callback, times(2)).onIntermediateResourceReady(any(Resource.class));
+  }
+
+  @Test
+  public void read_withSingleByteReads_decodesPreviews() throws IOException {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(10)
+        .addScan(10)
+        .build();
+
+    InputStream is = newStream(data);
+    while (is.read() != -1) {
+      // Read one byte at a time.
+    }
+
+    verify(callback).onIntermediateResourceReady(any(Resource.class));
+  }
+
+  @Test
+  public void read_withBaselineJpeg_doesNotDecodePreviews() throws IOException {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ false)
+        .addScan(10)
+        .addScan(10)
+        .build();
+
+    assertThat(readFully(newStream(data))).isEqualTo(data);
+
+    verify(callback, never()).onIntermediateResourceReady(any(Resource.class));
+  }
+
+  @Test
+  public void read_afterSkip_doesNotDecodePreviews() throws IOException {
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(10)
+        .addScan(10)
+        .build();
+
+    InputStream is = newStream(data);
+    assertThat(is.skip(1)).isEqualTo(1L);
+    readFully(is);
+
+    verify(callback, never()).onIntermediateResourceReady(any(Resource.class));
+  }
+
+  @Test
+  public void markSupported_returnsFalse() {
+    assertThat(newStream(new byte[0]).markSupported()).isFalse();
+  }
+
+  @Test
+  public void release_returnsBufferToPool() throws IOException {
+    arrayPool = mock(ArrayPool.class);
+    byte[] buffer = new byte[1024];
+    when(arrayPool.get(anyInt(), eq(byte[].class))).thenReturn(buffer);
+    byte[] data = new JpegBuilder(/*isProgressive=*/ true)
+        .addScan(10)
+        .build();
+    ProgressivePreviewStream is = newStream(data);
+    byte[] partial = new byte[data.length / 2];
+    assertThat(is.read(partial)).isEqualTo(partial.length);
+    verify(arrayPool, never()).put(buffer);
+
+    is.release();
+
+    verify(arrayPool).put(buffer);
+  }
+
+  private ProgressivePreviewStream newStream(byte[] data) {
+    return new ProgressivePreviewStream(new ByteArrayInputStream(data), arrayPool, bitmapPool,
+        callback, /*targetWidth=*/ 100, /*targetHeight=*/ 100);
+  }
+
+  private static byte[] readFully(InputStream is) throws IOException {
+    ByteBuffer buffer = ByteBufferUtil.fromStream(is);
+    return ByteBufferUtil.toBytes(buffer);
+  }
+}
@@ -0,0 +1,123 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ResumableDataCacheWriterTest {
+  private static final String VALIDATOR = "\"etag\"";
+  private final byte[] data = new byte[] { 1, 2, 3, 4, 5, 6 };
+  private DiskCache diskCache;
+  private DataCacheKey dataKey;
+  private PartialDataCacheKey partialKey;
+
+  @Before
+  public void setUp() {
+    File dir = RuntimeEnvironment.application.getCacheDir();
+    diskCache = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024);
+    ObjectKey sourceKey = new ObjectKey("source");
+    ObjectKey signature = new ObjectKey("signature");
+    dataKey = new DataCacheKey(sourceKey, signature);
+    partialKey = new PartialDataCacheKey(sourceKey, signature);
+  }
+
+  @After
+  public void tearDown() {
+    diskCache.clear();
+  }
+
+  @Test
+  public void write_withSuccessfulWrite_doesNotSavePartialDownload() {
+    ResumableDataCacheWriter writer = newWriter(data, /*succeed=*/ true);
+    diskCache.put(dataKey, writer);
+
+    assertThat(diskCache.get(dataKey)).isNotNull();
+    assertThat(diskCache.get(partialKey)).isNull();
+    assertThat(writer.isPartialSaved()).isFalse();
+  }
+
+  @Test
+  public void write_withFailedWrite_savesWrittenBytesAsPartialDownload() throws IOException {
+    ResumableDataCacheWriter writer = newWriter(data, /*succeed=*/ false);
+    diskCache.put(dataKey, writer);
+
+    assertThat(diskCache.get(dataKey)).isNull();
+    assertThat(writer.isPartialSaved()).isTrue();
+    PartialDownload partial = PartialDownload.read(diskCache.get(partialKey));
+    assertThat(partial).isNotNull();
+    assertThat(partial.getLength()).isEqualTo((long) data.length);
+    assertThat(partial.getValidator()).isEqualTo(VALIDATOR);
+    assertThat(readFully(partial.open())).isEqualTo(data);
+  }
+
+  @Test
+  public void write_withFailedWriteAndNoBytes_doesNotSavePartialDownload() {
+    ResumableDataCacheWriter writer = newWriter(new byte[0], /*succeed=*/ false);
+    diskCache.put(dataKey, writer);
+
+    assertThat(diskCache.get(partialKey)).isNull();
+    assertThat(writer.isPartialSaved()).isFalse();
+  }
+
+  @Test
+  public void write_withFailedWriteAndExistingPartialDownload_replacesPartialDownload() {
+    diskCache.put(dataKey, newWriter(new byte[] { 1, 2 }, /*succeed=*/ false));
+    diskCache.put(dataKey, newWriter(data, /*succeed=*/ false));
+
+    PartialDownload partial = PartialDownload.read(diskCache.get(partialKey));
+    assertThat(partial).isNotNull();
+    assertThat(partial.getLength()).isEqualTo((long) data.length);
+  }
+
+  @Test
+  public void read_withNullFile_returnsNull() {
+    assertThat(PartialDownload.read(null)).isNull();
+  }
+
+  @Test
+  public void read_withFileWithoutTrailer_returnsNull() {
+    diskCache.put(dataKey, newWriter(data, /*succeed=*/ true));
+
+    assertThat(PartialDownload.read(diskCache.get(dataKey))).isNull();
+  }
+
+  private ResumableDataCacheWriter newWriter(final byte[] bytes, final boolean succeed) {
+    return new ResumableDataCacheWriter(diskCache, partialKey, VALIDATOR, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          FileOutputStream os = new FileOutputStream(file);
+          os.write(bytes);
+          os.close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+        return succeed;
+      }
+    });
+  }
+
+  private static byte[] readFully(InputStream is) throws IOException {
+    ByteBuffer buffer = ByteBufferUtil.fromStream(is);
+    is.close();
+    return ByteBufferUtil.toBytes(buffer);
+  }
+}
@@ -0,0 +1,41 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StripedKeyLocksTest {
+
+  @Test
+  public void size_withNonPowerOfTwo_roundsUp() {
+    assertThat(new StripedKeyLocks(48).size()).isEqualTo(64);
+  }
+
+  @Test
+  public void size_withOne_hasSingleStripe() {
+    assertThat(new StripedKeyLocks(1).size()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroStripes_throws() {
+    new StripedKeyLocks(0);
+  }
+
+  @Test
+  public void get_withEqualKeys_returnsSameLock() {
+    StripedKeyLocks locks = new StripedKeyLocks(64);
+
+    assertThat(locks.get(new ObjectKey("key"))).isSameAs(locks.get(new ObjectKey("key")));
+  }
+
+  @Test
+  public void get_withSingleStripe_returnsSameLockForAllKeys() {
+    StripedKeyLocks locks = new StripedKeyLocks(1);
+
+    assertThat(locks.get(new ObjectKey("first"))).isSameAs(locks.get(new ObjectKey("second")));
+  }
+}
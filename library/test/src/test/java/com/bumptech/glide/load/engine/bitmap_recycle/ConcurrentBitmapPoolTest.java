@@ -0,0 +1,290 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ConcurrentBitmapPoolTest {
+  private static final int WIDTH = 10;
+  private static final int HEIGHT = 10;
+  private static final int BITMAP_SIZE =
+      Util.getBitmapByteSize(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+  private static final int MAX_BITMAPS = 10;
+  private static final Set<Bitmap.Config> ALLOWED_CONFIGS =
+      Collections.singleton(Bitmap.Config.ARGB_8888);
+  private ConcurrentBitmapPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ConcurrentBitmapPool(MAX_BITMAPS * BITMAP_SIZE, ALLOWED_CONFIGS);
+  }
+
+  @Test
+  public void get_afterPut_returnsSameBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.get(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.getHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_withDifferentDimensions_returnsNewBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    Bitmap result = pool.get(WIDTH, HEIGHT + 1, Bitmap.Config.ARGB_8888);
+
+    assertThat(result).isNotSameAs(bitmap);
+    assertThat(result.getHeight()).isEqualTo(HEIGHT + 1);
+    assertThat(pool.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getDirty_withNullConfig_returnsArgb8888Bitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(WIDTH, HEIGHT, null)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_afterPutOnThreadThatHasNotGotten_returnsBitmap() throws InterruptedException {
+    Bitmap bitmap = createMutableBitmap();
+    putOnThread(bitmap);
+
+    assertThat(pool.get(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_afterPutOnThreadThatHasGotten_returnsBitmapFromFrontCacheOnlyOnThatThread()
+      throws InterruptedException {
+    final Bitmap bitmap = createMutableBitmap();
+    final AtomicReference<Bitmap> sameThreadResult = new AtomicReference<>();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+        sameThreadResult.set(pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        pool.put(bitmap);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(sameThreadResult.get()).isSameAs(bitmap);
+    // The Bitmap is in the other thread's front cache.
+    assertThat(pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)).isNotSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo(BITMAP_SIZE);
+  }
+
+  @Test
+  public void put_withFullFrontCache_movesOldestBitmapToSharedTier()
+      throws InterruptedException {
+    final List<Bitmap> bitmaps = new ArrayList<>();
+    for (int i = 0; i < ConcurrentBitmapPool.FRONT_CACHE_SIZE + 1; i++) {
+      bitmaps.add(createMutableBitmap());
+    }
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        for (Bitmap bitmap : bitmaps) {
+          pool.put(bitmap);
+        }
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)).isSameAs(bitmaps.get(0));
+  }
+
+  @Test
+  public void put_withImmutableBitmap_recyclesBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    Shadows.shadowOf(bitmap).setMutable(false);
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withDisallowedConfig_recyclesBitmap() {
+    Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.RGB_565);
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withBitmapLargerThanPool_recyclesBitmap() {
+    pool = new ConcurrentBitmapPool(BITMAP_SIZE - 1, ALLOWED_CONFIGS);
+    Bitmap bitmap = createMutableBitmap();
+
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void put_withRecycledBitmap_throws() {
+    Bitmap bitmap = createMutableBitmap();
+    bitmap.recycle();
+
+    pool.put(bitmap);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsOldestBitmaps() {
+    List<Bitmap> bitmaps = fillPool(MAX_BITMAPS + 2);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_BITMAPS * BITMAP_SIZE);
+    assertThat(pool.getEvictionCount()).isEqualTo(2);
+    assertThat(bitmaps.get(0).isRecycled()).isTrue();
+    assertThat(bitmaps.get(1).isRecycled()).isTrue();
+    assertThat(bitmaps.get(2).isRecycled()).isFalse();
+  }
+
+  @Test
+  public void put_overMaxSize_afterGets_evictsOnlyBitmapsInPool() {
+    fillPool(MAX_BITMAPS);
+    Bitmap taken = pool.get(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+
+    fillPool(2);
+
+    assertThat(taken.isRecycled()).isFalse();
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_BITMAPS * BITMAP_SIZE);
+  }
+
+  @Test
+  public void put_manyTimes_keepsSizeAccurate() {
+    for (int i = 0; i < ConcurrentBitmapPool.SWEEP_INTERVAL * 4; i++) {
+      pool.put(createMutableBitmap());
+      if (i % 3 == 0) {
+        pool.get(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+      }
+    }
+    pool.clearMemory();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888).isRecycled()).isFalse();
+  }
+
+  @Test
+  public void clearMemory_recyclesAllBitmaps() {
+    List<Bitmap> bitmaps = fillPool(MAX_BITMAPS);
+
+    pool.clearMemory();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    for (Bitmap bitmap : bitmaps) {
+      assertThat(bitmap.isRecycled()).isTrue();
+    }
+  }
+
+  @Test
+  public void clearMemory_recyclesBitmapsInOtherThreadsFrontCaches()
+      throws InterruptedException {
+    final Bitmap bitmap = createMutableBitmap();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.getDirty(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    pool.clearMemory();
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_withUiHidden_evictsHalfOfBitmaps() {
+    fillPool(MAX_BITMAPS);
+
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_BITMAPS / 2 * BITMAP_SIZE);
+  }
+
+  @Test
+  public void trimMemory_withRunningCritical_evictsHalfOfBitmaps() {
+    fillPool(MAX_BITMAPS);
+
+    pool.trimMemory(TRIM_MEMORY_RUNNING_CRITICAL);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_BITMAPS / 2 * BITMAP_SIZE);
+  }
+
+  @Test
+  public void trimMemory_withBackground_evictsAllBitmaps() {
+    fillPool(MAX_BITMAPS);
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsBitmapsOverNewMaxSize() {
+    fillPool(MAX_BITMAPS);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getMaxSize()).isEqualTo(MAX_BITMAPS / 2 * BITMAP_SIZE);
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_BITMAPS / 2 * BITMAP_SIZE);
+  }
+
+  private List<Bitmap> fillPool(int count) {
+    List<Bitmap> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Bitmap bitmap = createMutableBitmap();
+      result.add(bitmap);
+      pool.put(bitmap);
+    }
+    return result;
+  }
+
+  private void putOnThread(final Bitmap bitmap) throws InterruptedException {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.put(bitmap);
+      }
+    });
+    thread.start();
+    thread.join();
+  }
+
+  private static Bitmap createMutableBitmap() {
+    return Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+  }
+}
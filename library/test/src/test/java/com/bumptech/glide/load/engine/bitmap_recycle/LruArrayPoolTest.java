@@ -63,6 +63,28 @@ public class LruArrayPoolTest {
     assertEquals(0, pool.getCurrentSize());
   }
 
+  @Test
+  public void get_countsHitsAndMisses() {
+    pool.put(createArray(ARRAY_CLASS, MAX_PUT_SIZE / ADAPTER.getElementSizeInBytes(), 0));
+
+    pool.get(MAX_PUT_SIZE / ADAPTER.getElementSizeInBytes(), ARRAY_CLASS);
+    pool.get(MAX_PUT_SIZE / ADAPTER.getElementSizeInBytes(), ARRAY_CLASS);
+
+    assertThat(pool.getHitCount()).isEqualTo(1);
+    assertThat(pool.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsArraysOverNewMaxSize() {
+    fillPool(pool, MAX_SIZE / ADAPTER.getElementSizeInBytes(), 1);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getMaxSize()).isEqualTo(MAX_SIZE / 2);
+    assertThat(pool.getCurrentSize()).isAtMost((long) MAX_SIZE / 2);
+    assertThat(pool.getEvictionCount()).isGreaterThan(0L);
+  }
+
   @Test
   public void testClearMemoryRemovesAllArrays() {
     fillPool(pool, MAX_SIZE / ADAPTER.getElementSizeInBytes() + 1, 0);
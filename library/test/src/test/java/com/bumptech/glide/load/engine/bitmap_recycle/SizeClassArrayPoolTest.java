@@ -0,0 +1,309 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SizeClassArrayPoolTest {
+  private static final int MAX_SIZE = 1024 * 1024;
+  private SizeClassArrayPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new SizeClassArrayPool(MAX_SIZE);
+  }
+
+  @Test
+  public void getClassLength_isInverseOfGetClassIndex() {
+    for (int classIndex = 0; classIndex < 100; classIndex++) {
+      int length = SizeClassArrayPool.getClassLength(classIndex);
+      assertThat(SizeClassArrayPool.getClassIndex(length)).isEqualTo(classIndex);
+      assertThat(SizeClassArrayPool.getFloorClassIndex(length)).isEqualTo(classIndex);
+    }
+  }
+
+  @Test
+  public void getClassIndex_returnsSmallestClassAtLeastAsLong() {
+    for (int length = 1; length < 100_000; length++) {
+      int classIndex = SizeClassArrayPool.getClassIndex(length);
+      assertThat(SizeClassArrayPool.getClassLength(classIndex)).isAtLeast(length);
+      if (classIndex > 0) {
+        assertThat(SizeClassArrayPool.getClassLength(classIndex - 1)).isLessThan(length);
+      }
+    }
+  }
+
+  @Test
+  public void getClassLength_isAtMostAQuarterLongerThanPreviousClass() {
+    for (int classIndex = 1; classIndex < 100; classIndex++) {
+      long length = SizeClassArrayPool.getClassLength(classIndex);
+      long previous = SizeClassArrayPool.getClassLength(classIndex - 1);
+      assertThat(length * 4).isAtMost(previous * 5);
+    }
+  }
+
+  @Test
+  public void getClassLength_includesStandardBufferSize() {
+    int classIndex = SizeClassArrayPool.getClassIndex(ArrayPool.STANDARD_BUFFER_SIZE_BYTES);
+    assertThat(SizeClassArrayPool.getClassLength(classIndex))
+        .isEqualTo(ArrayPool.STANDARD_BUFFER_SIZE_BYTES);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsArrayOfClassLength() {
+    byte[] bytes = pool.get(1000, byte[].class);
+
+    assertThat(bytes.length)
+        .isEqualTo(SizeClassArrayPool.getClassLength(SizeClassArrayPool.getClassIndex(1000)));
+  }
+
+  @Test
+  public void get_afterPut_returnsSameArray() {
+    byte[] bytes = new byte[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+    pool.put(bytes);
+
+    assertThat(pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class)).isSameAs(bytes);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_afterPutOfArrayInSameClass_returnsArray() {
+    int[] ints = pool.get(1000, int[].class);
+    pool.put(ints);
+
+    assertThat(pool.get(999, int[].class)).isSameAs(ints);
+  }
+
+  @Test
+  public void get_afterPutOfShorterArray_doesNotReturnArray() {
+    byte[] bytes = new byte[1000];
+    pool.put(bytes);
+
+    assertThat(pool.get(1001, byte[].class)).isNotSameAs(bytes);
+  }
+
+  @Test
+  public void get_afterPutOfLargeArray_returnsArrayFromDepot() {
+    byte[] bytes = new byte[ArrayPool.STANDARD_BUFFER_SIZE_BYTES * 2];
+    pool.put(bytes);
+
+    assertThat(pool.get(bytes.length, byte[].class)).isSameAs(bytes);
+  }
+
+  @Test
+  public void get_afterPutOnOtherThread_returnsArray() throws InterruptedException {
+    final byte[] bytes = new byte[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.put(bytes);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class)).isSameAs(bytes);
+  }
+
+  @Test
+  public void put_withMoreArraysThanMagazineHolds_keepsAllArrays() {
+    for (int i = 0; i < SizeClassArrayPool.MAGAZINE_CAPACITY + 2; i++) {
+      pool.put(new byte[4096]);
+    }
+
+    assertThat(pool.getCurrentSize())
+        .isEqualTo(4096 * (SizeClassArrayPool.MAGAZINE_CAPACITY + 2));
+  }
+
+  @Test
+  public void put_withShortArray_doesNotPoolArray() {
+    pool.put(new byte[SizeClassArrayPool.MIN_CLASS_LENGTH - 1]);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withArrayLargerThanHalfOfPool_doesNotPoolArray() {
+    pool.put(new byte[MAX_SIZE / 2 + 1]);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsLeastRecentlyRequestedClass() {
+    byte[] old = pool.get(MAX_SIZE / 4, byte[].class);
+    byte[] recent = pool.get(MAX_SIZE / 2, byte[].class);
+    pool.put(old);
+    pool.put(recent);
+    pool.put(new byte[MAX_SIZE / 2]);
+
+    assertThat(pool.getCurrentSize()).isAtMost((long) MAX_SIZE);
+    assertThat(pool.getEvictionCount()).isEqualTo(1);
+    assertThat(pool.get(MAX_SIZE / 2, byte[].class)).isNotNull();
+    assertThat(pool.get(MAX_SIZE / 4, byte[].class)).isNotSameAs(old);
+  }
+
+  @Test
+  public void put_withUnsupportedType_throws() {
+    try {
+      pool.put(new long[100]);
+      throw new AssertionError("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void getExact_withClassLength_returnsPooledArray() {
+    byte[] bytes = new byte[ArrayPool.STANDARD_BUFFER_SIZE_BYTES];
+    pool.put(bytes);
+
+    assertThat(pool.getExact(bytes.length, byte[].class)).isSameAs(bytes);
+  }
+
+  @Test
+  public void getExact_withOtherLength_returnsArrayOfExactLength() {
+    pool.put(new byte[16]);
+
+    byte[] bytes = pool.getExact(8, byte[].class);
+
+    assertThat(bytes.length).isEqualTo(8);
+  }
+
+  @Test
+  public void getExact_withLongerPooledArray_returnsArrayOfExactLengthAndKeepsPooledArray() {
+    byte[] longer = new byte[17];
+    pool.put(longer);
+
+    byte[] bytes = pool.getExact(16, byte[].class);
+
+    assertThat(bytes.length).isEqualTo(16);
+    assertThat(pool.get(16, byte[].class)).isSameAs(longer);
+  }
+
+  @Test
+  public void clearMemory_removesArraysFromMagazinesOfAllThreads() throws InterruptedException {
+    final AtomicReference<byte[]> bytes = new AtomicReference<>();
+    final Object lock = new Object();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        bytes.set(new byte[4096]);
+        pool.put(bytes.get());
+        synchronized (lock) {
+          lock.notify();
+          try {
+            // Stay alive so the magazine isn't pruned before the pool is cleared.
+            lock.wait();
+          } catch (InterruptedException e) {
+            // Ignored.
+          }
+        }
+      }
+    });
+    synchronized (lock) {
+      thread.start();
+      lock.wait();
+      pool.clearMemory();
+      lock.notify();
+    }
+    thread.join();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.get(4096, byte[].class)).isNotSameAs(bytes.get());
+  }
+
+  @Test
+  public void trimMemory_withBackground_clearsPool() {
+    pool.put(new byte[4096]);
+    pool.put(new int[MAX_SIZE / 16]);
+
+    pool.trimMemory(TRIM_MEMORY_BACKGROUND);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_withUiHidden_trimsToHalfOfMaxSize() {
+    pool.put(new int[MAX_SIZE / 8]);
+    pool.put(new byte[MAX_SIZE / 4]);
+    pool.put(new byte[4096]);
+
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE / 2L);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsArraysOverNewMaxSize() {
+    pool.put(new byte[MAX_SIZE / 4]);
+    pool.put(new int[MAX_SIZE / 16]);
+
+    pool.setSizeMultiplier(0.3f);
+
+    assertThat(pool.getMaxSize()).isEqualTo(Math.round(MAX_SIZE * 0.3f));
+    assertThat(pool.getCurrentSize()).isAtMost(pool.getMaxSize());
+  }
+
+  @Test
+  public void getStats_countsHitsAndMissesPerClass() {
+    byte[] bytes = pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    pool.put(bytes);
+    pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    pool.get(100, int[].class);
+
+    List<SizeClassStats> stats = pool.getStats();
+
+    assertThat(stats).hasSize(2);
+    SizeClassStats byteStats = stats.get(0);
+    assertThat(byteStats.getArrayClass()).isEqualTo(byte[].class);
+    assertThat(byteStats.getLength()).isEqualTo(ArrayPool.STANDARD_BUFFER_SIZE_BYTES);
+    assertThat(byteStats.getHitCount()).isEqualTo(1);
+    assertThat(byteStats.getMissCount()).isEqualTo(1);
+    SizeClassStats intStats = stats.get(1);
+    assertThat(intStats.getArrayClass()).isEqualTo(int[].class);
+    assertThat(intStats.getHitCount()).isEqualTo(0);
+    assertThat(intStats.getMissCount()).isEqualTo(1);
+    assertThat(pool.getHitCount()).isEqualTo(1);
+    assertThat(pool.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void getStats_countsRequestsTooLargeToPool() {
+    pool.get(MAX_SIZE, byte[].class);
+
+    List<SizeClassStats> stats = pool.getStats();
+
+    assertThat(stats).hasSize(1);
+    assertThat(stats.get(0).getLength()).isEqualTo(SizeClassStats.OVERSIZE_LENGTH);
+    assertThat(stats.get(0).getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getStats_keepsHitsFromThreadsThatHaveDied() throws InterruptedException {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.put(new byte[4096]);
+        pool.get(4096, byte[].class);
+      }
+    });
+    thread.start();
+    thread.join();
+    // Registering a magazine for this thread prunes the dead thread's magazine.
+    pool.get(4096, byte[].class);
+
+    assertThat(pool.getHitCount()).isEqualTo(1);
+    assertThat(pool.getMissCount()).isEqualTo(1);
+  }
+}
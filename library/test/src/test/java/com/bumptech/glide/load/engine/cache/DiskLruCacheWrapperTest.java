@@ -10,8 +10,12 @@ import android.support.annotation.NonNull;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,6 +84,30 @@ public class DiskLruCacheWrapperTest {
     assertArrayEquals(data, received);
   }
 
+  @Test
+  public void getByteBuffer_afterPut_returnsData() throws IOException {
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+
+    ByteBuffer received = ((DiskCache.ByteBufferReader) cache).getByteBuffer(cache.get(key));
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(received));
+  }
+
+  @Test
+  public void getByteBuffer_withValueFromOtherCache_returnsNull() {
+    assertNull(((DiskCache.ByteBufferReader) cache).getByteBuffer(new Object()));
+  }
+
   @Test
   public void testDoesNotCommitIfWriterReturnsFalse() {
     cache.put(key, new DiskCache.Writer() {
@@ -139,6 +167,62 @@ public class DiskLruCacheWrapperTest {
     assertArrayEquals(data, received);
   }
 
+  @Test
+  public void get_withNewCacheInSameDirectory_returnsExistingEntry() throws IOException {
+    putData(cache, key);
+
+    DiskCache reopened = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024);
+
+    assertArrayEquals(data, Util.readFile(reopened.get(key), data.length));
+    assertNull(reopened.get(new ObjectKey("missing")));
+  }
+
+  @Test
+  public void get_withMurmurKeyHashStrategy_returnsData() throws IOException {
+    cache = DiskLruCacheWrapper.create(dir, 10 * 1024 * 1024, KeyHashStrategy.MURMUR3_128);
+    putData(cache, key);
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+    assertNull(cache.get(new ObjectKey("missing")));
+  }
+
+  @Test
+  public void get_afterMorePutsThanKeyFilterIsSizedFor_returnsEveryEntry() throws IOException {
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      Key current = new ObjectKey("key" + i);
+      keys.add(current);
+      putData(cache, current);
+    }
+
+    for (Key current : keys) {
+      assertArrayEquals(data, Util.readFile(cache.get(current), data.length));
+    }
+  }
+
+  @Test
+  public void get_afterClear_returnsNull() {
+    putData(cache, key);
+
+    cache.clear();
+
+    assertNull(cache.get(key));
+  }
+
+  private void putData(DiskCache cache, Key key) {
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+  }
+
   // Tests #2465.
   @Test
   public void clearDiskCache_afterOpeningDiskCache_andDeleteDirectoryOutsideGlide_doesNotThrow() {
@@ -0,0 +1,62 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrequencySketchTest {
+  private FrequencySketch sketch;
+
+  @Before
+  public void setUp() {
+    sketch = new FrequencySketch(512);
+  }
+
+  @Test
+  public void frequency_withUnseenItem_returnsZero() {
+    assertThat(sketch.frequency(1)).isEqualTo(0);
+  }
+
+  @Test
+  public void frequency_afterIncrement_returnsOne() {
+    sketch.increment(1);
+    assertThat(sketch.frequency(1)).isEqualTo(1);
+  }
+
+  @Test
+  public void frequency_afterManyIncrements_saturates() {
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(1);
+    }
+    assertThat(sketch.frequency(1)).isEqualTo(15);
+  }
+
+  @Test
+  public void increment_withManyOtherItems_halvesCounts() {
+    for (int i = 0; i < 10; i++) {
+      sketch.increment(1);
+    }
+    for (int i = 2; i < 512 * 10; i++) {
+      sketch.increment(i);
+    }
+    assertThat(sketch.frequency(1)).isAtMost(5);
+  }
+
+  @Test
+  public void ensureCapacity_withMoreEntries_clearsCounts() {
+    sketch.increment(1);
+    sketch.ensureCapacity(1024);
+    assertThat(sketch.frequency(1)).isEqualTo(0);
+  }
+
+  @Test
+  public void ensureCapacity_withFewerEntries_keepsCounts() {
+    sketch.increment(1);
+    sketch.ensureCapacity(16);
+    assertThat(sketch.frequency(1)).isEqualTo(1);
+  }
+}
@@ -0,0 +1,82 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class KeyBloomFilterTest {
+  private static final int EXPECTED_KEYS = 1000;
+
+  private SafeKeyGenerator safeKeyGenerator;
+  private KeyBloomFilter filter;
+
+  @Before
+  public void setUp() {
+    safeKeyGenerator = new SafeKeyGenerator(KeyHashStrategy.MURMUR3_128);
+    filter = new KeyBloomFilter(EXPECTED_KEYS);
+  }
+
+  @Test
+  public void mightContain_withAddedKeys_returnsTrue() {
+    for (int i = 0; i < EXPECTED_KEYS; i++) {
+      filter.add(safeKey("added" + i));
+    }
+
+    for (int i = 0; i < EXPECTED_KEYS; i++) {
+      assertThat(filter.mightContain(safeKey("added" + i))).isTrue();
+    }
+  }
+
+  @Test
+  public void mightContain_withMissingKeysAtCapacity_rarelyReturnsTrue() {
+    for (int i = 0; i < EXPECTED_KEYS; i++) {
+      filter.add(safeKey("added" + i));
+    }
+
+    int falsePositives = 0;
+    int lookups = 10 * EXPECTED_KEYS;
+    for (int i = 0; i < lookups; i++) {
+      if (filter.mightContain(safeKey("missing" + i))) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(lookups / 100);
+  }
+
+  @Test
+  public void mightContain_withSha256Keys_returnsTrueForAddedKeys() {
+    String safeKey = new SafeKeyGenerator(KeyHashStrategy.SHA_256).getSafeKey(new ObjectKey("a"));
+    filter.add(safeKey);
+
+    assertThat(filter.mightContain(safeKey)).isTrue();
+  }
+
+  @Test
+  public void mightContain_withShortKey_returnsTrueForAddedKeys() {
+    filter.add("short");
+
+    assertThat(filter.mightContain("short")).isTrue();
+  }
+
+  @Test
+  public void isSaturated_onlyAfterMoreThanExpectedKeys() {
+    for (int i = 0; i < EXPECTED_KEYS; i++) {
+      filter.add(safeKey("added" + i));
+    }
+    assertThat(filter.isSaturated()).isFalse();
+
+    filter.add(safeKey("one more"));
+    assertThat(filter.isSaturated()).isTrue();
+  }
+
+  private String safeKey(String id) {
+    return safeKeyGenerator.getSafeKey(new ObjectKey(id));
+  }
+}
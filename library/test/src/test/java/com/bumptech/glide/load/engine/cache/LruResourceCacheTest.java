@@ -129,6 +129,28 @@ public class LruResourceCacheTest {
     verify(listener).onResourceRemoved(eq(resource));
   }
 
+  @Test
+  public void remove_countsHitsAndMisses() {
+    LruResourceCache resourceCache = new LruResourceCache(100);
+    MockKey key = new MockKey();
+    resourceCache.put(key, getResource(50));
+
+    resourceCache.remove(key);
+    resourceCache.remove(key);
+
+    assertThat(resourceCache.getHitCount()).isEqualTo(1);
+    assertThat(resourceCache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void put_overMaxSize_countsEvictions() {
+    LruResourceCache resourceCache = new LruResourceCache(100);
+    resourceCache.put(new MockKey(), getResource(60));
+    resourceCache.put(new MockKey(), getResource(60));
+
+    assertThat(resourceCache.getEvictionCount()).isEqualTo(1);
+  }
+
   @Test
   public void testSizeIsBasedOnResource() {
     LruResourceCache resourceCache = new LruResourceCache(100);
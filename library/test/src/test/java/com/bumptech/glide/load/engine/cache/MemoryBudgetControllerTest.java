@@ -0,0 +1,248 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ComponentCallbacks2;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class MemoryBudgetControllerTest {
+  private FakeCache memoryCache;
+  private FakeCache bitmapPool;
+  private FakeCache arrayPool;
+  private FakeHeapUsage heapUsage;
+  private MemoryBudgetController controller;
+
+  @Before
+  public void setUp() {
+    memoryCache = new FakeCache(6_000);
+    bitmapPool = new FakeCache(3_000);
+    arrayPool = new FakeCache(1_000);
+    heapUsage = new FakeHeapUsage();
+    controller = new MemoryBudgetController(
+        Arrays.<BudgetedMemory>asList(memoryCache, bitmapPool, arrayPool), heapUsage);
+  }
+
+  @Test
+  public void getBudget_initially_returnsSumOfInitialSizes() {
+    assertThat(controller.getBudget()).isEqualTo(10_000);
+  }
+
+  @Test
+  public void update_withNoActivity_keepsSizes() {
+    controller.update();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo(6_000);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(3_000);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(1_000);
+  }
+
+  @Test
+  public void update_withThrashingCache_movesBudgetFromCacheThatIsHit() {
+    bitmapPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+    memoryCache.record(/*hits=*/ 90, /*misses=*/ 10, /*evictions=*/ 0);
+    arrayPool.record(/*hits=*/ 50, /*misses=*/ 0, /*evictions=*/ 0);
+
+    controller.update();
+
+    long step = Math.round(MemoryBudgetController.STEP * 10_000);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(3_000 + step);
+    assertThat(memoryCache.getMaxSize() + arrayPool.getMaxSize()).isEqualTo(7_000 - step);
+  }
+
+  @Test
+  public void update_withThrashingCache_neverExceedsBudget() {
+    for (int i = 0; i < 100; i++) {
+      bitmapPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+      memoryCache.record(/*hits=*/ 90, /*misses=*/ 10, /*evictions=*/ 0);
+      controller.update();
+    }
+
+    assertThat(memoryCache.getMaxSize() + bitmapPool.getMaxSize() + arrayPool.getMaxSize())
+        .isAtMost(10_000L + 3);
+  }
+
+  @Test
+  public void update_withThrashingCache_keepsMinimumShareOfOthers() {
+    for (int i = 0; i < 100; i++) {
+      bitmapPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+      controller.update();
+    }
+
+    float min = MemoryBudgetController.MIN_SHARE_FRACTION;
+    assertThat(memoryCache.getMaxSize()).isAtLeast((long) (6_000 * min) - 1);
+    assertThat(arrayPool.getMaxSize()).isAtLeast((long) (1_000 * min) - 1);
+    assertThat(bitmapPool.getMaxSize()).isGreaterThan(3_000L);
+  }
+
+  @Test
+  public void update_withMissesButNoEvictions_keepsSizes() {
+    bitmapPool.record(/*hits=*/ 0, /*misses=*/ 100, /*evictions=*/ 0);
+
+    controller.update();
+
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(3_000);
+  }
+
+  @Test
+  public void update_withTooFewLookups_keepsSizes() {
+    bitmapPool.record(/*hits=*/ 0, /*misses=*/ MemoryBudgetController.MIN_LOOKUPS - 1,
+        /*evictions=*/ 100);
+
+    controller.update();
+
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(3_000);
+  }
+
+  @Test
+  public void update_withAllCachesThrashing_keepsSizes() {
+    bitmapPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+    memoryCache.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+    arrayPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+
+    controller.update();
+
+    assertThat(memoryCache.getMaxSize()).isEqualTo(6_000);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(3_000);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(1_000);
+  }
+
+  @Test
+  public void update_withHighHeapUsage_shrinksBudget() {
+    heapUsage.usedFraction = 0.95f;
+
+    controller.update();
+
+    assertThat(controller.getBudget()).isLessThan(10_000L);
+    assertThat(memoryCache.getMaxSize()).isLessThan(6_000L);
+  }
+
+  @Test
+  public void update_withLowHeapUsageAfterHighHeapUsage_growsBudgetBack() {
+    heapUsage.usedFraction = 0.95f;
+    controller.update();
+    long shrunk = controller.getBudget();
+
+    heapUsage.usedFraction = 0.1f;
+    controller.update();
+    assertThat(controller.getBudget()).isGreaterThan(shrunk);
+
+    for (int i = 0; i < 100; i++) {
+      controller.update();
+    }
+    assertThat(controller.getBudget()).isEqualTo(10_000);
+  }
+
+  @Test
+  public void update_withContinuousHighHeapUsage_stopsAtMinimumBudget() {
+    heapUsage.usedFraction = 0.95f;
+    for (int i = 0; i < 100; i++) {
+      controller.update();
+    }
+
+    assertThat(controller.getBudget()).isEqualTo(
+        Math.round(10_000 * MemoryBudgetController.MIN_PRESSURE_MULTIPLIER));
+  }
+
+  @Test
+  public void setSizeMultiplier_scalesBudget() {
+    controller.setSizeMultiplier(0.5f);
+
+    assertThat(controller.getBudget()).isEqualTo(5_000);
+    assertThat(memoryCache.getMaxSize()).isEqualTo(3_000);
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(1_500);
+    assertThat(arrayPool.getMaxSize()).isEqualTo(500);
+  }
+
+  @Test
+  public void trimMemory_withUiHidden_halvesBudget() {
+    controller.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(controller.getBudget()).isEqualTo(5_000);
+    assertThat(memoryCache.getMaxSize()).isEqualTo(3_000);
+  }
+
+  @Test
+  public void trimMemory_ignoresEvictionsCausedByTrim() {
+    bitmapPool.record(/*hits=*/ 10, /*misses=*/ 90, /*evictions=*/ 90);
+    controller.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    long bitmapPoolSize = bitmapPool.getMaxSize();
+
+    controller.update();
+
+    assertThat(bitmapPool.getMaxSize()).isEqualTo(bitmapPoolSize);
+  }
+
+  @Test
+  public void clearMemory_shrinksBudgetToMinimum() {
+    controller.clearMemory();
+
+    assertThat(controller.getBudget()).isEqualTo(
+        Math.round(10_000 * MemoryBudgetController.MIN_PRESSURE_MULTIPLIER));
+  }
+
+  private static final class FakeHeapUsage implements MemoryBudgetController.HeapUsage {
+    // Between the low and high thresholds, so the budget neither grows nor shrinks.
+    float usedFraction = 0.8f;
+
+    @Override
+    public float getUsedFraction() {
+      return usedFraction;
+    }
+  }
+
+  private static final class FakeCache implements BudgetedMemory {
+    private final long initialMaxSize;
+    private long maxSize;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    FakeCache(long maxSize) {
+      initialMaxSize = maxSize;
+      this.maxSize = maxSize;
+    }
+
+    void record(long hits, long misses, long evictions) {
+      hitCount += hits;
+      missCount += misses;
+      evictionCount += evictions;
+    }
+
+    @Override
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    @Override
+    public long getMissCount() {
+      return missCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+
+    @Override
+    public long getCurrentSize() {
+      return maxSize;
+    }
+
+    @Override
+    public long getMaxSize() {
+      return maxSize;
+    }
+
+    @Override
+    public void setSizeMultiplier(float multiplier) {
+      maxSize = Math.round(initialMaxSize * multiplier);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.google.common.hash.Hashing;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class Murmur3MessageDigestTest {
+  private Murmur3MessageDigest digest;
+  private Random random;
+
+  @Before
+  public void setUp() {
+    digest = new Murmur3MessageDigest();
+    random = new Random(0);
+  }
+
+  @Test
+  public void digest_withSingleUpdate_matchesReference() {
+    for (int length = 0; length <= 64; length++) {
+      byte[] data = randomBytes(length);
+
+      digest.update(data);
+
+      assertArrayEquals("length: " + length, expected(data), digest.digest());
+    }
+  }
+
+  @Test
+  public void digest_withSingleByteUpdates_matchesReference() {
+    byte[] data = randomBytes(37);
+    for (byte b : data) {
+      digest.update(b);
+    }
+
+    assertArrayEquals(expected(data), digest.digest());
+  }
+
+  @Test
+  public void digest_withUnalignedUpdates_matchesReference() {
+    byte[] data = randomBytes(100);
+    int offset = 0;
+    int chunk = 1;
+    while (offset < data.length) {
+      int length = Math.min(chunk, data.length - offset);
+      digest.update(data, offset, length);
+      offset += length;
+      chunk += 3;
+    }
+
+    assertArrayEquals(expected(data), digest.digest());
+  }
+
+  @Test
+  public void digest_resetsForNextDigest() {
+    byte[] first = randomBytes(20);
+    byte[] second = randomBytes(20);
+    digest.update(first);
+    digest.digest();
+
+    digest.update(second);
+
+    assertArrayEquals(expected(second), digest.digest());
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    random.nextBytes(result);
+    return result;
+  }
+
+  private static byte[] expected(byte[] data) {
+    return Hashing.murmur3_128().hashBytes(data).asBytes();
+  }
+}
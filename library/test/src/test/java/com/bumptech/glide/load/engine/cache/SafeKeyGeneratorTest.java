@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine.cache;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import android.support.annotation.NonNull;
@@ -35,6 +36,26 @@ public class SafeKeyGeneratorTest {
     }
   }
 
+  @Test
+  public void getSafeKey_withMurmurStrategy_returnsValidKeys() {
+    keyGenerator = new SafeKeyGenerator(KeyHashStrategy.MURMUR3_128);
+    final Pattern diskCacheRegex = Pattern.compile("[a-f0-9]{32}");
+    for (int i = 0; i < 1000; i++) {
+      String key = getRandomKeyFromGenerator();
+      Matcher matcher = diskCacheRegex.matcher(key);
+      assertTrue(key, matcher.matches());
+    }
+  }
+
+  @Test
+  public void getSafeKey_withSameKey_returnsSameKey() {
+    keyGenerator = new SafeKeyGenerator(KeyHashStrategy.MURMUR3_128);
+
+    assertEquals(
+        keyGenerator.getSafeKey(new MockKey("id")),
+        new SafeKeyGenerator(KeyHashStrategy.MURMUR3_128).getSafeKey(new MockKey("id")));
+  }
+
   private String getRandomKeyFromGenerator() {
     return keyGenerator.getSafeKey(new MockKey(getNextId()));
   }
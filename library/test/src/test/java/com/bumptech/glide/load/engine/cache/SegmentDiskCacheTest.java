@@ -0,0 +1,230 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SegmentDiskCacheTest {
+  private static final int SEGMENT_SIZE = 1024 * 1024;
+  private static final long MAX_SIZE = 4 * SEGMENT_SIZE;
+
+  private SegmentDiskCache cache;
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "segment_disk_cache");
+    cache = new SegmentDiskCache(dir, MAX_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+    File[] files = dir.listFiles();
+    assertThat(files == null ? 0 : files.length).isEqualTo(0);
+  }
+
+  @Test
+  public void getEntry_afterPut_returnsData() throws IOException {
+    Key key = new ObjectKey("key");
+    byte[] data = new byte[] { 1, 2, 3, 4, 5, 6 };
+    put(key, data);
+
+    assertThat(read(cache.getEntry(key))).isEqualTo(data);
+  }
+
+  @Test
+  public void getEntry_withMissingKey_returnsNull() {
+    assertThat(cache.getEntry(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void get_afterPut_returnsFileWithData() throws IOException {
+    Key key = new ObjectKey("key");
+    byte[] data = new byte[] { 1, 2, 3, 4, 5, 6 };
+    put(key, data);
+
+    File file = cache.get(key);
+    assertThat(Util.readFile(file, data.length)).isEqualTo(data);
+    assertThat(file.length()).isEqualTo((long) data.length);
+  }
+
+  @Test
+  public void getByteBuffer_afterPut_returnsData() throws IOException {
+    Key key = new ObjectKey("key");
+    byte[] data = new byte[] { 1, 2, 3, 4, 5, 6 };
+    put(key, data);
+
+    assertThat(ByteBufferUtil.toBytes(cache.getByteBuffer(cache.getEntry(key)))).isEqualTo(data);
+  }
+
+  @Test
+  public void getByteBuffer_withValueFromOtherCache_returnsNull() {
+    assertThat(cache.getByteBuffer(new Object())).isNull();
+  }
+
+  @Test
+  public void getEntry_withMultipleEntries_returnsDataForEachKey() throws IOException {
+    for (int i = 0; i < 10; i++) {
+      put(new ObjectKey("key" + i), data(100 + i, i));
+    }
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(read(cache.getEntry(new ObjectKey("key" + i)))).isEqualTo(data(100 + i, i));
+    }
+  }
+
+  @Test
+  public void put_withExistingKey_doesNotCallWriter() {
+    Key key = new ObjectKey("key");
+    put(key, data(10, 1));
+
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        fail("Writer should not be called for existing key");
+        return false;
+      }
+    });
+  }
+
+  @Test
+  public void put_withWriterReturningFalse_doesNotStoreEntry() {
+    Key key = new ObjectKey("key");
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data(10, 1));
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return false;
+      }
+    });
+
+    assertThat(cache.getEntry(key)).isNull();
+  }
+
+  @Test
+  public void delete_removesEntry() {
+    Key key = new ObjectKey("key");
+    put(key, data(10, 1));
+    cache.delete(key);
+
+    assertThat(cache.getEntry(key)).isNull();
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void clear_removesAllEntries() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    put(first, data(10, 1));
+    put(second, data(10, 2));
+
+    cache.clear();
+
+    assertThat(cache.getEntry(first)).isNull();
+    assertThat(cache.getEntry(second)).isNull();
+    assertThat(cache.getSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void getEntry_afterReopen_returnsData() throws IOException {
+    Key key = new ObjectKey("key");
+    put(key, data(1000, 3));
+    cache.close();
+
+    cache = new SegmentDiskCache(dir, MAX_SIZE);
+
+    assertThat(read(cache.getEntry(key))).isEqualTo(data(1000, 3));
+  }
+
+  @Test
+  public void put_withMoreEntriesThanInitialIndex_growsIndex() throws IOException {
+    int count = 5000;
+    for (int i = 0; i < count; i++) {
+      put(new ObjectKey("key" + i), data(16, i));
+    }
+    cache.close();
+    cache = new SegmentDiskCache(dir, MAX_SIZE);
+
+    for (int i = 0; i < count; i++) {
+      assertThat(read(cache.getEntry(new ObjectKey("key" + i)))).isEqualTo(data(16, i));
+    }
+  }
+
+  @Test
+  public void put_overMaxSize_evictsLeastRecentlyUsedSegment() throws IOException {
+    Key oldest = new ObjectKey("oldest");
+    Key recentlyUsed = new ObjectKey("recentlyUsed");
+    put(oldest, data(SEGMENT_SIZE, 1));
+    put(recentlyUsed, data(SEGMENT_SIZE, 2));
+    for (int i = 0; i < 2; i++) {
+      put(new ObjectKey("filler" + i), data(SEGMENT_SIZE, 3 + i));
+    }
+    assertThat(cache.getEntry(recentlyUsed)).isNotNull();
+
+    put(new ObjectKey("overflow"), data(SEGMENT_SIZE, 5));
+
+    assertThat(cache.getSize()).isAtMost(MAX_SIZE);
+    assertThat(cache.getEntry(oldest)).isNull();
+    assertThat(read(cache.getEntry(recentlyUsed))).isEqualTo(data(SEGMENT_SIZE, 2));
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void getByteBuffer_afterSegmentEvicted_throws() throws IOException {
+    Key key = new ObjectKey("key");
+    put(key, data(SEGMENT_SIZE, 1));
+    SegmentDiskCache.Entry entry = cache.getEntry(key);
+    for (int i = 0; i < 4; i++) {
+      put(new ObjectKey("filler" + i), data(SEGMENT_SIZE, 2 + i));
+    }
+
+    entry.getByteBuffer();
+  }
+
+  private void put(Key key, final byte[] data) {
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+  }
+
+  private static byte[] read(SegmentDiskCache.Entry entry) throws IOException {
+    assertThat(entry).isNotNull();
+    return ByteBufferUtil.toBytes(entry.getByteBuffer());
+  }
+
+  private static byte[] data(int size, int value) {
+    byte[] result = new byte[size];
+    Arrays.fill(result, (byte) value);
+    return result;
+  }
+}
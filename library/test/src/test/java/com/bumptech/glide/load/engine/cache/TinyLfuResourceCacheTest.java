@@ -0,0 +1,234 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.anyResource;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuResourceCacheTest {
+  private static final int RESOURCE_SIZE = 64 * 1024;
+  private static final int CAPACITY = 100;
+
+  private TinyLfuResourceCache cache;
+  private ResourceRemovedListener listener;
+
+  @Before
+  public void setUp() {
+    cache = new TinyLfuResourceCache(CAPACITY * RESOURCE_SIZE, 1);
+    listener = mock(ResourceRemovedListener.class);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void remove_afterPut_returnsResource() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(RESOURCE_SIZE);
+    cache.put(key, resource);
+
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void remove_twice_returnsNull() {
+    Key key = new MockKey();
+    cache.put(key, getResource(RESOURCE_SIZE));
+    cache.remove(key);
+
+    assertThat(cache.remove(key)).isNull();
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeCorrectly() {
+    Key key = new MockKey();
+    cache.put(key, getResource(RESOURCE_SIZE));
+    cache.put(key, getResource(2 * RESOURCE_SIZE));
+
+    assertThat(cache.getCurrentSize()).isEqualTo(2L * RESOURCE_SIZE);
+  }
+
+  @Test
+  public void put_withExistingItem_evictsAndReturnsExistingItem() {
+    Key key = new MockKey();
+    Resource<?> first = getResource(RESOURCE_SIZE);
+    Resource<?> second = getResource(RESOURCE_SIZE);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withSameItem_doesNotNotifyListener() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(RESOURCE_SIZE);
+    cache.put(key, resource);
+    cache.put(key, resource);
+
+    verify(listener, never()).onResourceRemoved(anyResource());
+    assertThat(cache.getCurrentSize()).isEqualTo((long) RESOURCE_SIZE);
+  }
+
+  @Test
+  public void put_withItemLargerThanCache_notifiesListenerAndDoesNotCache() {
+    Key key = new MockKey();
+    Resource<?> resource = getResource(CAPACITY * RESOURCE_SIZE);
+    cache.put(key, resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+    assertThat(cache.remove(key)).isNull();
+  }
+
+  @Test
+  public void put_withMoreItemsThanFit_staysWithinMaxSize() {
+    for (int i = 0; i < 3 * CAPACITY; i++) {
+      cache.put(new MockKey(), getResource(RESOURCE_SIZE));
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost(cache.getMaxSize());
+    verify(listener, times(2 * CAPACITY)).onResourceRemoved(anyResource());
+  }
+
+  @Test
+  public void put_withScanOfNewItems_keepsFrequentlyUsedItems() {
+    List<Key> hotKeys = new ArrayList<>();
+    for (int i = 0; i < CAPACITY / 2; i++) {
+      Key key = new MockKey();
+      hotKeys.add(key);
+      cache.put(key, getResource(RESOURCE_SIZE));
+    }
+    // Mimic Engine, which removes resources while they're in use and puts them back afterwards.
+    for (int access = 0; access < 5; access++) {
+      for (Key key : hotKeys) {
+        cache.put(key, cache.remove(key));
+      }
+    }
+
+    for (int i = 0; i < 10 * CAPACITY; i++) {
+      cache.put(new MockKey(), getResource(RESOURCE_SIZE));
+    }
+
+    int retained = 0;
+    for (Key key : hotKeys) {
+      if (cache.remove(key) != null) {
+        retained++;
+      }
+    }
+    assertThat(retained).isAtLeast(hotKeys.size() - 1);
+  }
+
+  @Test
+  public void put_withLargeItemInOtherShard_evictsAcrossShards() {
+    TinyLfuResourceCache sharded = new TinyLfuResourceCache(CAPACITY * RESOURCE_SIZE, 8);
+    for (int i = 0; i < CAPACITY; i++) {
+      sharded.put(new MockKey(), getResource(RESOURCE_SIZE));
+    }
+    Key largeKey = new MockKey();
+    Resource<?> large = getResource(CAPACITY / 2 * RESOURCE_SIZE);
+    sharded.put(largeKey, large);
+
+    assertThat(sharded.getCurrentSize()).isAtMost(sharded.getMaxSize());
+    assertThat(sharded.remove(largeKey)).isEqualTo(large);
+  }
+
+  @Test
+  public void setSizeMultiplier_withSmallerSize_evicts() {
+    for (int i = 0; i < CAPACITY; i++) {
+      cache.put(new MockKey(), getResource(RESOURCE_SIZE));
+    }
+    cache.setSizeMultiplier(0.5f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(CAPACITY / 2L * RESOURCE_SIZE);
+    assertThat(cache.getCurrentSize()).isAtMost(CAPACITY / 2L * RESOURCE_SIZE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test
+  public void clearMemory_evictsAllItems() {
+    Resource<?> first = getResource(RESOURCE_SIZE);
+    Resource<?> second = getResource(RESOURCE_SIZE);
+    cache.put(new MockKey(), first);
+    cache.put(new MockKey(), second);
+
+    cache.clearMemory();
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testTrimMemoryBackground() {
+    fill();
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testTrimMemoryUiHidden() {
+    fill();
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(CAPACITY / 2L * RESOURCE_SIZE);
+  }
+
+  @Test
+  public void testTrimMemoryRunningCritical() {
+    fill();
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(CAPACITY / 2L * RESOURCE_SIZE);
+  }
+
+  @Test
+  public void testTrimMemoryRunningModerate_doesNotEvict() {
+    fill();
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+    assertThat(cache.getCurrentSize()).isEqualTo((long) CAPACITY * RESOURCE_SIZE);
+  }
+
+  private void fill() {
+    for (int i = 0; i < CAPACITY; i++) {
+      cache.put(new MockKey(), getResource(RESOURCE_SIZE));
+    }
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+}
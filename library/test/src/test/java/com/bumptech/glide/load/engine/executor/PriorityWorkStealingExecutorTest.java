@@ -0,0 +1,306 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PriorityWorkStealingExecutorTest {
+  private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+  private final CountDownLatch blockerStarted = new CountDownLatch(1);
+  private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+  private PriorityWorkStealingExecutor executor;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    releaseBlocker.countDown();
+    if (executor != null) {
+      executor.shutdownNow();
+      assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  public void execute_withQueuedTasks_runsHighestPriorityFirst() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    executor.execute(new NamedTask("low", Priority.LOW));
+    executor.execute(new NamedTask("normal", Priority.NORMAL));
+    executor.execute(new NamedTask("high", Priority.HIGH));
+    executor.execute(new NamedTask("immediate", Priority.IMMEDIATE));
+
+    finish();
+
+    assertThat(ran).containsExactly("immediate", "high", "normal", "low").inOrder();
+  }
+
+  @Test
+  public void execute_withSamePriority_runsInOrderQueued() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    for (int i = 0; i < 5; i++) {
+      executor.execute(new NamedTask("task" + i, Priority.NORMAL));
+    }
+
+    finish();
+
+    assertThat(ran).containsExactly("task0", "task1", "task2", "task3", "task4").inOrder();
+  }
+
+  @Test
+  public void execute_withRunnableWithoutPriority_runsAsNormal() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    executor.execute(new NamedTask("low", Priority.LOW));
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ran.add("plain");
+      }
+    });
+    executor.execute(new NamedTask("high", Priority.HIGH));
+
+    finish();
+
+    assertThat(ran).containsExactly("high", "plain", "low").inOrder();
+  }
+
+  @Test
+  public void remove_withQueuedTask_allowsTaskToBeRequeuedWithNewPriority()
+      throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    NamedTask first = new NamedTask("first", Priority.NORMAL);
+    NamedTask second = new NamedTask("second", Priority.NORMAL);
+    executor.execute(first);
+    executor.execute(second);
+
+    assertThat(executor.remove(second)).isTrue();
+    second.priority = Priority.IMMEDIATE;
+    executor.execute(second);
+
+    finish();
+
+    assertThat(ran).containsExactly("second", "first").inOrder();
+  }
+
+  @Test
+  public void remove_withStartedTask_returnsFalse() throws InterruptedException {
+    executor = newExecutor(1);
+    NamedTask task = new NamedTask("task", Priority.NORMAL);
+    executor.execute(task);
+
+    finish();
+
+    assertThat(executor.remove(task)).isFalse();
+  }
+
+  @Test
+  public void getQueueWaitStats_countsStartedTasksPerPriority() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    executor.execute(new NamedTask("high", Priority.HIGH));
+    executor.execute(new NamedTask("low1", Priority.LOW));
+    executor.execute(new NamedTask("low2", Priority.LOW));
+    Thread.sleep(10);
+
+    finish();
+
+    QueueWaitStats stats = executor.getQueueWaitStats();
+    assertThat(stats.getCount(Priority.HIGH)).isEqualTo(1L);
+    // Includes the task queued by finish().
+    assertThat(stats.getCount(Priority.LOW)).isEqualTo(3L);
+    assertThat(stats.getCount(Priority.IMMEDIATE)).isEqualTo(0L);
+    assertThat(stats.getMaxWaitNanos(Priority.LOW)).isAtLeast(TimeUnit.MILLISECONDS.toNanos(10));
+    assertThat(stats.getAverageWaitNanos(Priority.IMMEDIATE)).isEqualTo(0L);
+  }
+
+  @Test
+  public void execute_afterTaskThrows_runsLaterTasks() throws InterruptedException {
+    executor = newExecutor(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        throw new RuntimeException("test");
+      }
+    });
+    executor.execute(new NamedTask("after", Priority.NORMAL));
+
+    finish();
+
+    assertThat(ran).containsExactly("after");
+  }
+
+  @Test
+  public void execute_fromManyThreads_runsEveryTask() throws InterruptedException {
+    executor = newExecutor(4);
+    final int tasksPerThread = 500;
+    final CountDownLatch done = new CountDownLatch(4 * tasksPerThread);
+    final Priority[] priorities = Priority.values();
+    List<Thread> submitters = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread submitter = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < tasksPerThread; j++) {
+            executor.execute(new CountDownTask(done, priorities[j % priorities.length]));
+          }
+        }
+      });
+      submitters.add(submitter);
+      submitter.start();
+    }
+    for (Thread submitter : submitters) {
+      submitter.join();
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void execute_fromWorkerThread_isStolenByIdleWorker() throws InterruptedException {
+    executor = newExecutor(2);
+    final CountDownLatch stolen = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // Queued on this worker's own queue, so only the other worker can run it while we wait.
+        executor.execute(new CountDownTask(stolen, Priority.NORMAL));
+        try {
+          stolen.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    assertThat(stolen.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void shutdown_runsQueuedTasksAndTerminates() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    executor.execute(new NamedTask("queued", Priority.NORMAL));
+    executor.shutdown();
+    releaseBlocker.countDown();
+
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(ran).containsExactly("queued");
+  }
+
+  @Test
+  public void shutdownNow_returnsQueuedTasks() throws InterruptedException {
+    executor = newExecutor(1);
+    block();
+    NamedTask queued = new NamedTask("queued", Priority.NORMAL);
+    executor.execute(queued);
+
+    assertThat(executor.shutdownNow()).containsExactly(queued);
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(ran).isEmpty();
+  }
+
+  @Test
+  public void shutdown_withoutTasks_terminates() throws InterruptedException {
+    executor = newExecutor(2);
+    executor.shutdown();
+
+    assertThat(executor.isTerminated()).isTrue();
+  }
+
+  private void block() throws InterruptedException {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        blockerStarted.countDown();
+        try {
+          releaseBlocker.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    assertThat(blockerStarted.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private void finish() throws InterruptedException {
+    releaseBlocker.countDown();
+    final CountDownLatch done = new CountDownLatch(1);
+    // Lowest priority, so it runs after everything queued before it.
+    executor.execute(new CountDownTask(done, Priority.LOW));
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private static PriorityWorkStealingExecutor newExecutor(int threadCount) {
+    return new PriorityWorkStealingExecutor(threadCount, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(@NonNull final Runnable runnable) {
+        return new Thread("test-worker-" + count.getAndIncrement()) {
+          @Override
+          public void run() {
+            try {
+              runnable.run();
+            } catch (RuntimeException e) {
+              // Expected for tasks that throw.
+            }
+          }
+        };
+      }
+    });
+  }
+
+  private final class NamedTask implements Runnable, GlideExecutor.Prioritized {
+    private final String name;
+    Priority priority;
+
+    NamedTask(String name, Priority priority) {
+      this.name = name;
+      this.priority = priority;
+    }
+
+    @Override
+    public Priority getPriority() {
+      return priority;
+    }
+
+    @Override
+    public void run() {
+      ran.add(name);
+    }
+  }
+
+  private static final class CountDownTask implements Runnable, GlideExecutor.Prioritized {
+    private final CountDownLatch latch;
+    private final Priority priority;
+
+    CountDownTask(CountDownLatch latch, Priority priority) {
+      this.latch = latch;
+      this.priority = priority;
+    }
+
+    @Override
+    public Priority getPriority() {
+      return priority;
+    }
+
+    @Override
+    public void run() {
+      latch.countDown();
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+// Virtual threads aren't available on the JVMs these tests run on, so they use platform threads.
+@RunWith(JUnit4.class)
+public class VirtualThreadExecutorTest {
+  private final CountDownLatch release = new CountDownLatch(1);
+  private VirtualThreadExecutor executor;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    release.countDown();
+    if (executor != null) {
+      executor.shutdownNow();
+      assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  public void execute_withSameHost_runsAtMostLimitAtOnce() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch done = new CountDownLatch(5);
+    for (int i = 0; i < 5; i++) {
+      executor.execute(new BlockingTask("host", running, maxRunning, started, done));
+    }
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    // Give any task over the limit a chance to start.
+    Thread.sleep(50);
+    assertThat(running.get()).isEqualTo(2);
+
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void execute_withDifferentHosts_runsTasksAtOnce() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch done = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(new BlockingTask("host" + i, running, maxRunning, started, done));
+    }
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void execute_withoutHost_isNotLimited() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch done = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(new BlockingTask(null, running, maxRunning, started, done));
+    }
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void execute_afterTaskThrows_releasesHostPermit() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    executor.execute(new HostRunnable("host") {
+      @Override
+      public void run() {
+        throw new RuntimeException("test");
+      }
+    });
+    final CountDownLatch ran = new CountDownLatch(1);
+    executor.execute(new HostRunnable("host") {
+      @Override
+      public void run() {
+        ran.countDown();
+      }
+    });
+
+    assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void shutdown_waitsForRunningTasks() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    AtomicInteger running = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(new BlockingTask("host", running, new AtomicInteger(), started, done));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    executor.shutdown();
+
+    assertThat(executor.isShutdown()).isTrue();
+    assertThat(executor.isTerminated()).isFalse();
+    release.countDown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(done.getCount()).isEqualTo(0L);
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void execute_afterShutdown_throws() {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    executor.shutdown();
+
+    executor.execute(new HostRunnable("host") {
+      @Override
+      public void run() { }
+    });
+  }
+
+  @Test
+  public void shutdownNow_interruptsTasksWaitingForHost() throws InterruptedException {
+    executor = newExecutor(/*maxConcurrentTasksPerHost=*/ 1);
+    AtomicInteger running = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(2);
+    executor.execute(new BlockingTask("host", running, new AtomicInteger(), started, done));
+    executor.execute(new BlockingTask("host", running, new AtomicInteger(), started, done));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    executor.shutdownNow();
+
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    // The running task is interrupted and the waiting task never starts.
+    assertThat(done.getCount()).isEqualTo(2L);
+  }
+
+  private static VirtualThreadExecutor newExecutor(int maxConcurrentTasksPerHost) {
+    return new VirtualThreadExecutor(
+        Executors.defaultThreadFactory(),
+        maxConcurrentTasksPerHost,
+        GlideExecutor.UncaughtThrowableStrategy.IGNORE);
+  }
+
+  private abstract static class HostRunnable implements Runnable, GlideExecutor.HostAware {
+    @Nullable private final String host;
+
+    HostRunnable(@Nullable String host) {
+      this.host = host;
+    }
+
+    @Nullable
+    @Override
+    public String getHost() {
+      return host;
+    }
+  }
+
+  private final class BlockingTask extends HostRunnable {
+    private final AtomicInteger running;
+    private final AtomicInteger maxRunning;
+    private final CountDownLatch started;
+    private final CountDownLatch done;
+
+    BlockingTask(
+        @Nullable String host,
+        @NonNull AtomicInteger running,
+        @NonNull AtomicInteger maxRunning,
+        @NonNull CountDownLatch started,
+        @NonNull CountDownLatch done) {
+      super(host);
+      this.running = running;
+      this.maxRunning = maxRunning;
+      this.started = started;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      int current = running.incrementAndGet();
+      int max;
+      do {
+        max = maxRunning.get();
+      } while (current > max && !maxRunning.compareAndSet(max, current));
+      started.countDown();
+      try {
+        release.await();
+        done.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+}
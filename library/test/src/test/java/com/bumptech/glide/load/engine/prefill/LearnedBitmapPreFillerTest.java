@@ -0,0 +1,192 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.util.Util;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class LearnedBitmapPreFillerTest {
+  private static final int BITMAP_SIZE = Util.getBitmapByteSize(10, 10, Bitmap.Config.ARGB_8888);
+  @Mock private BitmapPreFillRunner.Clock clock;
+  @Mock private Handler handler;
+  private File profileFile;
+  private LruBitmapPool bitmapPool;
+  private LearnedBitmapPreFiller preFiller;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    profileFile = new File(RuntimeEnvironment.application.getCacheDir(), "profile");
+    bitmapPool = new LruBitmapPool(10 * BITMAP_SIZE);
+    preFiller = new LearnedBitmapPreFiller(
+        bitmapPool, profileFile, handler, /*handlerThread=*/ null, clock);
+  }
+
+  @After
+  public void tearDown() {
+    //noinspection ResultOfMethodCallIgnored
+    profileFile.delete();
+  }
+
+  @Test
+  public void getBitmapPool_recordsRequests() {
+    preFiller.getBitmapPool().get(10, 20, Bitmap.Config.RGB_565);
+    preFiller.getBitmapPool().getDirty(10, 20, Bitmap.Config.RGB_565);
+    preFiller.getBitmapPool().getDirty(30, 40, null);
+
+    Map<String, Integer> counts = getCounts(preFiller.getProfile());
+    assertThat(counts).containsEntry("10x20 RGB_565", 2);
+    assertThat(counts).containsEntry("30x40 ARGB_8888", 1);
+  }
+
+  @Test
+  public void getBitmapPool_putsInPreFilledPool() {
+    preFiller.getBitmapPool().put(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+    assertThat(bitmapPool.getCurrentSize()).isEqualTo(BITMAP_SIZE);
+  }
+
+  @Test
+  public void generateAllocationOrder_withEmptyProfile_isEmpty() {
+    assertThat(preFiller.generateAllocationOrder().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void generateAllocationOrder_allocatesInProportionToRequests() {
+    recordRequests(10, 10, 3);
+    recordRequests(20, 10, 1);
+
+    PreFillQueue queue = preFiller.generateAllocationOrder();
+
+    Map<String, Integer> counts = new HashMap<>();
+    long totalBytes = 0;
+    while (!queue.isEmpty()) {
+      PreFillType type = queue.remove();
+      String key = type.getWidth() + "x" + type.getHeight();
+      counts.put(key, counts.containsKey(key) ? counts.get(key) + 1 : 1);
+      totalBytes += Util.getBitmapByteSize(type.getWidth(), type.getHeight(), type.getConfig());
+    }
+    // 10 slots of 10x10 bitmaps, three 10x10 bitmaps for every 20x10 bitmap.
+    assertThat(counts).containsEntry("10x10", 6);
+    assertThat(counts).containsEntry("20x10", 2);
+    assertThat(totalBytes).isAtMost(bitmapPool.getMaxSize());
+  }
+
+  @Test
+  public void generateAllocationOrder_onlyFillsFreeSpace() {
+    recordRequests(10, 10, 1);
+    for (int i = 0; i < 8; i++) {
+      bitmapPool.put(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+    }
+
+    assertThat(preFiller.generateAllocationOrder().getSize()).isEqualTo(2);
+  }
+
+  @Test
+  public void start_readsSavedProfileAndPreFillsPool() throws IOException {
+    FileOutputStream os = new FileOutputStream(profileFile);
+    os.write("1\n10,10,ARGB_8888,5\n".getBytes());
+    os.close();
+    Handler mainHandler = new Handler(Looper.getMainLooper());
+    preFiller = new LearnedBitmapPreFiller(
+        bitmapPool, profileFile, mainHandler, /*handlerThread=*/ null, clock);
+
+    preFiller.start();
+
+    assertThat(getCounts(preFiller.getProfile())).containsEntry("10x10 ARGB_8888", 5);
+    assertThat(bitmapPool.getCurrentSize()).isEqualTo(bitmapPool.getMaxSize());
+    // Pre-filling isn't recorded.
+    assertThat(preFiller.getProfile().getTotalCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void start_withoutSavedProfile_doesNotPreFill() {
+    Handler mainHandler = new Handler(Looper.getMainLooper());
+    preFiller = new LearnedBitmapPreFiller(
+        bitmapPool, profileFile, mainHandler, /*handlerThread=*/ null, clock);
+
+    preFiller.start();
+
+    assertThat(bitmapPool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void allocate_whenGcDetected_stopsAndReturnsTrue() {
+    recordRequests(10, 10, 1);
+    preFiller.toPreFill = preFiller.generateAllocationOrder();
+    when(clock.now()).thenReturn(0L, 0L, BitmapPreFillRunner.MAX_DURATION_MS);
+
+    assertThat(preFiller.allocate()).isTrue();
+    assertThat(bitmapPool.getCurrentSize()).isEqualTo(BITMAP_SIZE);
+  }
+
+  @Test
+  public void stop_cancelsPreFill() {
+    recordRequests(10, 10, 1);
+    preFiller.toPreFill = preFiller.generateAllocationOrder();
+
+    preFiller.stop();
+
+    assertThat(preFiller.allocate()).isFalse();
+    assertThat(bitmapPool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void save_postsToHandler() {
+    preFiller.save();
+
+    verify(handler).post(any(Runnable.class));
+    verify(handler, never()).postDelayed(any(Runnable.class), anyLong());
+  }
+
+  @Test
+  public void saveProfile_thenLoad_restoresProfile() {
+    recordRequests(10, 20, 3);
+    preFiller.saveProfile();
+
+    LearnedBitmapPreFiller restored = new LearnedBitmapPreFiller(
+        bitmapPool, profileFile, handler, /*handlerThread=*/ null, clock);
+    restored.load();
+
+    assertThat(getCounts(restored.getProfile())).containsEntry("10x20 ARGB_8888", 3);
+  }
+
+  private void recordRequests(int width, int height, int count) {
+    for (int i = 0; i < count; i++) {
+      preFiller.getBitmapPool().getDirty(width, height, Bitmap.Config.ARGB_8888);
+    }
+  }
+
+  private static Map<String, Integer> getCounts(PreFillProfile profile) {
+    Map<String, Integer> result = new HashMap<>();
+    for (PreFillProfile.Entry entry : profile.getEntries()) {
+      result.put(entry.getWidth() + "x" + entry.getHeight() + " " + entry.getConfig(),
+          entry.getCount());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,147 @@
+package com.bumptech.glide.load.engine.prefill;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class PreFillProfileTest {
+  private PreFillProfile profile;
+
+  @Before
+  public void setUp() {
+    profile = new PreFillProfile();
+  }
+
+  @Test
+  public void getEntries_returnsMostRequestedFirst() {
+    profile.record(100, 100, Bitmap.Config.ARGB_8888);
+    profile.record(200, 100, Bitmap.Config.RGB_565);
+    profile.record(200, 100, Bitmap.Config.RGB_565);
+
+    List<PreFillProfile.Entry> entries = profile.getEntries();
+
+    assertThat(entries).hasSize(2);
+    assertEntry(entries.get(0), 200, 100, Bitmap.Config.RGB_565, 2);
+    assertEntry(entries.get(1), 100, 100, Bitmap.Config.ARGB_8888, 1);
+    assertThat(profile.getTotalCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void record_withSameSizeAndDifferentConfig_countsSeparately() {
+    profile.record(100, 100, Bitmap.Config.ARGB_8888);
+    profile.record(100, 100, Bitmap.Config.RGB_565);
+
+    assertThat(profile.getEntries()).hasSize(2);
+  }
+
+  @Test
+  public void record_atMaxTotalCount_halvesCountsAndForgetsRareSizes() {
+    profile.record(1, 1, Bitmap.Config.ARGB_8888);
+    for (int i = 0; i < PreFillProfile.MAX_TOTAL_COUNT - 1; i++) {
+      profile.record(100, 100, Bitmap.Config.ARGB_8888);
+    }
+
+    List<PreFillProfile.Entry> entries = profile.getEntries();
+
+    assertThat(entries).hasSize(1);
+    assertThat(entries.get(0).getCount()).isEqualTo((PreFillProfile.MAX_TOTAL_COUNT - 1) / 2);
+    assertThat(profile.getTotalCount()).isEqualTo(entries.get(0).getCount());
+  }
+
+  @Test
+  public void record_withMaxSizes_replacesLeastRequestedSize() {
+    for (int i = 1; i <= PreFillProfile.MAX_SIZES; i++) {
+      profile.record(i, i, Bitmap.Config.ARGB_8888);
+      profile.record(i, i, Bitmap.Config.ARGB_8888);
+    }
+    profile.record(1, 1, Bitmap.Config.ARGB_8888);
+    profile.record(2, 2, Bitmap.Config.ARGB_8888);
+    // Sizes 3 to MAX_SIZES have the same count, one of them is replaced.
+    profile.record(1000, 1000, Bitmap.Config.ARGB_8888);
+
+    List<PreFillProfile.Entry> entries = profile.getEntries();
+
+    assertThat(entries).hasSize(PreFillProfile.MAX_SIZES);
+    assertThat(entries.get(0).getCount()).isEqualTo(3);
+    assertThat(entries.get(1).getCount()).isEqualTo(3);
+    assertEntry(entries.get(entries.size() - 1), 1000, 1000, Bitmap.Config.ARGB_8888, 1);
+    assertThat(profile.getTotalCount()).isEqualTo(2 * PreFillProfile.MAX_SIZES + 1);
+  }
+
+  @Test
+  public void readFrom_afterWriteTo_restoresCounts() throws IOException {
+    profile.record(100, 200, Bitmap.Config.ARGB_8888);
+    profile.record(100, 200, Bitmap.Config.ARGB_8888);
+    profile.record(50, 50, Bitmap.Config.RGB_565);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    profile.writeTo(os);
+
+    PreFillProfile restored = new PreFillProfile();
+    restored.readFrom(new ByteArrayInputStream(os.toByteArray()));
+
+    List<PreFillProfile.Entry> entries = restored.getEntries();
+    assertThat(entries).hasSize(2);
+    assertEntry(entries.get(0), 100, 200, Bitmap.Config.ARGB_8888, 2);
+    assertEntry(entries.get(1), 50, 50, Bitmap.Config.RGB_565, 1);
+    assertThat(restored.getTotalCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void readFrom_addsToRecordedCounts() throws IOException {
+    profile.record(100, 200, Bitmap.Config.ARGB_8888);
+
+    profile.readFrom(stream("1\n100,200,ARGB_8888,4\n"));
+
+    assertEntry(profile.getEntries().get(0), 100, 200, Bitmap.Config.ARGB_8888, 5);
+  }
+
+  @Test
+  public void readFrom_skipsInvalidLines() throws IOException {
+    profile.readFrom(stream(
+        "1\n100,200,UNKNOWN,4\nnot,a,valid,line\n100,200\n-1,5,ARGB_8888,1\n10,20,RGB_565,3\n"));
+
+    List<PreFillProfile.Entry> entries = profile.getEntries();
+    assertThat(entries).hasSize(1);
+    assertEntry(entries.get(0), 10, 20, Bitmap.Config.RGB_565, 3);
+  }
+
+  @Test
+  public void readFrom_withUnknownVersion_readsNothing() throws IOException {
+    profile.readFrom(stream("2\n100,200,ARGB_8888,4\n"));
+
+    assertThat(profile.getEntries()).isEmpty();
+  }
+
+  @Test
+  public void clear_forgetsAllSizes() {
+    profile.record(100, 200, Bitmap.Config.ARGB_8888);
+
+    profile.clear();
+
+    assertThat(profile.getEntries()).isEmpty();
+    assertThat(profile.getTotalCount()).isEqualTo(0);
+  }
+
+  private static ByteArrayInputStream stream(String data) {
+    return new ByteArrayInputStream(data.getBytes());
+  }
+
+  private static void assertEntry(
+      PreFillProfile.Entry entry, int width, int height, Bitmap.Config config, int count) {
+    assertThat(entry.getWidth()).isEqualTo(width);
+    assertThat(entry.getHeight()).isEqualTo(height);
+    assertThat(entry.getConfig()).isEqualTo(config);
+    assertThat(entry.getCount()).isEqualTo(count);
+  }
+}
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.resource.bitmap;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -10,11 +11,13 @@ import android.graphics.Bitmap;
 import android.support.annotation.NonNull;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.tests.Util;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -177,6 +180,49 @@ public class BitmapTransformationTest {
     assertEquals(expectedHeight, transform.givenHeight);
   }
 
+  @Test
+  public void applyTransformation_usesBackendFromOptionsOnlyWhileTransforming() {
+    final BitmapTransformation.Backend[] backend = new BitmapTransformation.Backend[1];
+    BitmapTransformation transformation = new BitmapTransformation() {
+      @Override
+      public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) { }
+
+      @Override
+      protected Bitmap transform(@NonNull BitmapPool pool, @NonNull Bitmap toTransform,
+          int outWidth, int outHeight) {
+        backend[0] = getCurrentBackend();
+        return toTransform;
+      }
+    };
+    Options options = new Options()
+        .set(BitmapTransformation.BACKEND, BitmapTransformation.Backend.PIXELS_LANCZOS);
+
+    BitmapTransformation.applyTransformation(
+        transformation, context, mockResource(100, 100), 1, 1, options);
+
+    assertThat(backend[0]).isEqualTo(BitmapTransformation.Backend.PIXELS_LANCZOS);
+    assertThat(BitmapTransformation.getCurrentBackend())
+        .isEqualTo(BitmapTransformation.Backend.CANVAS);
+  }
+
+  @Test
+  public void backend_onlyChangesDiskCacheKeyIfNotCanvas() throws NoSuchAlgorithmException {
+    byte[] unset = digest(new Options());
+    byte[] canvas = digest(
+        new Options().set(BitmapTransformation.BACKEND, BitmapTransformation.Backend.CANVAS));
+    byte[] pixels = digest(new Options().set(
+        BitmapTransformation.BACKEND, BitmapTransformation.Backend.PIXELS_AREA_AVERAGING));
+
+    assertThat(canvas).isEqualTo(unset);
+    assertThat(pixels).isNotEqualTo(unset);
+  }
+
+  private static byte[] digest(Options options) throws NoSuchAlgorithmException {
+    MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+    options.updateDiskCacheKey(messageDigest);
+    return messageDigest.digest();
+  }
+
   private Resource<Bitmap> mockResource(int width, int height) {
     Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
     Resource<Bitmap> resource = Util.mockResource();
@@ -2,18 +2,24 @@ package com.bumptech.glide.load.resource.bitmap;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import android.support.annotation.NonNull;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageHeaderParserUtils;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.testutil.TestResourceUtil;
+import com.bumptech.glide.util.ByteBufferUtil;
 import java.io.ByteArrayInputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -232,6 +238,31 @@ public class DefaultImageHeaderParserTest {
     assertThat(parser.getOrientation(new PartialSkipInputStream(is), byteArrayPool)).isEqualTo(6);
   }
 
+  @Test
+  public void getOrientation_withByteBuffer_parsesExifSegmentWithoutArrayPool()
+      throws IOException {
+    InputStream is = TestResourceUtil.openResource(getClass(), "issue387_rotated_jpeg.jpg");
+    ByteBuffer byteBuffer = ByteBufferUtil.fromStream(is);
+    ArrayPool arrayPool = mock(ArrayPool.class);
+    DefaultImageHeaderParser parser = new DefaultImageHeaderParser();
+
+    assertThat(parser.getOrientation(byteBuffer, arrayPool)).isEqualTo(6);
+    verifyZeroInteractions(arrayPool);
+  }
+
+  @Test
+  public void getOrientation_withByteBufferUtils_restoresPosition() throws IOException {
+    InputStream is = TestResourceUtil.openResource(getClass(), "issue387_rotated_jpeg.jpg");
+    ByteBuffer byteBuffer = ByteBufferUtil.fromStream(is);
+    List<ImageHeaderParser> parsers =
+        Collections.<ImageHeaderParser>singletonList(new DefaultImageHeaderParser());
+
+    assertThat(ImageHeaderParserUtils.getOrientation(parsers, byteBuffer, byteArrayPool))
+        .isEqualTo(6);
+    assertThat(ImageHeaderParserUtils.getType(parsers, byteBuffer)).isEqualTo(ImageType.JPEG);
+    assertThat(byteBuffer.position()).isEqualTo(0);
+  }
+
   @Test
   public void testHandlesSometimesZeroSkips() throws IOException {
     InputStream is = new ByteArrayInputStream(
@@ -0,0 +1,103 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.testutil.TestResourceUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Util;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DownsamplerTest {
+  private DiskCache diskCache;
+  private ImageHeaderCache headerCache;
+  private Key key;
+  private Options options;
+
+  @Before
+  public void setUp() {
+    diskCache = DiskLruCacheWrapper.create(
+        new File(RuntimeEnvironment.application.getCacheDir(), "downsampler_test"), 1024 * 1024);
+    headerCache = new ImageHeaderCache(new ImageHeaderCache.DiskCacheProvider() {
+      @NonNull
+      @Override
+      public DiskCache getDiskCache() {
+        return diskCache;
+      }
+    });
+    key = new ObjectKey("source");
+    options = new Options()
+        .set(Downsampler.SOURCE_DATA_KEY, key)
+        .set(Downsampler.CACHE_HEADER, true);
+  }
+
+  @After
+  public void tearDown() {
+    diskCache.clear();
+  }
+
+  @Test
+  public void decode_withDefaultParsers_usesSniffedHeader() throws IOException {
+    decode(Collections.<ImageHeaderParser>singletonList(new DefaultImageHeaderParser()));
+
+    ImageHeaderSniffer.Header header = headerCache.get(key);
+    assertThat(header.getType()).isEqualTo(ImageType.JPEG);
+    assertThat(header.getOrientation()).isEqualTo(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    assertThat(header.getWidth()).isEqualTo(280);
+    assertThat(header.getHeight()).isEqualTo(140);
+  }
+
+  @Test
+  public void decode_withCustomParser_usesTypeAndOrientationFromParser() throws IOException {
+    ImageHeaderParser customParser = mock(ImageHeaderParser.class);
+    when(customParser.getType(any(ByteBuffer.class))).thenReturn(ImageType.PNG);
+    when(customParser.getType(any(InputStream.class))).thenReturn(ImageType.PNG);
+    when(customParser.getOrientation(any(ByteBuffer.class), any(ArrayPool.class))).thenReturn(6);
+    when(customParser.getOrientation(any(InputStream.class), any(ArrayPool.class))).thenReturn(6);
+
+    decode(Arrays.asList(customParser, new DefaultImageHeaderParser()));
+
+    ImageHeaderSniffer.Header header = headerCache.get(key);
+    assertThat(header.getType()).isEqualTo(ImageType.PNG);
+    assertThat(header.getOrientation()).isEqualTo(6);
+    assertThat(header.getWidth()).isEqualTo(280);
+    assertThat(header.getHeight()).isEqualTo(140);
+  }
+
+  private void decode(List<ImageHeaderParser> parsers) throws IOException {
+    Downsampler downsampler = new Downsampler(parsers,
+        RuntimeEnvironment.application.getResources().getDisplayMetrics(),
+        new BitmapPoolAdapter(), new LruArrayPool(), headerCache);
+    byte[] data =
+        Util.readBytes(TestResourceUtil.openResource(getClass(), "short_exif_sample.jpg"));
+
+    downsampler.decode(ByteBuffer.wrap(data), 100, 100, options);
+  }
+}
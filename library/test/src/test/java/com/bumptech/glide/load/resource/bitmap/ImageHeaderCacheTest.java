@@ -0,0 +1,202 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ImageHeaderCacheTest {
+  private File dir;
+  private DiskCache diskCache;
+  private ImageHeaderCache.DiskCacheProvider diskCacheProvider;
+  private ImageHeaderCache cache;
+  private Key key;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "header_cache_test");
+    diskCache = DiskLruCacheWrapper.create(dir, 1024 * 1024);
+    diskCacheProvider = new ImageHeaderCache.DiskCacheProvider() {
+      @NonNull
+      @Override
+      public DiskCache getDiskCache() {
+        return diskCache;
+      }
+    };
+    cache = new ImageHeaderCache(diskCacheProvider);
+    key = new ObjectKey("source");
+  }
+
+  @After
+  public void tearDown() {
+    diskCache.clear();
+  }
+
+  @Test
+  public void get_withMissingKey_returnsNull() {
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void get_afterPut_returnsHeader() {
+    ImageHeaderSniffer.Header header = jpegHeader();
+    cache.put(key, header);
+
+    assertThat(cache.get(key)).isSameAs(header);
+  }
+
+  @Test
+  public void get_withDifferentKey_returnsNull() {
+    cache.put(key, jpegHeader());
+
+    assertThat(cache.get(new ObjectKey("other"))).isNull();
+  }
+
+  @Test
+  public void get_afterClearMemory_readsHeaderFromDisk() {
+    cache.put(key, jpegHeader());
+    cache.clearMemory();
+
+    assertHeadersEqual(cache.get(key), jpegHeader());
+  }
+
+  @Test
+  public void get_fromNewCacheWithSameDiskCache_returnsPersistedHeader() {
+    cache.put(key, jpegHeader());
+
+    ImageHeaderCache restored = new ImageHeaderCache(diskCacheProvider);
+
+    assertHeadersEqual(restored.get(key), jpegHeader());
+  }
+
+  @Test
+  public void get_withPersistedHeaderWithoutMimeType_returnsNullMimeType() {
+    ImageHeaderSniffer.Header header = new ImageHeaderSniffer.Header(
+        ImageType.UNKNOWN, /*mimeType=*/ null, 10, 20, ImageHeaderParser.UNKNOWN_ORIENTATION);
+    cache.put(key, header);
+    cache.clearMemory();
+
+    assertHeadersEqual(cache.get(key), header);
+  }
+
+  @Test
+  public void get_withUnreadableFile_returnsNull() throws IOException {
+    File file = new File(RuntimeEnvironment.application.getCacheDir(), "corrupt");
+    FileOutputStream os = new FileOutputStream(file);
+    try {
+      os.write(new byte[] { 0, 0, 0, 1, 0 });
+    } finally {
+      os.close();
+    }
+    DiskCache mockDiskCache = mock(DiskCache.class);
+    when(mockDiskCache.get(any(Key.class))).thenReturn(file);
+    diskCache = mockDiskCache;
+
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void get_withHeaderInMemory_doesNotReadDisk() {
+    cache.put(key, jpegHeader());
+    DiskCache mockDiskCache = mock(DiskCache.class);
+    diskCache = mockDiskCache;
+
+    cache.get(key);
+
+    verify(mockDiskCache, never()).get(any(Key.class));
+  }
+
+  @Test
+  public void get_afterRemove_returnsNull() {
+    cache.put(key, jpegHeader());
+
+    cache.remove(key);
+
+    assertThat(cache.get(key)).isNull();
+    assertThat(new ImageHeaderCache(diskCacheProvider).get(key)).isNull();
+  }
+
+  @Test
+  public void get_afterDataIsReplacedForSameKey_returnsHeaderForNewData() {
+    cache.put(key, jpegHeader());
+    ImageHeaderSniffer.Header newHeader =
+        new ImageHeaderSniffer.Header(ImageType.PNG, "image/png", 100, 50, 1);
+
+    // What SourceGenerator does when it writes new data under a key whose old data was evicted.
+    cache.remove(key);
+    cache.put(key, newHeader);
+
+    assertHeadersEqual(cache.get(key), newHeader);
+    assertHeadersEqual(new ImageHeaderCache(diskCacheProvider).get(key), newHeader);
+  }
+
+  @Test
+  public void get_afterMissOnDisk_doesNotReadDiskAgain() {
+    DiskCache mockDiskCache = mock(DiskCache.class);
+    diskCache = mockDiskCache;
+
+    cache.get(key);
+    cache.get(key);
+
+    verify(mockDiskCache, times(1)).get(any(Key.class));
+  }
+
+  @Test
+  public void get_afterMissOnDiskAndPut_returnsHeader() {
+    assertThat(cache.get(key)).isNull();
+    ImageHeaderSniffer.Header header = jpegHeader();
+
+    cache.put(key, header);
+
+    assertThat(cache.get(key)).isSameAs(header);
+  }
+
+  @Test
+  public void put_doesNotOverwriteSourceData() {
+    DiskCache mockDiskCache = mock(DiskCache.class);
+    diskCache = mockDiskCache;
+
+    cache.put(key, jpegHeader());
+
+    verify(mockDiskCache, never()).put(eq(key), any(DiskCache.Writer.class));
+    verify(mockDiskCache).put(any(Key.class), any(DiskCache.Writer.class));
+  }
+
+  private static ImageHeaderSniffer.Header jpegHeader() {
+    return new ImageHeaderSniffer.Header(ImageType.JPEG, "image/jpeg", 4128, 2322, 6);
+  }
+
+  private static void assertHeadersEqual(
+      ImageHeaderSniffer.Header actual, ImageHeaderSniffer.Header expected) {
+    assertThat(actual).isNotNull();
+    assertThat(actual.getType()).isEqualTo(expected.getType());
+    assertThat(actual.getMimeType()).isEqualTo(expected.getMimeType());
+    assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+    assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+    assertThat(actual.getOrientation()).isEqualTo(expected.getOrientation());
+  }
+}
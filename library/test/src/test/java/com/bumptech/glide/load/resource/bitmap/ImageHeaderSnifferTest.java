@@ -0,0 +1,248 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.testutil.TestResourceUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Util;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ImageHeaderSnifferTest {
+  private ArrayPool byteArrayPool;
+
+  @Before
+  public void setUp() {
+    byteArrayPool = new LruArrayPool();
+  }
+
+  @Test
+  public void sniff_withJpegWithExifOrientation_returnsTypeDimensionsAndOrientation()
+      throws IOException {
+    byte[] data = readResource("issue387_rotated_jpeg.jpg");
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(ImageType.JPEG);
+      assertThat(header.getWidth()).isEqualTo(4128);
+      assertThat(header.getHeight()).isEqualTo(2322);
+      assertThat(header.getOrientation()).isEqualTo(6);
+      assertThat(header.getMimeType()).isEqualTo("image/jpeg");
+      assertThat(header.hasAlpha()).isFalse();
+    }
+  }
+
+  @Test
+  public void sniff_withJpegWithMinimalExifSegment_returnsUnknownOrientation()
+      throws IOException {
+    byte[] data = readResource("short_exif_sample.jpg");
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(ImageType.JPEG);
+      assertThat(header.getWidth()).isEqualTo(280);
+      assertThat(header.getHeight()).isEqualTo(140);
+      assertThat(header.getOrientation()).isEqualTo(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    }
+  }
+
+  @Test
+  public void sniff_withJpegWithoutExifSegment_returnsUnknownOrientation() throws IOException {
+    byte[] data = new byte[] {
+        (byte) 0xFF, (byte) 0xD8,
+        // Baseline frame header for a 200x100 image.
+        (byte) 0xFF, (byte) 0xC0, 0x00, 0x0B, 0x08, 0x00, 0x64, 0x00, (byte) 0xC8, 0x01, 0x01,
+        0x11, 0x00,
+        (byte) 0xFF, (byte) 0xDA, 0x00, 0x02,
+    };
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getWidth()).isEqualTo(200);
+      assertThat(header.getHeight()).isEqualTo(100);
+      assertThat(header.getOrientation()).isEqualTo(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    }
+  }
+
+  @Test
+  public void sniff_withTruncatedJpeg_returnsNull() throws IOException {
+    byte[] data = Arrays.copyOf(readResource("issue387_rotated_jpeg.jpg"), 1024);
+
+    assertThat(ImageHeaderSniffer.sniff(ByteBuffer.wrap(data))).isNull();
+    assertThat(ImageHeaderSniffer.sniff(new ByteArrayInputStream(data), byteArrayPool)).isNull();
+  }
+
+  @Test
+  public void sniff_withJpegWithHeaderLargerThanPeekSize_returnsNullForStreams()
+      throws IOException {
+    byte[] data = readResource("issue387_rotated_jpeg.jpg");
+    // Pads the start of the image with a comment segment so that the frame header is out of reach.
+    int paddingLength = ImageHeaderSniffer.PEEK_SIZE - 1024;
+    byte[] padded = new byte[data.length + paddingLength];
+    padded[0] = (byte) 0xFF;
+    padded[1] = (byte) 0xD8;
+    int offset = 2;
+    while (offset < paddingLength) {
+      int segmentLength = Math.min(0xFFFF, paddingLength - offset - 2);
+      padded[offset] = (byte) 0xFF;
+      padded[offset + 1] = (byte) 0xFE;
+      padded[offset + 2] = (byte) (segmentLength >> 8);
+      padded[offset + 3] = (byte) segmentLength;
+      offset += 2 + segmentLength;
+    }
+    System.arraycopy(data, 2, padded, offset, data.length - 2);
+
+    assertThat(ImageHeaderSniffer.sniff(new ByteArrayInputStream(padded), byteArrayPool))
+        .isNull();
+    assertThat(ImageHeaderSniffer.sniff(ByteBuffer.wrap(padded)).getWidth()).isEqualTo(4128);
+  }
+
+  @Test
+  public void sniff_withGif_returnsLogicalScreenSize() throws IOException {
+    byte[] data = readResource("test.gif");
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(ImageType.GIF);
+      assertThat(header.getWidth()).isEqualTo(120);
+      assertThat(header.getHeight()).isEqualTo(80);
+      assertThat(header.hasAlpha()).isTrue();
+    }
+  }
+
+  @Test
+  public void sniff_withPng_returnsTypeAndDimensions() throws IOException {
+    for (int colorType = 0; colorType <= 6; colorType++) {
+      byte[] data = new byte[] {
+          (byte) 0x89, 0x50, 0x4e, 0x47, 0xd, 0xa, 0x1a, 0xa,
+          0x0, 0x0, 0x0, 0xd, 0x49, 0x48, 0x44, 0x52,
+          0x0, 0x0, 0x1, (byte) 0x90, 0x0, 0x0, 0x1, 0x2c, 0x8, (byte) colorType };
+
+      for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+        assertThat(header.getType()).isEqualTo(colorType >= 3 ? ImageType.PNG_A : ImageType.PNG);
+        assertThat(header.getWidth()).isEqualTo(400);
+        assertThat(header.getHeight()).isEqualTo(300);
+        assertThat(header.getMimeType()).isEqualTo("image/png");
+      }
+    }
+  }
+
+  @Test
+  public void sniff_withLossyWebp_returnsTypeAndDimensions() throws IOException {
+    byte[] data = webp('V', 'P', '8', ' ',
+        // Frame tag, start code, then a width of 300 and a height of 200.
+        0x00, 0x00, 0x00, 0x9D, 0x01, 0x2A, 0x2C, 0x01, 0xC8, 0x00);
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(ImageType.WEBP);
+      assertThat(header.getWidth()).isEqualTo(300);
+      assertThat(header.getHeight()).isEqualTo(200);
+      assertThat(header.getMimeType()).isEqualTo("image/webp");
+    }
+  }
+
+  @Test
+  public void sniff_withLosslessWebp_returnsTypeAndDimensions() throws IOException {
+    // A width of 300 and a height of 200, each stored as the value minus one in 14 bits.
+    int bits = 299 | 199 << 14;
+    byte[] data = webp('V', 'P', '8', 'L',
+        0x2F, bits & 0xFF, bits >> 8 & 0xFF, bits >> 16 & 0xFF, bits >> 24 & 0xFF,
+        0x00, 0x00, 0x00, 0x00, 0x00);
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(new DefaultImageHeaderParser()
+          .getType(ByteBuffer.wrap(data)));
+      assertThat(header.getWidth()).isEqualTo(300);
+      assertThat(header.getHeight()).isEqualTo(200);
+    }
+  }
+
+  @Test
+  public void sniff_withExtendedWebp_returnsTypeAlphaAndCanvasSize() throws IOException {
+    byte[] data = webp('V', 'P', '8', 'X',
+        // Flags with alpha set, three reserved bytes, then the canvas size minus one.
+        0x10, 0x00, 0x00, 0x00, 0x2B, 0x01, 0x00, 0xC7, 0x00, 0x00);
+
+    for (ImageHeaderSniffer.Header header : sniffBoth(data)) {
+      assertThat(header.getType()).isEqualTo(ImageType.WEBP_A);
+      assertThat(header.getWidth()).isEqualTo(300);
+      assertThat(header.getHeight()).isEqualTo(200);
+      assertThat(header.hasAlpha()).isTrue();
+    }
+  }
+
+  @Test
+  public void sniff_withUnknownData_returnsNull() throws IOException {
+    byte[] data = new byte[] { 0x00, 0x01, 0x02, 0x03, 0x04, 0x05 };
+
+    assertThat(ImageHeaderSniffer.sniff(ByteBuffer.wrap(data))).isNull();
+    assertThat(ImageHeaderSniffer.sniff(new ByteArrayInputStream(data), byteArrayPool)).isNull();
+  }
+
+  @Test
+  public void sniff_withEmptyData_returnsNull() throws IOException {
+    assertThat(ImageHeaderSniffer.sniff(ByteBuffer.allocate(0))).isNull();
+    assertThat(ImageHeaderSniffer.sniff(new ByteArrayInputStream(new byte[0]), byteArrayPool))
+        .isNull();
+  }
+
+  @Test
+  public void sniff_withStream_resetsStream() throws IOException {
+    byte[] data = readResource("issue387_rotated_jpeg.jpg");
+    InputStream is = new RecyclableBufferedInputStream(new ByteArrayInputStream(data),
+        byteArrayPool);
+
+    ImageHeaderSniffer.sniff(is, byteArrayPool);
+
+    assertThat(Util.readBytes(is)).isEqualTo(data);
+  }
+
+  @Test
+  public void sniff_withByteBuffer_doesNotMovePosition() throws IOException {
+    byte[] data = readResource("issue387_rotated_jpeg.jpg");
+    ByteBuffer buffer = ByteBuffer.allocate(data.length + 10);
+    buffer.position(10);
+    buffer.mark();
+    buffer.put(data);
+    buffer.reset();
+
+    assertThat(ImageHeaderSniffer.sniff(buffer).getOrientation()).isEqualTo(6);
+    assertThat(buffer.position()).isEqualTo(10);
+  }
+
+  private ImageHeaderSniffer.Header[] sniffBoth(byte[] data) throws IOException {
+    ImageHeaderSniffer.Header fromBuffer = ImageHeaderSniffer.sniff(ByteBuffer.wrap(data));
+    ImageHeaderSniffer.Header fromStream =
+        ImageHeaderSniffer.sniff(new ByteArrayInputStream(data), byteArrayPool);
+    assertThat(fromBuffer).isNotNull();
+    assertThat(fromStream).isNotNull();
+    return new ImageHeaderSniffer.Header[] { fromBuffer, fromStream };
+  }
+
+  private byte[] readResource(String name) throws IOException {
+    return Util.readBytes(TestResourceUtil.openResource(getClass(), name));
+  }
+
+  private static byte[] webp(int... chunk) {
+    byte[] result = new byte[12 + chunk.length + 4];
+    System.arraycopy(new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P' }, 0,
+        result, 0, 12);
+    for (int i = 0; i < 4; i++) {
+      result[12 + i] = (byte) chunk[i];
+    }
+    // The chunk size, which isn't checked.
+    for (int i = 4; i < chunk.length; i++) {
+      result[16 + i] = (byte) chunk[i];
+    }
+    return result;
+  }
+}
@@ -0,0 +1,319 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PixelKernelsTest {
+  private static final int OPAQUE_RED = 0xFFFF0000;
+  private static final int ZONE_PLATE_WIDTH = 128;
+  private static final int ZONE_PLATE_HEIGHT = 96;
+  private static final int ZONE_PLATE_SCALE = 4;
+  /** The number of samples per axis used to average the zone plate over each output pixel. */
+  private static final int REFERENCE_SAMPLES = 16;
+
+  @Test
+  public void resample_withConstantImage_returnsConstantImage() {
+    for (PixelKernels.Filter filter : PixelKernels.Filter.values()) {
+      int[] src = filled(40 * 30, 0xFF336699);
+      int[] dst = new int[13 * 7];
+
+      PixelKernels.resample(src, 40, 30, 0, 0, 40, 30, dst, 13, 7, filter);
+
+      assertThat(dst).isEqualTo(filled(13 * 7, 0xFF336699));
+    }
+  }
+
+  @Test
+  public void resample_withAreaAveraging_averagesEachBlock() {
+    int[] src = new int[] {
+        0xFF000000, 0xFF040404, 0xFF646464, 0xFF646464,
+        0xFF080808, 0xFF0C0C0C, 0xFF646464, 0xFF646464,
+    };
+    int[] dst = new int[2];
+
+    PixelKernels.resample(
+        src, 4, 2, 0, 0, 4, 2, dst, 2, 1, PixelKernels.Filter.AREA_AVERAGING);
+
+    assertThat(dst).isEqualTo(new int[] { 0xFF060606, 0xFF646464 });
+  }
+
+  @Test
+  public void resample_withTransparentPixels_doesNotBleedTheirColor() {
+    for (PixelKernels.Filter filter : PixelKernels.Filter.values()) {
+      int[] src = new int[] { OPAQUE_RED, 0x000000FF };
+      int[] dst = new int[1];
+
+      PixelKernels.resample(src, 2, 1, 0, 0, 2, 1, dst, 1, 1, filter);
+
+      assertThat(dst[0] & 0xFFFFFF).isEqualTo(0xFF0000);
+      assertThat(dst[0] >>> 24).isIn(Arrays.asList(0x7F, 0x80));
+    }
+  }
+
+  @Test
+  public void resample_withRegion_onlyUsesPixelsInRegion() {
+    int[] src = new int[] {
+        0xFF000000, OPAQUE_RED, OPAQUE_RED, 0xFF000000,
+    };
+    int[] dst = new int[1];
+
+    PixelKernels.resample(
+        src, 4, 1, 1, 0, 2, 1, dst, 1, 1, PixelKernels.Filter.AREA_AVERAGING);
+
+    assertThat(dst[0]).isEqualTo(OPAQUE_RED);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resample_withSameArrays_throws() {
+    int[] pixels = new int[4];
+    PixelKernels.resample(
+        pixels, 2, 2, 0, 0, 2, 2, pixels, 2, 2, PixelKernels.Filter.AREA_AVERAGING);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resample_withArrayTooSmall_throws() {
+    PixelKernels.resample(
+        new int[3], 2, 2, 0, 0, 2, 2, new int[4], 2, 2, PixelKernels.Filter.AREA_AVERAGING);
+  }
+
+  @Test
+  public void crop_copiesRegion() {
+    int[] src = new int[] {
+        1, 2, 3,
+        4, 5, 6,
+        7, 8, 9,
+    };
+    int[] dst = new int[4];
+
+    PixelKernels.crop(src, 3, 3, 1, 1, dst, 2, 2);
+
+    assertThat(dst).isEqualTo(new int[] { 5, 6, 8, 9 });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void crop_withRegionOutsideImage_throws() {
+    PixelKernels.crop(new int[9], 3, 3, 2, 2, new int[4], 2, 2);
+  }
+
+  @Test
+  public void rotate_by90_rotatesClockwise() {
+    int[] src = new int[] {
+        1, 2, 3,
+        4, 5, 6,
+    };
+    int[] dst = new int[6];
+
+    PixelKernels.rotate(src, 3, 2, 90, dst);
+
+    assertThat(dst).isEqualTo(new int[] {
+        4, 1,
+        5, 2,
+        6, 3,
+    });
+  }
+
+  @Test
+  public void rotate_by180_reversesPixels() {
+    int[] src = new int[] {
+        1, 2, 3,
+        4, 5, 6,
+    };
+    int[] dst = new int[6];
+
+    PixelKernels.rotate(src, 3, 2, 180, dst);
+
+    assertThat(dst).isEqualTo(new int[] { 6, 5, 4, 3, 2, 1 });
+  }
+
+  @Test
+  public void rotate_by270_rotatesCounterClockwise() {
+    int[] src = new int[] {
+        1, 2, 3,
+        4, 5, 6,
+    };
+    int[] dst = new int[6];
+
+    PixelKernels.rotate(src, 3, 2, 270, dst);
+
+    assertThat(dst).isEqualTo(new int[] {
+        3, 6,
+        2, 5,
+        1, 4,
+    });
+  }
+
+  @Test
+  public void rotate_withLargeImage_matchesPixelByPixelRotation() {
+    int width = 37;
+    int height = 70;
+    int[] src = new int[width * height];
+    for (int i = 0; i < src.length; i++) {
+      src[i] = i;
+    }
+    int[] dst = new int[src.length];
+
+    PixelKernels.rotate(src, width, height, 90, dst);
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        assertThat(dst[x * height + height - 1 - y]).isEqualTo(src[y * width + x]);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rotate_withInvalidDegrees_throws() {
+    PixelKernels.rotate(new int[4], 2, 2, 45, new int[4]);
+  }
+
+  @Test
+  public void applyCircleMask_clearsCornersAndKeepsCenter() {
+    int[] pixels = filled(20 * 20, OPAQUE_RED);
+
+    PixelKernels.applyCircleMask(pixels, 20, 20);
+
+    assertThat(pixels[0]).isEqualTo(0);
+    assertThat(pixels[19]).isEqualTo(0);
+    assertThat(pixels[19 * 20]).isEqualTo(0);
+    assertThat(pixels[20 * 20 - 1]).isEqualTo(0);
+    assertThat(pixels[10 * 20 + 10]).isEqualTo(OPAQUE_RED);
+    assertThat(pixels[10 * 20 + 2]).isEqualTo(OPAQUE_RED);
+  }
+
+  @Test
+  public void applyRoundedCornerMask_clearsCornersAndKeepsEdges() {
+    int[] pixels = filled(20 * 10, OPAQUE_RED);
+
+    PixelKernels.applyRoundedCornerMask(pixels, 20, 10, 4);
+
+    assertThat(pixels[0]).isEqualTo(0);
+    assertThat(pixels[19]).isEqualTo(0);
+    assertThat(pixels[9 * 20]).isEqualTo(0);
+    assertThat(pixels[10 * 20 - 1]).isEqualTo(0);
+    assertThat(pixels[10]).isEqualTo(OPAQUE_RED);
+    assertThat(pixels[5 * 20]).isEqualTo(OPAQUE_RED);
+  }
+
+  @Test
+  public void applyRoundedCornerMask_withEdgePixels_partiallyCoversThem() {
+    int[] pixels = filled(20 * 20, OPAQUE_RED);
+
+    PixelKernels.applyRoundedCornerMask(pixels, 20, 20, 8);
+
+    int alpha = pixels[20 + 3] >>> 24;
+    assertThat(alpha).isGreaterThan(0);
+    assertThat(alpha).isLessThan(0xFF);
+    assertThat(pixels[20 + 3] & 0xFFFFFF).isEqualTo(0xFF0000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void applyRoundedCornerMask_withZeroRadius_throws() {
+    PixelKernels.applyRoundedCornerMask(new int[4], 2, 2, 0);
+  }
+
+  @Test
+  public void resample_withAreaAveragingAndZonePlate_closelyMatchesAreaAverage() {
+    double psnr = getZonePlatePeakSignalToNoiseRatio(
+        resampleZonePlate(PixelKernels.Filter.AREA_AVERAGING));
+
+    assertThat(psnr).isAtLeast(40d);
+  }
+
+  @Test
+  public void resample_withZonePlate_aliasesLessThanNearestNeighbor() {
+    double nearest = getZonePlatePeakSignalToNoiseRatio(resampleZonePlateNearest());
+    double lanczos =
+        getZonePlatePeakSignalToNoiseRatio(resampleZonePlate(PixelKernels.Filter.LANCZOS));
+    double areaAveraging = getZonePlatePeakSignalToNoiseRatio(
+        resampleZonePlate(PixelKernels.Filter.AREA_AVERAGING));
+
+    assertThat(lanczos).isAtLeast(25d);
+    assertThat(lanczos).isGreaterThan(nearest + 10);
+    assertThat(areaAveraging).isGreaterThan(nearest + 10);
+  }
+
+  private static int[] resampleZonePlate(PixelKernels.Filter filter) {
+    int[] dst = new int[(ZONE_PLATE_WIDTH / ZONE_PLATE_SCALE)
+        * (ZONE_PLATE_HEIGHT / ZONE_PLATE_SCALE)];
+    PixelKernels.resample(newZonePlate(), ZONE_PLATE_WIDTH, ZONE_PLATE_HEIGHT, 0, 0,
+        ZONE_PLATE_WIDTH, ZONE_PLATE_HEIGHT, dst, ZONE_PLATE_WIDTH / ZONE_PLATE_SCALE,
+        ZONE_PLATE_HEIGHT / ZONE_PLATE_SCALE, filter);
+    return dst;
+  }
+
+  private static int[] resampleZonePlateNearest() {
+    int[] src = newZonePlate();
+    int dstWidth = ZONE_PLATE_WIDTH / ZONE_PLATE_SCALE;
+    int dstHeight = ZONE_PLATE_HEIGHT / ZONE_PLATE_SCALE;
+    int[] dst = new int[dstWidth * dstHeight];
+    for (int y = 0; y < dstHeight; y++) {
+      int srcY = y * ZONE_PLATE_SCALE + ZONE_PLATE_SCALE / 2;
+      for (int x = 0; x < dstWidth; x++) {
+        int srcX = x * ZONE_PLATE_SCALE + ZONE_PLATE_SCALE / 2;
+        dst[y * dstWidth + x] = src[srcY * ZONE_PLATE_WIDTH + srcX];
+      }
+    }
+    return dst;
+  }
+
+  private static int[] newZonePlate() {
+    int[] result = new int[ZONE_PLATE_WIDTH * ZONE_PLATE_HEIGHT];
+    for (int y = 0; y < ZONE_PLATE_HEIGHT; y++) {
+      for (int x = 0; x < ZONE_PLATE_WIDTH; x++) {
+        result[y * ZONE_PLATE_WIDTH + x] = gray(zonePlate(x + 0.5f, y + 0.5f));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the peak signal to noise ratio, in decibels, of the given downscaled zone plate
+   * compared to the zone plate averaged over the area of each output pixel.
+   */
+  private static double getZonePlatePeakSignalToNoiseRatio(int[] dst) {
+    int dstWidth = ZONE_PLATE_WIDTH / ZONE_PLATE_SCALE;
+    int dstHeight = ZONE_PLATE_HEIGHT / ZONE_PLATE_SCALE;
+    double squaredError = 0;
+    for (int y = 0; y < dstHeight; y++) {
+      for (int x = 0; x < dstWidth; x++) {
+        float sum = 0;
+        for (int j = 0; j < REFERENCE_SAMPLES; j++) {
+          for (int i = 0; i < REFERENCE_SAMPLES; i++) {
+            sum += zonePlate((x + (i + 0.5f) / REFERENCE_SAMPLES) * ZONE_PLATE_SCALE,
+                (y + (j + 0.5f) / REFERENCE_SAMPLES) * ZONE_PLATE_SCALE);
+          }
+        }
+        float expected = 255f * sum / (REFERENCE_SAMPLES * REFERENCE_SAMPLES);
+        float error = (dst[y * dstWidth + x] & 0xFF) - expected;
+        squaredError += error * error;
+      }
+    }
+    return 10 * Math.log10(255 * 255 / (squaredError / (dstWidth * dstHeight)));
+  }
+
+  /**
+   * Returns the brightness, between 0 and 1, of a zone plate, concentric rings whose frequency
+   * rises towards the edges, at the given point.
+   */
+  private static float zonePlate(float x, float y) {
+    float dx = x - ZONE_PLATE_WIDTH / 2f;
+    float dy = y - ZONE_PLATE_HEIGHT / 2f;
+    return 0.5f + 0.5f * (float) Math.cos(Math.PI * (dx * dx + dy * dy) / ZONE_PLATE_WIDTH);
+  }
+
+  private static int gray(float brightness) {
+    int value = Math.round(brightness * 255);
+    return 0xFF000000 | value << 16 | value << 8 | value;
+  }
+
+  private static int[] filled(int length, int color) {
+    int[] result = new int[length];
+    Arrays.fill(result, color);
+    return result;
+  }
+}
@@ -0,0 +1,228 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SharedDecodesTest {
+  private SharedDecodes sharedDecodes;
+  private BitmapPool bitmapPool;
+  private Key key;
+
+  @Before
+  public void setUp() {
+    sharedDecodes = new SharedDecodes();
+    bitmapPool = Mockito.spy(new BitmapPoolAdapter());
+    key = new ObjectKey("source");
+  }
+
+  @Test
+  public void claim_withoutRegistrations_returnsNull() {
+    assertThat(sharedDecodes.claim(key, 100, 100, Bitmap.Config.ARGB_8888, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void claim_withSingleRegistration_returnsNull() {
+    sharedDecodes.register(key, 100, 100);
+
+    assertThat(sharedDecodes.claim(key, 100, 100, Bitmap.Config.ARGB_8888, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void claim_withMultipleRegistrations_returnsLargestSizeToDecode() {
+    sharedDecodes.register(key, 100, 400);
+    sharedDecodes.register(key, 300, 200);
+
+    SharedDecodes.Claim claim =
+        sharedDecodes.claim(key, 100, 100, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    assertThat(claim).isNotNull();
+    assertThat(claim.getDerived()).isNull();
+    assertThat(claim.getDecodeWidth()).isEqualTo(300);
+    assertThat(claim.getDecodeHeight()).isEqualTo(400);
+  }
+
+  @Test
+  public void claim_withOriginalSizeRegistered_returnsOriginalSizeToDecode() {
+    sharedDecodes.register(key, 100, 100);
+    sharedDecodes.register(key, Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL);
+
+    SharedDecodes.Claim claim =
+        sharedDecodes.claim(key, 100, 100, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    assertThat(claim.getDecodeWidth()).isEqualTo(Target.SIZE_ORIGINAL);
+    assertThat(claim.getDecodeHeight()).isEqualTo(Target.SIZE_ORIGINAL);
+  }
+
+  @Test
+  public void publish_returnsBitmapScaledToRequestedSize() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    SharedDecodes.Claim claim =
+        sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    Bitmap decoded = Bitmap.createBitmap(200, 200, Bitmap.Config.ARGB_8888);
+    Bitmap result = claim.publish(decoded, 200, 100, bitmapPool);
+
+    assertThat(result).isNotSameAs(decoded);
+    assertThat(result.getWidth()).isEqualTo(200);
+    assertThat(result.getHeight()).isEqualTo(100);
+  }
+
+  @Test
+  public void claim_afterPublish_returnsDerivedBitmap() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    publish(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool), 200, 200);
+
+    SharedDecodes.Claim claim =
+        sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    assertThat(claim).isNotNull();
+    assertThat(claim.getDerived().getWidth()).isEqualTo(50);
+    assertThat(claim.getDerived().getHeight()).isEqualTo(50);
+  }
+
+  @Test
+  public void claim_afterPublish_withLargerSize_returnsNull() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    publish(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool), 200, 200);
+
+    assertThat(sharedDecodes.claim(key, 400, 400, Bitmap.Config.ARGB_8888, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void claim_afterPublish_withDifferentConfig_returnsNull() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    publish(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool), 200, 200);
+
+    assertThat(sharedDecodes.claim(key, 50, 50, Bitmap.Config.RGB_565, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void claim_afterAbandon_returnsNewClaimToDecode() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool).abandon();
+
+    SharedDecodes.Claim claim =
+        sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    assertThat(claim).isNotNull();
+    assertThat(claim.getDerived()).isNull();
+  }
+
+  @Test
+  public void unregister_withRemainingRegistrations_keepsSharedBitmap() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    Bitmap decoded =
+        publish(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool), 200, 200);
+
+    sharedDecodes.unregister(key, 200, 200);
+
+    verify(bitmapPool, never()).put(decoded);
+  }
+
+  @Test
+  public void unregister_withLastRegistration_releasesSharedBitmapToPool() {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    Bitmap decoded =
+        publish(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool), 200, 200);
+
+    sharedDecodes.unregister(key, 200, 200);
+    sharedDecodes.unregister(key, 50, 50);
+
+    verify(bitmapPool).put(decoded);
+    assertThat(sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void claim_whileDecoding_waitsForPublish() throws InterruptedException {
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    SharedDecodes.Claim leader =
+        sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    final AtomicReference<SharedDecodes.Claim> follower = new AtomicReference<>();
+    final CountDownLatch latch = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        follower.set(sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool));
+        latch.countDown();
+      }
+    });
+    thread.start();
+
+    assertThat(latch.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    publish(leader, 200, 200);
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(follower.get().getDerived().getWidth()).isEqualTo(50);
+  }
+
+  @Test
+  public void claim_whileDecoding_returnsNullIfDecodeDoesNotFinishInTime() {
+    sharedDecodes = new SharedDecodes(/*maxWaitMillis=*/ 50);
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    assertThat(sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool))
+        .isNotNull();
+
+    assertThat(sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool)).isNull();
+  }
+
+  @Test
+  public void cancelWait_whileClaimIsWaiting_returnsNullFromClaim() throws InterruptedException {
+    sharedDecodes = new SharedDecodes(/*maxWaitMillis=*/ TimeUnit.MINUTES.toMillis(1));
+    sharedDecodes.register(key, 200, 200);
+    sharedDecodes.register(key, 50, 50);
+    sharedDecodes.claim(key, 200, 200, Bitmap.Config.ARGB_8888, bitmapPool);
+
+    final AtomicReference<SharedDecodes.Claim> follower = new AtomicReference<>();
+    final CountDownLatch latch = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        follower.set(sharedDecodes.claim(key, 50, 50, Bitmap.Config.ARGB_8888, bitmapPool));
+        latch.countDown();
+      }
+    });
+    thread.start();
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+
+    sharedDecodes.cancelWait(key, thread);
+
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(follower.get()).isNull();
+  }
+
+  private Bitmap publish(SharedDecodes.Claim claim, int width, int height) {
+    Bitmap decoded = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    claim.publish(decoded, width, height, bitmapPool);
+    return decoded;
+  }
+}
@@ -13,12 +13,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.graphics.Bitmap;
+import android.graphics.Color;
 import android.graphics.Matrix;
 import android.media.ExifInterface;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.tests.Util;
 import com.bumptech.glide.util.Preconditions;
 import com.google.common.collect.Range;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,6 +47,11 @@ public class TransformationUtilsTest {
         .thenAnswer(new Util.CreateBitmap());
   }
 
+  @After
+  public void tearDown() {
+    BitmapTransformation.setCurrentBackend(null);
+  }
+
   @Test
   public void testFitCenterWithWideBitmap() {
     final int maxSide = 500;
@@ -436,6 +443,60 @@ public class TransformationUtilsTest {
     verify(matrix).setRotate(-90);
   }
 
+  @Test
+  public void centerCrop_withPixelBackend_resamplesCenterOfBitmap() {
+    BitmapTransformation.setCurrentBackend(BitmapTransformation.Backend.PIXELS_AREA_AVERAGING);
+    Bitmap toCrop = Bitmap.createBitmap(4, 2, Bitmap.Config.ARGB_8888);
+    toCrop.setPixels(new int[] {
+        Color.BLACK, Color.RED, Color.RED, Color.BLACK,
+        Color.BLACK, Color.RED, Color.RED, Color.BLACK,
+    }, 0, 4, 0, 0, 4, 2);
+
+    Bitmap cropped = TransformationUtils.centerCrop(bitmapPool, toCrop, 1, 1);
+
+    assertThat(cropped.getWidth()).isEqualTo(1);
+    assertThat(cropped.getHeight()).isEqualTo(1);
+    assertThat(cropped.getPixel(0, 0)).isEqualTo(Color.RED);
+  }
+
+  @Test
+  public void rotateImageExif_withPixelBackend_rotatesPixels() {
+    BitmapTransformation.setCurrentBackend(BitmapTransformation.Backend.PIXELS_LANCZOS);
+    Bitmap toRotate = Bitmap.createBitmap(2, 1, Bitmap.Config.ARGB_8888);
+    toRotate.setPixels(new int[] { Color.RED, Color.BLUE }, 0, 2, 0, 0, 2, 1);
+
+    Bitmap rotated = TransformationUtils.rotateImageExif(
+        bitmapPool, toRotate, ExifInterface.ORIENTATION_ROTATE_90);
+
+    assertThat(rotated.getWidth()).isEqualTo(1);
+    assertThat(rotated.getHeight()).isEqualTo(2);
+    assertThat(rotated.getPixel(0, 0)).isEqualTo(Color.RED);
+    assertThat(rotated.getPixel(0, 1)).isEqualTo(Color.BLUE);
+  }
+
+  @Test
+  public void circleCrop_withPixelBackend_returnsBitmapWithTransparentCorners() {
+    BitmapTransformation.setCurrentBackend(BitmapTransformation.Backend.PIXELS_AREA_AVERAGING);
+    Bitmap toCrop = Bitmap.createBitmap(40, 20, Bitmap.Config.RGB_565);
+
+    Bitmap cropped = TransformationUtils.circleCrop(bitmapPool, toCrop, 10, 10);
+
+    assertThat(cropped.getConfig()).isEqualTo(Bitmap.Config.ARGB_8888);
+    assertThat(cropped.getWidth()).isEqualTo(10);
+    assertThat(cropped.hasAlpha()).isTrue();
+    assertThat(Color.alpha(cropped.getPixel(0, 0))).isEqualTo(0);
+  }
+
+  @Test
+  public void centerCrop_withPixelBackendAndUnsupportedConfig_drawsWithCanvas() {
+    BitmapTransformation.setCurrentBackend(BitmapTransformation.Backend.PIXELS_AREA_AVERAGING);
+    Bitmap toCrop = Bitmap.createBitmap(200, 100, Bitmap.Config.ARGB_4444);
+
+    Bitmap cropped = TransformationUtils.centerCrop(bitmapPool, toCrop, 50, 50);
+
+    assertThat(Shadows.shadowOf(cropped).getDescription()).contains("transformed by Matrix");
+  }
+
   @Implements(Bitmap.class)
   public static class AlphaShadowBitmap extends ShadowBitmap {
 
@@ -0,0 +1,93 @@
+package com.bumptech.glide.load.resource.region;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.google.common.testing.EqualsTester;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class TileTest {
+  private BitmapRegionDecoder decoder;
+
+  @Before
+  public void setUp() throws IOException {
+    decoder = newDecoder();
+  }
+
+  @Test
+  public void testEquality() throws IOException {
+    new EqualsTester()
+        .addEqualityGroup(
+            new Tile(decoder, new Rect(0, 0, 100, 100), 1),
+            new Tile(decoder, new Rect(0, 0, 100, 100), 1))
+        .addEqualityGroup(new Tile(decoder, new Rect(0, 0, 100, 100), 2))
+        .addEqualityGroup(new Tile(decoder, new Rect(100, 0, 200, 100), 1))
+        .addEqualityGroup(new Tile(newDecoder(), new Rect(0, 0, 100, 100), 1))
+        .testEquals();
+  }
+
+  @Test
+  public void getWidthAndHeight_withSampleSize_returnsSampledDimensions() {
+    Tile tile = new Tile(decoder, new Rect(0, 0, 101, 64), 4);
+
+    assertThat(tile.getWidth()).isEqualTo(25);
+    assertThat(tile.getHeight()).isEqualTo(16);
+  }
+
+  @Test
+  public void getWidthAndHeight_withSampleSizeLargerThanRegion_returnsOne() {
+    Tile tile = new Tile(decoder, new Rect(0, 0, 3, 3), 8);
+
+    assertThat(tile.getWidth()).isEqualTo(1);
+    assertThat(tile.getHeight()).isEqualTo(1);
+  }
+
+  @Test
+  public void getRegion_returnsCopy() {
+    Tile tile = new Tile(decoder, new Rect(10, 20, 30, 40), 1);
+
+    tile.getRegion().offset(5, 5);
+
+    assertThat(tile.getRegion()).isEqualTo(new Rect(10, 20, 30, 40));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withEmptyRegion_throws() {
+    new Tile(decoder, new Rect(10, 10, 10, 20), 1);
+  }
+
+  @Test
+  public void decode_returnsBitmapForTile() {
+    // Robolectric's BitmapRegionDecoder ignores the sample size.
+    Tile tile = new Tile(decoder, new Rect(0, 0, 100, 50), 1);
+
+    Resource<Bitmap> resource =
+        new TileDecoder(new BitmapPoolAdapter()).decode(tile, 100, 100, new Options());
+
+    assertThat(resource).isNotNull();
+    assertThat(resource.get().getWidth()).isEqualTo(100);
+    assertThat(resource.get().getHeight()).isEqualTo(50);
+  }
+
+  private static BitmapRegionDecoder newDecoder() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Bitmap.createBitmap(400, 300, Bitmap.Config.ARGB_8888)
+        .compress(Bitmap.CompressFormat.PNG, 100, os);
+    return BitmapRegionDecoder.newInstance(
+        new ByteArrayInputStream(os.toByteArray()), /*isShareable=*/ false);
+  }
+}
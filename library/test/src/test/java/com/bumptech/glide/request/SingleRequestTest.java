@@ -8,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
@@ -16,13 +17,16 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideMetricsListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
@@ -32,6 +36,7 @@ import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.request.target.ProgressiveTarget;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.transition.Transition;
@@ -293,6 +298,66 @@ public class SingleRequestTest {
     verify(loadStatus).cancel();
   }
 
+  @Test
+  public void setPriority_afterLoadStarted_updatesLoadPriority() {
+    Engine.LoadStatus loadStatus = mock(Engine.LoadStatus.class);
+
+    when(builder.engine
+        .load(
+            eq(builder.glideContext),
+            eq(builder.model),
+            eq(builder.signature),
+            anyInt(),
+            anyInt(),
+            eq(Object.class),
+            eq(List.class),
+            any(Priority.class),
+            any(DiskCacheStrategy.class),
+            eq(builder.transformations),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            any(ResourceCallback.class)))
+        .thenReturn(loadStatus);
+
+    SingleRequest<List> request = builder.build();
+    request.begin();
+    request.onSizeReady(100, 100);
+    request.setPriority(Priority.IMMEDIATE);
+
+    verify(loadStatus).setPriority(Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void onResourceReady_withMetricsListener_reportsRequestComplete() {
+    GlideMetricsListener metricsListener = mock(GlideMetricsListener.class);
+    when(builder.glideContext.getMetricsListener()).thenReturn(metricsListener);
+    SingleRequest<List> request = builder.build();
+    request.begin();
+
+    request.onResourceReady(builder.resource, DataSource.DATA_DISK_CACHE);
+
+    verify(metricsListener)
+        .onRequestComplete(eq(builder.model), eq(DataSource.DATA_DISK_CACHE), anyLong());
+    verify(metricsListener, never()).onRequestFailed(any(), anyLong());
+  }
+
+  @Test
+  public void onLoadFailed_withMetricsListener_reportsRequestFailed() {
+    GlideMetricsListener metricsListener = mock(GlideMetricsListener.class);
+    when(builder.glideContext.getMetricsListener()).thenReturn(metricsListener);
+    SingleRequest<List> request = builder.build();
+    request.begin();
+
+    request.onLoadFailed(new GlideException("test"));
+
+    verify(metricsListener).onRequestFailed(eq(builder.model), anyLong());
+  }
+
   @Test
   public void testResourceIsRecycledOnClear() {
     SingleRequest<List> request = builder.build();
@@ -849,6 +914,74 @@ public class SingleRequestTest {
             any(ResourceCallback.class));
   }
 
+  @Test
+  public void testIsIntermediateResourceRequested_matchesRequestOptions() {
+    assertFalse(builder.build().isIntermediateResourceRequested());
+    assertTrue(builder.setUseProgressivePreviews(true).build().isIntermediateResourceRequested());
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_passesPreviewToProgressiveTarget() {
+    Target<List> target = mockProgressiveTarget();
+    SingleRequest<List> request = builder
+        .setTarget(target)
+        .setUseProgressivePreviews(true)
+        .build();
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    Bitmap preview = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    request.onIntermediateResourceReady(preview);
+
+    verify((ProgressiveTarget) target).onIntermediateResourceReady(preview);
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_whenListenerHandlesPreview_doesNotPassToTarget() {
+    Target<List> target = mockProgressiveTarget();
+    @SuppressWarnings("unchecked")
+    RequestListener<List> listener = mock(RequestListener.class,
+        withSettings().extraInterfaces(ProgressiveRequestListener.class));
+    Bitmap preview = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    when(((ProgressiveRequestListener) listener)
+        .onIntermediateResourceReady(preview, builder.model, target))
+        .thenReturn(true);
+    SingleRequest<List> request = builder
+        .setTarget(target)
+        .addRequestListener(listener)
+        .setUseProgressivePreviews(true)
+        .build();
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    request.onIntermediateResourceReady(preview);
+
+    verify((ProgressiveRequestListener) listener)
+        .onIntermediateResourceReady(preview, builder.model, target);
+    verify((ProgressiveTarget) target, never()).onIntermediateResourceReady(any(Bitmap.class));
+  }
+
+  @Test
+  public void testOnIntermediateResourceReady_afterResourceReady_isIgnored() {
+    Target<List> target = mockProgressiveTarget();
+    SingleRequest<List> request = builder
+        .setTarget(target)
+        .setUseProgressivePreviews(true)
+        .build();
+    request.begin();
+    request.onSizeReady(100, 100);
+    request.onResourceReady(builder.resource, DataSource.REMOTE);
+
+    request.onIntermediateResourceReady(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+    verify((ProgressiveTarget) target, never()).onIntermediateResourceReady(any(Bitmap.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Target<List> mockProgressiveTarget() {
+    return mock(Target.class, withSettings().extraInterfaces(ProgressiveTarget.class));
+  }
+
   @Test
   // Varargs
   @SuppressWarnings("unchecked")
@@ -913,6 +1046,7 @@ public class SingleRequestTest {
     private final Key signature = new ObjectKey(12345);
     private Priority priority = Priority.HIGH;
     private boolean useUnlimitedSourceGeneratorsPool = false;
+    private boolean useProgressivePreviews = false;
     private final Class<List> transcodeClass = List.class;
     private final Map<Class<?>, Transformation<?>> transformations = new HashMap<>();
 
@@ -994,6 +1128,11 @@ public class SingleRequestTest {
       return this;
     }
 
+    SingleRequestBuilder setUseProgressivePreviews(boolean useProgressivePreviews) {
+      this.useProgressivePreviews = useProgressivePreviews;
+      return this;
+    }
+
     SingleRequest<List> build() {
       RequestOptions requestOptions = new RequestOptions()
           .error(errorDrawable)
@@ -1002,7 +1141,8 @@ public class SingleRequestTest {
           .override(overrideWidth, overrideHeight)
           .priority(priority)
           .signature(signature)
-          .useUnlimitedSourceGeneratorsPool(useUnlimitedSourceGeneratorsPool);
+          .useUnlimitedSourceGeneratorsPool(useUnlimitedSourceGeneratorsPool)
+          .useProgressivePreviews(useProgressivePreviews);
       return SingleRequest.obtain(
           /*context=*/glideContext,
           /*glideContext=*/glideContext,
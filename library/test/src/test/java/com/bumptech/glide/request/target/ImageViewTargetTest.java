@@ -10,6 +10,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.ColorDrawable;
@@ -134,6 +135,26 @@ public class ImageViewTargetTest {
     verify(animatedDrawable).stop();
   }
 
+  @Test
+  public void onIntermediateResourceReady_setsPreviewOnView() {
+    Bitmap preview = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    ImageView view = mock(ImageView.class);
+    target = new TestTarget(view);
+
+    target.onIntermediateResourceReady(preview);
+
+    verify(view).setImageBitmap(preview);
+  }
+
+  @Test
+  public void onIntermediateResourceReady_withAnimatableDrawable_stopsDrawable() {
+    target.onResourceReady(animatedDrawable, /*transition=*/ null);
+
+    target.onIntermediateResourceReady(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+    verify(animatedDrawable).stop();
+  }
+
   private abstract static class AnimatedDrawable extends Drawable implements Animatable {
     // Intentionally empty.
   }
@@ -0,0 +1,61 @@
+package com.bumptech.glide.request.target;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Rect;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class TiledImageTargetTest {
+
+  @Test
+  public void getSampleSize_atFullScaleOrLarger_returnsOne() {
+    assertThat(TiledImageTarget.getSampleSize(1f)).isEqualTo(1);
+    assertThat(TiledImageTarget.getSampleSize(3f)).isEqualTo(1);
+    assertThat(TiledImageTarget.getSampleSize(0.75f)).isEqualTo(1);
+  }
+
+  @Test
+  public void getSampleSize_whenZoomedOut_returnsLargestPowerOfTwoNotLargerThanInverseScale() {
+    assertThat(TiledImageTarget.getSampleSize(0.5f)).isEqualTo(2);
+    assertThat(TiledImageTarget.getSampleSize(0.3f)).isEqualTo(2);
+    assertThat(TiledImageTarget.getSampleSize(0.25f)).isEqualTo(4);
+    assertThat(TiledImageTarget.getSampleSize(0.01f)).isEqualTo(64);
+  }
+
+  @Test
+  public void getVisibleRegions_returnsTilesOverlappingViewport() {
+    assertThat(TiledImageTarget.getVisibleRegions(
+        new Rect(150, 50, 250, 150), 1000, 1000, /*tileSize=*/ 100, /*sampleSize=*/ 1))
+        .containsExactly(
+            new Rect(100, 0, 200, 100),
+            new Rect(200, 0, 300, 100),
+            new Rect(100, 100, 200, 200),
+            new Rect(200, 100, 300, 200));
+  }
+
+  @Test
+  public void getVisibleRegions_withSampleSize_coversLargerRegionPerTile() {
+    assertThat(TiledImageTarget.getVisibleRegions(
+        new Rect(0, 0, 300, 100), 1000, 1000, /*tileSize=*/ 100, /*sampleSize=*/ 4))
+        .containsExactly(new Rect(0, 0, 400, 400));
+  }
+
+  @Test
+  public void getVisibleRegions_clipsTilesToImage() {
+    assertThat(TiledImageTarget.getVisibleRegions(
+        new Rect(200, 200, 500, 500), 250, 220, /*tileSize=*/ 100, /*sampleSize=*/ 1))
+        .containsExactly(new Rect(200, 200, 250, 220));
+  }
+
+  @Test
+  public void getVisibleRegions_withViewportOutsideImage_returnsEmpty() {
+    assertThat(TiledImageTarget.getVisibleRegions(
+        new Rect(2000, 2000, 2100, 2100), 1000, 1000, /*tileSize=*/ 100, /*sampleSize=*/ 1))
+        .isEmpty();
+  }
+}